@@ -18,28 +18,83 @@
 
 package org.gophie;
 
+import org.gophie.config.ConfigurationManager;
+import org.gophie.config.ResourceRegistry;
+import org.gophie.history.VisitLog;
+import org.gophie.monitor.EdtWatchdog;
+import org.gophie.monitor.MemoryPressureMonitor;
+import org.gophie.monitor.MetricsRegistry;
+import org.gophie.monitor.StartupProfiler;
+import org.gophie.net.InstanceChannel;
+import org.gophie.net.PrefetchedRequest;
 import org.gophie.ui.MainWindow;
+import org.gophie.ui.util.GuiUtil;
 
 import javax.swing.*;
+import java.util.List;
 
 public class Gophie {
     /**
      * Create the GUI and show it.  For thread safety,
      * this method should be invoked from the
      * event-dispatching thread.
+     *
+     * @param startFetch The request of the start page or null
      */
-    private static void createAndShowGUI() {
-        MainWindow window = new MainWindow();
+    private static void createAndShowGUI(PrefetchedRequest startFetch, List<String> addresses) {
+        MainWindow window = new MainWindow(startFetch);
         window.show();
+
+        /* open the addresses passed on the command line
+            and those handed over by later launches */
+        if (!addresses.isEmpty()) {
+            window.openAddresses(addresses);
+        }
+        InstanceChannel.listen(handedOver -> SwingUtilities.invokeLater(() -> window.openAddresses(handedOver)));
     }
 
     public static void main(String[] args) {
+        /* a running instance opens the addresses, this launch is done */
+        if (InstanceChannel.handOver(args)) {
+            return;
+        }
+
+        /* take the socket before building the window, another
+            launch that got there first gets the addresses */
+        if (ConfigurationManager.getSnapshot().getBooleanSetting("SINGLE_INSTANCE", "Navigation", true)
+                && !InstanceChannel.bind() && InstanceChannel.handOver(args)) {
+            return;
+        }
+
+        StartupProfiler.mark("main started");
+
+        /* release caches before the heap runs out */
+        MemoryPressureMonitor.start();
+        StartupProfiler.mark("configuration read");
+
+        /* report events that keep the interface busy for too long */
+        EdtWatchdog.start();
+
+        /* publish the metrics for JConsole and VisualVM */
+        MetricsRegistry.register();
+
+        /* apply changes made to the config file while running */
+        ConfigurationManager.startWatching();
+
+        /* the start page is fetched while the window is built */
+        PrefetchedRequest startFetch = MainWindow.prefetchStartPage();
+
+        /* read the visited addresses, fonts and theme while the window is built */
+        VisitLog.load();
+        ResourceRegistry.preloadFonts();
+        GuiUtil.preloadTheme();
+
         /* remove the borders for the pane */
         UIManager.getDefaults().put("SplitPane.border", BorderFactory.createEmptyBorder());
         UIManager.getDefaults().put("ScrollPane.border", BorderFactory.createEmptyBorder());
 
         /* Schedule a job for the event-dispatching thread:
             creating and showing this application's GUI. */
-        SwingUtilities.invokeLater(Gophie::createAndShowGUI);
+        SwingUtilities.invokeLater(() -> createAndShowGUI(startFetch, List.of(args)));
     }
 }
\ No newline at end of file
@@ -73,6 +73,31 @@ public class ConfigFile {
         return result;
     }
 
+    /**
+     * Gets a numeric setting from the config map
+     *
+     * @param name         Name of the setting
+     * @param section      Section the setting is in
+     * @param defaultValue Default value to return
+     * @return Returns the setting value as integer or the default
+     * value if the setting is not present or not a number
+     */
+    public int getIntSetting(String name, String section, int defaultValue) {
+        int result = defaultValue;
+
+        String value = getSetting(name, section, "");
+        if (!value.isEmpty()) {
+            try {
+                result = Integer.parseInt(value);
+            } catch (NumberFormatException ex) {
+                /* keep the default and tell about the bad value */
+                log.error("Setting {} in section {} is not a number: {}", name, section, value);
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Adds a setting to the current config map
      *
@@ -0,0 +1,204 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable copy of the configuration file taken when it was
+ * read. Settings read on every page or paint are parsed once
+ * into fields, all others are looked up by name.
+ */
+@Slf4j
+public final class ConfigSnapshot {
+    /* defaults of the settings parsed into fields */
+    private static final String DEFAULT_CHARSET = "UTF-8";
+    private static final String DEFAULT_GOPHERHOME = "gopher.floodgap.com";
+
+    /* settings by section and name */
+    private final Map<String, Map<String, String>> settingMap;
+
+    private final Charset defaultCharset;
+    private final boolean selectorPrefixEnabled;
+    private final String gopherHome;
+    private final String pageFont;
+    private final float pageFontSize;
+
+    /**
+     * Copies the settings of a configuration file
+     *
+     * @param configFile The configuration file to copy
+     */
+    ConfigSnapshot(ConfigFile configFile) {
+        Map<String, Map<String, String>> sections = new HashMap<>();
+        configFile.config.forEach((section, settings) -> sections.put(section, Map.copyOf(settings)));
+        settingMap = Map.copyOf(sections);
+
+        defaultCharset = parseCharset(getSetting("DEFAULT_CHARSET", "Network", DEFAULT_CHARSET));
+        selectorPrefixEnabled = getBooleanSetting("SELECTOR_PREFIX_ENABLED", "Navigation", true);
+        gopherHome = getSetting("GOPHERHOME", "Navigation", DEFAULT_GOPHERHOME);
+        pageFont = getSetting("PAGE_FONT", "Appearance", "");
+        pageFontSize = getIntSetting("PAGE_FONT_SIZE", "Appearance", -1);
+    }
+
+    /**
+     * Gets a setting
+     *
+     * @param name         Name of the setting
+     * @param section      Section the setting is in
+     * @param defaultValue Default value to return
+     * @return Returns the setting value or the default
+     * value if the setting or its section is not present
+     */
+    public String getSetting(String name, String section, String defaultValue) {
+        Map<String, String> sectionMap = settingMap.get(section);
+        if (sectionMap == null) {
+            return defaultValue;
+        }
+
+        return sectionMap.getOrDefault(name, defaultValue);
+    }
+
+    /**
+     * Gets a numeric setting
+     *
+     * @param name         Name of the setting
+     * @param section      Section the setting is in
+     * @param defaultValue Default value to return
+     * @return Returns the setting value as integer or the default
+     * value if the setting is not present or not a number
+     */
+    public int getIntSetting(String name, String section, int defaultValue) {
+        int result = defaultValue;
+
+        String value = getSetting(name, section, "");
+        if (!value.isEmpty()) {
+            try {
+                result = Integer.parseInt(value);
+            } catch (NumberFormatException ex) {
+                /* keep the default and tell about the bad value */
+                log.error("Setting {} in section {} is not a number: {}", name, section, value);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets a setting that is turned on with yes
+     *
+     * @param name         Name of the setting
+     * @param section      Section the setting is in
+     * @param defaultValue Default value to return
+     * @return Returns true when the setting is yes, the default
+     * value if the setting is not present
+     */
+    public boolean getBooleanSetting(String name, String section, boolean defaultValue) {
+        String value = getSetting(name, section, "");
+        return value.isEmpty() ? defaultValue : value.equals("yes");
+    }
+
+    /**
+     * Returns whether a section has the same settings as
+     * in another snapshot
+     *
+     * @param other   The snapshot to compare with
+     * @param section The name of the section
+     * @return true when the settings are the same, otherwise false
+     */
+    public boolean isSectionEqual(ConfigSnapshot other, String section) {
+        return Objects.equals(settingMap.get(section), other.settingMap.get(section));
+    }
+
+    /**
+     * Returns the charset used to decode gopher pages
+     *
+     * @return The configured charset or UTF-8 when invalid
+     */
+    public Charset getDefaultCharset() {
+        return defaultCharset;
+    }
+
+    /**
+     * Returns whether urls are prefixed with the item type
+     *
+     * @return true when selector prefixes are enabled
+     */
+    public boolean isSelectorPrefixEnabled() {
+        return selectorPrefixEnabled;
+    }
+
+    /**
+     * Returns the address of the gopher home
+     *
+     * @return The configured gopher home
+     */
+    public String getGopherHome() {
+        return gopherHome;
+    }
+
+    /**
+     * Returns the font configured for pages
+     *
+     * @return The name of the font, empty when not configured
+     */
+    public String getPageFont() {
+        return pageFont;
+    }
+
+    /**
+     * Returns the size configured for the page font
+     *
+     * @return The size, negative when not configured
+     */
+    public float getPageFontSize() {
+        return pageFontSize;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ConfigSnapshot && settingMap.equals(((ConfigSnapshot) other).settingMap);
+    }
+
+    @Override
+    public int hashCode() {
+        return settingMap.hashCode();
+    }
+
+    /**
+     * Returns the charset of a name
+     *
+     * @param name The name of the charset
+     * @return The charset or UTF-8 when it is not supported
+     */
+    private static Charset parseCharset(String name) {
+        try {
+            return Charset.forName(name);
+        } catch (IllegalArgumentException ex) {
+            log.error("Charset {} is not supported, using UTF-8", name);
+            return StandardCharsets.UTF_8;
+        }
+    }
+}
@@ -19,25 +19,43 @@
 package org.gophie.config;
 
 import lombok.extern.slf4j.Slf4j;
+import org.gophie.config.event.ConfigChangeListener;
 
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 public class ConfigurationManager {
     private static final String MAIN_CONFIG_FILENAME = "config.ini";
     private static final String CONFIG_FOLDERNAME = "Gophie";
+    /* editors write a file in several steps, reload once they are done */
+    private static final long RELOAD_DELAY = 250;
     private static ConfigFile configFile;
+    /* settings as of the last time the file was read */
+    private static volatile ConfigSnapshot snapshot;
+    private static final List<ConfigChangeListener> changeListenerList = new CopyOnWriteArrayList<>();
+    private static boolean watching = false;
 
     /**
      * Returns the main configuration file
      *
      * @return The main configuration file as ConfigFile
      */
-    public static ConfigFile getConfigFile() {
+    public static synchronized ConfigFile getConfigFile() {
         if (ConfigurationManager.configFile == null) {
             String configFileName = ConfigurationManager.getConfigPath() + MAIN_CONFIG_FILENAME;
             ConfigurationManager.configFile = new ConfigFile(configFileName);
@@ -46,6 +64,122 @@ public class ConfigurationManager {
         return ConfigurationManager.configFile;
     }
 
+    /**
+     * Returns the settings as of the last time the
+     * configuration file was read, without locking
+     *
+     * @return The current settings
+     */
+    public static ConfigSnapshot getSnapshot() {
+        ConfigSnapshot result = snapshot;
+        if (result == null) {
+            synchronized (ConfigurationManager.class) {
+                if (snapshot == null) {
+                    snapshot = new ConfigSnapshot(getConfigFile());
+                }
+                result = snapshot;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads the configuration file again and tells the
+     * listeners about the settings that changed
+     */
+    public static void reload() {
+        ConfigSnapshot previous;
+        ConfigSnapshot current;
+        synchronized (ConfigurationManager.class) {
+            previous = getSnapshot();
+            configFile = new ConfigFile(getConfigPath() + MAIN_CONFIG_FILENAME);
+            current = new ConfigSnapshot(configFile);
+            if (current.equals(previous)) {
+                return;
+            }
+            snapshot = current;
+        }
+
+        log.info("Configuration file changed, applying new settings");
+        ResourceRegistry.invalidate();
+        for (ConfigChangeListener listener : changeListenerList) {
+            listener.configChanged(previous, current);
+        }
+    }
+
+    public static void addChangeListener(ConfigChangeListener listener) {
+        changeListenerList.add(listener);
+    }
+
+    public static void removeChangeListener(ConfigChangeListener listener) {
+        changeListenerList.remove(listener);
+    }
+
+    /**
+     * Reloads the configuration file in the background whenever
+     * it changes. Calling this more than once has no effect.
+     */
+    public static synchronized void startWatching() {
+        if (watching) {
+            return;
+        }
+
+        WatchService watchService;
+        Path configPath = Paths.get(getConfigPath());
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            configPath.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException ex) {
+            log.error("Unable to watch the configuration file: {}", ex.getMessage());
+            return;
+        }
+        watching = true;
+
+        Thread watchThread = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watchService.take();
+                    boolean changed = isConfigFileEvent(key);
+
+                    /* collect the events of the same save */
+                    while ((key = watchService.poll(RELOAD_DELAY, TimeUnit.MILLISECONDS)) != null) {
+                        changed |= isConfigFileEvent(key);
+                    }
+
+                    if (changed) {
+                        reload();
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }, "config-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * Returns whether the events of a key are about the
+     * configuration file and makes the key watch again
+     *
+     * @param key The key with the events
+     * @return true when the configuration file changed, otherwise false
+     */
+    private static boolean isConfigFileEvent(WatchKey key) {
+        boolean result = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path
+                    && ((Path) event.context()).getFileName().toString().equals(MAIN_CONFIG_FILENAME)) {
+                result = true;
+            }
+        }
+        key.reset();
+
+        return result;
+    }
+
     /**
      * Returns the configuration directory's path
      *
@@ -70,19 +204,7 @@ public class ConfigurationManager {
      * @return The Font object with the font
      */
     public static Font getFont(String fileName, float size) {
-        Font result = null;
-
-        try {
-            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
-            result = Font.createFont(Font.TRUETYPE_FONT, Objects.requireNonNull(classLoader.getResourceAsStream(fileName))).deriveFont(size);
-            GraphicsEnvironment graphicsEnvironment = GraphicsEnvironment.getLocalGraphicsEnvironment();
-            graphicsEnvironment.registerFont(result);
-        } catch (Exception ex) {
-            /* Ouchie, this will look bad... */
-            log.error("Unable to load font: {}", ex.getMessage());
-        }
-
-        return result;
+        return ResourceRegistry.getFont(fileName, size);
     }
 
     /**
@@ -147,13 +269,13 @@ public class ConfigurationManager {
         Font result;
 
         /* get the font from the configuration file */
-        String fontName = ConfigurationManager.getConfigFile().getSetting("PAGE_FONT", "Appearance", "");
+        String fontName = ConfigurationManager.getSnapshot().getPageFont();
         if (fontName.isEmpty()) {
             /* no font provided in config, use default */
             result = ConfigurationManager.getFont("Inconsolata-Regular.ttf", size);
         } else {
             /* system font defined, use that one instead */
-            result = new Font(fontName, Font.PLAIN, (int) size);
+            result = ResourceRegistry.getSystemFont(fontName, (int) size);
         }
 
         return result;
@@ -169,10 +291,9 @@ public class ConfigurationManager {
         float result = defaultSize;
 
         /* get the configured font size for the console font */
-        String fontSize = ConfigurationManager.getConfigFile().getSetting("PAGE_FONT_SIZE", "Appearance", "");
-        if (!fontSize.isEmpty()) {
-            /* parse the font size and cast it to float */
-            result = (float) Integer.parseInt(fontSize);
+        float fontSize = ConfigurationManager.getSnapshot().getPageFontSize();
+        if (fontSize > 0) {
+            result = fontSize;
         }
 
         return result;
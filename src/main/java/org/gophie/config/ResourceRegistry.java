@@ -0,0 +1,152 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.awt.*;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the fonts and colours used while painting. Each font
+ * file is read once and every size is derived once, configured
+ * colours are decoded once. Derived fonts and colours are
+ * dropped when the theme, font size or configuration changes.
+ */
+@Slf4j
+public class ResourceRegistry {
+    /* fonts bundled with the application */
+    private static final String[] FONT_FILENAMES = {"Feather.ttf", "Inconsolata-Regular.ttf", "OpenSans-Regular.ttf"};
+
+    /* fonts read from the resources by file name, never dropped */
+    private static final Map<String, Font> baseFontMap = new ConcurrentHashMap<>();
+    /* fonts by file or family name and size */
+    private static final Map<String, Font> fontMap = new ConcurrentHashMap<>();
+    /* colours by setting or by their hex value */
+    private static final Map<String, Color> colorMap = new ConcurrentHashMap<>();
+
+    /**
+     * Returns a font from the resources in a size
+     *
+     * @param fileName Filename of the font in the resources path
+     * @param size     Size of the font
+     * @return The font or null when the file cannot be read
+     */
+    public static Font getFont(String fileName, float size) {
+        String key = fileName + "@" + size;
+        Font result = fontMap.get(key);
+        if (result == null) {
+            Font baseFont = baseFontMap.computeIfAbsent(fileName, ResourceRegistry::loadFont);
+            if (baseFont != null) {
+                result = baseFont.deriveFont(size);
+                fontMap.put(key, result);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns a font installed on the system in a size
+     *
+     * @param fontName The name of the font
+     * @param size     Size of the font
+     * @return The font
+     */
+    public static Font getSystemFont(String fontName, int size) {
+        return fontMap.computeIfAbsent("system:" + fontName + "@" + size,
+                key -> new Font(fontName, Font.PLAIN, size));
+    }
+
+    /**
+     * Returns a colour from the configuration
+     *
+     * @param name         The name of the setting
+     * @param section      The section of the setting
+     * @param defaultValue The hex value used when not configured
+     * @return The colour
+     */
+    public static Color getColor(String name, String section, String defaultValue) {
+        String key = section + "/" + name + "/" + defaultValue;
+        Color result = colorMap.get(key);
+        if (result == null) {
+            result = decodeColor(ConfigurationManager.getSnapshot().getSetting(name, section, defaultValue));
+            colorMap.put(key, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the colour of a hex value
+     *
+     * @param hexValue The value like #248AC2
+     * @return The colour
+     */
+    public static Color decodeColor(String hexValue) {
+        return colorMap.computeIfAbsent(hexValue, Color::decode);
+    }
+
+    /**
+     * Drops the derived fonts and decoded colours so they
+     * are created again with the current settings
+     */
+    public static void invalidate() {
+        fontMap.clear();
+        colorMap.clear();
+    }
+
+    /**
+     * Reads the fonts from the resources in the background,
+     * so that building the window does not wait for them
+     */
+    public static void preloadFonts() {
+        Thread fontThread = new Thread(() -> {
+            for (String fileName : FONT_FILENAMES) {
+                baseFontMap.computeIfAbsent(fileName, ResourceRegistry::loadFont);
+            }
+        }, "font-loader");
+        fontThread.setDaemon(true);
+        fontThread.start();
+    }
+
+    /**
+     * Reads a font file from the resources
+     *
+     * @param fileName Filename of the font in the resources path
+     * @return The font or null when it cannot be read
+     */
+    private static Font loadFont(String fileName) {
+        Font result = null;
+
+        try {
+            ClassLoader classLoader = ResourceRegistry.class.getClassLoader();
+            result = Font.createFont(Font.TRUETYPE_FONT, Objects.requireNonNull(classLoader.getResourceAsStream(fileName)));
+            GraphicsEnvironment graphicsEnvironment = GraphicsEnvironment.getLocalGraphicsEnvironment();
+            graphicsEnvironment.registerFont(result);
+        } catch (Exception ex) {
+            /* Ouchie, this will look bad... */
+            log.error("Unable to load font: {}", ex.getMessage());
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,29 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.config.event;
+
+import org.gophie.config.ConfigSnapshot;
+
+/*
+    Listener for changes of the configuration file,
+    called on the thread that reloaded it
+*/
+public interface ConfigChangeListener {
+    void configChanged(ConfigSnapshot previous, ConfigSnapshot current);
+}
@@ -0,0 +1,256 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.history;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Radix tree of visited addresses. Every node knows the
+ * best rank below it, so the best completions of a prefix
+ * are found without looking at the rest of the subtree.
+ * Ranks only ever grow, which keeps updates to a single
+ * walk down the tree.
+ */
+class UrlTrie {
+    private final Node root = new Node("");
+    private int size = 0;
+
+    /**
+     * Sets the rank of an address, adding it when it is new
+     *
+     * @param url  The address without protocol
+     * @param rank The new rank, never lower than the previous one
+     */
+    void put(String url, double rank) {
+        Node node = root;
+        int offset = 0;
+
+        while (true) {
+            node.best = Math.max(node.best, rank);
+            if (offset == url.length()) {
+                if (Double.isNaN(node.rank)) {
+                    size++;
+                }
+                node.rank = rank;
+                return;
+            }
+
+            int index = node.findChild(url.charAt(offset));
+            if (index < 0) {
+                /* nothing shares the rest of the address */
+                Node leaf = new Node(url.substring(offset));
+                leaf.rank = rank;
+                leaf.best = rank;
+                node.insertChild(-index - 1, leaf);
+                size++;
+                return;
+            }
+
+            Node child = node.children[index];
+            int common = commonLength(child.label, url, offset);
+            if (common < child.label.length()) {
+                /* split the edge where the address leaves it */
+                Node middle = new Node(child.label.substring(0, common));
+                middle.best = child.best;
+                child.label = child.label.substring(common);
+                middle.children = new Node[]{child};
+                middle.keys = new char[]{child.label.charAt(0)};
+                node.children[index] = middle;
+                child = middle;
+            }
+
+            node = child;
+            offset += common;
+        }
+    }
+
+    /**
+     * Returns the rank of an address
+     *
+     * @param url The address without protocol
+     * @return The rank or NaN when the address is unknown
+     */
+    double get(String url) {
+        Node node = root;
+        int offset = 0;
+
+        while (offset < url.length()) {
+            int index = node.findChild(url.charAt(offset));
+            if (index < 0) {
+                return Double.NaN;
+            }
+            node = node.children[index];
+            if (!url.startsWith(node.label, offset)) {
+                return Double.NaN;
+            }
+            offset += node.label.length();
+        }
+
+        return node.rank;
+    }
+
+    /**
+     * Returns the best ranked addresses starting with a prefix
+     *
+     * @param prefix     The beginning of the addresses
+     * @param maxResults The maximum number of addresses
+     * @return The addresses found, best ranked first
+     */
+    List<String> complete(String prefix, int maxResults) {
+        List<String> result = new ArrayList<>();
+        Node node = root;
+        StringBuilder path = new StringBuilder();
+        int offset = 0;
+
+        /* find the node covering the whole prefix */
+        while (offset < prefix.length()) {
+            int index = node.findChild(prefix.charAt(offset));
+            if (index < 0) {
+                return result;
+            }
+            node = node.children[index];
+            int common = commonLength(node.label, prefix, offset);
+            if (common < node.label.length() && offset + common < prefix.length()) {
+                return result;
+            }
+            path.append(node.label);
+            offset += common;
+        }
+
+        /* visit subtrees by their best rank until enough are found */
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        queue.add(new Candidate(node, path.toString(), node.best, false));
+        while (!queue.isEmpty() && result.size() < maxResults) {
+            Candidate candidate = queue.poll();
+            if (candidate.complete) {
+                result.add(candidate.text);
+                continue;
+            }
+
+            Node current = candidate.node;
+            if (!Double.isNaN(current.rank)) {
+                queue.add(new Candidate(current, candidate.text, current.rank, true));
+            }
+            for (Node child : current.children) {
+                queue.add(new Candidate(child, candidate.text + child.label, child.best, false));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Passes every address with its rank to a consumer
+     *
+     * @param consumer The consumer of the addresses
+     */
+    void forEach(ObjDoubleConsumer<String> consumer) {
+        visit(root, new StringBuilder(), consumer);
+    }
+
+    /**
+     * Returns the number of addresses
+     *
+     * @return The number of addresses in the tree
+     */
+    int size() {
+        return size;
+    }
+
+    private static void visit(Node node, StringBuilder path, ObjDoubleConsumer<String> consumer) {
+        int length = path.length();
+        path.append(node.label);
+        if (!Double.isNaN(node.rank)) {
+            consumer.accept(path.toString(), node.rank);
+        }
+        for (Node child : node.children) {
+            visit(child, path, consumer);
+        }
+        path.setLength(length);
+    }
+
+    private static int commonLength(String label, String text, int offset) {
+        int max = Math.min(label.length(), text.length() - offset);
+        int result = 0;
+        while (result < max && label.charAt(result) == text.charAt(offset + result)) {
+            result++;
+        }
+        return result;
+    }
+
+    /* node with the part of the address on the edge leading to it */
+    private static class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final char[] NO_KEYS = new char[0];
+
+        private String label;
+        private double rank = Double.NaN;
+        private double best = Double.NEGATIVE_INFINITY;
+        /* children sorted by the first character of their label */
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+
+        Node(String edgeLabel) {
+            label = edgeLabel;
+        }
+
+        int findChild(char key) {
+            return Arrays.binarySearch(keys, key);
+        }
+
+        void insertChild(int index, Node child) {
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newKeys[index] = child.label.charAt(0);
+            newChildren[index] = child;
+            System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            keys = newKeys;
+            children = newChildren;
+        }
+    }
+
+    /* subtree or address waiting to be visited, best rank first */
+    private static class Candidate implements Comparable<Candidate> {
+        private final Node node;
+        private final String text;
+        private final double rank;
+        private final boolean complete;
+
+        Candidate(Node candidateNode, String candidateText, double candidateRank, boolean isComplete) {
+            node = candidateNode;
+            text = candidateText;
+            rank = candidateRank;
+            complete = isComplete;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            int result = Double.compare(other.rank, rank);
+            /* an address comes before the subtree it heads */
+            return result != 0 ? result : Boolean.compare(other.complete, complete);
+        }
+    }
+}
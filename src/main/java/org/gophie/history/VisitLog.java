@@ -0,0 +1,264 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.history;
+
+import lombok.extern.slf4j.Slf4j;
+import org.gophie.config.ConfigurationManager;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Remembers every address visited in a log file that is
+ * only ever appended to. The log is read into a tree when
+ * the program starts and completes addresses ranked by how
+ * often and how recently they were visited. Once the log
+ * holds many more lines than addresses it is rewritten
+ * with one line per address in the background.
+ */
+@Slf4j
+public class VisitLog {
+    /* name of the log file inside the configuration directory */
+    private static final String LOG_FILENAME = "history.log";
+    /* a visit counts half as much after this many milliseconds */
+    private static final double HALF_LIFE = 7d * 24 * 60 * 60 * 1000;
+    /* the log is compacted from this many lines per address on */
+    private static final int COMPACT_RATIO = 3;
+    private static final int MIN_COMPACT_LINES = 1000;
+    private static final String VISIT_RECORD = "V";
+    private static final String RANK_RECORD = "R";
+
+    /* every file access and change of ranks happens on this thread */
+    private static final ExecutorService logExecutor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "visit-log");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    /* tree of all addresses, only changed on the log thread
+        and while holding the class for the completer to read */
+    private static UrlTrie trie = null;
+    private static boolean loadStarted = false;
+    /* lines in the log file, only used on the log thread */
+    private static int lineCount = 0;
+
+    /**
+     * Reads the log in the background, addresses
+     * can be completed once it has been read
+     */
+    public static synchronized void load() {
+        if (!loadStarted) {
+            loadStarted = true;
+            logExecutor.execute(VisitLog::readLog);
+        }
+    }
+
+    /**
+     * Records a visit to an address
+     *
+     * @param url The address that was visited
+     */
+    public static void recordVisit(String url) {
+        String address = normalize(url);
+        if (address.isEmpty() || address.indexOf('\n') >= 0) {
+            return;
+        }
+
+        /* the log is read before the visit is applied to it */
+        load();
+        long time = System.currentTimeMillis();
+        logExecutor.execute(() -> {
+            synchronized (VisitLog.class) {
+                addVisit(trie, address, time);
+            }
+            appendLine(VISIT_RECORD + "\t" + time + "\t" + address);
+        });
+    }
+
+    /**
+     * Returns the best ranked visited addresses
+     * starting with the text entered
+     *
+     * @param text       The beginning of the address
+     * @param maxResults The maximum number of addresses
+     * @return The addresses, most frequently and recently visited first
+     */
+    public static synchronized List<String> complete(String text, int maxResults) {
+        String prefix = normalize(text);
+        if (prefix.isEmpty() || trie == null) {
+            return new ArrayList<>();
+        }
+
+        return trie.complete(prefix, maxResults);
+    }
+
+    /**
+     * Returns an address without protocol and surrounding space
+     *
+     * @param url The address as entered or loaded
+     * @return The address as stored in the log
+     */
+    private static String normalize(String url) {
+        String result = url.trim();
+        if (result.startsWith("gopher://")) {
+            result = result.substring(9);
+        }
+        return result;
+    }
+
+    /**
+     * Raises the rank of an address for a visit
+     *
+     * @param target The tree with the address
+     * @param url    The address visited
+     * @param time   The time of the visit in milliseconds
+     */
+    private static void addVisit(UrlTrie target, String url, long time) {
+        /* the rank is the log of the decayed visit count
+            shifted by the time, so ranks of different
+            addresses compare without knowing the time */
+        double scale = time / HALF_LIFE;
+        double previous = target.get(url);
+        double count = Double.isNaN(previous) ? 1 : Math.pow(2, previous - scale) + 1;
+        target.put(url, scale + Math.log(count) / Math.log(2));
+    }
+
+    /**
+     * Reads the log into a new tree
+     */
+    private static void readLog() {
+        UrlTrie loaded = new UrlTrie();
+        int lines = 0;
+
+        Path file = getLogFile();
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines++;
+                    readRecord(loaded, line);
+                }
+            } catch (IOException ex) {
+                log.error("Failed to read the visit log: {}", ex.getMessage());
+            }
+        }
+
+        synchronized (VisitLog.class) {
+            trie = loaded;
+        }
+
+        lineCount = lines;
+        compactIfNeeded();
+    }
+
+    /**
+     * Applies a line of the log to a tree
+     *
+     * @param target The tree to update
+     * @param line   The line of the log
+     */
+    private static void readRecord(UrlTrie target, String line) {
+        String[] fields = line.split("\t", 3);
+        if (fields.length < 3) {
+            return;
+        }
+
+        try {
+            if (fields[0].equals(VISIT_RECORD)) {
+                addVisit(target, fields[2], Long.parseLong(fields[1]));
+            } else if (fields[0].equals(RANK_RECORD)) {
+                double rank = Double.parseDouble(fields[1]);
+                double previous = target.get(fields[2]);
+                if (Double.isNaN(previous) || previous < rank) {
+                    target.put(fields[2], rank);
+                }
+            }
+        } catch (NumberFormatException ex) {
+            /* a line cut off when the program ended */
+            log.warn("Skipping damaged line of the visit log");
+        }
+    }
+
+    /**
+     * Appends a line to the log
+     *
+     * @param line The line to append
+     */
+    private static void appendLine(String line) {
+        try {
+            Files.writeString(getLogFile(), line + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            lineCount++;
+            compactIfNeeded();
+        } catch (IOException ex) {
+            log.error("Failed to write to the visit log: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Rewrites the log with one line per address once
+     * it holds many more lines than there are addresses
+     */
+    private static void compactIfNeeded() {
+        /* the tree only changes on this thread, so it is walked
+            without the lock the completer takes while typing */
+        if (lineCount < MIN_COMPACT_LINES
+                || lineCount < trie.size() * COMPACT_RATIO) {
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+        trie.forEach((url, rank) -> lines.add(RANK_RECORD + "\t" + rank + "\t" + url));
+
+        /* write to a temp file first, the log is never seen half written */
+        Path file = getLogFile();
+        Path tempFile = file.resolveSibling(LOG_FILENAME + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+        } catch (IOException ex) {
+            log.error("Failed to compact the visit log: {}", ex.getMessage());
+            return;
+        }
+
+        try {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            lineCount = lines.size();
+        } catch (IOException ex) {
+            log.error("Failed to replace the visit log: {}", ex.getMessage());
+        }
+    }
+
+    private static Path getLogFile() {
+        return Paths.get(ConfigurationManager.getConfigPath(), LOG_FILENAME);
+    }
+}
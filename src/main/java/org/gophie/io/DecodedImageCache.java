@@ -0,0 +1,167 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.io;
+
+import lombok.extern.slf4j.Slf4j;
+import org.gophie.config.ConfigurationManager;
+import org.gophie.monitor.MemoryPressureMonitor;
+import org.gophie.monitor.MemoryPressureMonitor.MemoryTier;
+import org.gophie.monitor.MetricsRegistry;
+
+import java.awt.*;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps recently decoded images for the width they were
+ * decoded for. The cache is bounded by the memory the pixels
+ * take and is emptied when the heap runs low.
+ */
+@Slf4j
+public class DecodedImageCache {
+    /* maximum memory used by the pixels of cached images */
+    private static final int DEFAULT_CACHE_SIZE = 67108864;
+
+    private static final Map<CacheKey, Image> imageMap = new LinkedHashMap<>(16, 0.75f, true);
+    private static long cachedBytes = 0;
+    private static long maxBytes = -1;
+
+    static {
+        MemoryPressureMonitor.addListener(tier -> {
+            if (tier == MemoryTier.PAGE_BODIES) {
+                long releasedBytes = clear();
+                log.warn("Released {} bytes of decoded images", releasedBytes);
+            }
+        });
+        MetricsRegistry.registerCache("decodedImages", DecodedImageCache::getCachedBytes);
+    }
+
+    /**
+     * Returns the image decoded from a body for a width
+     *
+     * @param body  The body the image was decoded from
+     * @param width The width the image was decoded for
+     * @return The image or null when not cached
+     */
+    public static synchronized Image get(PageBody body, int width) {
+        Image result = imageMap.get(new CacheKey(body, width));
+        MetricsRegistry.recordCacheAccess("decodedImages", result != null);
+
+        return result;
+    }
+
+    private static synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    /**
+     * Adds a decoded image, evicting the least recently
+     * used images when the cache grows too large
+     *
+     * @param body  The body the image was decoded from
+     * @param width The width the image was decoded for
+     * @param image The decoded image
+     */
+    public static synchronized void put(PageBody body, int width, Image image) {
+        Image previous = imageMap.put(new CacheKey(body, width), image);
+        if (previous != null) {
+            cachedBytes -= getByteCount(previous);
+        }
+        cachedBytes += getByteCount(image);
+
+        Iterator<Image> iterator = imageMap.values().iterator();
+        while (cachedBytes > getMaxBytes() && iterator.hasNext()) {
+            Image eldest = iterator.next();
+            if (eldest == image) {
+                /* the newest image stays even when it is too large */
+                break;
+            }
+            cachedBytes -= getByteCount(eldest);
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Removes all images from the cache
+     *
+     * @return The number of bytes released
+     */
+    public static synchronized long clear() {
+        long result = cachedBytes;
+        imageMap.clear();
+        cachedBytes = 0;
+
+        return result;
+    }
+
+    /**
+     * Returns the memory taken by the pixels of an image
+     *
+     * @param image The image
+     * @return The estimated size in bytes
+     */
+    private static long getByteCount(Image image) {
+        int width = image.getWidth(null);
+        int height = image.getHeight(null);
+        if (width < 0 || height < 0) {
+            /* images of the toolkit may not be loaded yet */
+            return 0;
+        }
+
+        return (long) width * height * 4;
+    }
+
+    /**
+     * Returns the configured maximum size of the cache
+     *
+     * @return The maximum size in bytes
+     */
+    private static long getMaxBytes() {
+        if (maxBytes < 0) {
+            maxBytes = ConfigurationManager.getSnapshot()
+                    .getIntSetting("DECODED_IMAGE_CACHE_SIZE", "Memory", DEFAULT_CACHE_SIZE);
+        }
+
+        return maxBytes;
+    }
+
+    /* key of an image with the body identity and width */
+    private static class CacheKey {
+        private final PageBody body;
+        private final int width;
+
+        CacheKey(PageBody imageBody, int imageWidth) {
+            body = imageBody;
+            width = imageWidth;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof CacheKey
+                    && ((CacheKey) other).body == body
+                    && ((CacheKey) other).width == width;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(body) * 31 + width;
+        }
+    }
+}
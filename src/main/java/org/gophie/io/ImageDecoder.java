@@ -0,0 +1,272 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.io;
+
+import org.gophie.io.event.ImageUpdateListener;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.event.IIOReadUpdateListener;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageInputStreamImpl;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+/**
+ * Decodes images straight from the body of a page. Images
+ * wider than the space available are subsampled while they
+ * are decoded, so the full size image never has to fit into
+ * memory. Decoded images are kept in the decoded image cache.
+ */
+public class ImageDecoder {
+    /* minimum time between two updates of a partial image */
+    private static final long UPDATE_INTERVAL = 100;
+
+    /**
+     * Decodes the image of a body to fit the provided width,
+     * this can take a while and should not run on the EDT
+     *
+     * @param body     The body with the encoded image
+     * @param maxWidth The width available to the image
+     * @return The decoded image
+     * @throws IOException When the image cannot be decoded
+     */
+    public static Image decode(PageBody body, int maxWidth) throws IOException {
+        Image result = DecodedImageCache.get(body, maxWidth);
+        if (result != null) {
+            return result;
+        }
+
+        try (BufferImageInputStream input = new BufferImageInputStream(body.getBuffer())) {
+            Iterator<ImageReader> readerList = ImageIO.getImageReaders(input);
+            if (!readerList.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+
+            ImageReader reader = readerList.next();
+            try {
+                reader.setInput(input, false, true);
+
+                if (reader.getFormatName().equalsIgnoreCase("gif") && reader.getNumImages(true) > 1) {
+                    /* animated images are left to the toolkit which animates them */
+                    result = Toolkit.getDefaultToolkit().createImage(body.getBytes());
+                } else {
+                    result = readScaled(reader, maxWidth, Integer.MAX_VALUE);
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        DecodedImageCache.put(body, maxWidth, result);
+        return result;
+    }
+
+    /**
+     * Decodes the first frame of an image to fit into a square
+     * of the provided size, the result is not cached in memory
+     *
+     * @param body The body with the encoded image
+     * @param size The width and height of the thumbnail
+     * @return The decoded thumbnail
+     * @throws IOException When the image cannot be decoded
+     */
+    public static BufferedImage decodeThumbnail(PageBody body, int size) throws IOException {
+        try (BufferImageInputStream input = new BufferImageInputStream(body.getBuffer())) {
+            Iterator<ImageReader> readerList = ImageIO.getImageReaders(input);
+            if (!readerList.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+
+            ImageReader reader = readerList.next();
+            try {
+                reader.setInput(input, true, true);
+                return readScaled(reader, size, size);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Decodes an image while it is received and reports the
+     * rows decoded so far, at most every update interval
+     *
+     * @param source   The source receiving the image
+     * @param maxWidth The width available to the image
+     * @param listener The listener to report the partial image to
+     * @return The decoded image once completely received
+     * @throws IOException When decoding fails or the source was cancelled
+     */
+    public static Image decodeProgressive(ProgressiveImageSource source, int maxWidth,
+                                          ImageUpdateListener listener) throws IOException {
+        Image result;
+
+        try (ImageInputStream input = source.openStream()) {
+            Iterator<ImageReader> readerList = ImageIO.getImageReaders(input);
+            if (!readerList.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+
+            ImageReader reader = readerList.next();
+            try {
+                reader.setInput(input, false, true);
+                reader.addIIOReadUpdateListener(new IIOReadUpdateListener() {
+                    private long lastUpdate = 0;
+
+                    @Override
+                    public void imageUpdate(ImageReader source, BufferedImage theImage, int minX, int minY,
+                                            int width, int height, int periodX, int periodY, int[] bands) {
+                        long now = System.currentTimeMillis();
+                        if (now - lastUpdate >= UPDATE_INTERVAL) {
+                            lastUpdate = now;
+                            listener.imageUpdated(theImage);
+                        }
+                    }
+
+                    @Override
+                    public void passStarted(ImageReader source, BufferedImage theImage, int pass, int minPass,
+                                            int maxPass, int minX, int minY, int periodX, int periodY, int[] bands) {
+                    }
+
+                    @Override
+                    public void passComplete(ImageReader source, BufferedImage theImage) {
+                        listener.imageUpdated(theImage);
+                    }
+
+                    @Override
+                    public void thumbnailPassStarted(ImageReader source, BufferedImage theThumbnail, int pass,
+                                                     int minPass, int maxPass, int minX, int minY,
+                                                     int periodX, int periodY, int[] bands) {
+                    }
+
+                    @Override
+                    public void thumbnailUpdate(ImageReader source, BufferedImage theThumbnail, int minX, int minY,
+                                                int width, int height, int periodX, int periodY, int[] bands) {
+                    }
+
+                    @Override
+                    public void thumbnailPassComplete(ImageReader source, BufferedImage theThumbnail) {
+                    }
+                });
+
+                result = readScaled(reader, maxWidth, Integer.MAX_VALUE);
+                if (reader.getFormatName().equalsIgnoreCase("gif") && reader.getNumImages(true) > 1) {
+                    /* the first frame was shown, the toolkit animates the rest */
+                    result = Toolkit.getDefaultToolkit().createImage(source.getBytes());
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads the first image subsampled close to the size
+     * and scales it down to fit exactly into it if needed
+     *
+     * @param reader    The reader with the input set
+     * @param maxWidth  The width available to the image
+     * @param maxHeight The height available to the image
+     * @return The decoded image
+     * @throws IOException When reading the image fails
+     */
+    private static BufferedImage readScaled(ImageReader reader, int maxWidth, int maxHeight) throws IOException {
+        /* skip rows and columns while decoding instead of scaling
+            afterwards, an unbounded height must not limit the factor */
+        int factor = reader.getWidth(0) / Math.max(1, maxWidth);
+        if (maxHeight != Integer.MAX_VALUE) {
+            factor = Math.min(factor, reader.getHeight(0) / Math.max(1, maxHeight));
+        }
+        factor = Math.max(1, factor);
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(factor, factor, 0, 0);
+        BufferedImage image = reader.read(0, param);
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (width > maxWidth || height > maxHeight) {
+            double scale = Math.min((double) maxWidth / width, (double) maxHeight / height);
+            width = Math.max(1, (int) (width * scale));
+            height = Math.max(1, (int) (height * scale));
+        } else if (image.getType() != BufferedImage.TYPE_CUSTOM) {
+            return image;
+        }
+
+        /* scale and convert custom types that are slow to paint */
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = result.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+
+        return result;
+    }
+
+    /* image input stream that reads from a byte buffer without a cache */
+    private static class BufferImageInputStream extends ImageInputStreamImpl {
+        private final ByteBuffer source;
+
+        BufferImageInputStream(ByteBuffer buffer) {
+            source = buffer;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkClosed();
+            bitOffset = 0;
+            if (streamPos >= source.limit()) {
+                return -1;
+            }
+
+            return source.get((int) streamPos++) & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] data, int offset, int length) throws IOException {
+            checkClosed();
+            bitOffset = 0;
+            if (length == 0) {
+                return 0;
+            }
+            if (streamPos >= source.limit()) {
+                return -1;
+            }
+
+            int count = (int) Math.min(length, source.limit() - streamPos);
+            source.get((int) streamPos, data, offset, count);
+            streamPos += count;
+            return count;
+        }
+
+        @Override
+        public long length() {
+            return source.limit();
+        }
+    }
+}
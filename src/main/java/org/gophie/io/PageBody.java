@@ -0,0 +1,220 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the raw bytes of a page or image either on the heap,
+ * off the heap in a direct buffer or in a memory-mapped temp
+ * file. A body is owned by exactly one page and must be released
+ * by its owner when the page leaves the history or cache it
+ * belongs to.
+ */
+public class PageBody {
+    /* read-only view of the content, null when released */
+    private final AtomicReference<ByteBuffer> buffer = new AtomicReference<>();
+    private final int size;
+    private final boolean offHeap;
+    /* temp file mapped into memory, deleted on release */
+    private final Path mappedFile;
+
+    /**
+     * Constructs the body around a buffer, only
+     * the page body store creates bodies
+     *
+     * @param content The buffer with the content
+     */
+    PageBody(ByteBuffer content) {
+        this(content, null);
+    }
+
+    /**
+     * Constructs the body around the mapped buffer of a temp file
+     *
+     * @param content The buffer with the content
+     * @param file    The file mapped into the buffer or null
+     */
+    PageBody(ByteBuffer content, Path file) {
+        buffer.set(content.asReadOnlyBuffer());
+        size = content.remaining();
+        offHeap = content.isDirect();
+        mappedFile = file;
+    }
+
+    /**
+     * Returns the size of the content
+     *
+     * @return The number of bytes in this body
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns whether the content is stored off the heap
+     *
+     * @return true when stored off the heap, otherwise false
+     */
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * Returns whether the content is a memory-mapped temp file
+     *
+     * @return true when mapped from a file, otherwise false
+     */
+    public boolean isMapped() {
+        return mappedFile != null;
+    }
+
+    /**
+     * Returns a read-only buffer with the content
+     * that is independent of other readers
+     *
+     * @return The buffer with the content, empty when released
+     */
+    public ByteBuffer getBuffer() {
+        ByteBuffer content = buffer.get();
+
+        if (content == null) {
+            /* released bodies have nothing left */
+            return ByteBuffer.allocate(0);
+        }
+
+        return content.duplicate();
+    }
+
+    /**
+     * Copies the content to a new byte array on the heap,
+     * use the buffer or stream for large content instead
+     *
+     * @return Byte array with a copy of the content
+     */
+    public byte[] getBytes() {
+        ByteBuffer content = getBuffer();
+        byte[] result = new byte[content.remaining()];
+        content.get(result);
+
+        return result;
+    }
+
+    /**
+     * Opens a stream that reads the content
+     * without copying it to the heap first
+     *
+     * @return Input stream with the content
+     */
+    public InputStream openStream() {
+        return new BufferInputStream(getBuffer());
+    }
+
+    /**
+     * Writes the content to the provided stream
+     *
+     * @param outputStream The stream to write to
+     * @throws IOException When writing to the stream fails
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        ByteBuffer content = getBuffer();
+        WritableByteChannel channel = Channels.newChannel(outputStream);
+        while (content.hasRemaining()) {
+            channel.write(content);
+        }
+    }
+
+    /**
+     * Releases the content of this body. Readers that
+     * already hold a buffer keep it until they are done.
+     * Only the first of concurrent releases accounts for it.
+     */
+    public void release() {
+        if (buffer.getAndSet(null) != null) {
+            PageBodyStore.bodyReleased(this);
+
+            if (mappedFile != null) {
+                try {
+                    /* some systems keep mapped files until the mapping
+                        is collected, these go when the client exits */
+                    Files.deleteIfExists(mappedFile);
+                } catch (IOException ex) {
+                    mappedFile.toFile().deleteOnExit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether this body was released
+     *
+     * @return true when released, otherwise false
+     */
+    public boolean isReleased() {
+        return buffer.get() == null;
+    }
+
+    /* input stream that reads from a byte buffer */
+    private static class BufferInputStream extends InputStream {
+        private final ByteBuffer source;
+
+        BufferInputStream(ByteBuffer buffer) {
+            source = buffer;
+        }
+
+        @Override
+        public int read() {
+            return source.hasRemaining() ? (source.get() & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(byte[] data, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!source.hasRemaining()) {
+                return -1;
+            }
+
+            int count = Math.min(length, source.remaining());
+            source.get(data, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long count) {
+            int skipped = (int) Math.max(0, Math.min(count, source.remaining()));
+            source.position(source.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return source.remaining();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.io;
+
+import lombok.extern.slf4j.Slf4j;
+import org.gophie.config.ConfigurationManager;
+import org.gophie.monitor.MetricsRegistry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates the bodies for pages and images and keeps
+ * track of how many bytes they hold. Bodies above the
+ * configured threshold are stored off the heap so that
+ * large pages do not inflate the old generation.
+ */
+@Slf4j
+public class PageBodyStore {
+    /* bodies from this size on are stored off the heap */
+    private static final int DEFAULT_OFFHEAP_THRESHOLD = 65536;
+
+    /* exact number of bytes held by bodies not released yet */
+    private static final AtomicLong heapBytes = new AtomicLong();
+    private static final AtomicLong offHeapBytes = new AtomicLong();
+    private static final AtomicLong mappedBytes = new AtomicLong();
+    private static int offHeapThreshold = -1;
+
+    static {
+        MetricsRegistry.registerCache("pageBodies.heap", heapBytes::get);
+        MetricsRegistry.registerCache("pageBodies.offHeap", offHeapBytes::get);
+        MetricsRegistry.registerCache("pageBodies.mapped", mappedBytes::get);
+    }
+
+    /**
+     * Creates a body with a copy of the provided data
+     *
+     * @param data The raw bytes of the body
+     * @return The body holding the data
+     */
+    public static PageBody store(byte[] data) {
+        return store(data, 0, data.length);
+    }
+
+    /**
+     * Creates a body with a copy of the provided data
+     *
+     * @param data   The array with the raw bytes of the body
+     * @param offset The offset of the body in the array
+     * @param length The number of bytes of the body
+     * @return The body holding the data
+     */
+    public static PageBody store(byte[] data, int offset, int length) {
+        ByteBuffer content = null;
+
+        if (length >= getOffHeapThreshold()) {
+            try {
+                /* keep large content away from the heap */
+                content = ByteBuffer.allocateDirect(length);
+                content.put(data, offset, length);
+                content.flip();
+            } catch (OutOfMemoryError ex) {
+                /* direct memory is exhausted, the heap has to do */
+                log.error("Unable to store {} bytes off the heap: {}", length, ex.getMessage());
+                content = null;
+            }
+        }
+
+        if (content == null) {
+            /* small content is cheaper to keep on the heap */
+            byte[] copy = new byte[length];
+            System.arraycopy(data, offset, copy, 0, length);
+            content = ByteBuffer.wrap(copy);
+        }
+
+        return register(new PageBody(content));
+    }
+
+    /**
+     * Creates a body that maps the provided file into memory. The
+     * body owns the file from now on and deletes it when released.
+     *
+     * @param file The file with the content of the body
+     * @return The body holding the mapped file
+     * @throws IOException When the file cannot be mapped
+     */
+    public static PageBody map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Content too large to map: " + channel.size() + " bytes");
+            }
+
+            /* the mapping stays valid after the channel is closed */
+            MappedByteBuffer content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return register(new PageBody(content, file));
+        }
+    }
+
+    /**
+     * Returns the number of bytes held by bodies on the heap
+     *
+     * @return The number of bytes on the heap
+     */
+    public static long getHeapBytes() {
+        return heapBytes.get();
+    }
+
+    /**
+     * Returns the number of bytes held by bodies off the heap
+     *
+     * @return The number of bytes off the heap
+     */
+    public static long getOffHeapBytes() {
+        return offHeapBytes.get();
+    }
+
+    /**
+     * Returns the number of bytes held by memory-mapped bodies
+     *
+     * @return The number of bytes in mapped temp files
+     */
+    public static long getMappedBytes() {
+        return mappedBytes.get();
+    }
+
+    /**
+     * Adds a new body to the accounting
+     *
+     * @param body The body that was created
+     * @return The same body
+     */
+    static PageBody register(PageBody body) {
+        if (body.isMapped()) {
+            mappedBytes.addAndGet(body.getSize());
+        } else if (body.isOffHeap()) {
+            offHeapBytes.addAndGet(body.getSize());
+        } else {
+            heapBytes.addAndGet(body.getSize());
+        }
+
+        return body;
+    }
+
+    /**
+     * Removes a released body from the accounting
+     *
+     * @param body The body that was released
+     */
+    static void bodyReleased(PageBody body) {
+        if (body.isMapped()) {
+            mappedBytes.addAndGet(-body.getSize());
+        } else if (body.isOffHeap()) {
+            offHeapBytes.addAndGet(-body.getSize());
+        } else {
+            heapBytes.addAndGet(-body.getSize());
+        }
+    }
+
+    /**
+     * Returns the size from which bodies are stored off the heap
+     *
+     * @return The threshold in bytes
+     */
+    private static int getOffHeapThreshold() {
+        if (offHeapThreshold < 0) {
+            offHeapThreshold = ConfigurationManager.getSnapshot()
+                    .getIntSetting("OFFHEAP_BODY_THRESHOLD", "Memory", DEFAULT_OFFHEAP_THRESHOLD);
+        }
+
+        return offHeapThreshold;
+    }
+}
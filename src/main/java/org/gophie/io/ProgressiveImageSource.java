@@ -0,0 +1,205 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.io;
+
+import org.gophie.config.ConfigurationManager;
+
+import javax.imageio.IIOException;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageInputStreamImpl;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Holds the bytes of an image while it is received so that
+ * it can be decoded at the same time. Readers block until the
+ * bytes they need arrive and fail once the source is cancelled.
+ */
+public class ProgressiveImageSource {
+    /* images larger than this are only decoded once complete */
+    private static final int DEFAULT_MAX_SIZE = 8388608;
+
+    private final int maxSize;
+    private byte[] data = new byte[65536];
+    private int length = 0;
+    private boolean complete = false;
+    private boolean cancelled = false;
+
+    /**
+     * Constructs an empty source limited to the spill threshold
+     */
+    public ProgressiveImageSource() {
+        maxSize = ConfigurationManager.getSnapshot()
+                .getIntSetting("SPILL_THRESHOLD", "Memory", DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Appends bytes received and wakes up waiting readers
+     *
+     * @param chunk  The array with the bytes received
+     * @param offset The offset of the bytes in the array
+     * @param count  The number of bytes received
+     */
+    public synchronized void append(byte[] chunk, int offset, int count) {
+        if (complete || cancelled) {
+            return;
+        }
+        if (length + count > maxSize) {
+            /* too large to keep a second copy in memory */
+            cancel();
+            return;
+        }
+
+        if (length + count > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + count));
+        }
+        System.arraycopy(chunk, offset, data, length, count);
+        length += count;
+        notifyAll();
+    }
+
+    /**
+     * Marks the image as completely received
+     */
+    public synchronized void complete() {
+        if (!cancelled) {
+            complete = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Cancels the source, readers waiting for bytes fail.
+     * Has no effect once the image is complete.
+     */
+    public synchronized void cancel() {
+        if (!complete) {
+            cancelled = true;
+            data = new byte[0];
+            notifyAll();
+        }
+    }
+
+    /**
+     * Returns whether the source was cancelled
+     *
+     * @return true when cancelled, otherwise false
+     */
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Returns the number of bytes received so far
+     *
+     * @return The number of bytes held
+     */
+    public synchronized int getReceivedCount() {
+        return length;
+    }
+
+    /**
+     * Copies the complete image to a new array
+     *
+     * @return The bytes of the image
+     */
+    public synchronized byte[] getBytes() {
+        return Arrays.copyOf(data, length);
+    }
+
+    /**
+     * Opens a stream over the bytes for an image reader
+     *
+     * @return The image input stream
+     */
+    public ImageInputStream openStream() {
+        return new SourceImageInputStream();
+    }
+
+    /**
+     * Reads bytes from a position, waiting until they arrive
+     *
+     * @param position The position to read from
+     * @param buffer   The array to read to
+     * @param offset   The offset in the array
+     * @param count    The maximum number of bytes to read
+     * @return The number of bytes read or -1 at the end
+     * @throws IOException When the source was cancelled
+     */
+    private synchronized int read(long position, byte[] buffer, int offset, int count) throws IOException {
+        while (position >= length && !complete && !cancelled) {
+            try {
+                wait();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IIOException("Interrupted while waiting for image data");
+            }
+        }
+
+        if (cancelled) {
+            throw new IIOException("Image download cancelled");
+        }
+        if (position >= length) {
+            return -1;
+        }
+
+        int result = (int) Math.min(count, length - position);
+        System.arraycopy(data, (int) position, buffer, offset, result);
+        return result;
+    }
+
+    /**
+     * Returns the total length once complete
+     *
+     * @return The length or -1 while still receiving
+     */
+    private synchronized long getLength() {
+        return complete ? length : -1;
+    }
+
+    /* image input stream that reads from this source */
+    private class SourceImageInputStream extends ImageInputStreamImpl {
+        private final byte[] single = new byte[1];
+
+        @Override
+        public int read() throws IOException {
+            return read(single, 0, 1) < 0 ? -1 : (single[0] & 0xFF);
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            checkClosed();
+            bitOffset = 0;
+            if (count == 0) {
+                return 0;
+            }
+
+            int result = ProgressiveImageSource.this.read(streamPos, buffer, offset, count);
+            if (result > 0) {
+                streamPos += result;
+            }
+            return result;
+        }
+
+        @Override
+        public long length() {
+            return getLength();
+        }
+    }
+}
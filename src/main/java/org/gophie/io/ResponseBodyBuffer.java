@@ -0,0 +1,168 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.io;
+
+import lombok.extern.slf4j.Slf4j;
+import org.gophie.config.ConfigurationManager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Collects the bytes of a response while they are received.
+ * Small responses are kept in memory, but once the response
+ * grows beyond the configured threshold it is written to a
+ * temp file that is mapped into memory when complete.
+ */
+@Slf4j
+public class ResponseBodyBuffer {
+    /* responses from this size on are written to a temp file */
+    private static final int DEFAULT_SPILL_THRESHOLD = 8388608;
+
+    private final int spillThreshold;
+    private byte[] memory = new byte[16384];
+    private long size = 0;
+    private Path spillFile;
+    private FileChannel spillChannel;
+
+    /**
+     * Constructs the buffer with the configured spill threshold
+     */
+    public ResponseBodyBuffer() {
+        spillThreshold = ConfigurationManager.getSnapshot()
+                .getIntSetting("SPILL_THRESHOLD", "Memory", DEFAULT_SPILL_THRESHOLD);
+    }
+
+    /**
+     * Appends the provided data to the response
+     *
+     * @param data   The array with the data received
+     * @param offset The offset of the data in the array
+     * @param length The number of bytes received
+     * @throws IOException When writing to the temp file fails
+     */
+    public void write(byte[] data, int offset, int length) throws IOException {
+        if (spillChannel == null && size + length > spillThreshold) {
+            spill();
+        }
+
+        if (spillChannel != null) {
+            ByteBuffer chunk = ByteBuffer.wrap(data, offset, length);
+            while (chunk.hasRemaining()) {
+                spillChannel.write(chunk);
+            }
+        } else {
+            /* grow the memory like a byte array stream does */
+            if (size + length > memory.length) {
+                int capacity = (int) Math.min(Math.max(memory.length * 2L, size + length), spillThreshold);
+                memory = Arrays.copyOf(memory, capacity);
+            }
+            System.arraycopy(data, offset, memory, (int) size, length);
+        }
+
+        size += length;
+    }
+
+    /**
+     * Returns the number of bytes received so far
+     *
+     * @return The size of the response in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns whether the response was written to a temp file
+     *
+     * @return true when written to a temp file, otherwise false
+     */
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    /**
+     * Completes the response and hands its content over to a
+     * body that owns the memory or temp file from now on
+     *
+     * @return The body with the complete response
+     * @throws IOException When the temp file cannot be mapped
+     */
+    public PageBody toPageBody() throws IOException {
+        PageBody result;
+
+        if (spillChannel != null) {
+            spillChannel.close();
+            spillChannel = null;
+            result = PageBodyStore.map(spillFile);
+        } else {
+            result = PageBodyStore.store(memory, 0, (int) size);
+        }
+
+        /* the content belongs to the body now */
+        memory = null;
+        spillFile = null;
+
+        return result;
+    }
+
+    /**
+     * Drops the response received so far and removes
+     * the temp file when the request failed
+     */
+    public void discard() {
+        memory = null;
+
+        try {
+            if (spillChannel != null) {
+                spillChannel.close();
+                spillChannel = null;
+            }
+            if (spillFile != null) {
+                Files.deleteIfExists(spillFile);
+                spillFile = null;
+            }
+        } catch (IOException ex) {
+            log.error("Failed to remove response temp file ({}): {}", spillFile, ex.getMessage());
+        }
+    }
+
+    /**
+     * Moves the content received so far from memory to a temp file
+     *
+     * @throws IOException When the temp file cannot be created
+     */
+    private void spill() throws IOException {
+        spillFile = Files.createTempFile("gophie-body", ".tmp");
+        spillFile.toFile().deleteOnExit();
+        spillChannel = FileChannel.open(spillFile, StandardOpenOption.WRITE);
+
+        ByteBuffer content = ByteBuffer.wrap(memory, 0, (int) size);
+        while (content.hasRemaining()) {
+            spillChannel.write(content);
+        }
+
+        memory = null;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.io;
+
+import lombok.extern.slf4j.Slf4j;
+import org.gophie.config.ConfigurationManager;
+import org.gophie.monitor.MetricsRegistry;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+
+/**
+ * Keeps thumbnails of images in the configuration directory,
+ * so galleries that were browsed before show up without
+ * fetching and decoding the images again. The thumbnails
+ * shown least recently are removed beyond the configured size.
+ */
+@Slf4j
+public class ThumbnailCache {
+    /* name of the directory inside the configuration directory */
+    private static final String THUMBNAIL_FOLDERNAME = "thumbnails";
+    /* bytes of thumbnails kept on disk at most */
+    private static final int DEFAULT_THUMBNAIL_CACHE_SIZE = 67108864;
+
+    private static final long maxSize = ConfigurationManager.getSnapshot()
+            .getIntSetting("THUMBNAIL_CACHE_SIZE", "Memory", DEFAULT_THUMBNAIL_CACHE_SIZE);
+    /* bytes of the thumbnails on disk, -1 until the directory was read */
+    private static long size = -1;
+
+    /**
+     * Returns the thumbnail stored for an image
+     *
+     * @param url           The url of the image
+     * @param thumbnailSize The size the thumbnail was decoded for
+     * @return The thumbnail or null when not stored
+     */
+    public static BufferedImage get(String url, int thumbnailSize) {
+        File file = getFile(url, thumbnailSize);
+        MetricsRegistry.recordCacheAccess("thumbnails", file.exists());
+        if (!file.exists()) {
+            return null;
+        }
+
+        try {
+            /* the modification time tells which were shown least recently */
+            file.setLastModified(System.currentTimeMillis());
+            return ImageIO.read(file);
+        } catch (IOException ex) {
+            log.warn("Failed to read thumbnail of {}: {}", url, ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stores the thumbnail of an image
+     *
+     * @param url           The url of the image
+     * @param thumbnailSize The size the thumbnail was decoded for
+     * @param thumbnail     The decoded thumbnail
+     */
+    public static void put(String url, int thumbnailSize, BufferedImage thumbnail) {
+        File file = getFile(url, thumbnailSize);
+        file.getParentFile().mkdirs();
+
+        try {
+            /* write to a temp file first so readers never see half a file */
+            File tempFile = new File(file.getPath() + ".tmp");
+            ImageIO.write(thumbnail, "png", tempFile);
+            long replacedLength = file.length();
+            if (!tempFile.renameTo(file)) {
+                tempFile.delete();
+                return;
+            }
+            added(file.getParentFile(), file.length() - replacedLength);
+        } catch (IOException ex) {
+            log.warn("Failed to store thumbnail of {}: {}", url, ex.getMessage());
+        }
+    }
+
+    /**
+     * Counts a stored thumbnail and removes the ones shown
+     * least recently when the thumbnails exceed the size
+     *
+     * @param directory The directory with the thumbnails
+     * @param length    The bytes the stored thumbnail added
+     */
+    private static synchronized void added(File directory, long length) {
+        File[] fileList = null;
+        if (size < 0) {
+            fileList = listFiles(directory);
+            size = 0;
+            for (File file : fileList) {
+                size += file.length();
+            }
+        } else {
+            size += length;
+        }
+        if (size <= maxSize) {
+            return;
+        }
+
+        if (fileList == null) {
+            fileList = listFiles(directory);
+        }
+        Arrays.sort(fileList, Comparator.comparingLong(File::lastModified));
+        for (File file : fileList) {
+            if (size <= maxSize) {
+                break;
+            }
+            long fileLength = file.length();
+            if (file.delete()) {
+                size -= fileLength;
+            }
+        }
+    }
+
+    private static File[] listFiles(File directory) {
+        File[] result = directory.listFiles((dir, name) -> name.endsWith(".png"));
+        return result == null ? new File[0] : result;
+    }
+
+    /**
+     * Returns the file of the thumbnail of an image
+     *
+     * @param url           The url of the image
+     * @param thumbnailSize The size the thumbnail was decoded for
+     * @return The file named after the hash of url and size
+     */
+    private static File getFile(String url, int thumbnailSize) {
+        String fileName;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            fileName = HexFormat.of().formatHex(digest.digest(url.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            fileName = Integer.toHexString(url.hashCode());
+        }
+
+        return new File(ConfigurationManager.getConfigPath() + THUMBNAIL_FOLDERNAME
+                + "/" + fileName + "-" + thumbnailSize + ".png");
+    }
+}
@@ -0,0 +1,329 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.monitor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.gophie.config.ConfigurationManager;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.event.InvocationEvent;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Watches the event dispatch thread for events that take
+ * longer than the configured threshold. The stack of the
+ * event dispatch thread is captured while it is stalled and
+ * written with the operation responsible to a rolling log,
+ * the number of stalls per operation is kept as a summary.
+ */
+@Slf4j
+public class EdtWatchdog {
+    private static final int DEFAULT_STALL_THRESHOLD = 100;
+    private static final String LOG_FILENAME = "edt-stalls.log";
+    /* size in bytes from which the log is rolled over */
+    private static final long MAX_LOG_SIZE = 512 * 1024;
+    /* number of frames of the stack written to the log */
+    private static final int MAX_LOG_FRAMES = 40;
+    private static final String APPLICATION_PACKAGE = "org.gophie.";
+
+    /* the event dispatched right now, start is 0 while idle */
+    private static volatile long dispatchStart = 0;
+    private static volatile long dispatchSequence = 0;
+    private static volatile AWTEvent dispatchEvent = null;
+    private static volatile Thread dispatchThread = null;
+
+    /* stalled events handed from the event dispatch thread once dispatched */
+    private static final ConcurrentLinkedQueue<Stall> finishedQueue = new ConcurrentLinkedQueue<>();
+
+    /* number of stalls by the operation responsible */
+    private static final Map<String, Integer> stallMap = new LinkedHashMap<>();
+    private static long stallCount = 0;
+    private static long stallMillis = 0;
+
+    private static long thresholdNanos;
+    private static boolean started = false;
+
+    /**
+     * Starts watching the event dispatch thread when a
+     * threshold is configured. Calling this more than
+     * once has no effect.
+     */
+    public static synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+
+        int threshold = ConfigurationManager.getSnapshot()
+                .getIntSetting("EDT_STALL_THRESHOLD", "Monitor", DEFAULT_STALL_THRESHOLD);
+        if (threshold <= 0) {
+            return;
+        }
+        thresholdNanos = threshold * 1000000L;
+
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(new WatchedEventQueue());
+        Thread watchThread = new Thread(() -> watch(threshold), "edt-watchdog");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * Returns the number of stalls detected
+     *
+     * @return The number of events that took longer than the threshold
+     */
+    public static synchronized long getStallCount() {
+        return stallCount;
+    }
+
+    /**
+     * Returns the time the event dispatch thread was stalled
+     *
+     * @return The duration of all stalled events in milliseconds
+     */
+    public static synchronized long getStallMillis() {
+        return stallMillis;
+    }
+
+    /**
+     * Returns the number of stalls by operation
+     *
+     * @return The stall count by the name of the operation
+     */
+    public static synchronized Map<String, Integer> getStallSummary() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(stallMap));
+    }
+
+    /**
+     * Drops the stalls counted so far
+     */
+    public static synchronized void resetSummary() {
+        stallCount = 0;
+        stallMillis = 0;
+        stallMap.clear();
+    }
+
+    /**
+     * Polls the event dispatched and captures its stack once it
+     * takes longer than the threshold. Every stalled event is
+     * recorded, events that ended before the next poll without
+     * the stack that could not be captured for them.
+     *
+     * @param threshold The threshold in milliseconds
+     */
+    private static void watch(int threshold) {
+        long pollInterval = Math.max(10, threshold / 4);
+        Stall pending = null;
+        while (true) {
+            try {
+                Thread.sleep(pollInterval);
+            } catch (InterruptedException ex) {
+                return;
+            }
+
+            /* write the stall once its event was dispatched */
+            Stall finished;
+            while ((finished = finishedQueue.poll()) != null) {
+                if (pending != null && pending.sequence == finished.sequence) {
+                    pending.duration = finished.duration;
+                    finished = pending;
+                    pending = null;
+                }
+                record(finished);
+            }
+
+            long start = dispatchStart;
+            long sequence = dispatchSequence;
+            if (start == 0 || (pending != null && pending.sequence == sequence)
+                    || System.nanoTime() - start < thresholdNanos) {
+                continue;
+            }
+
+            Thread thread = dispatchThread;
+            AWTEvent event = dispatchEvent;
+            if (thread != null && sequence == dispatchSequence) {
+                pending = new Stall(sequence, describe(event), thread.getStackTrace());
+            }
+        }
+    }
+
+    /**
+     * Counts a stall by its operation and writes it to the log
+     *
+     * @param stall The stall of an event that completed
+     */
+    private static void record(Stall stall) {
+        String operation = stall.getOperation();
+        synchronized (EdtWatchdog.class) {
+            stallCount++;
+            stallMillis += stall.duration;
+            stallMap.merge(operation, 1, Integer::sum);
+        }
+        log.warn("Event dispatch thread stalled {} ms in {}", stall.duration, operation);
+
+        Path file = Paths.get(ConfigurationManager.getConfigPath(), LOG_FILENAME);
+        try {
+            if (Files.exists(file) && Files.size(file) > MAX_LOG_SIZE) {
+                Files.move(file, file.resolveSibling(LOG_FILENAME + ".1"), StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(LocalDateTime.now() + " stalled " + stall.duration + " ms in "
+                        + operation + " handling " + stall.event);
+                writer.newLine();
+                if (stall.stack == null) {
+                    /* the event ended before the watcher polled */
+                    writer.write("\t(stack not captured)");
+                    writer.newLine();
+                } else {
+                    for (int f = 0; f < stall.stack.length && f < MAX_LOG_FRAMES; f++) {
+                        writer.write("\tat " + stall.stack[f]);
+                        writer.newLine();
+                    }
+                }
+                writer.newLine();
+            }
+        } catch (IOException ex) {
+            log.error("Failed to write the stall log: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Describes an event without calling into the code
+     * that runs on the event dispatch thread
+     *
+     * @param event The event to describe
+     * @return The type of event and its source
+     */
+    private static String describe(AWTEvent event) {
+        if (event == null) {
+            return "unknown event";
+        }
+        if (event instanceof InvocationEvent) {
+            /* names the class of the runnable invoked */
+            return "invocation " + event.paramString();
+        }
+
+        return event.getClass().getSimpleName() + " " + event.getID()
+                + " on " + event.getSource().getClass().getSimpleName();
+    }
+
+    /**
+     * Event queue that tracks the event dispatched
+     */
+    private static class WatchedEventQueue extends EventQueue {
+        @Override
+        protected void dispatchEvent(AWTEvent event) {
+            /* modal dialogs dispatch events while another is dispatched,
+                the outer event is timed again once the dialog is closed */
+            long outerSequence = dispatchSequence;
+            AWTEvent outerEvent = dispatchEvent;
+
+            long start = System.nanoTime();
+            long sequence = outerSequence + 1;
+            dispatchThread = Thread.currentThread();
+            dispatchEvent = event;
+            dispatchSequence = sequence;
+            dispatchStart = start;
+            try {
+                super.dispatchEvent(event);
+            } finally {
+                /* a dialog opened by the event timed it again when it
+                    closed, the time the dialog was open is no stall */
+                long timedSequence = dispatchSequence;
+                long duration = System.nanoTime() - dispatchStart;
+                MetricsRegistry.recordEvent(duration);
+                if (duration >= thresholdNanos) {
+                    Stall stall = new Stall(timedSequence, describe(event), null);
+                    stall.duration = duration / 1000000L;
+                    finishedQueue.offer(stall);
+                }
+
+                if (outerEvent == null) {
+                    dispatchStart = 0;
+                    dispatchEvent = null;
+                } else {
+                    dispatchEvent = outerEvent;
+                    dispatchSequence = timedSequence + 1;
+                    dispatchStart = System.nanoTime();
+                }
+            }
+        }
+    }
+
+    /**
+     * Event that took longer than the threshold, without
+     * a stack when it ended before one was captured
+     */
+    private static class Stall {
+        private final long sequence;
+        private final String event;
+        private final StackTraceElement[] stack;
+        private long duration;
+
+        Stall(long sequence, String event, StackTraceElement[] stack) {
+            this.sequence = sequence;
+            this.event = event;
+            this.stack = stack;
+        }
+
+        /**
+         * Returns the innermost method of the application
+         * and the method it was blocked in when that is not
+         * part of the application, e.g. an image decoder
+         *
+         * @return The operation responsible for the stall
+         */
+        String getOperation() {
+            if (stack == null) {
+                return "stack not captured";
+            }
+            String blocking = stack.length > 0 ? getMethodName(stack[0]) : "unknown";
+            for (StackTraceElement frame : stack) {
+                if (frame.getClassName().startsWith(APPLICATION_PACKAGE)
+                        && !frame.getClassName().startsWith(EdtWatchdog.class.getName())) {
+                    String operation = getMethodName(frame);
+                    return frame == stack[0] ? operation : operation + " > " + blocking;
+                }
+            }
+
+            return blocking;
+        }
+
+        private static String getMethodName(StackTraceElement frame) {
+            String className = frame.getClassName();
+            return className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.monitor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts durations in buckets with fixed bounds so that
+ * recording from any thread never allocates or locks
+ */
+public class LatencyHistogram {
+    /* upper bounds of the buckets in milliseconds, the last is open */
+    private static final long[] BUCKET_BOUNDS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000};
+
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKET_BOUNDS.length + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Counts a duration
+     *
+     * @param nanos The duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long millis = nanos / 1000000L;
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS.length && millis >= BUCKET_BOUNDS[bucket]) {
+            bucket++;
+        }
+
+        bucketCounts.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public double getMeanMillis() {
+        long recorded = count.get();
+        return recorded == 0 ? 0 : totalNanos.get() / 1000000.0 / recorded;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1000000.0;
+    }
+
+    /**
+     * Returns the upper bound of the bucket that holds
+     * the duration at the provided percentile
+     *
+     * @param percentile The percentile between 0 and 100
+     * @return The duration in milliseconds, the maximum
+     * duration when it falls into the open bucket
+     */
+    public double getPercentileMillis(double percentile) {
+        long recorded = count.get();
+        if (recorded == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(recorded * percentile / 100.0);
+        long seen = 0;
+        for (int b = 0; b < BUCKET_BOUNDS.length; b++) {
+            seen += bucketCounts.get(b);
+            if (seen >= rank) {
+                return BUCKET_BOUNDS[b];
+            }
+        }
+
+        return getMaxMillis();
+    }
+
+    /**
+     * Returns the number of durations by bucket
+     *
+     * @return The counts by the label of their bucket
+     */
+    public Map<String, Long> getBuckets() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int b = 0; b < BUCKET_BOUNDS.length; b++) {
+            result.put("< " + BUCKET_BOUNDS[b] + " ms", bucketCounts.get(b));
+        }
+        result.put(">= " + BUCKET_BOUNDS[BUCKET_BOUNDS.length - 1] + " ms", bucketCounts.get(BUCKET_BOUNDS.length));
+
+        return result;
+    }
+
+    /**
+     * Drops all durations counted so far
+     */
+    public void reset() {
+        for (int b = 0; b < bucketCounts.length(); b++) {
+            bucketCounts.set(b, 0);
+        }
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+}
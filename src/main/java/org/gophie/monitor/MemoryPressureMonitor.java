@@ -0,0 +1,216 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.monitor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.gophie.config.ConfigFile;
+import org.gophie.config.ConfigurationManager;
+import org.gophie.monitor.event.MemoryPressureListener;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Watches the heap memory pools through usage threshold
+ * notifications and asks the registered listeners to release
+ * their caches in tiers when the heap occupancy crosses the
+ * configured watermarks, before the JVM runs out of memory.
+ */
+@Slf4j
+public class MemoryPressureMonitor {
+    /* minimum time between two releases of the same tier */
+    private static final long TIER_COOLDOWN_MILLIS = 10000;
+
+    /* listeners that hold releasable memory */
+    private static final List<MemoryPressureListener> listenerList = new CopyOnWriteArrayList<>();
+    private static final List<MemoryPoolMXBean> poolList = new ArrayList<>();
+    private static final long[] lastReleaseMillis = new long[MemoryTier.values().length];
+    private static int[] watermarkList;
+    private static boolean started = false;
+
+    /**
+     * Registers the usage thresholds on all heap pools
+     * that support them and starts listening for the
+     * notifications. Calling this more than once has
+     * no effect.
+     */
+    public static synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+
+        /* read the watermarks for each tier from the config */
+        ConfigFile configFile = ConfigurationManager.getConfigFile();
+        watermarkList = new int[MemoryTier.values().length];
+        int lowestWatermark = 100;
+        for (MemoryTier tier : MemoryTier.values()) {
+            int watermark = configFile.getIntSetting(tier.name() + "_WATERMARK",
+                    "Memory", tier.getDefaultWatermark());
+            watermarkList[tier.ordinal()] = Math.max(1, Math.min(99, watermark));
+            lowestWatermark = Math.min(lowestWatermark, watermarkList[tier.ordinal()]);
+        }
+
+        /* arm the thresholds of the heap pools at the lowest watermark */
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported()) {
+                long maxSize = pool.getUsage().getMax();
+                if (maxSize > 0) {
+                    long threshold = maxSize / 100 * lowestWatermark;
+                    pool.setUsageThreshold(threshold);
+                    if (pool.isCollectionUsageThresholdSupported()) {
+                        /* the collection usage tells the occupancy that
+                            survived a collection which is what matters */
+                        pool.setCollectionUsageThreshold(threshold);
+                    }
+                    poolList.add(pool);
+                }
+            }
+        }
+
+        if (poolList.isEmpty()) {
+            log.error("No heap memory pool supports usage thresholds, memory pressure is not monitored");
+            return;
+        }
+
+        /* the memory bean emits the notifications of all pools */
+        NotificationEmitter emitter = (NotificationEmitter) ManagementFactory.getMemoryMXBean();
+        emitter.addNotificationListener(
+                (notification, handback) -> handleNotification(notification), null, null);
+    }
+
+    /**
+     * Adds a listener that holds releasable memory
+     *
+     * @param listener The listener to report memory pressure to
+     */
+    public static void addListener(MemoryPressureListener listener) {
+        listenerList.add(listener);
+    }
+
+    /**
+     * Removes a previously added listener
+     *
+     * @param listener The listener to remove
+     */
+    public static void removeListener(MemoryPressureListener listener) {
+        listenerList.remove(listener);
+    }
+
+    /**
+     * Releases all tiers up to and including the provided
+     * tier, regardless of the current heap occupancy
+     *
+     * @param highestTier The most expensive tier to release
+     */
+    public static void releaseMemory(MemoryTier highestTier) {
+        for (MemoryTier tier : MemoryTier.values()) {
+            if (tier.ordinal() <= highestTier.ordinal()) {
+                releaseTier(tier);
+            }
+        }
+    }
+
+    /**
+     * Handles a threshold notification of a heap pool
+     *
+     * @param notification The notification from the memory bean
+     */
+    private static void handleNotification(Notification notification) {
+        String type = notification.getType();
+        if (!type.equals(MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED)
+                && !type.equals(MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED)) {
+            return;
+        }
+
+        MemoryNotificationInfo info = MemoryNotificationInfo.from((CompositeData) notification.getUserData());
+        MemoryUsage usage = info.getUsage();
+        if (usage.getMax() <= 0) {
+            return;
+        }
+
+        /* release every tier whose watermark was crossed */
+        long percent = usage.getUsed() * 100 / usage.getMax();
+        for (MemoryTier tier : MemoryTier.values()) {
+            if (percent >= watermarkList[tier.ordinal()]) {
+                long now = System.currentTimeMillis();
+                synchronized (lastReleaseMillis) {
+                    /* collection notifications arrive after every
+                        collection, avoid releasing over and over */
+                    if (now - lastReleaseMillis[tier.ordinal()] < TIER_COOLDOWN_MILLIS) {
+                        continue;
+                    }
+                    lastReleaseMillis[tier.ordinal()] = now;
+                }
+
+                log.warn("Heap pool {} at {}% (watermark {}%), releasing {}", info.getPoolName(),
+                        percent, watermarkList[tier.ordinal()], tier.getDescription());
+                releaseTier(tier);
+            }
+        }
+    }
+
+    /**
+     * Asks all listeners to release the memory of a tier
+     *
+     * @param tier The tier to release
+     */
+    private static void releaseTier(MemoryTier tier) {
+        for (MemoryPressureListener listener : listenerList) {
+            try {
+                listener.memoryPressureReported(tier);
+            } catch (Exception ex) {
+                /* one failing listener must not keep the others from releasing */
+                log.error("Failed to release {}: {}", tier.getDescription(), ex.getMessage());
+            }
+        }
+    }
+
+    /* tiers of releasable memory, ordered from cheapest to rebuild */
+    public enum MemoryTier {
+        RENDERED_VIEWS(70, "rendered view caches"),
+        DECODED_TEXT(80, "decoded text"),
+        PAGE_BODIES(90, "page bodies and image caches");
+
+        private final int defaultWatermark;
+        private final String description;
+
+        MemoryTier(int watermark, String text) {
+            defaultWatermark = watermark;
+            description = text;
+        }
+
+        public int getDefaultWatermark() {
+            return defaultWatermark;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+}
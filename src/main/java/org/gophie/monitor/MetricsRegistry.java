@@ -0,0 +1,409 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.monitor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.gophie.monitor.jmx.CacheMetricsMXBean;
+import org.gophie.monitor.jmx.InterfaceMetricsMXBean;
+import org.gophie.monitor.jmx.NetworkMetricsMXBean;
+import org.gophie.net.event.GopherError;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Collects metrics of the network, the caches and the
+ * event dispatch thread and publishes them as MBeans,
+ * so that a running client can be watched with tools
+ * like JConsole or VisualVM. Recording is lock-free
+ * and can be called from any thread.
+ */
+@Slf4j
+public class MetricsRegistry {
+    private static final String DOMAIN = "org.gophie";
+
+    /* requests by host */
+    private static final Map<String, Integer> activeMap = new ConcurrentHashMap<>();
+    private static final Map<String, Integer> queuedMap = new ConcurrentHashMap<>();
+    private static final LongAdder requestCount = new LongAdder();
+    private static final LongAdder bytesIn = new LongAdder();
+    private static final Map<Phase, LatencyHistogram> phaseMap = new ConcurrentHashMap<>();
+    private static final Map<GopherError, LongAdder> errorMap = new ConcurrentHashMap<>();
+
+    /* downloads */
+    private static final AtomicLong downloadedBytes = new AtomicLong();
+    private static final AtomicLong downloadNanos = new AtomicLong();
+    private static volatile double lastDownloadThroughput = 0;
+
+    /* caches by name */
+    private static final Map<String, LongAdder> hitMap = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> missMap = new ConcurrentHashMap<>();
+    private static final Map<String, LongSupplier> residentMap = new ConcurrentHashMap<>();
+
+    /* events dispatched on the event dispatch thread */
+    private static final LatencyHistogram eventHistogram = new LatencyHistogram();
+
+    private static final NetworkMetricsMXBean networkMetrics = new NetworkMetrics();
+    private static final CacheMetricsMXBean cacheMetrics = new CacheMetrics();
+    private static final InterfaceMetricsMXBean interfaceMetrics = new InterfaceMetrics();
+    private static boolean registered = false;
+
+    /**
+     * Publishes the metrics on the platform MBean server in the
+     * background, starting the server takes a while. Calling
+     * this more than once has no effect.
+     */
+    public static synchronized void register() {
+        if (registered) {
+            return;
+        }
+        registered = true;
+
+        Thread registerThread = new Thread(() -> {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                server.registerMBean(networkMetrics, new ObjectName(DOMAIN + ":type=Network"));
+                server.registerMBean(cacheMetrics, new ObjectName(DOMAIN + ":type=Cache"));
+                server.registerMBean(interfaceMetrics, new ObjectName(DOMAIN + ":type=Interface"));
+            } catch (JMException ex) {
+                log.error("Failed to publish the metrics: {}", ex.getMessage());
+            }
+        }, "metrics-register");
+        registerThread.setDaemon(true);
+        registerThread.start();
+    }
+
+    public static NetworkMetricsMXBean getNetworkMetrics() {
+        return networkMetrics;
+    }
+
+    public static CacheMetricsMXBean getCacheMetrics() {
+        return cacheMetrics;
+    }
+
+    public static InterfaceMetricsMXBean getInterfaceMetrics() {
+        return interfaceMetrics;
+    }
+
+    /**
+     * Counts a request waiting for a connection to a host
+     *
+     * @param host The host the request is for
+     */
+    public static void requestQueued(String host) {
+        increment(queuedMap, host);
+    }
+
+    /**
+     * Counts a request that no longer waits, either
+     * because it started or because it was dropped
+     *
+     * @param host The host the request is for
+     */
+    public static void requestDequeued(String host) {
+        decrement(queuedMap, host);
+    }
+
+    /**
+     * Counts a request connecting to a host
+     *
+     * @param host The host the request is for
+     */
+    public static void requestStarted(String host) {
+        requestCount.increment();
+        increment(activeMap, host);
+    }
+
+    /**
+     * Counts a request that completed or failed
+     *
+     * @param host      The host the request was for
+     * @param byteCount The number of bytes received
+     */
+    public static void requestFinished(String host, long byteCount) {
+        bytesIn.add(byteCount);
+        decrement(activeMap, host);
+    }
+
+    /**
+     * Counts the duration of a phase of a request
+     *
+     * @param phase The phase that completed
+     * @param nanos The duration in nanoseconds
+     */
+    public static void recordPhase(Phase phase, long nanos) {
+        phaseMap.computeIfAbsent(phase, key -> new LatencyHistogram()).record(nanos);
+    }
+
+    public static void recordError(GopherError error) {
+        errorMap.computeIfAbsent(error, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Counts a completed download
+     *
+     * @param byteCount The number of bytes downloaded
+     * @param nanos     The time the download took
+     */
+    public static void recordDownload(long byteCount, long nanos) {
+        downloadedBytes.addAndGet(byteCount);
+        downloadNanos.addAndGet(nanos);
+        lastDownloadThroughput = nanos > 0 ? byteCount * 1e9 / nanos : 0;
+    }
+
+    /**
+     * Counts a lookup in a cache
+     *
+     * @param cache The name of the cache
+     * @param hit   true when the cache held the entry
+     */
+    public static void recordCacheAccess(String cache, boolean hit) {
+        (hit ? hitMap : missMap).computeIfAbsent(cache, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Adds a cache whose memory is reported
+     *
+     * @param cache         The name of the cache
+     * @param residentBytes Returns the bytes the cache holds
+     */
+    public static void registerCache(String cache, LongSupplier residentBytes) {
+        residentMap.put(cache, residentBytes);
+    }
+
+    /**
+     * Counts an event dispatched on the event dispatch thread
+     *
+     * @param nanos The time dispatching took
+     */
+    public static void recordEvent(long nanos) {
+        eventHistogram.record(nanos);
+    }
+
+    /* both sides update the count within the map, an increment
+        never lands on an entry that was removed at the same time */
+    private static void increment(Map<String, Integer> map, String host) {
+        map.merge(host, 1, Integer::sum);
+    }
+
+    private static void decrement(Map<String, Integer> map, String host) {
+        map.computeIfPresent(host, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private static Map<String, Integer> snapshot(Map<String, Integer> map) {
+        return new TreeMap<>(map);
+    }
+
+    private static Map<String, Long> sum(Map<String, LongAdder> map) {
+        Map<String, Long> result = new TreeMap<>();
+        map.forEach((name, count) -> result.put(name, count.sum()));
+
+        return result;
+    }
+
+    /* phases of a request with their own latencies */
+    public enum Phase {
+        DNS_RESOLVE,
+        TCP_CONNECT,
+        REQUEST_WRITE,
+        FIRST_BYTE,
+        BODY,
+        TOTAL
+    }
+
+    private static class NetworkMetrics implements NetworkMetricsMXBean {
+        @Override
+        public int getActiveRequests() {
+            return activeMap.values().stream().mapToInt(Integer::intValue).sum();
+        }
+
+        @Override
+        public Map<String, Integer> getActiveRequestsByHost() {
+            return snapshot(activeMap);
+        }
+
+        @Override
+        public Map<String, Integer> getQueuedRequestsByHost() {
+            return snapshot(queuedMap);
+        }
+
+        @Override
+        public long getRequestCount() {
+            return requestCount.sum();
+        }
+
+        @Override
+        public long getBytesIn() {
+            return bytesIn.sum();
+        }
+
+        @Override
+        public Map<String, Double> getMedianLatencyMillis() {
+            Map<String, Double> result = new LinkedHashMap<>();
+            phaseMap.forEach((phase, histogram) -> result.put(phase.name(), histogram.getPercentileMillis(50)));
+
+            return result;
+        }
+
+        @Override
+        public Map<String, Double> getP95LatencyMillis() {
+            Map<String, Double> result = new LinkedHashMap<>();
+            phaseMap.forEach((phase, histogram) -> result.put(phase.name(), histogram.getPercentileMillis(95)));
+
+            return result;
+        }
+
+        @Override
+        public Map<String, Map<String, Long>> getLatencyHistograms() {
+            Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+            phaseMap.forEach((phase, histogram) -> result.put(phase.name(), histogram.getBuckets()));
+
+            return result;
+        }
+
+        @Override
+        public Map<String, Long> getErrorCounts() {
+            Map<String, Long> result = new TreeMap<>();
+            errorMap.forEach((error, count) -> result.put(error.name(), count.sum()));
+
+            return result;
+        }
+
+        @Override
+        public long getDownloadedBytes() {
+            return downloadedBytes.get();
+        }
+
+        @Override
+        public double getDownloadThroughput() {
+            long nanos = downloadNanos.get();
+            return nanos > 0 ? downloadedBytes.get() * 1e9 / nanos : 0;
+        }
+
+        @Override
+        public double getLastDownloadThroughput() {
+            return lastDownloadThroughput;
+        }
+
+        @Override
+        public void resetStatistics() {
+            requestCount.reset();
+            bytesIn.reset();
+            phaseMap.values().forEach(LatencyHistogram::reset);
+            errorMap.clear();
+            downloadedBytes.set(0);
+            downloadNanos.set(0);
+            lastDownloadThroughput = 0;
+        }
+    }
+
+    private static class CacheMetrics implements CacheMetricsMXBean {
+        @Override
+        public Map<String, Long> getHits() {
+            return sum(hitMap);
+        }
+
+        @Override
+        public Map<String, Long> getMisses() {
+            return sum(missMap);
+        }
+
+        @Override
+        public Map<String, Double> getHitRatios() {
+            Map<String, Double> result = new TreeMap<>();
+            Map<String, Long> hits = getHits();
+            Map<String, Long> misses = getMisses();
+            for (String cache : hits.keySet()) {
+                long hitCount = hits.get(cache);
+                result.put(cache, (double) hitCount / (hitCount + misses.getOrDefault(cache, 0L)));
+            }
+            for (String cache : misses.keySet()) {
+                result.putIfAbsent(cache, 0.0);
+            }
+
+            return result;
+        }
+
+        @Override
+        public Map<String, Long> getResidentBytes() {
+            Map<String, Long> result = new TreeMap<>();
+            residentMap.forEach((cache, supplier) -> result.put(cache, supplier.getAsLong()));
+
+            return result;
+        }
+
+        @Override
+        public void resetStatistics() {
+            hitMap.clear();
+            missMap.clear();
+        }
+    }
+
+    private static class InterfaceMetrics implements InterfaceMetricsMXBean {
+        @Override
+        public long getEventCount() {
+            return eventHistogram.getCount();
+        }
+
+        @Override
+        public double getMeanEventMillis() {
+            return eventHistogram.getMeanMillis();
+        }
+
+        @Override
+        public double getMaxEventMillis() {
+            return eventHistogram.getMaxMillis();
+        }
+
+        @Override
+        public Map<String, Long> getEventDurationHistogram() {
+            return eventHistogram.getBuckets();
+        }
+
+        @Override
+        public long getStallCount() {
+            return EdtWatchdog.getStallCount();
+        }
+
+        @Override
+        public long getStallMillis() {
+            return EdtWatchdog.getStallMillis();
+        }
+
+        @Override
+        public Map<String, Integer> getStallsByOperation() {
+            return EdtWatchdog.getStallSummary();
+        }
+
+        @Override
+        public void resetStatistics() {
+            eventHistogram.reset();
+            EdtWatchdog.resetSummary();
+        }
+    }
+}
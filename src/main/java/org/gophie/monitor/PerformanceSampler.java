@@ -0,0 +1,215 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.monitor;
+
+import org.gophie.monitor.jmx.NetworkMetricsMXBean;
+
+import java.awt.EventQueue;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the heap, garbage collection, threads, latency of the
+ * event dispatch thread, connections, throughput and caches once
+ * a second into a ring buffer. Sampling only runs between start
+ * and stop, so nothing is measured while nobody looks at it.
+ */
+public class PerformanceSampler {
+    /* milliseconds between two samples */
+    public static final int SAMPLE_INTERVAL = 1000;
+    /* number of samples kept for each metric */
+    public static final int SAMPLE_COUNT = 120;
+
+    private static final double MEGABYTE = 1024 * 1024;
+
+    /* samples by metric, nextSample is the slot written next */
+    private static final double[][] sampleRing = new double[Metric.values().length][SAMPLE_COUNT];
+    private static int sampleCount = 0;
+    private static int nextSample = 0;
+
+    private static ScheduledExecutorService sampleExecutor = null;
+    private static ScheduledFuture<?> sampleFuture = null;
+
+    /* values of the previous sample to compute rates */
+    private static long previousNanos = 0;
+    private static long previousGcMillis = 0;
+    private static long previousBytesIn = 0;
+
+    /* the probe posted to the event dispatch thread, 0 while none is pending */
+    private static volatile long probePosted = 0;
+    private static volatile double probeMillis = 0;
+
+    /**
+     * Starts sampling once a second, calling this
+     * while sampling already has no effect
+     */
+    public static synchronized void start() {
+        if (sampleFuture != null) {
+            return;
+        }
+        if (sampleExecutor == null) {
+            sampleExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "performance-sampler");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        /* rates start over, the samples before are kept */
+        previousNanos = 0;
+        sampleFuture = sampleExecutor.scheduleAtFixedRate(PerformanceSampler::sample,
+                0, SAMPLE_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops sampling until started again
+     */
+    public static synchronized void stop() {
+        if (sampleFuture != null) {
+            sampleFuture.cancel(false);
+            sampleFuture = null;
+        }
+    }
+
+    /**
+     * Copies the samples of a metric, oldest first
+     *
+     * @param metric The metric to copy the samples of
+     * @param target The array to copy to, at least SAMPLE_COUNT long
+     * @return The number of samples copied
+     */
+    public static synchronized int copySamples(Metric metric, double[] target) {
+        double[] ring = sampleRing[metric.ordinal()];
+        int first = (nextSample - sampleCount + SAMPLE_COUNT) % SAMPLE_COUNT;
+        for (int s = 0; s < sampleCount; s++) {
+            target[s] = ring[(first + s) % SAMPLE_COUNT];
+        }
+
+        return sampleCount;
+    }
+
+    /**
+     * Returns the latest sample of a metric
+     *
+     * @param metric The metric to return the sample of
+     * @return The latest sample or 0 when none was taken
+     */
+    public static synchronized double getLatest(Metric metric) {
+        if (sampleCount == 0) {
+            return 0;
+        }
+
+        return sampleRing[metric.ordinal()][(nextSample - 1 + SAMPLE_COUNT) % SAMPLE_COUNT];
+    }
+
+    /**
+     * Takes one sample of every metric
+     */
+    private static synchronized void sample() {
+        long now = System.nanoTime();
+        double seconds = previousNanos == 0 ? 0 : (now - previousNanos) / 1e9;
+
+        long gcMillis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcMillis += Math.max(0, collector.getCollectionTime());
+        }
+
+        NetworkMetricsMXBean networkMetrics = MetricsRegistry.getNetworkMetrics();
+        long bytesIn = networkMetrics.getBytesIn();
+
+        long cacheBytes = 0;
+        for (long residentBytes : MetricsRegistry.getCacheMetrics().getResidentBytes().values()) {
+            cacheBytes += residentBytes;
+        }
+
+        int slot = nextSample;
+        put(Metric.HEAP, slot, ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / MEGABYTE);
+        put(Metric.GC_TIME, slot, seconds > 0 ? (gcMillis - previousGcMillis) / seconds : 0);
+        put(Metric.THREADS, slot, ManagementFactory.getThreadMXBean().getThreadCount());
+        put(Metric.EDT_LATENCY, slot, probeEventQueue(now));
+        put(Metric.CONNECTIONS, slot, networkMetrics.getActiveRequests());
+        /* statistics that were reset would give a negative rate */
+        put(Metric.THROUGHPUT, slot, seconds > 0 ? Math.max(0, bytesIn - previousBytesIn) / 1024.0 / seconds : 0);
+        put(Metric.CACHES, slot, cacheBytes / MEGABYTE);
+
+        nextSample = (nextSample + 1) % SAMPLE_COUNT;
+        sampleCount = Math.min(SAMPLE_COUNT, sampleCount + 1);
+        previousNanos = now;
+        previousGcMillis = gcMillis;
+        previousBytesIn = bytesIn;
+    }
+
+    private static void put(Metric metric, int slot, double value) {
+        sampleRing[metric.ordinal()][slot] = value;
+    }
+
+    /**
+     * Returns how long the event dispatch thread took to run
+     * the latest probe and posts the next one. A probe still
+     * pending counts with the time it has been waiting so far.
+     *
+     * @param now The time of the sample in nanoseconds
+     * @return The latency of the event dispatch thread in milliseconds
+     */
+    private static double probeEventQueue(long now) {
+        long posted = probePosted;
+        if (posted != 0) {
+            return (now - posted) / 1e6;
+        }
+
+        probePosted = now;
+        EventQueue.invokeLater(() -> {
+            probeMillis = (System.nanoTime() - now) / 1e6;
+            probePosted = 0;
+        });
+
+        return probeMillis;
+    }
+
+    /* the metrics sampled with their label and unit */
+    public enum Metric {
+        HEAP("Heap used", "MB"),
+        GC_TIME("GC time", "ms/s"),
+        THREADS("Threads", ""),
+        EDT_LATENCY("Event dispatch latency", "ms"),
+        CONNECTIONS("Active connections", ""),
+        THROUGHPUT("Throughput", "KB/s"),
+        CACHES("Cache occupancy", "MB");
+
+        private final String label;
+        private final String unit;
+
+        Metric(String metricLabel, String metricUnit) {
+            label = metricLabel;
+            unit = metricUnit;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public String getUnit() {
+            return unit;
+        }
+    }
+}
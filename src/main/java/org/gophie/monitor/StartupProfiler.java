@@ -0,0 +1,74 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.monitor;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records how long the phases of the startup take, from the
+ * start of the JVM until the first page is shown, and logs
+ * the breakdown once the first page is on screen.
+ */
+@Slf4j
+public class StartupProfiler {
+    /* phases in the order they completed */
+    private static final List<String> phaseList = new ArrayList<>();
+    private static final List<Long> timeList = new ArrayList<>();
+    private static boolean finished = false;
+
+    /**
+     * Marks the end of a startup phase, called from any thread
+     *
+     * @param phase The name of the phase that completed
+     */
+    public static synchronized void mark(String phase) {
+        if (!finished) {
+            phaseList.add(phase);
+            timeList.add(ManagementFactory.getRuntimeMXBean().getUptime());
+        }
+    }
+
+    /**
+     * Marks the first page as shown and logs the
+     * breakdown, later calls have no effect
+     */
+    public static synchronized void finish() {
+        if (finished) {
+            return;
+        }
+        mark("first page shown");
+        finished = true;
+
+        StringBuilder breakdown = new StringBuilder();
+        long previous = 0;
+        for (int p = 0; p < phaseList.size(); p++) {
+            long time = timeList.get(p);
+            breakdown.append(String.format("%n  %-28s %6d ms %+6d ms", phaseList.get(p), time, time - previous));
+            previous = time;
+        }
+
+        log.info("Started in {} ms:{}", previous, breakdown);
+        phaseList.clear();
+        timeList.clear();
+    }
+}
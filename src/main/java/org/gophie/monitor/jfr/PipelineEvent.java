@@ -0,0 +1,83 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.monitor.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import org.gophie.net.GopherItem.GopherItemType;
+import org.gophie.net.GopherUrl;
+
+/**
+ * Flight recorder event of a step in fetching, parsing and
+ * rendering a page. The events are off unless a recording is
+ * started with the settings in jfr/gophie.jfc, so they cost
+ * next to nothing while nobody records them.
+ */
+@Enabled(false)
+@StackTrace(false)
+public abstract class PipelineEvent extends Event {
+    @Label("URL")
+    protected String url;
+
+    @Label("Host")
+    protected String host;
+
+    @Label("Bytes")
+    @DataAmount
+    protected long bytes;
+
+    @Label("Item Type")
+    protected String itemType;
+
+    /**
+     * Sets the page the event belongs to, call
+     * this only when the event should be committed
+     *
+     * @param pageUrl   The address of the page
+     * @param type      The item type of the page
+     * @param byteCount The number of bytes handled
+     */
+    public void describe(GopherUrl pageUrl, GopherItemType type, long byteCount) {
+        if (pageUrl != null) {
+            url = pageUrl.getUrlString();
+            host = pageUrl.getHost();
+        }
+        itemType = type == null ? null : type.name();
+        bytes = byteCount;
+    }
+
+    /**
+     * Ends the event and commits it for the page
+     * when it is recorded and took long enough
+     *
+     * @param pageUrl   The address of the page
+     * @param type      The item type of the page
+     * @param byteCount The number of bytes handled
+     */
+    public void commit(GopherUrl pageUrl, GopherItemType type, long byteCount) {
+        end();
+        if (shouldCommit()) {
+            describe(pageUrl, type, byteCount);
+            commit();
+        }
+    }
+}
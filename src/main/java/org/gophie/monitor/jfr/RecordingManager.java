@@ -0,0 +1,126 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.monitor.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.gophie.config.ConfigurationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Runs a flight recording with the default settings of the
+ * JDK and the pipeline events of jfr/gophie.jfc in the
+ * background and dumps what it holds to a file on request
+ */
+@Slf4j
+public class RecordingManager {
+    private static final String SETTINGS_RESOURCE = "jfr/gophie.jfc";
+    /* age of the oldest events kept in the recording */
+    private static final Duration MAX_AGE = Duration.ofMinutes(10);
+    private static final DateTimeFormatter FILENAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static Recording recording = null;
+
+    /**
+     * Starts the background recording unless it is
+     * running already or the JVM has no flight recorder
+     *
+     * @return true when the recording is running
+     */
+    public static synchronized boolean start() {
+        if (recording != null) {
+            return true;
+        }
+        if (!FlightRecorder.isAvailable()) {
+            log.warn("The flight recorder is not available in this JVM");
+            return false;
+        }
+
+        try {
+            /* the usual events of the JDK plus the ones of the pipeline */
+            Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+            try (InputStream input = Objects.requireNonNull(
+                    RecordingManager.class.getClassLoader().getResourceAsStream(SETTINGS_RESOURCE));
+                 Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+                settings.putAll(Configuration.create(reader).getSettings());
+            }
+
+            recording = new Recording(settings);
+            recording.setName("Gophie");
+            recording.setMaxAge(MAX_AGE);
+            recording.setToDisk(true);
+            recording.start();
+        } catch (IOException | ParseException | RuntimeException ex) {
+            log.error("Unable to start the flight recording: {}", ex.getMessage());
+            recording = null;
+        }
+
+        return recording != null;
+    }
+
+    /**
+     * Stops the background recording and discards its events
+     */
+    public static synchronized void stop() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    /**
+     * Writes the events of all running recordings to a
+     * new file in the download directory
+     *
+     * @return The file written
+     * @throws IOException When the recording could not be written
+     */
+    public static Path dump() throws IOException {
+        if (!start()) {
+            throw new IOException("The flight recorder is not available");
+        }
+
+        Path target = Paths.get(ConfigurationManager.getDownloadPath(),
+                "gophie-" + LocalDateTime.now().format(FILENAME_FORMAT) + ".jfr");
+        Files.createDirectories(target.getParent());
+        try (Recording snapshot = FlightRecorder.getFlightRecorder().takeSnapshot()) {
+            snapshot.dump(target);
+        }
+        log.info("Flight recording written to {}", target);
+
+        return target;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.monitor.jmx;
+
+import java.util.Map;
+
+/*
+    Requests, received bytes, latencies by phase
+    and errors of the gopher client, published as
+    org.gophie:type=Network
+*/
+public interface NetworkMetricsMXBean {
+    int getActiveRequests();
+
+    Map<String, Integer> getActiveRequestsByHost();
+
+    Map<String, Integer> getQueuedRequestsByHost();
+
+    long getRequestCount();
+
+    long getBytesIn();
+
+    /* median and 95th percentile in milliseconds by phase */
+    Map<String, Double> getMedianLatencyMillis();
+
+    Map<String, Double> getP95LatencyMillis();
+
+    /* number of durations by phase and bucket */
+    Map<String, Map<String, Long>> getLatencyHistograms();
+
+    Map<String, Long> getErrorCounts();
+
+    long getDownloadedBytes();
+
+    /* bytes per second over all downloads and over the last one */
+    double getDownloadThroughput();
+
+    double getLastDownloadThroughput();
+
+    void resetStatistics();
+}
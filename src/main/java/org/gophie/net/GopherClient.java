@@ -21,41 +21,54 @@ package org.gophie.net;
 import lombok.extern.slf4j.Slf4j;
 import org.gophie.io.FileSignature;
 import org.gophie.io.FileSignature.FileSignatureType;
+import org.gophie.io.ProgressiveImageSource;
+import org.gophie.io.ResponseBodyBuffer;
+import org.gophie.monitor.MetricsRegistry;
+import org.gophie.monitor.MetricsRegistry.Phase;
+import org.gophie.monitor.jfr.BodyCompleteEvent;
+import org.gophie.monitor.jfr.DnsResolveEvent;
+import org.gophie.monitor.jfr.FirstByteEvent;
+import org.gophie.monitor.jfr.RequestWriteEvent;
+import org.gophie.monitor.jfr.SignatureCheckEvent;
+import org.gophie.monitor.jfr.TcpConnectEvent;
 import org.gophie.net.GopherItem.GopherItemType;
 import org.gophie.net.event.GopherClientEventListener;
 import org.gophie.net.event.GopherError;
+import org.gophie.net.event.GopherStreamListener;
 
 import java.io.*;
 import java.net.ConnectException;
+import java.net.InetAddress;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
 @Slf4j
 public class GopherClient {
-    /* thread with the active fetch process */
-    private Thread thread;
-    private Boolean cancelled = false;
+    /* request started last, other requests keep running */
+    private volatile GopherRequest lastRequest;
 
     /**
-     * Cancels a current fetch operation
+     * Cancels the fetch or download started last
      */
     public void cancelFetch() {
-        if (thread != null) {
-            thread.interrupt();
-            cancelled = true;
+        GopherRequest request = lastRequest;
+        if (request != null) {
+            request.cancel();
         }
     }
 
     /**
-     * Returns whether the current
-     * operation was cancelled or not
+     * Returns whether the fetch or download
+     * started last was cancelled or not
      *
      * @return true when cancelled, false otherwise
      */
     public Boolean isCancelled() {
-        return cancelled;
+        GopherRequest request = lastRequest;
+        return request != null && request.isCancelled();
     }
 
     /**
@@ -68,18 +81,24 @@ public class GopherClient {
      */
     public void downloadAsync(String url, String targetFile, GopherClientEventListener eventListener) {
         /* instanciate the new thread */
-        GopherClient clientObject = this;
-        thread = new Thread(new Runnable() {
+        GopherRequest request = new GopherRequest();
+        lastRequest = request;
+        Thread thread = new Thread(new Runnable() {
             public void run() {
+                String host = null;
+                long receivedCount = 0;
+                GopherError failure = null;
+                RequestTrace trace = RequestLog.start(url, null);
                 try {
                     /* create the output file stream to write to */
                     OutputStream fileStream = new FileOutputStream(new File(targetFile));
 
                     /* parse the url and instanciate the client */
+                    long downloadStart = System.nanoTime();
                     GopherUrl gopherUrl = new GopherUrl(url);
-                    Socket gopherSocket = new Socket(gopherUrl.getHost(), gopherUrl.getPort());
-                    byte[] gopherRequest = (gopherUrl.getSelector() + "\r\n").getBytes(StandardCharsets.US_ASCII);
-                    (new DataOutputStream(gopherSocket.getOutputStream())).write(gopherRequest);
+                    host = gopherUrl.getHost();
+                    MetricsRegistry.requestStarted(host);
+                    Socket gopherSocket = sendRequest(gopherUrl, null, request, trace);
 
                     /* read byte in chunks and report progress */
                     int read;
@@ -89,13 +108,17 @@ public class GopherClient {
 
                     /* read byte by byte to be able to report progress */
                     while ((read = socketStream.read(data, 0, data.length)) != -1) {
+                        if (receivedCount == 0) {
+                            trace.markFirstByte();
+                        }
                         fileStream.write(data, 0, read);
+                        receivedCount += read;
 
                         /* calculate total bytes read */
                         totalByteCount = totalByteCount + data.length;
 
                         /* report byte count to listener */
-                        if (!clientObject.isCancelled()) {
+                        if (!request.isCancelled()) {
                             if (eventListener != null) {
                                 eventListener.progress(gopherUrl, totalByteCount);
                             }
@@ -104,11 +127,13 @@ public class GopherClient {
 
                     /* close the socket to the server */
                     gopherSocket.close();
+                    trace.markReceived(receivedCount);
 
                     /* close the file stream */
                     fileStream.close();
+                    MetricsRegistry.recordDownload(receivedCount, System.nanoTime() - downloadStart);
 
-                    if (!clientObject.isCancelled()) {
+                    if (!request.isCancelled()) {
                         if (eventListener != null) {
                             eventListener.pageLoaded(null);
                         }
@@ -124,14 +149,20 @@ public class GopherClient {
                     }
 
                     /* notify the handlers */
-                    if (!clientObject.isCancelled()) {
+                    failure = recordError(GopherError.EXCEPTION, request);
+                    if (!request.isCancelled()) {
                         if (eventListener != null) {
                             eventListener.pageLoadFailed(GopherError.EXCEPTION, new GopherUrl(url));
                         }
                     }
+                } finally {
+                    if (host != null) {
+                        MetricsRegistry.requestFinished(host, receivedCount);
+                    }
+                    trace.finish(failure, request.isCancelled());
                 }
             }
-        });
+        }, "gopher-download");
 
         /* start the new thread */
         thread.start();
@@ -143,38 +174,57 @@ public class GopherClient {
      * @param url           the url of the gopher page to fetch
      * @param contentType   the expected content type of the url
      * @param eventListener the listener to report the result to
+     * @return the request to cancel the fetch with
+     */
+    public GopherRequest fetchAsync(String url, GopherItemType contentType, GopherClientEventListener eventListener) {
+        return fetchAsync(url, contentType, eventListener, null);
+    }
+
+    /**
+     * Fetches a gopher page asynchronously and reports menu
+     * items and text lines while they are still received
+     *
+     * @param url            the url of the gopher page to fetch
+     * @param contentType    the expected content type of the url
+     * @param eventListener  the listener to report the result to
+     * @param streamListener the listener to report received lines to
+     * @return the request to cancel the fetch with
      */
-    public void fetchAsync(String url, GopherItemType contentType, GopherClientEventListener eventListener) {
+    public GopherRequest fetchAsync(String url, GopherItemType contentType, GopherClientEventListener eventListener,
+                                    GopherStreamListener streamListener) {
         /* instanciate the new thread */
-        GopherClient clientObject = this;
-        thread = new Thread(new Runnable() {
+        GopherRequest request = new GopherRequest();
+        lastRequest = request;
+        Thread thread = new Thread(new Runnable() {
             public void run() {
                 try {
-                    GopherPage resultPage = fetch(url, contentType, eventListener);
+                    GopherPage resultPage = fetch(url, contentType, eventListener, streamListener, request);
 
-                    if (!clientObject.isCancelled()) {
+                    if (!request.isCancelled()) {
                         if (eventListener != null) {
                             eventListener.pageLoaded(resultPage);
                         }
                     }
                 } catch (GopherNetworkException ex) {
-                    if (!clientObject.isCancelled()) {
+                    if (!request.isCancelled()) {
                         if (eventListener != null) {
                             eventListener.pageLoadFailed(ex.getGopherErrorType(), new GopherUrl(url));
                         }
                     }
                 } catch (GopherItemTypeException ex) {
-                    if (!clientObject.isCancelled()) {
+                    if (!request.isCancelled()) {
                         if (eventListener != null) {
                             eventListener.pageLoadItemMismatch(ex.getRequestedType(), ex.getDetectedType(), new GopherUrl(url));
                         }
                     }
                 }
             }
-        });
+        }, "gopher-fetch");
 
         /* start the new thread */
         thread.start();
+
+        return request;
     }
 
     /**
@@ -190,33 +240,81 @@ public class GopherClient {
      * @throws GopherNetworkException Exception with network information
      */
     public GopherPage fetch(String url, GopherItemType contentType, GopherClientEventListener eventListener) throws GopherNetworkException, GopherItemTypeException {
-        GopherPage result = null;
+        return fetch(url, contentType, eventListener, null);
+    }
 
-        try {
-            /* reset the cancellation indicator */
-            cancelled = false;
+    /**
+     * Fetches a gopher page and reports the lines of menus
+     * and text files to the stream listener as they arrive
+     *
+     * @param url            the url of the page to fetch
+     * @param contentType    the expected content type
+     * @param eventListener  event listener to report progress to
+     * @param streamListener listener to report received lines to or null
+     * @return the fetched gopher page object
+     * @throws GopherNetworkException Exception with network information
+     */
+    public GopherPage fetch(String url, GopherItemType contentType, GopherClientEventListener eventListener,
+                            GopherStreamListener streamListener) throws GopherNetworkException, GopherItemTypeException {
+        return fetch(url, contentType, eventListener, streamListener, new GopherRequest());
+    }
+
+    /**
+     * Fetches a gopher page as part of a request that
+     * can be cancelled while the page is received
+     *
+     * @param url            the url of the page to fetch
+     * @param contentType    the expected content type
+     * @param eventListener  event listener to report progress to
+     * @param streamListener listener to report received lines to or null
+     * @param request        the request the fetch belongs to
+     * @return the fetched gopher page object
+     * @throws GopherNetworkException Exception with network information
+     */
+    private GopherPage fetch(String url, GopherItemType contentType, GopherClientEventListener eventListener,
+                             GopherStreamListener streamListener, GopherRequest request)
+            throws GopherNetworkException, GopherItemTypeException {
+        GopherPage result = null;
+        GopherLineAssembler lineAssembler = null;
+        ProgressiveImageSource imageSource = null;
 
-            /* string result with content */
-            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        /* buffer for the content that moves to a temp file when large */
+        ResponseBodyBuffer buffer = new ResponseBodyBuffer();
+        long requestStart = System.nanoTime();
+        long totalByteCount = 0;
+        String host = null;
+        GopherError failure = null;
+        RequestTrace trace = RequestLog.start(url, contentType);
 
+        try {
             /* parse the url and instanciate the client */
             GopherUrl gopherUrl = new GopherUrl(url);
-            Socket gopherSocket = new Socket(gopherUrl.getHost(), gopherUrl.getPort());
-            byte[] gopherRequest = (gopherUrl.getSelector() + "\r\n").getBytes(StandardCharsets.US_ASCII);
-            (new DataOutputStream(gopherSocket.getOutputStream())).write(gopherRequest);
+            host = gopherUrl.getHost();
+            MetricsRegistry.requestStarted(host);
+            Socket gopherSocket = sendRequest(gopherUrl, contentType, request, trace);
 
             /* read byte in chunks and report progress */
             int read;
             InputStream socketStream = gopherSocket.getInputStream();
             byte[] data = new byte[16384];
-            long totalByteCount = 0;
+            FirstByteEvent firstByteEvent = new FirstByteEvent();
+            firstByteEvent.begin();
+            BodyCompleteEvent bodyEvent = null;
+            long phaseStart = System.nanoTime();
 
             /* read byte by byte to be able to report progress */
             while ((read = socketStream.read(data, 0, data.length)) != -1) {
                 /* check the file signature from the first bytes received */
                 if (totalByteCount == 0) {
-                    FileSignature fileSignature = new FileSignature(data);
-                    FileSignatureType fileType = fileSignature.getSignatureItemType();
+                    trace.markFirstByte();
+                    firstByteEvent.commit(gopherUrl, contentType, read);
+                    bodyEvent = new BodyCompleteEvent();
+                    bodyEvent.begin();
+                    MetricsRegistry.recordPhase(Phase.FIRST_BYTE, System.nanoTime() - phaseStart);
+                    phaseStart = System.nanoTime();
+
+                    FileSignatureType fileType = classify(data, gopherUrl, contentType, read);
+                    trace.markSignature(fileType);
 
                     /* check if the actual file type is an image */
                     if (fileType == FileSignatureType.IMAGE) {
@@ -238,18 +336,31 @@ public class GopherClient {
                         /* same goes for binary files */
                         throw new GopherItemTypeException(url, contentType, GopherItemType.BINARY_FILE);
                     }
+
+                    /* menus and text are shown while they are received */
+                    Charset charset = GopherPage.getConfiguredCharset();
+                    if (streamListener != null && GopherLineAssembler.isSupported(contentType, charset)) {
+                        lineAssembler = new GopherLineAssembler(gopherUrl, contentType, charset, streamListener);
+                        streamListener.streamStarted(gopherUrl, contentType);
+                    }
+
+                    /* and images are decoded while they are received */
+                    if (streamListener != null && (contentType == GopherItemType.IMAGE_FILE
+                            || contentType == GopherItemType.GIF_FILE)) {
+                        imageSource = new ProgressiveImageSource();
+                        streamListener.imageStreamStarted(gopherUrl, imageSource);
+                    }
                 }
 
                 /* verify that the provided file is actually a text file
                     as it seems to be getting very big and might be a 
-                    binary or media file */
+                    binary or media file, once when crossing the limit */
                 if ((contentType == GopherItemType.GOPHERMENU
                         || contentType == GopherItemType.TEXTFILE
                         || contentType == GopherItemType.UNKNOWN)
-                        && totalByteCount > 200000) {
+                        && totalByteCount <= 200000 && totalByteCount + read > 200000) {
                     /* check if the data is text content or not */
-                    FileSignature largeSignature = new FileSignature(data);
-                    FileSignatureType largeType = largeSignature.getSignatureItemType();
+                    FileSignatureType largeType = classify(data, gopherUrl, contentType, totalByteCount + read);
 
                     /* throw an exception when this file does not match */
                     if (largeType != FileSignatureType.TEXT) {
@@ -261,11 +372,19 @@ public class GopherClient {
                 /* write the data to the buffer */
                 buffer.write(data, 0, read);
 
+                /* report the lines completed by this chunk */
+                if (lineAssembler != null && !request.isCancelled()) {
+                    lineAssembler.write(data, 0, read);
+                }
+                if (imageSource != null) {
+                    imageSource.append(data, 0, read);
+                }
+
                 /* calculate total bytes read */
-                totalByteCount = totalByteCount + data.length;
+                totalByteCount = totalByteCount + read;
 
                 /* report byte count to listener */
-                if (!isCancelled()) {
+                if (!request.isCancelled()) {
                     if (eventListener != null) {
                         eventListener.progress(gopherUrl, totalByteCount);
                     }
@@ -274,27 +393,137 @@ public class GopherClient {
 
             /* close the socket to the server */
             gopherSocket.close();
+            trace.markReceived(totalByteCount);
+            if (bodyEvent != null) {
+                bodyEvent.commit(gopherUrl, contentType, totalByteCount);
+                MetricsRegistry.recordPhase(Phase.BODY, System.nanoTime() - phaseStart);
+            }
+
+            /* report the remaining lines before the page */
+            if (lineAssembler != null && !request.isCancelled()) {
+                lineAssembler.finish();
+            }
+            if (imageSource != null) {
+                imageSource.complete();
+            }
 
-            /* set the result page */
-            result = new GopherPage(buffer.toByteArray(), contentType, gopherUrl);
+            /* set the result page which owns the content from now on */
+            result = new GopherPage(buffer.toPageBody(), contentType, gopherUrl);
+            trace.markParsed();
+            MetricsRegistry.recordPhase(Phase.TOTAL, System.nanoTime() - requestStart);
         } catch (ConnectException ex) {
+            buffer.discard();
             /* handle host connection errors */
+            failure = recordError(GopherError.CONNECT_FAILED, request);
             throw new GopherNetworkException(GopherError.CONNECT_FAILED, ex.getMessage());
         } catch (UnknownHostException ex) {
+            buffer.discard();
             /* handle host not found exception */
+            failure = recordError(GopherError.HOST_UNKNOWN, request);
             throw new GopherNetworkException(GopherError.HOST_UNKNOWN, ex.getMessage());
         } catch (SocketTimeoutException ex) {
+            buffer.discard();
             /* handle host not found exception */
+            failure = recordError(GopherError.CONNECTION_TIMEOUT, request);
             throw new GopherNetworkException(GopherError.CONNECTION_TIMEOUT, ex.getMessage());
         } catch (GopherItemTypeException ex) {
+            buffer.discard();
             /* just pass through the item type exception */
             throw ex;
         } catch (Exception ex) {
+            buffer.discard();
             /* handle the error properly and raise and event */
             log.error("GOPHER NETWORK EXCEPTION: {}", ex.getMessage());
+            failure = recordError(GopherError.EXCEPTION, request);
             throw new GopherNetworkException(GopherError.EXCEPTION, ex.getMessage());
+        } finally {
+            /* stop decoding images that were not received completely */
+            if (imageSource != null) {
+                imageSource.cancel();
+            }
+            if (lineAssembler != null) {
+                lineAssembler.close();
+            }
+            if (host != null) {
+                MetricsRegistry.requestFinished(host, totalByteCount);
+            }
+            trace.finish(failure, request.isCancelled());
         }
 
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * Connects to the server of the url and sends the selector
+     *
+     * @param gopherUrl   the url to request
+     * @param contentType the expected content type or null when not known
+     * @param request     the request the connection belongs to
+     * @param trace       the trace to record the phases in
+     * @return the socket to read the response from
+     * @throws IOException when the server cannot be reached
+     */
+    private static Socket sendRequest(GopherUrl gopherUrl, GopherItemType contentType,
+                                      GopherRequest request, RequestTrace trace) throws IOException {
+        long phaseStart = System.nanoTime();
+        DnsResolveEvent resolveEvent = new DnsResolveEvent();
+        resolveEvent.begin();
+        InetAddress address = InetAddress.getByName(gopherUrl.getHost());
+        resolveEvent.commit(gopherUrl, contentType, 0);
+        MetricsRegistry.recordPhase(Phase.DNS_RESOLVE, System.nanoTime() - phaseStart);
+        trace.markResolved();
+
+        phaseStart = System.nanoTime();
+        TcpConnectEvent connectEvent = new TcpConnectEvent();
+        connectEvent.begin();
+        Socket result = new Socket(address, gopherUrl.getPort());
+        connectEvent.commit(gopherUrl, contentType, 0);
+        request.setSocket(result);
+        MetricsRegistry.recordPhase(Phase.TCP_CONNECT, System.nanoTime() - phaseStart);
+        trace.markConnected();
+
+        phaseStart = System.nanoTime();
+        RequestWriteEvent writeEvent = new RequestWriteEvent();
+        writeEvent.begin();
+        byte[] gopherRequest = (gopherUrl.getSelector() + "\r\n").getBytes(StandardCharsets.US_ASCII);
+        (new DataOutputStream(result.getOutputStream())).write(gopherRequest);
+        writeEvent.commit(gopherUrl, contentType, gopherRequest.length);
+        MetricsRegistry.recordPhase(Phase.REQUEST_WRITE, System.nanoTime() - phaseStart);
+
+        return result;
+    }
+
+    /**
+     * Classifies received content by its file signature
+     *
+     * @param data        the bytes received
+     * @param gopherUrl   the url the bytes were received from
+     * @param contentType the expected content type
+     * @param byteCount   the number of bytes received so far
+     * @return the type of the content
+     */
+    private static FileSignatureType classify(byte[] data, GopherUrl gopherUrl,
+                                              GopherItemType contentType, long byteCount) {
+        SignatureCheckEvent event = new SignatureCheckEvent();
+        event.begin();
+        FileSignatureType result = new FileSignature(data).getSignatureItemType();
+        event.commit(gopherUrl, contentType, byteCount);
+
+        return result;
+    }
+
+    /**
+     * Counts a failed request, requests that failed
+     * because they were cancelled count as cancelled
+     *
+     * @param error   the error the request failed with
+     * @param request the request that failed
+     * @return the error counted
+     */
+    private static GopherError recordError(GopherError error, GopherRequest request) {
+        GopherError result = request.isCancelled() ? GopherError.USER_CANCELLED : error;
+        MetricsRegistry.recordError(result);
+
+        return result;
+    }
+}
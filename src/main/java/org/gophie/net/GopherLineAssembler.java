@@ -0,0 +1,225 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.net;
+
+import org.gophie.net.GopherItem.GopherItemType;
+import org.gophie.net.event.GopherStreamListener;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits the bytes of a menu or text page into complete lines
+ * while they are received and reports them in batches. Menu
+ * lines are parsed exactly like the page parses its content.
+ * Lines held back to batch them are reported on a timer, so
+ * they show even when the server pauses after sending them.
+ */
+class GopherLineAssembler {
+    /* minimum time between two batches */
+    private static final long BATCH_INTERVAL = 50;
+
+    /* reports the batches held back when no further chunk arrives */
+    private static final ScheduledExecutorService flushExecutor =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "line-batch-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final GopherUrl url;
+    private final boolean menu;
+    private final Charset charset;
+    private final GopherStreamListener listener;
+
+    /* bytes of the line not completed yet */
+    private byte[] partialLine = new byte[256];
+    private int partialLength = 0;
+
+    /* lines waiting for the next batch */
+    private final List<GopherItem> pendingItems = new ArrayList<>();
+    private final StringBuilder pendingText = new StringBuilder();
+    private long lastBatch = 0;
+    private ScheduledFuture<?> pendingFlush = null;
+    private boolean closed = false;
+
+    /**
+     * Constructs the assembler for a page
+     *
+     * @param pageUrl     The url of the page received
+     * @param contentType The type of the page
+     * @param pageCharset The charset the page is decoded with
+     * @param target      The listener to report the lines to
+     */
+    GopherLineAssembler(GopherUrl pageUrl, GopherItemType contentType,
+                        Charset pageCharset, GopherStreamListener target) {
+        url = pageUrl;
+        menu = (contentType == GopherItemType.GOPHERMENU);
+        charset = pageCharset;
+        listener = target;
+    }
+
+    /**
+     * Returns whether content of a type can be assembled
+     *
+     * @param contentType The type of the content
+     * @param charset     The charset of the content
+     * @return true when lines can be reported, otherwise false
+     */
+    static boolean isSupported(GopherItemType contentType, Charset charset) {
+        byte[] lineFeed = "\n".getBytes(charset);
+        return (contentType == GopherItemType.GOPHERMENU || contentType == GopherItemType.TEXTFILE)
+                && lineFeed.length == 1 && lineFeed[0] == '\n';
+    }
+
+    /**
+     * Adds received bytes and reports the lines completed by
+     * them, or schedules reporting them when the last batch
+     * was reported just before
+     *
+     * @param data   The array with the data received
+     * @param offset The offset of the data in the array
+     * @param length The number of bytes received
+     */
+    synchronized void write(byte[] data, int offset, int length) {
+        int lineStart = offset;
+        int end = offset + length;
+
+        for (int position = offset; position < end; position++) {
+            if (data[position] == '\n') {
+                appendPartial(data, lineStart, position - lineStart);
+                addLine(true);
+                lineStart = position + 1;
+            }
+        }
+        appendPartial(data, lineStart, end - lineStart);
+
+        long elapsed = System.currentTimeMillis() - lastBatch;
+        if (elapsed >= BATCH_INTERVAL) {
+            reportBatch();
+        } else if (pendingFlush == null && hasPending()) {
+            pendingFlush = flushExecutor.schedule(this::flush,
+                    BATCH_INTERVAL - elapsed, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Reports the last line and everything not reported yet
+     */
+    synchronized void finish() {
+        if (partialLength > 0) {
+            addLine(false);
+        }
+        reportBatch();
+        close();
+    }
+
+    /**
+     * Drops the batch held back, nothing is reported
+     * after the page finished or failed
+     */
+    synchronized void close() {
+        closed = true;
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+            pendingFlush = null;
+        }
+    }
+
+    /**
+     * Reports the batch held back by the last chunk
+     */
+    private synchronized void flush() {
+        pendingFlush = null;
+        if (!closed) {
+            reportBatch();
+        }
+    }
+
+    private boolean hasPending() {
+        return !pendingItems.isEmpty() || pendingText.length() > 0;
+    }
+
+    /**
+     * Appends bytes to the line not completed yet
+     *
+     * @param data   The array with the bytes
+     * @param offset The offset of the bytes
+     * @param length The number of bytes
+     */
+    private void appendPartial(byte[] data, int offset, int length) {
+        if (partialLength + length > partialLine.length) {
+            partialLine = Arrays.copyOf(partialLine, Math.max(partialLine.length * 2, partialLength + length));
+        }
+        System.arraycopy(data, offset, partialLine, partialLength, length);
+        partialLength += length;
+    }
+
+    /**
+     * Decodes the completed line and adds it to the batch
+     *
+     * @param lineBreak Whether the line ended with a line break
+     */
+    private void addLine(boolean lineBreak) {
+        String line = charset.decode(ByteBuffer.wrap(partialLine, 0, partialLength)).toString();
+        partialLength = 0;
+
+        if (menu) {
+            /* the same lines the page parser skips */
+            if (!line.isEmpty() && !line.equals(".")) {
+                pendingItems.add(new GopherItem(line));
+            }
+        } else {
+            if (line.endsWith("\r")) {
+                line = line.substring(0, line.length() - 1);
+            }
+            pendingText.append(line);
+            if (lineBreak) {
+                pendingText.append('\n');
+            }
+        }
+    }
+
+    /**
+     * Reports the lines collected since the last batch
+     */
+    private void reportBatch() {
+        lastBatch = System.currentTimeMillis();
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+            pendingFlush = null;
+        }
+
+        if (!pendingItems.isEmpty()) {
+            listener.menuItemsReceived(url, new ArrayList<>(pendingItems));
+            pendingItems.clear();
+        }
+        if (pendingText.length() > 0) {
+            listener.textReceived(url, pendingText.toString());
+            pendingText.setLength(0);
+        }
+    }
+}
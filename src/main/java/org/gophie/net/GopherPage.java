@@ -19,12 +19,18 @@
 package org.gophie.net;
 
 import lombok.Getter;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.gophie.config.ConfigurationManager;
+import org.gophie.io.PageBody;
+import org.gophie.io.PageBodyStore;
+import org.gophie.monitor.jfr.PageParseEvent;
+import org.gophie.monitor.jfr.TextDecodeEvent;
 import org.gophie.net.GopherItem.GopherItemType;
 
 import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Base64;
 
@@ -34,18 +40,10 @@ import java.util.Base64;
  */
 @Slf4j
 public class GopherPage {
-    /* defines the default charset */
-    private static final String GOPHERPAGE_DEFAULT_CHARSET = "UTF-8";
-
-    /**
-     * -- SETTER --
-     *  Sets the source code (gophermap) of this gopher page
-     *
-     * @param value The text value as supplied by the server
-     */
     /* local variables */
-    @Setter
-    private byte[] sourceCode;
+    private volatile PageBody body;
+    /* decoded text of the source code, created on first use */
+    private volatile String decodedSourceCode;
     /**
      * -- GETTER --
      *  Returns the GopherUrl object for this page
@@ -83,7 +81,19 @@ public class GopherPage {
      * @param gopherPageUrl        The URL of the gopher page
      */
     public GopherPage(byte[] gopherPageSourceCode, GopherItemType gopherContentType, GopherUrl gopherPageUrl) {
-        sourceCode = gopherPageSourceCode;
+        this(PageBodyStore.store(gopherPageSourceCode), gopherContentType, gopherPageUrl);
+    }
+
+    /**
+     * Constructs the GopherPage object around a body that
+     * is owned by this page from now on
+     *
+     * @param pageBody          The body with the content of the gopher page
+     * @param gopherContentType The estimated content type of the gopher page
+     * @param gopherPageUrl     The URL of the gopher page
+     */
+    public GopherPage(PageBody pageBody, GopherItemType gopherContentType, GopherUrl gopherPageUrl) {
+        body = pageBody;
         url = gopherPageUrl;
         itemList = new ArrayList<>();
 
@@ -92,7 +102,10 @@ public class GopherPage {
             /* try to parse it as a gopher menu */
             try {
                 /* execute the parse process */
+                PageParseEvent parseEvent = new PageParseEvent();
+                parseEvent.begin();
                 parse();
+                parseEvent.commit(url, gopherContentType, getByteCount());
 
                 /* parsing succeeded, define as gopher menu */
                 contentType = GopherItemType.GOPHERMENU;
@@ -109,6 +122,56 @@ public class GopherPage {
         }
     }
 
+    /**
+     * Constructs a page without content that only
+     * describes the address and type of a page
+     *
+     * @param gopherPageUrl     The URL of the gopher page
+     * @param gopherContentType The content type of the gopher page
+     */
+    private GopherPage(GopherUrl gopherPageUrl, GopherItemType gopherContentType) {
+        url = gopherPageUrl;
+        itemList = new ArrayList<>();
+        contentType = gopherContentType;
+    }
+
+    /**
+     * Returns a page with only the address and type of this
+     * page, which is fetched again before it can be shown
+     *
+     * @return The page without content or items
+     */
+    public GopherPage createDescriptor() {
+        return createDescriptor(url.getUrlString(), contentType);
+    }
+
+    /**
+     * Returns a page with only the address and type of
+     * a page, which is fetched before it can be shown
+     *
+     * @param pageUrl  The address of the page
+     * @param pageType The content type of the page
+     * @return The page without content or items
+     */
+    public static GopherPage createDescriptor(String pageUrl, GopherItemType pageType) {
+        return new GopherPage(new GopherUrl(pageUrl), pageType);
+    }
+
+    /**
+     * Sets the source code (gophermap) of this gopher page
+     *
+     * @param value The text value as supplied by the server
+     */
+    public void setSourceCode(byte[] value) {
+        PageBody previous = body;
+        body = PageBodyStore.store(value);
+        decodedSourceCode = null;
+
+        if (previous != null) {
+            previous.release();
+        }
+    }
+
     /**
      * Returns the source code in base64 encoded format
      * which can be used to display images in the view
@@ -116,16 +179,78 @@ public class GopherPage {
      * @return String with base64 encoded data of the source code
      */
     public String getBase64() {
-        return Base64.getEncoder().encodeToString(sourceCode);
+        return Base64.getEncoder().encodeToString(getByteArray());
     }
 
     /**
-     * Returns the raw bytes of the data received
+     * Returns a copy of the raw bytes of the data received,
+     * prefer the stream or the body for large content
      *
      * @return Byte array with the raw gopher page data
      */
     public byte[] getByteArray() {
-        return sourceCode;
+        PageBody content = body;
+
+        if (content == null) {
+            /* content was released, nothing left to return */
+            return new byte[0];
+        }
+
+        return content.getBytes();
+    }
+
+    /**
+     * Returns the number of bytes received for this page
+     *
+     * @return The size of the content in bytes
+     */
+    public int getByteCount() {
+        PageBody content = body;
+
+        return content == null ? 0 : content.getSize();
+    }
+
+    /**
+     * Opens a stream with the raw bytes of this page
+     *
+     * @return Input stream with the raw gopher page data
+     */
+    public InputStream openStream() {
+        PageBody content = body;
+
+        if (content == null) {
+            return InputStream.nullInputStream();
+        }
+
+        return content.openStream();
+    }
+
+    /**
+     * Returns the body with the content of this page,
+     * it remains owned by this page
+     *
+     * @return The body or null when it was released
+     */
+    public PageBody getBody() {
+        return body;
+    }
+
+    /**
+     * Returns the charset the content of this page is decoded with
+     *
+     * @return The configured charset for pages
+     */
+    public Charset getCharset() {
+        return getConfiguredCharset();
+    }
+
+    /**
+     * Returns the charset configured for decoding pages
+     *
+     * @return The configured charset for pages
+     */
+    public static Charset getConfiguredCharset() {
+        return ConfigurationManager.getSnapshot().getDefaultCharset();
     }
 
     /**
@@ -134,14 +259,89 @@ public class GopherPage {
      * @return The gophermap content as a String
      */
     public String getSourceCode() {
-        try {
-            return new String(sourceCode, ConfigurationManager.getConfigFile()
-                    .getSetting("DEFAULT_CHARSET", "Network", GOPHERPAGE_DEFAULT_CHARSET));
-        } catch (Exception ex) {
-            /* drop a quick info on the console when decoding fails */
-            log.error("Failed to decode bytes of Gopher Page: {}", ex.getMessage());
-            return "";
+        String result = decodedSourceCode;
+
+        if (result == null) {
+            try {
+                PageBody content = body;
+                /* decode straight from the buffer without a copy on the heap */
+                TextDecodeEvent decodeEvent = new TextDecodeEvent();
+                decodeEvent.begin();
+                result = content == null ? "" : getCharset().decode(content.getBuffer()).toString();
+                decodeEvent.commit(url, contentType, content == null ? 0 : content.getSize());
+
+                /* keep the decoded text unless the content was released meanwhile */
+                if (body != null) {
+                    decodedSourceCode = result;
+                }
+            } catch (Exception ex) {
+                /* drop a quick info on the console when decoding fails */
+                log.error("Failed to decode bytes of Gopher Page: {}", ex.getMessage());
+                result = "";
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Drops the decoded text of this page, it
+     * is decoded again from the source on next use
+     *
+     * @return The number of characters released
+     */
+    public int releaseDecodedText() {
+        String decoded = decodedSourceCode;
+        decodedSourceCode = null;
+
+        return decoded == null ? 0 : decoded.length();
+    }
+
+    /**
+     * Drops the source code and decoded text of this page.
+     * The items of a menu are kept, but the page needs to
+     * be fetched again before its content can be shown.
+     *
+     * @return The number of bytes released
+     */
+    public int releaseContent() {
+        PageBody content = body;
+        body = null;
+        releaseDecodedText();
+
+        if (content == null) {
+            return 0;
+        }
+
+        content.release();
+        return content.getSize();
+    }
+
+    /**
+     * Returns whether the content of this
+     * page was released to free memory
+     *
+     * @return true when released, otherwise false
+     */
+    public boolean isReleased() {
+        return body == null;
+    }
+
+    /**
+     * Returns the items of this menu that link to images
+     *
+     * @return List with the image and gif items of this page
+     */
+    public ArrayList<GopherItem> getImageItems() {
+        ArrayList<GopherItem> result = new ArrayList<>();
+        for (GopherItem item : itemList) {
+            if (item.getItemType() == GopherItemType.IMAGE_FILE
+                    || item.getItemType() == GopherItemType.GIF_FILE) {
+                result.add(item);
+            }
         }
+
+        return result;
     }
 
     /**
@@ -178,8 +378,11 @@ public class GopherPage {
 
         try {
             /* store this page content to file */
-            FileOutputStream fileOutput = new FileOutputStream(fileName);
-            fileOutput.write(getByteArray());
+            OutputStream fileOutput = new FileOutputStream(fileName);
+            PageBody content = body;
+            if (content != null) {
+                content.writeTo(fileOutput);
+            }
             fileOutput.close();
             result = true;
         } catch (Exception ex) {
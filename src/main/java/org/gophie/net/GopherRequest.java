@@ -0,0 +1,75 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.net;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * A single fetch or download of a gopher client. Every
+ * request can be cancelled on its own, so one client
+ * can serve several requests at the same time.
+ */
+@Slf4j
+public class GopherRequest {
+    private volatile boolean cancelled = false;
+    /* socket of the request, closed to cancel a blocking read */
+    private volatile Socket socket;
+
+    /**
+     * Cancels the request and stops waiting for the server
+     */
+    public void cancel() {
+        cancelled = true;
+
+        Socket activeSocket = socket;
+        if (activeSocket != null) {
+            try {
+                activeSocket.close();
+            } catch (IOException ex) {
+                log.error("Failed to close cancelled connection: {}", ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns whether the request was cancelled
+     *
+     * @return true when cancelled, false otherwise
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Sets the socket the request reads from
+     *
+     * @param requestSocket The socket connected to the server
+     */
+    void setSocket(Socket requestSocket) {
+        socket = requestSocket;
+
+        /* cancelled while connecting */
+        if (cancelled) {
+            cancel();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.net;
+
+import lombok.extern.slf4j.Slf4j;
+import org.gophie.config.ConfigurationManager;
+import org.gophie.net.event.InstanceRequestListener;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Local socket in the config directory through which a new
+ * launch of the application hands its addresses to the
+ * instance that is already running and exits right away.
+ * Each connection sends one address per line.
+ */
+@Slf4j
+public class InstanceChannel {
+    private static final String SOCKET_FILENAME = "gophie.sock";
+
+    /* sent when only checking whether an instance runs,
+        no address starts with a null character */
+    private static final String PROBE_LINE = "\u0000probe";
+
+    /* socket of this instance, null until bound */
+    private static ServerSocketChannel serverChannel = null;
+
+    /**
+     * Passes addresses to the running instance
+     *
+     * @param addresses The addresses to open, may be empty
+     * @return true when an instance took them, otherwise false
+     */
+    public static boolean handOver(String[] addresses) {
+        Path socketFile = getSocketFile();
+        if (!Files.exists(socketFile)) {
+            return false;
+        }
+
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketFile));
+             Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8)) {
+            for (String address : addresses) {
+                writer.write(address.replace('\n', ' ') + "\n");
+            }
+            return true;
+        } catch (IOException ex) {
+            /* the socket was left behind by an instance that is gone */
+            return false;
+        }
+    }
+
+    /**
+     * Takes the socket for this instance before the window is
+     * built, so later launches hand over to it right away. Their
+     * addresses wait in the socket until listening starts. A socket
+     * file is only replaced when nothing accepts connections on it.
+     *
+     * @return false when another instance owns the socket, otherwise true
+     */
+    public static synchronized boolean bind() {
+        Path socketFile = getSocketFile();
+        if (Files.exists(socketFile) && isAlive(socketFile)) {
+            return false;
+        }
+
+        try {
+            /* left behind by an instance that is gone */
+            Files.deleteIfExists(socketFile);
+            ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            try {
+                channel.bind(UnixDomainSocketAddress.of(socketFile));
+            } catch (IOException ex) {
+                channel.close();
+                throw ex;
+            }
+            serverChannel = channel;
+            socketFile.toFile().deleteOnExit();
+        } catch (IOException | UnsupportedOperationException ex) {
+            /* another launch may have bound the socket just now */
+            if (isAlive(socketFile)) {
+                return false;
+            }
+            log.error("Failed to listen for other instances: {}", ex.getMessage());
+        }
+
+        return true;
+    }
+
+    /**
+     * Reports the addresses of other launches in the
+     * background once the socket of this instance is bound
+     *
+     * @param listener The listener to report the addresses to
+     */
+    public static synchronized void listen(InstanceRequestListener listener) {
+        if (serverChannel == null) {
+            return;
+        }
+
+        ServerSocketChannel channel = serverChannel;
+        Thread listenThread = new Thread(() -> {
+            while (channel.isOpen()) {
+                try {
+                    /* read each launch on its own, a client that never
+                        closes its connection must not block the others */
+                    SocketChannel client = channel.accept();
+                    Thread clientThread = new Thread(() -> receive(client, listener), "single-instance-client");
+                    clientThread.setDaemon(true);
+                    clientThread.start();
+                } catch (IOException ex) {
+                    log.error("Failed to accept another instance: {}", ex.getMessage());
+                }
+            }
+        }, "single-instance");
+        listenThread.setDaemon(true);
+        listenThread.start();
+    }
+
+    /**
+     * Reads the addresses another launch sent through
+     * a connection and reports them unless it was a probe
+     *
+     * @param client   The connection of the other launch
+     * @param listener The listener to report the addresses to
+     */
+    private static void receive(SocketChannel client, InstanceRequestListener listener) {
+        try (BufferedReader reader = new BufferedReader(Channels.newReader(client, StandardCharsets.UTF_8))) {
+            List<String> addressList = new ArrayList<>();
+            boolean probe = false;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.equals(PROBE_LINE)) {
+                    probe = true;
+                } else if (!line.isBlank()) {
+                    addressList.add(line.trim());
+                }
+            }
+
+            /* a probe is no launch to bring the window to front for */
+            if (!probe) {
+                listener.instanceRequested(addressList);
+            }
+        } catch (IOException ex) {
+            log.error("Failed to receive addresses from another instance: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Returns whether an instance accepts connections on a socket
+     *
+     * @param socketFile The file of the socket
+     * @return true when connecting succeeded, otherwise false
+     */
+    private static boolean isAlive(Path socketFile) {
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open(UnixDomainSocketAddress.of(socketFile));
+        } catch (IOException | UnsupportedOperationException ex) {
+            return false;
+        }
+
+        try {
+            channel.write(ByteBuffer.wrap((PROBE_LINE + "\n").getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException ex) {
+            /* the instance accepted the connection all the same */
+        }
+
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            /* nothing left to release */
+        }
+        return true;
+    }
+
+    private static Path getSocketFile() {
+        return Paths.get(ConfigurationManager.getConfigPath(), SOCKET_FILENAME);
+    }
+}
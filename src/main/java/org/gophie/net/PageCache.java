@@ -0,0 +1,368 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.net;
+
+import lombok.extern.slf4j.Slf4j;
+import org.gophie.config.ConfigurationManager;
+import org.gophie.config.SystemUtility;
+import org.gophie.monitor.MemoryPressureMonitor;
+import org.gophie.monitor.MemoryPressureMonitor.MemoryTier;
+import org.gophie.monitor.MetricsRegistry;
+import org.gophie.net.GopherItem.GopherItemType;
+import org.gophie.net.RequestTrace.Source;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed copies of recently loaded menus and text pages,
+ * shared by all tabs. Pages whose content was released, for
+ * example by a hibernating tab, are restored from here
+ * without fetching them again. The pages of the last session
+ * are also kept on disk to show them at startup right away.
+ */
+@Slf4j
+public class PageCache {
+    /* compressed bytes kept at most */
+    private static final int DEFAULT_PAGE_CACHE_SIZE = 33554432;
+    /* folder with the pages kept for the next session */
+    private static final String CACHE_FOLDERNAME = "cache";
+    private static final int MAGIC = 0x47504301;
+
+    private static final long maxSize = ConfigurationManager.getSnapshot()
+            .getIntSetting("PAGE_CACHE_SIZE", "Memory", DEFAULT_PAGE_CACHE_SIZE);
+    /* compressing never competes with loading and rendering pages */
+    private static final ExecutorService cacheExecutor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "page-cache");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    /* entries by url, least recently used first */
+    private static final LinkedHashMap<String, CacheEntry> entryMap = new LinkedHashMap<>(64, 0.75f, true);
+    private static long size = 0;
+
+    static {
+        MemoryPressureMonitor.addListener(tier -> {
+            if (tier == MemoryTier.PAGE_BODIES) {
+                long released = clear();
+                log.warn("Released {} of cached pages", SystemUtility.getFileSizeString(released));
+            }
+        });
+        MetricsRegistry.registerCache("pages", PageCache::getSize);
+    }
+
+    /**
+     * Stores a compressed copy of a menu or text page
+     * in the background, other pages are not cached
+     *
+     * @param page The page that was loaded
+     */
+    public static void put(GopherPage page) {
+        if (maxSize <= 0 || (page.getContentType() != GopherItemType.GOPHERMENU
+                && page.getContentType() != GopherItemType.TEXTFILE)) {
+            return;
+        }
+
+        /* read the buffer now, the page may release its content later */
+        ByteBuffer content = page.getBody() != null ? page.getBody().getBuffer() : null;
+        if (content == null || !content.hasRemaining() || content.remaining() > maxSize) {
+            return;
+        }
+
+        String url = page.getUrl().getUrlString();
+        GopherItemType contentType = page.getContentType();
+        cacheExecutor.execute(() -> store(url, contentType, content));
+    }
+
+    /**
+     * Returns a new page with the cached content of an address
+     *
+     * @param url The address of the page without type prefix
+     * @return The page or null when it is not cached
+     */
+    public static GopherPage get(String url) {
+        CacheEntry entry;
+        synchronized (PageCache.class) {
+            entry = entryMap.get(url);
+        }
+        Source source = Source.MEMORY_CACHE;
+        if (entry == null) {
+            entry = load(url);
+            if (entry == null) {
+                MetricsRegistry.recordCacheAccess("pages", false);
+                return null;
+            }
+            source = Source.DISK_CACHE;
+        }
+        MetricsRegistry.recordCacheAccess("pages", true);
+
+        Inflater inflater = new Inflater();
+        try {
+            byte[] content = new byte[entry.length];
+            inflater.setInput(entry.data);
+            int offset = 0;
+            while (offset < content.length && !inflater.finished()) {
+                offset += inflater.inflate(content, offset, content.length - offset);
+            }
+            GopherPage result = new GopherPage(content, entry.contentType, new GopherUrl(url));
+            RequestLog.recordCacheHit(result, source);
+            return result;
+        } catch (DataFormatException ex) {
+            log.error("Failed to restore cached page ({}): {}", url, ex.getMessage());
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Returns the compressed bytes held in memory
+     *
+     * @return The size of the cached pages in bytes
+     */
+    private static synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Writes the cached copies of the pages to disk in the background
+     * and removes pages of earlier sessions that are no longer needed
+     *
+     * @param urls The addresses of the pages to keep on disk
+     * @return The task writing the pages
+     */
+    public static Future<?> persist(Collection<String> urls) {
+        Set<String> keepUrls = new HashSet<>(urls);
+        return cacheExecutor.submit(() -> {
+            Set<String> keepFiles = new HashSet<>();
+            for (String url : keepUrls) {
+                Path file = getFile(url);
+                keepFiles.add(file.getFileName().toString());
+
+                CacheEntry entry;
+                synchronized (PageCache.class) {
+                    entry = entryMap.get(url);
+                }
+                if (entry != null && !entry.persisted) {
+                    write(file, url, entry);
+                }
+            }
+
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(getDirectory())) {
+                for (Path file : files) {
+                    if (!keepFiles.contains(file.getFileName().toString())) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            } catch (IOException ex) {
+                log.error("Failed to remove pages of earlier sessions: {}", ex.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Drops all cached pages
+     *
+     * @return The number of compressed bytes released
+     */
+    public static synchronized long clear() {
+        long result = size;
+        entryMap.clear();
+        size = 0;
+        return result;
+    }
+
+    /**
+     * Compresses content and adds it to the cache,
+     * dropping the least recently used pages
+     *
+     * @param url         The address of the page
+     * @param contentType The type of the page
+     * @param content     The content of the page
+     */
+    private static void store(String url, GopherItemType contentType, ByteBuffer content) {
+        int length = content.remaining();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, length / 4));
+        byte[] chunk = new byte[16384];
+
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            while (!deflater.finished()) {
+                int count = deflater.deflate(chunk);
+                output.write(chunk, 0, count);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        add(url, new CacheEntry(contentType, output.toByteArray(), length));
+    }
+
+    /**
+     * Writes a cached page to its file
+     *
+     * @param file  The file to write
+     * @param url   The address of the page
+     * @param entry The compressed page
+     */
+    private static void write(Path file, String url, CacheEntry entry) {
+        /* write to a temp file first, a page is never read half written */
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                output.writeInt(MAGIC);
+                output.writeUTF(url);
+                output.writeUTF(GopherItem.getTypeCode(entry.contentType));
+                output.writeInt(entry.length);
+                output.writeInt(entry.data.length);
+                output.write(entry.data);
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            entry.persisted = true;
+        } catch (IOException ex) {
+            log.error("Failed to write cached page ({}): {}", url, ex.getMessage());
+        }
+    }
+
+    /**
+     * Reads a page kept on disk and adds it to the cache
+     *
+     * @param url The address of the page
+     * @return The compressed page or null when it is not on disk
+     */
+    private static CacheEntry load(String url) {
+        Path file = getFile(url);
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        CacheEntry result;
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            /* another address with the same hash is not this page */
+            if (input.readInt() != MAGIC || !input.readUTF().equals(url)) {
+                return null;
+            }
+
+            GopherItemType contentType = new GopherItem(input.readUTF(), new GopherUrl(url)).getItemType();
+            int length = input.readInt();
+            byte[] data = new byte[input.readInt()];
+            input.readFully(data);
+            result = new CacheEntry(contentType, data, length);
+            result.persisted = true;
+        } catch (IOException ex) {
+            log.error("Failed to read cached page ({}): {}", url, ex.getMessage());
+            return null;
+        }
+
+        add(url, result);
+        return result;
+    }
+
+    /**
+     * Adds a compressed page to the cache, dropping
+     * the least recently used pages
+     *
+     * @param url   The address of the page
+     * @param entry The compressed page
+     */
+    private static synchronized void add(String url, CacheEntry entry) {
+        CacheEntry previous = entryMap.put(url, entry);
+        if (previous != null) {
+            size -= previous.data.length;
+        }
+        size += entry.data.length;
+
+        Iterator<Map.Entry<String, CacheEntry>> iterator = entryMap.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            size -= iterator.next().getValue().data.length;
+            iterator.remove();
+        }
+    }
+
+    private static Path getDirectory() {
+        Path result = Paths.get(ConfigurationManager.getConfigPath(), CACHE_FOLDERNAME);
+        result.toFile().mkdirs();
+        return result;
+    }
+
+    /**
+     * Returns the file of a page kept on disk
+     *
+     * @param url The address of the page
+     * @return The file named after the hash of the address
+     */
+    private static Path getFile(String url) {
+        String fileName;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            fileName = HexFormat.of().formatHex(digest.digest(url.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            fileName = Integer.toHexString(url.hashCode());
+        }
+
+        return getDirectory().resolve(fileName + ".page");
+    }
+
+    /* compressed content of a page */
+    private static class CacheEntry {
+        private final GopherItemType contentType;
+        private final byte[] data;
+        private final int length;
+        /* set once the content is written to disk */
+        private volatile boolean persisted = false;
+
+        CacheEntry(GopherItemType entryType, byte[] entryData, int entryLength) {
+            contentType = entryType;
+            data = entryData;
+            length = entryLength;
+        }
+    }
+}
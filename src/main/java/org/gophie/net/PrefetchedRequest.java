@@ -0,0 +1,140 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.net;
+
+import org.gophie.io.ProgressiveImageSource;
+import org.gophie.net.GopherItem.GopherItemType;
+import org.gophie.net.event.GopherClientEventListener;
+import org.gophie.net.event.GopherError;
+import org.gophie.net.event.GopherStreamListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * A page request started before anyone listens for it, for
+ * example while the window is still being built. Its events
+ * are kept and handed to the listeners once they attach.
+ */
+public class PrefetchedRequest implements GopherClientEventListener, GopherStreamListener {
+    private final String address;
+    private final GopherItemType contentType;
+    private final GopherRequest request;
+
+    /* events received before the listeners attached */
+    private final List<BiConsumer<GopherClientEventListener, GopherStreamListener>> eventList = new ArrayList<>();
+    private GopherClientEventListener clientListener = null;
+    private GopherStreamListener streamListener = null;
+
+    /**
+     * Starts fetching a page right away
+     *
+     * @param client      The client to fetch the page with
+     * @param pageAddress The address of the page
+     * @param pageType    The content type of the page
+     */
+    public PrefetchedRequest(GopherClient client, String pageAddress, GopherItemType pageType) {
+        address = pageAddress;
+        contentType = pageType;
+        request = client.fetchAsync(pageAddress, pageType, this, this);
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public GopherItemType getContentType() {
+        return contentType;
+    }
+
+    public GopherRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * Hands the events received so far to the listeners
+     * and forwards all further events to them
+     *
+     * @param eventListener  The listener for the result of the request
+     * @param streamListener The listener for content while received
+     */
+    public synchronized void attach(GopherClientEventListener eventListener, GopherStreamListener streamListener) {
+        for (BiConsumer<GopherClientEventListener, GopherStreamListener> event : eventList) {
+            event.accept(eventListener, streamListener);
+        }
+        eventList.clear();
+
+        clientListener = eventListener;
+        this.streamListener = streamListener;
+    }
+
+    /**
+     * Passes an event on or keeps it until the listeners attach
+     *
+     * @param event The event to deliver
+     */
+    private synchronized void deliver(BiConsumer<GopherClientEventListener, GopherStreamListener> event) {
+        if (clientListener == null) {
+            eventList.add(event);
+        } else {
+            event.accept(clientListener, streamListener);
+        }
+    }
+
+    @Override
+    public void progress(GopherUrl url, long byteCount) {
+        deliver((client, stream) -> client.progress(url, byteCount));
+    }
+
+    @Override
+    public void pageLoaded(GopherPage result) {
+        deliver((client, stream) -> client.pageLoaded(result));
+    }
+
+    @Override
+    public void pageLoadFailed(GopherError error, GopherUrl url) {
+        deliver((client, stream) -> client.pageLoadFailed(error, url));
+    }
+
+    @Override
+    public void pageLoadItemMismatch(GopherItemType requested, GopherItemType detected, GopherUrl url) {
+        deliver((client, stream) -> client.pageLoadItemMismatch(requested, detected, url));
+    }
+
+    @Override
+    public void streamStarted(GopherUrl url, GopherItemType streamType) {
+        deliver((client, stream) -> stream.streamStarted(url, streamType));
+    }
+
+    @Override
+    public void menuItemsReceived(GopherUrl url, List<GopherItem> items) {
+        deliver((client, stream) -> stream.menuItemsReceived(url, items));
+    }
+
+    @Override
+    public void textReceived(GopherUrl url, String text) {
+        deliver((client, stream) -> stream.textReceived(url, text));
+    }
+
+    @Override
+    public void imageStreamStarted(GopherUrl url, ProgressiveImageSource source) {
+        deliver((client, stream) -> stream.imageStreamStarted(url, source));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.net;
+
+import org.gophie.net.GopherItem.GopherItemType;
+import org.gophie.net.RequestTrace.Source;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the traces of the latest requests for the network
+ * inspector, including pages restored from the page cache
+ */
+public class RequestLog {
+    /* number of requests kept, the oldest are dropped */
+    private static final int MAX_TRACES = 500;
+
+    private static final ArrayDeque<RequestTrace> traceList = new ArrayDeque<>();
+    private static final AtomicLong modificationCount = new AtomicLong();
+
+    /**
+     * Starts the trace of a request made over the network
+     *
+     * @param url  The address requested
+     * @param type The item type requested or null when not known
+     * @return The trace to record the phases of the request in
+     */
+    static RequestTrace start(String url, GopherItemType type) {
+        return add(new RequestTrace(url, type, Source.NETWORK));
+    }
+
+    /**
+     * Records a page that was restored from the page cache
+     *
+     * @param page   The page restored
+     * @param source Whether the page came from memory or disk
+     */
+    static void recordCacheHit(GopherPage page, Source source) {
+        RequestTrace trace = add(new RequestTrace(page.getUrl().getUrlString(), page.getContentType(), source));
+        trace.markReceived(page.getByteCount());
+        trace.markParsed();
+        trace.finish(null, false);
+    }
+
+    /**
+     * Records the time a page took to render on the
+     * latest trace of its address
+     *
+     * @param url   The address of the page
+     * @param start The start of rendering from System.nanoTime
+     * @param end   The end of rendering from System.nanoTime
+     */
+    public static void recordRender(GopherUrl url, long start, long end) {
+        String urlString = url.getUrlString();
+        synchronized (RequestLog.class) {
+            Iterator<RequestTrace> iterator = traceList.descendingIterator();
+            while (iterator.hasNext()) {
+                RequestTrace trace = iterator.next();
+                if (trace.getUrl().equals(urlString)) {
+                    trace.markRendered(start, end);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Signals that a trace changed
+     */
+    static void touch() {
+        modificationCount.incrementAndGet();
+    }
+
+    /**
+     * Returns the traces from the oldest to the latest
+     *
+     * @return A copy of the list of traces
+     */
+    public static synchronized List<RequestTrace> getTraces() {
+        return new ArrayList<>(traceList);
+    }
+
+    /**
+     * Returns a number that changes whenever a trace
+     * was added or changed, to refresh views lazily
+     *
+     * @return The number of modifications
+     */
+    public static long getModificationCount() {
+        return modificationCount.get();
+    }
+
+    public static synchronized void clear() {
+        traceList.clear();
+        modificationCount.incrementAndGet();
+    }
+
+    private static synchronized RequestTrace add(RequestTrace trace) {
+        traceList.addLast(trace);
+        if (traceList.size() > MAX_TRACES) {
+            traceList.removeFirst();
+        }
+        modificationCount.incrementAndGet();
+
+        return trace;
+    }
+}
@@ -0,0 +1,209 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.net;
+
+import org.gophie.io.FileSignature.FileSignatureType;
+import org.gophie.net.GopherItem.GopherItemType;
+import org.gophie.net.event.GopherError;
+
+/**
+ * Timings and outcome of one request, written by the thread
+ * doing the request and read by the network inspector. Times
+ * are taken from System.nanoTime, 0 marks a phase not reached.
+ */
+public class RequestTrace {
+    /* where the content of a request came from */
+    public enum Source {
+        NETWORK, MEMORY_CACHE, DISK_CACHE
+    }
+
+    private final String url;
+    private final GopherItemType itemType;
+    private final String initiator;
+    private final Source source;
+    private final long startTime;
+
+    private volatile long resolvedTime = 0;
+    private volatile long connectedTime = 0;
+    private volatile long firstByteTime = 0;
+    private volatile long receivedTime = 0;
+    private volatile long parsedTime = 0;
+    private volatile long renderStartTime = 0;
+    private volatile long renderEndTime = 0;
+    private volatile long byteCount = 0;
+    private volatile FileSignatureType signatureType = null;
+    private volatile GopherError error = null;
+    private volatile boolean cancelled = false;
+    private volatile boolean finished = false;
+
+    /**
+     * Starts the trace of a request on the current thread
+     *
+     * @param requestUrl  The address requested
+     * @param type        The item type requested or null when not known
+     * @param traceSource Where the content comes from
+     */
+    RequestTrace(String requestUrl, GopherItemType type, Source traceSource) {
+        url = requestUrl;
+        itemType = type;
+        source = traceSource;
+        initiator = Thread.currentThread().getName();
+        startTime = System.nanoTime();
+    }
+
+    void markResolved() {
+        resolvedTime = System.nanoTime();
+        RequestLog.touch();
+    }
+
+    void markConnected() {
+        connectedTime = System.nanoTime();
+        RequestLog.touch();
+    }
+
+    void markFirstByte() {
+        firstByteTime = System.nanoTime();
+        RequestLog.touch();
+    }
+
+    void markSignature(FileSignatureType type) {
+        signatureType = type;
+        RequestLog.touch();
+    }
+
+    void markReceived(long bytes) {
+        receivedTime = System.nanoTime();
+        byteCount = bytes;
+        RequestLog.touch();
+    }
+
+    void markParsed() {
+        parsedTime = System.nanoTime();
+        RequestLog.touch();
+    }
+
+    void markRendered(long start, long end) {
+        renderStartTime = start;
+        renderEndTime = end;
+        RequestLog.touch();
+    }
+
+    /**
+     * Ends the trace of the request
+     *
+     * @param failure          The error the request failed with or null
+     * @param requestCancelled true when the request was cancelled
+     */
+    void finish(GopherError failure, boolean requestCancelled) {
+        error = failure;
+        cancelled = requestCancelled;
+        finished = true;
+        RequestLog.touch();
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public GopherItemType getItemType() {
+        return itemType;
+    }
+
+    public String getInitiator() {
+        return initiator;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    public FileSignatureType getSignatureType() {
+        return signatureType;
+    }
+
+    public GopherError getError() {
+        return error;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Returns the time from the start of the request until
+     * a point of it, in milliseconds
+     *
+     * @param time The point in time from System.nanoTime
+     * @return The milliseconds since the start, -1 when not reached
+     */
+    private double getOffset(long time) {
+        return time == 0 ? -1 : (time - startTime) / 1000000.0;
+    }
+
+    public double getResolvedMillis() {
+        return getOffset(resolvedTime);
+    }
+
+    public double getConnectedMillis() {
+        return getOffset(connectedTime);
+    }
+
+    public double getFirstByteMillis() {
+        return getOffset(firstByteTime);
+    }
+
+    public double getReceivedMillis() {
+        return getOffset(receivedTime);
+    }
+
+    public double getParsedMillis() {
+        return getOffset(parsedTime);
+    }
+
+    public double getRenderStartMillis() {
+        return getOffset(renderStartTime);
+    }
+
+    public double getRenderEndMillis() {
+        return getOffset(renderEndTime);
+    }
+
+    /**
+     * Returns the time from the start until the last
+     * phase reached, or until now while loading
+     *
+     * @return The duration in milliseconds
+     */
+    public double getTotalMillis() {
+        long end = Math.max(Math.max(receivedTime, parsedTime), renderEndTime);
+        if (!finished && end == 0) {
+            end = System.nanoTime();
+        }
+
+        return end == 0 ? 0 : (end - startTime) / 1000000.0;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.net;
+
+import lombok.extern.slf4j.Slf4j;
+import org.gophie.io.ImageDecoder;
+import org.gophie.io.ThumbnailCache;
+import org.gophie.monitor.MetricsRegistry;
+import org.gophie.monitor.jfr.ImageDecodeEvent;
+import org.gophie.net.GopherItem.GopherItemType;
+import org.gophie.net.event.ThumbnailListener;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads thumbnails of the images of a menu with a fixed
+ * number of connections. Thumbnails are taken from the
+ * thumbnail cache when possible, otherwise the image is
+ * fetched, decoded at thumbnail size and released again.
+ */
+@Slf4j
+public class ThumbnailLoader {
+    private final ExecutorService executor;
+    private final int thumbnailSize;
+    private final ThumbnailListener listener;
+
+    /**
+     * Constructs the loader with its own pool of threads
+     *
+     * @param threadCount   The number of images fetched at once
+     * @param size          The width and height of the thumbnails
+     * @param eventListener The listener to report thumbnails to
+     */
+    public ThumbnailLoader(int threadCount, int size, ThumbnailListener eventListener) {
+        thumbnailSize = size;
+        listener = eventListener;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, threadCount), task -> {
+            Thread thread = new Thread(task, "thumbnail-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues loading the thumbnail of an image
+     *
+     * @param item The item of the image
+     */
+    public void load(GopherItem item) {
+        if (!executor.isShutdown()) {
+            MetricsRegistry.requestQueued(item.getHostName());
+            executor.execute(new ThumbnailTask(item));
+        }
+    }
+
+    /**
+     * Drops all queued thumbnails and stops the threads
+     */
+    public void shutdown() {
+        for (Runnable task : executor.shutdownNow()) {
+            MetricsRegistry.requestDequeued(((ThumbnailTask) task).item.getHostName());
+        }
+    }
+
+    /**
+     * Loads the thumbnail of an image unless it is no longer wanted
+     *
+     * @param item The item of the image
+     */
+    private void loadThumbnail(GopherItem item) {
+        /* the image might have been scrolled out of view while queued */
+        if (executor.isShutdown() || !listener.thumbnailWanted(item)) {
+            return;
+        }
+
+        String url = item.getUrlString();
+        BufferedImage thumbnail = ThumbnailCache.get(url, thumbnailSize);
+
+        if (thumbnail == null) {
+            try {
+                GopherPage page = new GopherClient().fetch(url, GopherItemType.IMAGE_FILE, null);
+                if (page == null || page.getBody() == null) {
+                    throw new IOException("No content received");
+                }
+
+                /* only the thumbnail is kept, not the full image */
+                try {
+                    ImageDecodeEvent decodeEvent = new ImageDecodeEvent();
+                    decodeEvent.begin();
+                    thumbnail = ImageDecoder.decodeThumbnail(page.getBody(), thumbnailSize);
+                    decodeEvent.commit(page.getUrl(), page.getContentType(), page.getByteCount());
+                } finally {
+                    page.releaseContent();
+                }
+                ThumbnailCache.put(url, thumbnailSize, thumbnail);
+            } catch (Exception ex) {
+                log.warn("Failed to load thumbnail of {}: {}", url, ex.getMessage());
+                listener.thumbnailFailed(item);
+                return;
+            }
+        }
+
+        listener.thumbnailLoaded(item, thumbnail);
+    }
+
+    /* loads a thumbnail once a thread is free */
+    private class ThumbnailTask implements Runnable {
+        private final GopherItem item;
+
+        ThumbnailTask(GopherItem thumbnailItem) {
+            item = thumbnailItem;
+        }
+
+        @Override
+        public void run() {
+            MetricsRegistry.requestDequeued(item.getHostName());
+            loadThumbnail(item);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.net.event;
+
+import org.gophie.io.ProgressiveImageSource;
+import org.gophie.net.GopherItem;
+import org.gophie.net.GopherItem.GopherItemType;
+import org.gophie.net.GopherUrl;
+
+import java.util.List;
+
+/*
+    Listener for the content of a menu or text
+    page while it is still being received
+*/
+public interface GopherStreamListener {
+    void streamStarted(GopherUrl url, GopherItemType contentType);
+
+    void menuItemsReceived(GopherUrl url, List<GopherItem> items);
+
+    void textReceived(GopherUrl url, String text);
+
+    void imageStreamStarted(GopherUrl url, ProgressiveImageSource source);
+}
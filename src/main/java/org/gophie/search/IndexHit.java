@@ -0,0 +1,72 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.search;
+
+/**
+ * A page of the full-text index that matched a query
+ */
+public class IndexHit {
+    private final String url;
+    private final String typeCode;
+    private final String title;
+    private final int score;
+
+    IndexHit(String hitUrl, String hitTypeCode, String hitTitle, int hitScore) {
+        url = hitUrl;
+        typeCode = hitTypeCode;
+        title = hitTitle;
+        score = hitScore;
+    }
+
+    /**
+     * Returns the url of the page
+     *
+     * @return The url without type prefix
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns the gopher item type code of the page
+     *
+     * @return The type code, 1 for menus and 0 for text
+     */
+    public String getTypeCode() {
+        return typeCode;
+    }
+
+    /**
+     * Returns the title taken from the first line of the page
+     *
+     * @return The title of the page
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Returns how often the query occurs in the page
+     *
+     * @return The score of the page
+     */
+    public int getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,348 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.search;
+
+import org.gophie.search.IndexedDocument.PositionList;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongPredicate;
+
+/**
+ * An immutable part of the full-text index stored in one file.
+ * The sorted term dictionary is kept in memory, the postings
+ * of every term hold the documents and positions as deltas
+ * in variable length integers, so most take a single byte.
+ */
+class IndexSegment {
+    /* identifies the files of the index and their format */
+    private static final int MAGIC = 0x47504958;
+    private static final int VERSION = 1;
+
+    final Path file;
+    final int id;
+
+    /* documents of this segment by their local index */
+    final long[] documentNumbers;
+    final String[] urls;
+    final String[] typeCodes;
+    final String[] titles;
+    final long[] contentHashes;
+
+    /* sorted terms and where their postings start */
+    private final String[] terms;
+    private final int[] offsets;
+    private final byte[] postings;
+
+    private IndexSegment(Path segmentFile, int segmentId, long[] numbers, String[] documentUrls,
+                         String[] documentTypeCodes, String[] documentTitles, long[] hashes,
+                         String[] termList, int[] termOffsets, byte[] postingData) {
+        file = segmentFile;
+        id = segmentId;
+        documentNumbers = numbers;
+        urls = documentUrls;
+        typeCodes = documentTypeCodes;
+        titles = documentTitles;
+        contentHashes = hashes;
+        terms = termList;
+        offsets = termOffsets;
+        postings = postingData;
+    }
+
+    /**
+     * Writes documents to a new segment file
+     *
+     * @param file      The file to write
+     * @param id        The id of the segment
+     * @param documents The documents of the segment
+     * @return The segment written
+     * @throws IOException When writing the file fails
+     */
+    static IndexSegment write(Path file, int id, List<IndexedDocument> documents) throws IOException {
+        int count = documents.size();
+        long[] numbers = new long[count];
+        String[] urls = new String[count];
+        String[] typeCodes = new String[count];
+        String[] titles = new String[count];
+        long[] hashes = new long[count];
+
+        /* invert the documents into postings per term */
+        TreeMap<String, ByteArrayOutputStream> postingMap = new TreeMap<>();
+        HashMap<String, Integer> lastDocument = new HashMap<>();
+        for (int document = 0; document < count; document++) {
+            IndexedDocument source = documents.get(document);
+            numbers[document] = source.number;
+            urls[document] = source.url;
+            typeCodes[document] = source.typeCode;
+            titles[document] = source.title;
+            hashes[document] = source.contentHash;
+
+            for (Map.Entry<String, PositionList> entry : source.termPositions.entrySet()) {
+                ByteArrayOutputStream termPostings = postingMap
+                        .computeIfAbsent(entry.getKey(), key -> new ByteArrayOutputStream());
+                int previous = lastDocument.getOrDefault(entry.getKey(), -1);
+                lastDocument.put(entry.getKey(), document);
+
+                PositionList positions = entry.getValue();
+                writeVarInt(termPostings, document - previous);
+                writeVarInt(termPostings, positions.size());
+                int lastPosition = 0;
+                for (int i = 0; i < positions.size(); i++) {
+                    writeVarInt(termPostings, positions.get(i) - lastPosition);
+                    lastPosition = positions.get(i);
+                }
+            }
+        }
+
+        String[] terms = postingMap.keySet().toArray(new String[0]);
+        int[] offsets = new int[terms.length + 1];
+        ByteArrayOutputStream postingData = new ByteArrayOutputStream();
+        for (int term = 0; term < terms.length; term++) {
+            offsets[term] = postingData.size();
+            postingMap.get(terms[term]).writeTo(postingData);
+        }
+        offsets[terms.length] = postingData.size();
+        byte[] postings = postingData.toByteArray();
+
+        /* write to a temp file first, a segment is never seen half written */
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(count);
+            for (int document = 0; document < count; document++) {
+                output.writeLong(numbers[document]);
+                output.writeUTF(urls[document]);
+                output.writeUTF(typeCodes[document]);
+                output.writeUTF(titles[document]);
+                output.writeLong(hashes[document]);
+            }
+            output.writeInt(terms.length);
+            for (int term = 0; term < terms.length; term++) {
+                output.writeUTF(terms[term]);
+                output.writeInt(offsets[term + 1] - offsets[term]);
+            }
+            output.writeInt(postings.length);
+            output.write(postings);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        return new IndexSegment(file, id, numbers, urls, typeCodes, titles, hashes, terms, offsets, postings);
+    }
+
+    /**
+     * Reads a segment file
+     *
+     * @param file The file to read
+     * @param id   The id of the segment
+     * @return The segment read
+     * @throws IOException When the file cannot be read or has another format
+     */
+    static IndexSegment read(Path file, int id) throws IOException {
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("Unknown index format");
+            }
+
+            int count = input.readInt();
+            long[] numbers = new long[count];
+            String[] urls = new String[count];
+            String[] typeCodes = new String[count];
+            String[] titles = new String[count];
+            long[] hashes = new long[count];
+            for (int document = 0; document < count; document++) {
+                numbers[document] = input.readLong();
+                urls[document] = input.readUTF();
+                typeCodes[document] = input.readUTF();
+                titles[document] = input.readUTF();
+                hashes[document] = input.readLong();
+            }
+
+            int termCount = input.readInt();
+            String[] terms = new String[termCount];
+            int[] offsets = new int[termCount + 1];
+            for (int term = 0; term < termCount; term++) {
+                terms[term] = input.readUTF();
+                offsets[term + 1] = offsets[term] + input.readInt();
+            }
+
+            byte[] postings = new byte[input.readInt()];
+            input.readFully(postings);
+
+            return new IndexSegment(file, id, numbers, urls, typeCodes, titles, hashes, terms, offsets, postings);
+        }
+    }
+
+    /**
+     * Returns the number of documents in this segment
+     *
+     * @return The number of documents
+     */
+    int getDocumentCount() {
+        return documentNumbers.length;
+    }
+
+    /**
+     * Returns the terms that start with a prefix
+     *
+     * @param prefix The folded prefix, a complete term matches itself
+     * @param exact  true to only find the term equal to the prefix
+     * @return The range of matching terms as first and last index plus one
+     */
+    int[] findTerms(String prefix, boolean exact) {
+        int index = Arrays.binarySearch(terms, prefix);
+        if (exact) {
+            return index >= 0 ? new int[]{index, index + 1} : new int[]{0, 0};
+        }
+
+        int start = index >= 0 ? index : -index - 1;
+        int end = start;
+        while (end < terms.length && terms[end].startsWith(prefix)) {
+            end++;
+        }
+
+        return new int[]{start, end};
+    }
+
+    /**
+     * Decodes the postings of a term
+     *
+     * @param term The index of the term
+     * @return The documents and positions of the term
+     */
+    Postings readPostings(int term) {
+        int[] documents = new int[8];
+        int[][] positions = new int[8][];
+        int count = 0;
+
+        int[] cursor = {offsets[term]};
+        int end = offsets[term + 1];
+        int document = -1;
+        while (cursor[0] < end) {
+            document += readVarInt(postings, cursor);
+            int[] documentPositions = new int[readVarInt(postings, cursor)];
+            int position = 0;
+            for (int i = 0; i < documentPositions.length; i++) {
+                position += readVarInt(postings, cursor);
+                documentPositions[i] = position;
+            }
+
+            if (count == documents.length) {
+                documents = Arrays.copyOf(documents, count * 2);
+                positions = Arrays.copyOf(positions, count * 2);
+            }
+            documents[count] = document;
+            positions[count] = documentPositions;
+            count++;
+        }
+
+        Postings result = new Postings();
+        result.documents = Arrays.copyOf(documents, count);
+        result.positions = Arrays.copyOf(positions, count);
+        return result;
+    }
+
+    /**
+     * Rebuilds the documents of this segment to merge them into another
+     *
+     * @param target The list to add the documents to
+     * @param keep   Returns true for document numbers to keep
+     */
+    void collectDocuments(List<IndexedDocument> target, LongPredicate keep) {
+        IndexedDocument[] documents = new IndexedDocument[documentNumbers.length];
+        for (int document = 0; document < documents.length; document++) {
+            if (keep.test(documentNumbers[document])) {
+                documents[document] = new IndexedDocument(documentNumbers[document], urls[document],
+                        typeCodes[document], titles[document], contentHashes[document]);
+            }
+        }
+
+        for (int term = 0; term < terms.length; term++) {
+            Postings termPostings = readPostings(term);
+            for (int i = 0; i < termPostings.documents.length; i++) {
+                IndexedDocument document = documents[termPostings.documents[i]];
+                if (document != null) {
+                    for (int position : termPostings.positions[i]) {
+                        document.addPosition(terms[term], position);
+                    }
+                }
+            }
+        }
+
+        for (IndexedDocument document : documents) {
+            if (document != null) {
+                target.add(document);
+            }
+        }
+    }
+
+    /**
+     * Writes a non-negative integer with seven bits per byte
+     *
+     * @param output The stream to write to
+     * @param value  The value to write
+     */
+    private static void writeVarInt(ByteArrayOutputStream output, int value) {
+        while ((value & ~0x7F) != 0) {
+            output.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.write(value);
+    }
+
+    /**
+     * Reads an integer written with seven bits per byte
+     *
+     * @param data   The data to read from
+     * @param cursor The position to read at, moved past the value
+     * @return The value read
+     */
+    private static int readVarInt(byte[] data, int[] cursor) {
+        int result = 0;
+        int shift = 0;
+        byte value;
+        do {
+            value = data[cursor[0]++];
+            result |= (value & 0x7F) << shift;
+            shift += 7;
+        } while ((value & 0x80) != 0);
+
+        return result;
+    }
+
+    /* documents with the positions of a term in each */
+    static class Postings {
+        int[] documents;
+        int[][] positions;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.search;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A page prepared for the full-text index with the
+ * positions of every term that occurs in its text
+ */
+class IndexedDocument {
+    final long number;
+    final String url;
+    final String typeCode;
+    final String title;
+    final long contentHash;
+    final Map<String, PositionList> termPositions = new HashMap<>();
+
+    IndexedDocument(long documentNumber, String documentUrl, String documentTypeCode,
+                    String documentTitle, long hash) {
+        number = documentNumber;
+        url = documentUrl;
+        typeCode = documentTypeCode;
+        title = documentTitle;
+        contentHash = hash;
+    }
+
+    /**
+     * Adds an occurrence of a term
+     *
+     * @param term     The folded term
+     * @param position The position of the term in the text
+     */
+    void addPosition(String term, int position) {
+        termPositions.computeIfAbsent(term, key -> new PositionList()).add(position);
+    }
+
+    /* ascending positions of a term in a document */
+    static class PositionList {
+        private int[] values = new int[4];
+        private int size = 0;
+
+        void add(int position) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = position;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+    }
+}
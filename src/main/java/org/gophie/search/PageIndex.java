@@ -0,0 +1,558 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.gophie.config.ConfigurationManager;
+import org.gophie.io.PageBody;
+import org.gophie.monitor.MemoryPressureMonitor;
+import org.gophie.monitor.MemoryPressureMonitor.MemoryTier;
+import org.gophie.net.GopherItem;
+import org.gophie.net.GopherItem.GopherItemType;
+import org.gophie.net.GopherPage;
+import org.gophie.search.IndexSegment.Postings;
+import org.gophie.search.event.IndexSearchListener;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * Full-text index of every menu and text page that was
+ * loaded, stored in the configuration directory. Pages are
+ * indexed at low priority in the background and written
+ * as small segments that are merged once there are many.
+ * Queries find pages containing all words, "quoted
+ * phrases" and words starting with a prefix*.
+ */
+@Slf4j
+public class PageIndex {
+    /* name of the directory inside the configuration directory */
+    private static final String INDEX_FOLDERNAME = "index";
+    /* only the beginning of very large pages is indexed */
+    private static final int MAX_INDEXED_CHARS = 524288;
+    /* longer words are cut off at this length */
+    private static final int MAX_TERM_LENGTH = 40;
+    /* segments are merged when there are more than these */
+    private static final int MAX_SEGMENTS = 10;
+    /* terms a prefix expands to at most */
+    private static final int MAX_PREFIX_TERMS = 1000;
+    private static final int MAX_TITLE_LENGTH = 80;
+
+    /* indexing never competes with loading and rendering pages */
+    private static final ExecutorService indexExecutor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "page-index");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private static final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "page-index-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /* segments of the index, replaced as a whole when they change */
+    private static volatile IndexState state = null;
+
+    /* documents not written yet, only used on the index thread */
+    private static final List<IndexedDocument> pendingList = new ArrayList<>();
+    private static boolean flushScheduled = false;
+    private static long nextDocumentNumber = 0;
+
+    static {
+        MemoryPressureMonitor.addListener(tier -> {
+            if (tier == MemoryTier.PAGE_BODIES) {
+                /* the segments are read again on the next use */
+                state = null;
+            }
+        });
+    }
+
+    /**
+     * Adds a menu or text page to the index in the background
+     *
+     * @param page The page that was loaded
+     */
+    public static void add(GopherPage page) {
+        if (page.getContentType() == GopherItemType.GOPHERMENU
+                || page.getContentType() == GopherItemType.TEXTFILE) {
+            indexExecutor.execute(() -> indexPage(page));
+        }
+    }
+
+    /**
+     * Searches the index in the background
+     *
+     * @param query      The query with words, "phrases" and prefixes*
+     * @param maxResults The maximum number of pages to return
+     * @param listener   The listener to report the pages found to
+     */
+    public static void search(String query, int maxResults, IndexSearchListener listener) {
+        searchExecutor.execute(() -> {
+            List<IndexHit> hits;
+            try {
+                hits = runSearch(query, maxResults);
+            } catch (Exception ex) {
+                log.error("Failed to search the page index: {}", ex.getMessage());
+                hits = List.of();
+            }
+            listener.indexSearchCompleted(query, hits);
+        });
+    }
+
+    /**
+     * Splits text into folded words
+     *
+     * @param text The text to split
+     * @return The words of the text in order
+     */
+    static List<String> tokenize(CharSequence text) {
+        List<String> result = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char character = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(character)) {
+                if (token.length() < MAX_TERM_LENGTH) {
+                    token.append(SearchIndex.fold(character));
+                }
+            } else if (!token.isEmpty()) {
+                result.add(token.toString());
+                token.setLength(0);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Indexes a page unless the same content is indexed already
+     *
+     * @param page The page to index
+     */
+    private static void indexPage(GopherPage page) {
+        try {
+            String text = getIndexText(page);
+            if (text.isBlank()) {
+                return;
+            }
+
+            String url = page.getUrl().getUrlString();
+            CRC32 checksum = new CRC32();
+            checksum.update(text.getBytes(page.getCharset()));
+            long hash = checksum.getValue();
+
+            /* reloading a page without changes leaves the index as is */
+            IndexState current = getState();
+            long[] latest = current.latestMap.get(url);
+            if (latest != null && latest[1] == hash) {
+                return;
+            }
+            for (IndexedDocument pending : pendingList) {
+                if (pending.url.equals(url) && pending.contentHash == hash) {
+                    return;
+                }
+            }
+
+            nextDocumentNumber = Math.max(nextDocumentNumber, current.nextDocumentNumber);
+            IndexedDocument document = new IndexedDocument(nextDocumentNumber++, url,
+                    GopherItem.getTypeCode(page.getContentType()), getTitle(text, url), hash);
+            List<String> tokens = tokenize(text);
+            for (int position = 0; position < tokens.size(); position++) {
+                document.addPosition(tokens.get(position), position);
+            }
+            pendingList.add(document);
+
+            /* pages loaded in a burst are written as one segment */
+            if (!flushScheduled) {
+                flushScheduled = true;
+                indexExecutor.execute(PageIndex::flush);
+            }
+        } catch (Exception ex) {
+            log.error("Failed to index page: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Returns the text of a page to index
+     *
+     * @param page The page to index
+     * @return The text, cut off for very large pages
+     */
+    private static String getIndexText(GopherPage page) {
+        if (page.getContentType() == GopherItemType.GOPHERMENU) {
+            StringBuilder result = new StringBuilder();
+            for (GopherItem item : page.getItemList()) {
+                if (result.length() > MAX_INDEXED_CHARS) {
+                    break;
+                }
+                result.append(item.getUserDisplayString()).append('\n');
+            }
+            return result.toString();
+        }
+
+        /* decode only the beginning, the page keeps no decoded copy */
+        PageBody body = page.getBody();
+        if (body == null) {
+            return "";
+        }
+        ByteBuffer content = body.getBuffer();
+        content.limit(Math.min(content.limit(), MAX_INDEXED_CHARS));
+        return page.getCharset().decode(content).toString();
+    }
+
+    /**
+     * Returns the first line of text as title of a page
+     *
+     * @param text The text of the page
+     * @param url  The url used when there is no text
+     * @return The title of the page
+     */
+    private static String getTitle(String text, String url) {
+        for (String line : text.split("\n", 50)) {
+            String title = line.trim();
+            if (!title.isEmpty() && !title.equals(".")) {
+                return title.length() > MAX_TITLE_LENGTH ? title.substring(0, MAX_TITLE_LENGTH) + "..." : title;
+            }
+        }
+
+        return url;
+    }
+
+    /**
+     * Writes the pending documents as a new segment
+     * and merges segments when there are too many
+     */
+    private static void flush() {
+        flushScheduled = false;
+        if (pendingList.isEmpty()) {
+            return;
+        }
+
+        try {
+            IndexState current = getState();
+            int id = current.nextSegmentId;
+            IndexSegment segment = IndexSegment.write(getSegmentFile(id), id, pendingList);
+            pendingList.clear();
+
+            List<IndexSegment> segmentList = new ArrayList<>(current.segmentList);
+            segmentList.add(segment);
+            state = new IndexState(segmentList);
+
+            if (segmentList.size() > MAX_SEGMENTS) {
+                merge();
+            }
+        } catch (IOException ex) {
+            log.error("Failed to write the page index: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Merges all segments but the largest into one,
+     * dropping pages that were indexed again since
+     *
+     * @throws IOException When writing the merged segment fails
+     */
+    private static void merge() throws IOException {
+        IndexState current = getState();
+        List<IndexSegment> mergeList = new ArrayList<>(current.segmentList);
+        IndexSegment largest = mergeList.stream()
+                .max(Comparator.comparingInt(IndexSegment::getDocumentCount)).orElseThrow();
+        mergeList.remove(largest);
+
+        Set<Long> latestNumbers = new HashSet<>();
+        for (long[] latest : current.latestMap.values()) {
+            latestNumbers.add(latest[0]);
+        }
+
+        List<IndexedDocument> documentList = new ArrayList<>();
+        for (IndexSegment segment : mergeList) {
+            segment.collectDocuments(documentList, latestNumbers::contains);
+        }
+
+        int id = current.nextSegmentId;
+        IndexSegment merged = IndexSegment.write(getSegmentFile(id), id, documentList);
+        state = new IndexState(List.of(largest, merged));
+
+        for (IndexSegment segment : mergeList) {
+            Files.deleteIfExists(segment.file);
+        }
+    }
+
+    /**
+     * Returns the segments of the index, reading them when needed
+     *
+     * @return The current state of the index
+     */
+    private static synchronized IndexState getState() {
+        IndexState result = state;
+        if (result != null) {
+            return result;
+        }
+
+        List<IndexSegment> segmentList = new ArrayList<>();
+        Path directory = getIndexDirectory();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*.idx")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    int id = Integer.parseInt(name.substring(8, name.length() - 4));
+                    segmentList.add(IndexSegment.read(file, id));
+                } catch (IOException | NumberFormatException ex) {
+                    /* a damaged segment only loses the pages in it */
+                    log.warn("Dropping damaged page index segment {}: {}", name, ex.getMessage());
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException ex) {
+            log.error("Failed to read the page index: {}", ex.getMessage());
+        }
+
+        /* segments left unfinished when the program ended */
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*.idx.tmp")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException ex) {
+            log.warn("Failed to remove unfinished page index segments: {}", ex.getMessage());
+        }
+
+        result = new IndexState(segmentList);
+        state = result;
+        return result;
+    }
+
+    /**
+     * Finds the pages matching all parts of a query
+     *
+     * @param query      The query to search for
+     * @param maxResults The maximum number of pages to return
+     * @return The pages found, best matches first
+     */
+    private static List<IndexHit> runSearch(String query, int maxResults) {
+        List<QueryClause> clauseList = parseQuery(query);
+        List<IndexHit> result = new ArrayList<>();
+        if (clauseList.isEmpty()) {
+            return result;
+        }
+
+        IndexState current = getState();
+        for (IndexSegment segment : current.segmentList) {
+            int[] scores = null;
+            for (QueryClause clause : clauseList) {
+                int[] clauseScores = evaluate(segment, clause);
+                if (scores == null) {
+                    scores = clauseScores;
+                } else {
+                    for (int document = 0; document < scores.length; document++) {
+                        scores[document] = (clauseScores[document] == 0)
+                                ? 0 : scores[document] + clauseScores[document];
+                    }
+                }
+            }
+
+            for (int document = 0; document < scores.length; document++) {
+                /* pages indexed again later only count with their newest content */
+                long[] latest = current.latestMap.get(segment.urls[document]);
+                if (scores[document] > 0 && latest != null && latest[0] == segment.documentNumbers[document]) {
+                    result.add(new IndexHit(segment.urls[document], segment.typeCodes[document],
+                            segment.titles[document], scores[document]));
+                }
+            }
+        }
+
+        result.sort(Comparator.comparingInt(IndexHit::getScore).reversed());
+        return result.size() > maxResults ? new ArrayList<>(result.subList(0, maxResults)) : result;
+    }
+
+    /**
+     * Returns how often a clause occurs in every document of a segment
+     *
+     * @param segment The segment to search
+     * @param clause  The word or phrase to find
+     * @return The number of occurrences per document, 0 for none
+     */
+    private static int[] evaluate(IndexSegment segment, QueryClause clause) {
+        int documentCount = segment.getDocumentCount();
+        int wordCount = clause.words.size();
+        int[][][] wordPositions = new int[wordCount][][];
+
+        for (int word = 0; word < wordCount; word++) {
+            boolean prefix = clause.prefix && word == wordCount - 1;
+            int[] range = segment.findTerms(clause.words.get(word), !prefix);
+            int[][] documentPositions = new int[documentCount][];
+
+            for (int term = range[0]; term < Math.min(range[1], range[0] + MAX_PREFIX_TERMS); term++) {
+                Postings postings = segment.readPostings(term);
+                for (int i = 0; i < postings.documents.length; i++) {
+                    documentPositions[postings.documents[i]] =
+                            mergePositions(documentPositions[postings.documents[i]], postings.positions[i]);
+                }
+            }
+            wordPositions[word] = documentPositions;
+        }
+
+        int[] result = new int[documentCount];
+        for (int document = 0; document < documentCount; document++) {
+            int[] first = wordPositions[0][document];
+            if (first == null) {
+                continue;
+            }
+            if (wordCount == 1) {
+                result[document] = first.length;
+                continue;
+            }
+
+            /* phrases need every word right after the previous one */
+            for (int position : first) {
+                boolean found = true;
+                for (int word = 1; word < wordCount && found; word++) {
+                    int[] positions = wordPositions[word][document];
+                    found = positions != null && Arrays.binarySearch(positions, position + word) >= 0;
+                }
+                if (found) {
+                    result[document]++;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Merges two ascending lists of positions
+     *
+     * @param first  The first list or null
+     * @param second The second list
+     * @return The merged list in ascending order
+     */
+    private static int[] mergePositions(int[] first, int[] second) {
+        if (first == null) {
+            return second;
+        }
+
+        int[] result = new int[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Splits a query into words, phrases and prefixes
+     *
+     * @param query The query entered
+     * @return The clauses that all have to match
+     */
+    private static List<QueryClause> parseQuery(String query) {
+        List<QueryClause> result = new ArrayList<>();
+        String[] quoteParts = query.split("\"", -1);
+        for (int part = 0; part < quoteParts.length; part++) {
+            if (part % 2 == 1) {
+                /* text between quotes is a phrase */
+                addClause(result, quoteParts[part], false);
+            } else {
+                for (String word : quoteParts[part].trim().split("\\s+")) {
+                    addClause(result, word, word.endsWith("*"));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Adds a clause for the words of a text
+     *
+     * @param clauseList The list of clauses
+     * @param text       The text of the clause
+     * @param prefix     true when the last word is a prefix
+     */
+    private static void addClause(List<QueryClause> clauseList, String text, boolean prefix) {
+        List<String> words = tokenize(text);
+        if (!words.isEmpty()) {
+            clauseList.add(new QueryClause(words, prefix));
+        }
+    }
+
+    private static Path getIndexDirectory() {
+        Path result = Paths.get(ConfigurationManager.getConfigPath(), INDEX_FOLDERNAME);
+        result.toFile().mkdirs();
+        return result;
+    }
+
+    private static Path getSegmentFile(int id) {
+        return getIndexDirectory().resolve("segment-" + id + ".idx");
+    }
+
+    /* words that have to occur right after each other */
+    private static class QueryClause {
+        private final List<String> words;
+        private final boolean prefix;
+
+        QueryClause(List<String> clauseWords, boolean lastIsPrefix) {
+            words = clauseWords;
+            prefix = lastIsPrefix;
+        }
+    }
+
+    /* segments and the newest document of every url in them */
+    private static class IndexState {
+        private final List<IndexSegment> segmentList;
+        /* document number and content hash by url */
+        private final Map<String, long[]> latestMap = new HashMap<>();
+        private final long nextDocumentNumber;
+        private final int nextSegmentId;
+
+        IndexState(List<IndexSegment> segments) {
+            segmentList = segments;
+
+            long maxNumber = -1;
+            int maxId = -1;
+            for (IndexSegment segment : segments) {
+                maxId = Math.max(maxId, segment.id);
+                for (int document = 0; document < segment.getDocumentCount(); document++) {
+                    long number = segment.documentNumbers[document];
+                    long[] latest = latestMap.get(segment.urls[document]);
+                    if (latest == null || latest[0] < number) {
+                        latestMap.put(segment.urls[document], new long[]{number, segment.contentHashes[document]});
+                    }
+                    maxNumber = Math.max(maxNumber, number);
+                }
+            }
+
+            nextDocumentNumber = maxNumber + 1;
+            nextSegmentId = maxId + 1;
+        }
+    }
+}
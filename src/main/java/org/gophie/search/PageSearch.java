@@ -0,0 +1,144 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.gophie.monitor.MemoryPressureMonitor;
+import org.gophie.monitor.MemoryPressureMonitor.MemoryTier;
+import org.gophie.monitor.event.MemoryPressureListener;
+import org.gophie.search.event.SearchListener;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Searches the lines of a page on a background thread.
+ * The index is built on the first search, every new
+ * query cancels the search still running for the last
+ * one and narrows down its result when it extends it.
+ */
+@Slf4j
+public class PageSearch implements MemoryPressureListener {
+    private final LineSource source;
+    private final SearchListener listener;
+    private final ExecutorService executor;
+    private final AtomicInteger generation = new AtomicInteger();
+
+    /* written and read on the search thread only, but
+        dropped by the memory monitor from its own thread */
+    private volatile SearchIndex index;
+    private volatile SearchResult lastResult;
+    private volatile boolean disposed = false;
+
+    /**
+     * Constructs the search for the lines of a page
+     *
+     * @param lineSource    The lines to search
+     * @param eventListener The listener to report results to
+     */
+    public PageSearch(LineSource lineSource, SearchListener eventListener) {
+        source = lineSource;
+        listener = eventListener;
+        executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "page-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+        MemoryPressureMonitor.addListener(this);
+    }
+
+    /**
+     * Starts searching for the query and cancels the
+     * search for the previous query if still running
+     *
+     * @param query The query with terms separated by spaces
+     */
+    public void search(String query) {
+        if (!disposed) {
+            int searchGeneration = generation.incrementAndGet();
+            executor.execute(() -> runSearch(query, searchGeneration));
+        }
+    }
+
+    /**
+     * Returns the lines this search searches
+     *
+     * @return The source of the lines
+     */
+    public LineSource getSource() {
+        return source;
+    }
+
+    /**
+     * Stops searching and drops the index
+     */
+    public void dispose() {
+        disposed = true;
+        executor.shutdownNow();
+        MemoryPressureMonitor.removeListener(this);
+        index = null;
+        lastResult = null;
+    }
+
+    /**
+     * Drops the index when the heap is running low,
+     * it is built again on the next search
+     *
+     * @param tier The tier of memory to release
+     */
+    @Override
+    public void memoryPressureReported(MemoryTier tier) {
+        if (tier == MemoryTier.DECODED_TEXT) {
+            index = null;
+            lastResult = null;
+        }
+    }
+
+    /**
+     * Runs a search unless a newer query was entered
+     *
+     * @param query            The query to search for
+     * @param searchGeneration The generation of the query
+     */
+    private void runSearch(String query, int searchGeneration) {
+        BooleanSupplier cancelled = () -> disposed || generation.get() != searchGeneration;
+        if (cancelled.getAsBoolean()) {
+            return;
+        }
+
+        /* the index is kept even when the query changes meanwhile */
+        SearchIndex searchIndex = index;
+        if (searchIndex == null) {
+            searchIndex = SearchIndex.build(source, () -> disposed);
+            if (searchIndex == null) {
+                return;
+            }
+            index = searchIndex;
+            lastResult = null;
+        }
+
+        SearchResult result = searchIndex.search(query, lastResult, cancelled);
+        if (result != null) {
+            lastResult = result;
+            listener.searchCompleted(result);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.search;
+
+import org.gophie.search.event.MatchListener;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds all occurrences of several terms in a single pass
+ * over the text, no matter how many terms there are. The
+ * terms are compiled into an Aho-Corasick automaton with
+ * a transition for every character the terms contain.
+ */
+public class PatternMatcher {
+    /* maximum number of terms, one bit per term */
+    public static final int MAX_TERMS = 64;
+
+    /* symbol of every character, 0 for characters of no term */
+    private final int[] symbolMap = new int[Character.MAX_VALUE + 1];
+    /* next state for every state and symbol */
+    private final int[][] transitions;
+    /* terms that end in every state */
+    private final long[] outputs;
+    private final int[] termLengths;
+
+    /**
+     * Compiles the terms into the automaton
+     *
+     * @param terms The non-empty terms to find, at most MAX_TERMS
+     */
+    public PatternMatcher(List<String> terms) {
+        int termCount = Math.min(terms.size(), MAX_TERMS);
+        termLengths = new int[termCount];
+
+        /* number the characters used by the terms */
+        int symbolCount = 1;
+        int maxStates = 1;
+        for (int term = 0; term < termCount; term++) {
+            String text = terms.get(term);
+            termLengths[term] = text.length();
+            maxStates += text.length();
+            for (int i = 0; i < text.length(); i++) {
+                if (symbolMap[text.charAt(i)] == 0) {
+                    symbolMap[text.charAt(i)] = symbolCount++;
+                }
+            }
+        }
+
+        /* build the trie of all terms */
+        int[][] table = new int[maxStates][];
+        long[] output = new long[maxStates];
+        table[0] = createState(symbolCount);
+        int stateCount = 1;
+        for (int term = 0; term < termCount; term++) {
+            String text = terms.get(term);
+            int state = 0;
+            for (int i = 0; i < text.length(); i++) {
+                int symbol = symbolMap[text.charAt(i)];
+                if (table[state][symbol] < 0) {
+                    table[stateCount] = createState(symbolCount);
+                    table[state][symbol] = stateCount++;
+                }
+                state = table[state][symbol];
+            }
+            output[state] |= 1L << term;
+        }
+
+        /* turn the trie into an automaton breadth first, states
+            without a child continue where their longest suffix does */
+        int[] failure = new int[stateCount];
+        int[] queue = new int[stateCount];
+        int head = 0;
+        int tail = 0;
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            int next = table[0][symbol];
+            if (next < 0) {
+                table[0][symbol] = 0;
+            } else {
+                queue[tail++] = next;
+            }
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            output[state] |= output[failure[state]];
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int next = table[state][symbol];
+                if (next < 0) {
+                    table[state][symbol] = table[failure[state]][symbol];
+                } else {
+                    failure[next] = table[failure[state]][symbol];
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        transitions = Arrays.copyOf(table, stateCount);
+        outputs = Arrays.copyOf(output, stateCount);
+    }
+
+    /**
+     * Returns the number of terms of this matcher
+     *
+     * @return The number of terms
+     */
+    public int getTermCount() {
+        return termLengths.length;
+    }
+
+    /**
+     * Reports every occurrence of every term in a range of the text
+     *
+     * @param text     The text to search
+     * @param from     The index to start at
+     * @param to       The index to stop before
+     * @param listener The listener to report occurrences to
+     */
+    public void scan(char[] text, int from, int to, MatchListener listener) {
+        int state = 0;
+        for (int i = from; i < to; i++) {
+            state = transitions[state][symbolMap[text[i]]];
+
+            long found = outputs[state];
+            while (found != 0) {
+                int term = Long.numberOfTrailingZeros(found);
+                found &= found - 1;
+                listener.matched(term, i + 1 - termLengths[term], i + 1);
+            }
+        }
+    }
+
+    /**
+     * Creates a state without any transitions yet
+     *
+     * @param symbolCount The number of symbols
+     * @return The transitions of the state
+     */
+    private static int[] createState(int symbolCount) {
+        int[] result = new int[symbolCount];
+        Arrays.fill(result, -1);
+        return result;
+    }
+}
@@ -0,0 +1,285 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.search;
+
+import org.gophie.search.event.MatchListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Case-folded copy of the lines of a page, built once so
+ * that every query only needs a single pass over a char
+ * array. Folding keeps every character in place, so the
+ * columns found match the columns of the original lines.
+ */
+public class SearchIndex {
+    /* occurrences stored at most, further ones are only counted */
+    private static final int MAX_STORED_MATCHES = 100000;
+    /* time to wait between checks whether the source is loaded */
+    private static final long LOAD_WAIT_INTERVAL = 50;
+
+    /* folded text of all lines, each followed by a line feed */
+    private final char[] text;
+    /* start of every line followed by the end of the text */
+    private final int[] lineStarts;
+
+    private SearchIndex(char[] foldedText, int[] starts) {
+        text = foldedText;
+        lineStarts = starts;
+    }
+
+    /**
+     * Builds the index of all lines of a source, waiting
+     * for the source to be loaded completely first
+     *
+     * @param source    The lines to index
+     * @param cancelled Returns true when building should stop
+     * @return The index or null when cancelled
+     */
+    public static SearchIndex build(LineSource source, BooleanSupplier cancelled) {
+        try {
+            while (!source.isLoaded() && !cancelled.getAsBoolean()) {
+                Thread.sleep(LOAD_WAIT_INTERVAL);
+            }
+        } catch (InterruptedException ex) {
+            return null;
+        }
+
+        int lineCount = source.getLineCount();
+        int[] starts = new int[lineCount + 1];
+        char[] buffer = new char[Math.max(1024, lineCount * 40)];
+        int length = 0;
+
+        for (int line = 0; line < lineCount; line++) {
+            if ((line & 1023) == 0 && cancelled.getAsBoolean()) {
+                return null;
+            }
+
+            String lineText = source.getLineText(line);
+            if (length + lineText.length() + 1 > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + lineText.length() + 1));
+            }
+
+            starts[line] = length;
+            for (int i = 0; i < lineText.length(); i++) {
+                buffer[length++] = fold(lineText.charAt(i));
+            }
+            buffer[length++] = '\n';
+        }
+        starts[lineCount] = length;
+
+        return new SearchIndex(buffer, starts);
+    }
+
+    /**
+     * Folds the case of a character so that upper
+     * and lower case letters are treated the same
+     *
+     * @param character The character to fold
+     * @return The folded character
+     */
+    public static char fold(char character) {
+        if (character < 128) {
+            return (character >= 'A' && character <= 'Z') ? (char) (character + 32) : character;
+        }
+
+        return Character.toLowerCase(Character.toUpperCase(character));
+    }
+
+    /**
+     * Folds the case of a text
+     *
+     * @param value The text to fold
+     * @return The folded text with the same length
+     */
+    public static String fold(String value) {
+        char[] result = value.toCharArray();
+        for (int i = 0; i < result.length; i++) {
+            result[i] = fold(result[i]);
+        }
+
+        return new String(result);
+    }
+
+    /**
+     * Returns the number of lines in this index
+     *
+     * @return The number of lines
+     */
+    public int getLineCount() {
+        return lineStarts.length - 1;
+    }
+
+    /**
+     * Finds the lines that contain all terms of the query. When
+     * the query extends the query of the previous result, only
+     * the lines of the previous result are searched again.
+     *
+     * @param query     The query with terms separated by spaces
+     * @param previous  The result of the previous query or null
+     * @param cancelled Returns true when the search should stop
+     * @return The result or null when cancelled
+     */
+    public SearchResult search(String query, SearchResult previous, BooleanSupplier cancelled) {
+        String foldedQuery = fold(query);
+        List<String> terms = getTerms(foldedQuery);
+        if (terms.isEmpty()) {
+            return new SearchResult(foldedQuery, new int[0], new int[0], new int[0], new int[0], 0, 0);
+        }
+
+        /* every line matching the longer query matched the shorter one */
+        int[] candidates = null;
+        if (previous != null && !getTerms(previous.getQuery()).isEmpty()
+                && foldedQuery.startsWith(previous.getQuery())) {
+            candidates = previous.getMatchingLines();
+        }
+
+        PatternMatcher matcher = new PatternMatcher(terms);
+        long allTerms = (matcher.getTermCount() == 64) ? -1L : (1L << matcher.getTermCount()) - 1;
+        LineMatches lineMatches = new LineMatches();
+        ResultCollector collector = new ResultCollector();
+
+        int lineCount = (candidates != null) ? candidates.length : getLineCount();
+        for (int i = 0; i < lineCount; i++) {
+            if ((i & 255) == 0 && cancelled.getAsBoolean()) {
+                return null;
+            }
+
+            int line = (candidates != null) ? candidates[i] : i;
+            int lineStart = lineStarts[line];
+            lineMatches.reset(lineStart);
+            matcher.scan(text, lineStart, lineStarts[line + 1] - 1, lineMatches);
+
+            if (lineMatches.foundTerms == allTerms) {
+                collector.add(line, lineStarts[line + 1] - 1 - lineStart, lineMatches);
+            }
+        }
+
+        return collector.toResult(foldedQuery);
+    }
+
+    /**
+     * Splits a query into its distinct terms
+     *
+     * @param foldedQuery The case-folded query
+     * @return The terms of the query
+     */
+    private static List<String> getTerms(String foldedQuery) {
+        List<String> result = new ArrayList<>();
+        for (String term : foldedQuery.trim().split("\\s+")) {
+            if (!term.isEmpty() && !result.contains(term) && result.size() < PatternMatcher.MAX_TERMS) {
+                result.add(term);
+            }
+        }
+
+        return result;
+    }
+
+    /* occurrences found in the line being scanned */
+    private static class LineMatches implements MatchListener {
+        private int lineStart;
+        private long foundTerms;
+        private int count;
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+
+        void reset(int start) {
+            lineStart = start;
+            foundTerms = 0;
+            count = 0;
+        }
+
+        @Override
+        public void matched(int term, int start, int end) {
+            foundTerms |= 1L << term;
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            starts[count] = start - lineStart;
+            ends[count] = end - lineStart;
+            count++;
+        }
+    }
+
+    /* matching lines and their occurrences collected so far */
+    private static class ResultCollector {
+        private int[] lines = new int[256];
+        private int lineCount = 0;
+        private int[] matchLines = new int[256];
+        private int[] matchStarts = new int[256];
+        private int[] matchEnds = new int[256];
+        private int matchCount = 0;
+        private int totalMatchCount = 0;
+        private int maxLineLength = 0;
+
+        void add(int line, int length, LineMatches lineMatches) {
+            if (lineCount == lines.length) {
+                lines = Arrays.copyOf(lines, lineCount * 2);
+            }
+            lines[lineCount++] = line;
+            maxLineLength = Math.max(maxLineLength, length);
+            totalMatchCount += lineMatches.count;
+
+            /* occurrences are reported by their end, order them by start */
+            int[] order = sortByStart(lineMatches);
+            for (int i = 0; i < lineMatches.count && matchCount < MAX_STORED_MATCHES; i++) {
+                if (matchCount == matchLines.length) {
+                    int capacity = Math.min(matchCount * 2, MAX_STORED_MATCHES);
+                    matchLines = Arrays.copyOf(matchLines, capacity);
+                    matchStarts = Arrays.copyOf(matchStarts, capacity);
+                    matchEnds = Arrays.copyOf(matchEnds, capacity);
+                }
+                matchLines[matchCount] = line;
+                matchStarts[matchCount] = lineMatches.starts[order[i]];
+                matchEnds[matchCount] = lineMatches.ends[order[i]];
+                matchCount++;
+            }
+        }
+
+        SearchResult toResult(String foldedQuery) {
+            return new SearchResult(foldedQuery, Arrays.copyOf(lines, lineCount),
+                    Arrays.copyOf(matchLines, matchCount), Arrays.copyOf(matchStarts, matchCount),
+                    Arrays.copyOf(matchEnds, matchCount), totalMatchCount, maxLineLength);
+        }
+
+        private static int[] sortByStart(LineMatches lineMatches) {
+            int[] order = new int[lineMatches.count];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+
+            /* lines hardly ever hold more than a few occurrences */
+            for (int i = 1; i < order.length; i++) {
+                int value = order[i];
+                int j = i - 1;
+                while (j >= 0 && lineMatches.starts[order[j]] > lineMatches.starts[value]) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = value;
+            }
+
+            return order;
+        }
+    }
+}
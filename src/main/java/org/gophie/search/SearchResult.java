@@ -0,0 +1,145 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.search;
+
+import java.util.Arrays;
+
+/**
+ * Lines that contain all terms of a query and the
+ * occurrences of the terms within those lines
+ */
+public class SearchResult {
+    private final String query;
+    private final int[] matchingLines;
+    private final int[] matchLines;
+    private final int[] matchStarts;
+    private final int[] matchEnds;
+    private final int totalMatchCount;
+    private final int maxLineLength;
+
+    /**
+     * Constructs the result of a search
+     *
+     * @param foldedQuery     The case-folded query
+     * @param lines           The matching lines in ascending order
+     * @param occurrenceLines The line of every stored occurrence
+     * @param starts          The start column of every stored occurrence
+     * @param ends            The end column of every stored occurrence
+     * @param totalCount      The number of occurrences including those not stored
+     * @param longestLine     The length of the longest matching line
+     */
+    SearchResult(String foldedQuery, int[] lines, int[] occurrenceLines,
+                 int[] starts, int[] ends, int totalCount, int longestLine) {
+        query = foldedQuery;
+        matchingLines = lines;
+        matchLines = occurrenceLines;
+        matchStarts = starts;
+        matchEnds = ends;
+        totalMatchCount = totalCount;
+        maxLineLength = longestLine;
+    }
+
+    /**
+     * Returns the case-folded query of this result
+     *
+     * @return The query
+     */
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * Returns the lines that contain all terms
+     *
+     * @return The lines in ascending order
+     */
+    public int[] getMatchingLines() {
+        return matchingLines;
+    }
+
+    /**
+     * Returns the number of occurrences that are stored,
+     * very frequent terms only store the first ones
+     *
+     * @return The number of occurrences stored
+     */
+    public int getMatchCount() {
+        return matchLines.length;
+    }
+
+    /**
+     * Returns the number of occurrences of all terms
+     *
+     * @return The total number of occurrences
+     */
+    public int getTotalMatchCount() {
+        return totalMatchCount;
+    }
+
+    /**
+     * Returns the length of the longest matching line
+     *
+     * @return The number of characters of the longest line
+     */
+    public int getMaxLineLength() {
+        return maxLineLength;
+    }
+
+    public int[] getMatchLines() {
+        return matchLines;
+    }
+
+    public int[] getMatchStarts() {
+        return matchStarts;
+    }
+
+    public int[] getMatchEnds() {
+        return matchEnds;
+    }
+
+    /**
+     * Returns the line of an occurrence as row of the
+     * matching lines, used when only those are shown
+     *
+     * @param match The index of the occurrence
+     * @return The index of its line in the matching lines
+     */
+    public int getMatchRow(int match) {
+        return Math.max(0, Arrays.binarySearch(matchingLines, matchLines[match]));
+    }
+
+    /**
+     * Returns the occurrences as rows of the matching lines
+     *
+     * @return The rows of all stored occurrences
+     */
+    public int[] getMatchRows() {
+        int[] result = new int[matchLines.length];
+        int row = 0;
+        for (int match = 0; match < matchLines.length; match++) {
+            /* both are ordered, so the row only ever moves forward */
+            while (matchingLines[row] != matchLines[match]) {
+                row++;
+            }
+            result[match] = row;
+        }
+
+        return result;
+    }
+}
@@ -20,6 +20,7 @@ package org.gophie.ui;
 
 import lombok.Setter;
 import org.gophie.config.ConfigurationManager;
+import org.gophie.config.ResourceRegistry;
 import org.gophie.ui.event.ActionButtonEventListener;
 
 import javax.swing.*;
@@ -70,14 +71,14 @@ public class ActionButton extends JPanel {
         iconLabel.setBorder(new EmptyBorder(0, 0, 0, 6));
         iconLabel.setOpaque(false);
         iconLabel.setFont(ConfigurationManager.getIconFont(14f));
-        iconLabel.setForeground(Color.decode(inactiveTextColorHex));
+        iconLabel.setForeground(ResourceRegistry.decodeColor(inactiveTextColorHex));
         add(iconLabel, BorderLayout.WEST);
 
         /* text for the button using the default text font */
         textLabel = new JLabel(text);
         textLabel.setOpaque(false);
         textLabel.setFont(ConfigurationManager.getDefaultFont(12f));
-        textLabel.setForeground(Color.decode(inactiveTextColorHex));
+        textLabel.setForeground(ResourceRegistry.decodeColor(inactiveTextColorHex));
         add(textLabel, BorderLayout.EAST);
 
         addMouseListener(new MouseAdapter() {
@@ -93,15 +94,15 @@ public class ActionButton extends JPanel {
             public void mouseEntered(MouseEvent evt) {
                 /* only show hover effect when button is enabled */
                 if (isButtonEnabled()) {
-                    iconLabel.setForeground(Color.decode(textColor));
-                    textLabel.setForeground(Color.decode(textColor));
+                    iconLabel.setForeground(ResourceRegistry.decodeColor(textColor));
+                    textLabel.setForeground(ResourceRegistry.decodeColor(textColor));
                 }
             }
 
             /* revert back to the default cursor and default color */
             public void mouseExited(MouseEvent evt) {
-                iconLabel.setForeground(Color.decode(inactiveTextColor));
-                textLabel.setForeground(Color.decode(inactiveTextColor));
+                iconLabel.setForeground(ResourceRegistry.decodeColor(inactiveTextColor));
+                textLabel.setForeground(ResourceRegistry.decodeColor(inactiveTextColor));
             }
         });
     }
@@ -0,0 +1,192 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.ui;
+
+import org.gophie.history.VisitLog;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+
+/**
+ * Suggests visited addresses below the address input while
+ * typing. Up and down select a suggestion, enter opens it
+ * and escape hides the suggestions.
+ */
+class AddressCompletion {
+    private final JTextField inputField;
+    private final int maxSuggestions;
+    private final DefaultListModel<String> suggestionModel = new DefaultListModel<>();
+    private final JList<String> suggestionList = new JList<>(suggestionModel);
+    private final JPopupMenu popup = new JPopupMenu();
+    /* set while the text is changed by the program */
+    private boolean updatingText = false;
+
+    /**
+     * Attaches the suggestions to an address input
+     *
+     * @param field       The address input
+     * @param suggestions The maximum number of suggestions shown
+     */
+    AddressCompletion(JTextField field, int suggestions) {
+        inputField = field;
+        maxSuggestions = suggestions;
+
+        /* the input keeps the focus while the list is shown */
+        suggestionList.setFocusable(false);
+        suggestionList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        suggestionList.setFont(field.getFont());
+        popup.setFocusable(false);
+        popup.add(suggestionList);
+
+        suggestionList.addMouseListener(new MouseAdapter() {
+            public void mouseReleased(MouseEvent evt) {
+                int index = suggestionList.locationToIndex(evt.getPoint());
+                if (index >= 0) {
+                    accept(suggestionModel.get(index));
+                    inputField.postActionEvent();
+                }
+            }
+        });
+
+        inputField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) {
+                textChanged();
+            }
+
+            public void removeUpdate(DocumentEvent e) {
+                textChanged();
+            }
+
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+
+        inputField.addKeyListener(new KeyAdapter() {
+            public void keyPressed(KeyEvent e) {
+                if (!popup.isVisible()) {
+                    return;
+                }
+
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_DOWN:
+                        moveSelection(1);
+                        e.consume();
+                        break;
+                    case KeyEvent.VK_UP:
+                        moveSelection(-1);
+                        e.consume();
+                        break;
+                    case KeyEvent.VK_ESCAPE:
+                        popup.setVisible(false);
+                        e.consume();
+                        break;
+                    case KeyEvent.VK_ENTER:
+                        /* the input opens the address after this */
+                        if (suggestionList.getSelectedValue() != null) {
+                            accept(suggestionList.getSelectedValue());
+                        }
+                        popup.setVisible(false);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        });
+
+        inputField.addFocusListener(new FocusAdapter() {
+            public void focusLost(FocusEvent e) {
+                popup.setVisible(false);
+            }
+        });
+    }
+
+    /**
+     * Sets the text of the input without suggesting addresses
+     *
+     * @param text The text to set
+     */
+    void setText(String text) {
+        updatingText = true;
+        try {
+            inputField.setText(text);
+        } finally {
+            updatingText = false;
+        }
+        popup.setVisible(false);
+    }
+
+    /**
+     * Updates the suggestions after the user changed the text
+     */
+    private void textChanged() {
+        if (updatingText || !inputField.isFocusOwner()) {
+            return;
+        }
+
+        /* the document must not be read while it notifies */
+        SwingUtilities.invokeLater(this::updateSuggestions);
+    }
+
+    /**
+     * Shows the visited addresses starting with the text
+     */
+    private void updateSuggestions() {
+        String text = inputField.getText();
+        List<String> suggestions = VisitLog.complete(text, maxSuggestions);
+        if (suggestions.isEmpty() || (suggestions.size() == 1 && suggestions.get(0).equals(text.trim()))) {
+            popup.setVisible(false);
+            return;
+        }
+
+        suggestionModel.clear();
+        suggestionModel.addAll(suggestions);
+        suggestionList.clearSelection();
+        suggestionList.setVisibleRowCount(suggestions.size());
+
+        popup.setPopupSize(inputField.getWidth(), suggestionList.getPreferredSize().height
+                + popup.getInsets().top + popup.getInsets().bottom);
+        if (!popup.isVisible()) {
+            popup.show(inputField, 0, inputField.getHeight());
+        } else {
+            popup.pack();
+        }
+    }
+
+    private void moveSelection(int delta) {
+        int index = suggestionList.getSelectedIndex() + delta;
+        index = Math.max(-1, Math.min(index, suggestionModel.size() - 1));
+        if (index < 0) {
+            suggestionList.clearSelection();
+        } else {
+            suggestionList.setSelectedIndex(index);
+        }
+    }
+
+    private void accept(String address) {
+        setText(address);
+    }
+}
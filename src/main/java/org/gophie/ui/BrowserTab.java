@@ -0,0 +1,786 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.ui;
+
+import lombok.extern.slf4j.Slf4j;
+import org.gophie.config.ConfigSnapshot;
+import org.gophie.config.ConfigurationManager;
+import org.gophie.config.SystemUtility;
+import org.gophie.config.event.ConfigChangeListener;
+import org.gophie.history.VisitLog;
+import org.gophie.io.ProgressiveImageSource;
+import org.gophie.monitor.MemoryPressureMonitor;
+import org.gophie.monitor.MemoryPressureMonitor.MemoryTier;
+import org.gophie.monitor.StartupProfiler;
+import org.gophie.monitor.event.MemoryPressureListener;
+import org.gophie.net.GopherClient;
+import org.gophie.net.GopherItem;
+import org.gophie.net.GopherItem.GopherItemType;
+import org.gophie.net.GopherPage;
+import org.gophie.net.GopherRequest;
+import org.gophie.net.GopherUrl;
+import org.gophie.net.PageCache;
+import org.gophie.net.PrefetchedRequest;
+import org.gophie.net.event.GopherClientEventListener;
+import org.gophie.net.event.GopherError;
+import org.gophie.net.event.GopherStreamListener;
+import org.gophie.search.PageIndex;
+import org.gophie.ui.event.BrowserTabListener;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A tab of the main window with its own page view, history
+ * and request. Tabs share the client of the window. A tab
+ * that hibernates keeps only the address and type of the
+ * pages in its history and restores them from the page
+ * cache or the network when it is shown again.
+ */
+@Slf4j
+public class BrowserTab implements MemoryPressureListener, ConfigChangeListener {
+    /* tab titles are cut off after this many characters */
+    private static final int MAX_TITLE_LENGTH = 28;
+
+    private final GopherClient gopherClient;
+    private final PageView pageView;
+    private final BrowserTabListener tabListener;
+
+    /* storage with history for browsing */
+    private ArrayList<GopherPage> history = new ArrayList<>();
+    private int historyPosition = -1;
+
+    /* request of the page loading, null when idle */
+    private TabRequest request = null;
+    private String addressText = "";
+    private String windowTitle = MainWindow.APPLICATION_TITLE;
+    private long lastActive = System.currentTimeMillis();
+    private boolean hibernated = false;
+
+    /* scroll position of the page while hibernated and of
+        the page fetched again when the tab was woken */
+    private Point scrollPosition = new Point(0, 0);
+    private Point wakeScrollPosition = null;
+
+    /**
+     * Constructs the tab with an empty page view
+     *
+     * @param window   The window the tab belongs to
+     * @param client   The client shared by all tabs
+     * @param listener The listener to report changes to
+     */
+    BrowserTab(MainWindow window, GopherClient client, BrowserTabListener listener) {
+        gopherClient = client;
+        tabListener = listener;
+
+        pageView = new PageView(window);
+        pageView.addListener(window);
+
+        /* release history content when the heap runs low */
+        MemoryPressureMonitor.addListener(this);
+        ConfigurationManager.addChangeListener(this);
+    }
+
+    /**
+     * Returns the view with the page of this tab
+     *
+     * @return The page view of this tab
+     */
+    public PageView getPageView() {
+        return pageView;
+    }
+
+    /**
+     * Returns the address shown for this tab
+     *
+     * @return The address of the page shown or loading
+     */
+    public String getAddressText() {
+        return addressText;
+    }
+
+    /**
+     * Returns the title of the window while the tab is shown
+     *
+     * @return The title with the address and size of the page
+     */
+    public String getWindowTitle() {
+        return windowTitle;
+    }
+
+    /**
+     * Returns the short title of the tab
+     *
+     * @return The address of the page, cut off when long
+     */
+    public String getTitle() {
+        String result = addressText;
+        if (historyPosition >= 0 && request == null) {
+            result = history.get(historyPosition).getUrl().getUrlString();
+        }
+        if (result.length() > MAX_TITLE_LENGTH) {
+            result = result.substring(0, MAX_TITLE_LENGTH - 3) + "...";
+        }
+
+        return result.isEmpty() ? MainWindow.APPLICATION_TITLE : result;
+    }
+
+    public boolean isLoading() {
+        return request != null;
+    }
+
+    public boolean isHibernated() {
+        return hibernated;
+    }
+
+    public boolean canGoBack() {
+        return historyPosition > 0;
+    }
+
+    public boolean canGoForward() {
+        return historyPosition < history.size() - 1;
+    }
+
+    /**
+     * Returns the pages of the history, of which
+     * only address and type may still be known
+     *
+     * @return The pages of the history, oldest first
+     */
+    List<GopherPage> getHistory() {
+        return history;
+    }
+
+    int getHistoryPosition() {
+        return historyPosition;
+    }
+
+    /**
+     * Returns the position the current page is scrolled to
+     *
+     * @return The position of the top left corner shown
+     */
+    Point getScrollPosition() {
+        return hibernated ? new Point(scrollPosition) : pageView.getScrollPosition();
+    }
+
+    /**
+     * Restores the history of a tab from an earlier session.
+     * The tab hibernates until it is shown.
+     *
+     * @param pages    The pages with address and type only
+     * @param position The position of the current page
+     * @param scroll   The position the current page was scrolled to
+     */
+    void restore(List<GopherPage> pages, int position, Point scroll) {
+        if (pages.isEmpty() || position < 0 || position >= pages.size()) {
+            return;
+        }
+
+        history = new ArrayList<>(pages);
+        historyPosition = position;
+        scrollPosition = new Point(scroll);
+        hibernated = true;
+
+        GopherPage currentPage = history.get(historyPosition);
+        addressText = currentPage.getUrl().getUrlString();
+        if (isPrefixEnabled()) {
+            GopherUrl prefixUrl = new GopherUrl(addressText);
+            prefixUrl.setTypePrefix(GopherItem.getTypeCode(currentPage.getContentType()));
+            addressText = prefixUrl.getUrlString(true);
+        }
+    }
+
+    /**
+     * Returns when the tab was last shown
+     *
+     * @return The time in milliseconds
+     */
+    public long getLastActive() {
+        return lastActive;
+    }
+
+    /**
+     * Remembers that the tab is shown or was just left
+     */
+    void markActive() {
+        lastActive = System.currentTimeMillis();
+    }
+
+    /**
+     * Fetches gopher menu or text content, cancelling
+     * the page this tab was loading before
+     *
+     * @param address     The address to fetch content from
+     * @param contentType The actual content type requested
+     */
+    void fetch(String address, GopherItemType contentType) {
+        fetch(address, contentType, true);
+    }
+
+    /**
+     * Fetches a page, either as a new visit or again for a
+     * page of the history that is shown once more
+     *
+     * @param address     The address to fetch content from
+     * @param contentType The actual content type requested
+     * @param newVisit    Whether the page counts as a visit
+     */
+    private void fetch(String address, GopherItemType contentType, boolean newVisit) {
+        /* set before starting, the first callbacks may come right away */
+        TabRequest tabRequest = beginRequest(address, contentType);
+        tabRequest.newVisit = newVisit;
+
+        try {
+            tabRequest.gopherRequest = gopherClient.fetchAsync(address, contentType, tabRequest, tabRequest);
+        } catch (Exception ex) {
+            /* might throw an ex when thread is interrupted */
+            log.error("Exception while fetching async: {}", ex.getMessage());
+        }
+
+        tabListener.tabStateChanged(this);
+    }
+
+    /**
+     * Shows a page that was requested before the tab
+     * existed, as if the tab had fetched it itself
+     *
+     * @param prefetch The request started earlier
+     */
+    void adopt(PrefetchedRequest prefetch) {
+        TabRequest tabRequest = beginRequest(prefetch.getAddress(), prefetch.getContentType());
+        tabRequest.gopherRequest = prefetch.getRequest();
+        prefetch.attach(tabRequest, tabRequest);
+
+        tabListener.tabStateChanged(this);
+    }
+
+    /**
+     * Cancels the page this tab was loading before
+     * and makes a new request the current one
+     *
+     * @param address     The address of the page requested
+     * @param contentType The content type of the page
+     * @return The new current request
+     */
+    private TabRequest beginRequest(String address, GopherItemType contentType) {
+        cancelRequest();
+        wakeScrollPosition = null;
+
+        /* show the address with the prefix when enabled */
+        addressText = address;
+        if (isPrefixEnabled()) {
+            GopherUrl prefixUrl = new GopherUrl(address);
+            prefixUrl.setTypePrefix(GopherItem.getTypeCode(contentType));
+            addressText = prefixUrl.getUrlString(true);
+        }
+
+        request = new TabRequest();
+        return request;
+    }
+
+    /**
+     * Navigates backwards in the history
+     */
+    void back() {
+        if (historyPosition > 0) {
+            historyPosition--;
+            showHistoryPage(history.get(historyPosition));
+        }
+    }
+
+    /**
+     * Navigates forward in the history
+     */
+    void forward() {
+        if (historyPosition < (history.size() - 1)) {
+            historyPosition++;
+            showHistoryPage(history.get(historyPosition));
+        }
+    }
+
+    /**
+     * Refreshes the current page
+     */
+    void refresh() {
+        if (historyPosition >= 0) {
+            /* reload practically means just requesting this page again */
+            GopherPage currentPage = history.get(historyPosition);
+            fetch(currentPage.getUrl().getUrlString(), currentPage.getContentType());
+        }
+    }
+
+    /**
+     * Stops the current page load
+     */
+    void stop() {
+        cancelRequest();
+
+        /* notify the local handler about cancellation by the user */
+        tabListener.tabLoadFailed(this, GopherError.USER_CANCELLED, null);
+        tabListener.tabStateChanged(this);
+    }
+
+    /**
+     * Cancels the page this tab is loading, its
+     * results are ignored when they still arrive
+     */
+    private void cancelRequest() {
+        if (request != null && request.gopherRequest != null) {
+            request.gopherRequest.cancel();
+        }
+        request = null;
+    }
+
+    /**
+     * Releases the pages and everything rendered for them,
+     * keeping only their addresses until the tab is shown
+     */
+    void hibernate() {
+        if (hibernated || request != null || history.isEmpty()) {
+            return;
+        }
+
+        scrollPosition = pageView.getScrollPosition();
+        pageView.clear();
+        long releasedSize = 0;
+        for (int h = 0; h < history.size(); h++) {
+            GopherPage page = history.get(h);
+            history.set(h, page.createDescriptor());
+            releasedSize += page.releaseContent();
+        }
+
+        hibernated = true;
+        log.info("Hibernated tab with {} pages, released {}",
+                history.size(), SystemUtility.getFileSizeString(releasedSize));
+    }
+
+    /**
+     * Shows the current page again after hibernating
+     */
+    void wake() {
+        if (hibernated) {
+            hibernated = false;
+            showHistoryPage(history.get(historyPosition));
+
+            if (request == null) {
+                pageView.restoreScrollPosition(scrollPosition);
+            } else {
+                /* scroll once the page was fetched again */
+                wakeScrollPosition = scrollPosition;
+            }
+        }
+    }
+
+    /**
+     * Cancels loading and releases all pages when the tab is closed
+     */
+    void close() {
+        cancelRequest();
+
+        MemoryPressureMonitor.removeListener(this);
+        ConfigurationManager.removeChangeListener(this);
+        pageView.dispose();
+        for (GopherPage page : history) {
+            page.releaseContent();
+        }
+        history.clear();
+        historyPosition = -1;
+    }
+
+    /**
+     * Shows a page from the history at the current
+     * history position, restoring it from the cache
+     * or fetching it when its content was released
+     *
+     * @param page The page from the history to show
+     */
+    private void showHistoryPage(GopherPage page) {
+        if (!page.isReleased()) {
+            showPage(page);
+            return;
+        }
+
+        /* the cache may read and inflate the page from disk,
+            so restore it like a request off the event thread */
+        String address = page.getUrl().getUrlString();
+        TabRequest tabRequest = beginRequest(address, page.getContentType());
+        Thread loadThread = new Thread(() -> {
+            GopherPage cachedPage = PageCache.get(address);
+            SwingUtilities.invokeLater(() -> cachedPageLoaded(tabRequest, page, cachedPage));
+        }, "history-load");
+        loadThread.setDaemon(true);
+        loadThread.start();
+
+        tabListener.tabStateChanged(this);
+    }
+
+    /**
+     * Shows a page restored from the cache or fetches
+     * it again when the cache no longer had it
+     *
+     * @param tabRequest The request the page was restored for
+     * @param page       The released page from the history
+     * @param cachedPage The page from the cache or null when not cached
+     */
+    private void cachedPageLoaded(TabRequest tabRequest, GopherPage page, GopherPage cachedPage) {
+        if (tabRequest != request) {
+            /* the tab moved on while the page was restored */
+            if (cachedPage != null) {
+                cachedPage.releaseContent();
+            }
+            return;
+        }
+
+        if (cachedPage == null) {
+            /* content is gone, the page needs to be fetched again */
+            Point scrollTarget = wakeScrollPosition;
+            fetch(page.getUrl().getUrlString(), page.getContentType(), false);
+            wakeScrollPosition = scrollTarget;
+            return;
+        }
+
+        request = null;
+        showPage(cachedPage);
+
+        if (wakeScrollPosition != null) {
+            pageView.restoreScrollPosition(wakeScrollPosition);
+            wakeScrollPosition = null;
+        }
+    }
+
+    /**
+     * Shows a page and adds it to the history
+     *
+     * @param result The page to show
+     */
+    private void showPage(GopherPage result) {
+        hibernated = false;
+
+        /* set the window title to the url of this page */
+        windowTitle = result.getUrl().getUrlString()
+                + " (" + SystemUtility.getFileSizeString(result.getByteCount()) + ")"
+                + " - " + MainWindow.APPLICATION_TITLE;
+
+        /* update the address text with the loaded page */
+        addressText = result.getUrl().getUrlString();
+        if (isPrefixEnabled()) {
+            /* create the gopher url object for the address */
+            GopherUrl prefixUrl = result.getUrl();
+            prefixUrl.setTypePrefix(GopherItem.getTypeCode(result.getContentType()));
+
+            /* set the address to the url with the prefix */
+            addressText = prefixUrl.getUrlString(true);
+        }
+
+        /* detect the content type and determine how the handle it */
+        if (result.getContentType() == GopherItemType.GOPHERMENU) {
+            /* this is a gopher menu hence it is rendered like
+                one including highlighting of links and
+                the menu icons for the various item types */
+            pageView.showGopherPage(result);
+        } else {
+            /* this is plain content, so render it
+                appropriately and let the view decide
+                on how to handle the content */
+            pageView.showGopherContent(result);
+        }
+
+        /* update the history */
+        updateHistory(result);
+
+        tabListener.tabStateChanged(this);
+        StartupProfiler.finish();
+    }
+
+    /**
+     * Updates the history with a new page
+     *
+     * @param page The page that was received
+     */
+    private void updateHistory(GopherPage page) {
+        /* check if current position is at last page */
+        if (historyPosition == history.size() - 1) {
+            /* make sure this was not just a reload and the last
+                page in the history is not already ours */
+            if (!history.isEmpty() && history.get(history.size() - 1).getUrl().getUrlString()
+                    .equals(page.getUrl().getUrlString())) {
+                /* reloaded, keep the fresh content in the history */
+                replaceHistoryPage(history.size() - 1, page);
+                return;
+            }
+        } else if (history.get(historyPosition).getUrl()
+                .getUrlString().equals(page.getUrl().getUrlString())) {
+            /* same page, replace it in case it was fetched
+                again after its content had been released */
+            replaceHistoryPage(historyPosition, page);
+            return;
+        } else {
+            /* it is a new page outside the history, keep the history
+                up until the current page and add this page as a new
+                branch to the history, eliminating the
+                previous branch forward */
+            List<GopherPage> droppedPages = history.subList(historyPosition + 1, history.size());
+            for (GopherPage droppedPage : droppedPages) {
+                droppedPage.releaseContent();
+            }
+            droppedPages.clear();
+        }
+
+        /* add to the stack of pages and update position to the top */
+        history.add(page);
+        historyPosition = history.size() - 1;
+    }
+
+    /**
+     * Replaces a page in the history with a fresh copy
+     * and releases the content of the previous copy
+     *
+     * @param position The position in the history
+     * @param page     The page to put at the position
+     */
+    private void replaceHistoryPage(int position, GopherPage page) {
+        GopherPage previous = history.set(position, page);
+        if (previous != page) {
+            previous.releaseContent();
+        }
+    }
+
+    static boolean isPrefixEnabled() {
+        return ConfigurationManager.getSnapshot().isSelectorPrefixEnabled();
+    }
+
+    /**
+     * Decodes the text of the pages again when
+     * the charset in the configuration changed
+     *
+     * @param previous The settings before the change
+     * @param current  The settings now in effect
+     */
+    @Override
+    public void configChanged(ConfigSnapshot previous, ConfigSnapshot current) {
+        if (!current.getDefaultCharset().equals(previous.getDefaultCharset())) {
+            SwingUtilities.invokeLater(() -> {
+                for (GopherPage page : history) {
+                    page.releaseDecodedText();
+                }
+                if (!hibernated) {
+                    pageView.refreshPage();
+                }
+            });
+        }
+    }
+
+    /**
+     * Releases the decoded text and the content of
+     * pages in the history when the heap runs low
+     *
+     * @param tier The tier of memory to release
+     */
+    @Override
+    public void memoryPressureReported(MemoryTier tier) {
+        if (tier == MemoryTier.DECODED_TEXT || tier == MemoryTier.PAGE_BODIES) {
+            SwingUtilities.invokeLater(() -> {
+                long releasedSize = 0;
+                int pageCount = 0;
+
+                for (int h = 0; h < history.size(); h++) {
+                    GopherPage page = history.get(h);
+                    if (tier == MemoryTier.DECODED_TEXT) {
+                        /* the text is decoded again when needed */
+                        releasedSize += page.releaseDecodedText() * 2L;
+                        pageCount++;
+                    } else if (h != historyPosition && !page.isReleased()) {
+                        /* the page on display keeps its content */
+                        releasedSize += page.releaseContent();
+                        pageCount++;
+                    }
+                }
+
+                log.warn("Released {} of {} from {} history pages",
+                        SystemUtility.getFileSizeString(releasedSize), tier.getDescription(), pageCount);
+            });
+        }
+    }
+
+    /**
+     * Shows a page received from the network
+     *
+     * @param tabRequest The request the page was received for
+     * @param result     The gopher page that was received
+     */
+    private void pageLoaded(TabRequest tabRequest, GopherPage result) {
+        if (tabRequest != request) {
+            /* a page the tab no longer waits for */
+            result.releaseContent();
+            return;
+        }
+
+        request = null;
+        showPage(result);
+
+        /* remember the address for suggestions while typing,
+            pages shown again from the history are no new visit */
+        if (tabRequest.newVisit) {
+            VisitLog.recordVisit(addressText);
+        }
+
+        if (wakeScrollPosition != null) {
+            pageView.restoreScrollPosition(wakeScrollPosition);
+            wakeScrollPosition = null;
+        }
+
+        /* remember the words of the page for searching visited pages */
+        PageIndex.add(result);
+
+        /* keep a copy to restore the page when its content is released */
+        PageCache.put(result);
+    }
+
+    /* listener for a single page request of the tab, its
+        events are ignored once the tab moved on to another */
+    private class TabRequest implements GopherClientEventListener, GopherStreamListener {
+        private volatile GopherRequest gopherRequest;
+        private boolean newVisit = true;
+
+        /**
+         * Shows a menu or text page while it is received
+         *
+         * @param url         The url of the page
+         * @param contentType The type of the page
+         */
+        @Override
+        public void streamStarted(GopherUrl url, GopherItemType contentType) {
+            SwingUtilities.invokeLater(() -> {
+                if (this == request) {
+                    pageView.beginStream(url, contentType);
+                }
+            });
+        }
+
+        /**
+         * Appends menu items to the page while it is received
+         *
+         * @param url   The url of the page
+         * @param items The items received
+         */
+        @Override
+        public void menuItemsReceived(GopherUrl url, List<GopherItem> items) {
+            SwingUtilities.invokeLater(() -> {
+                if (this == request) {
+                    pageView.appendStreamItems(url, items);
+                }
+            });
+        }
+
+        /**
+         * Appends text to the page while it is received
+         *
+         * @param url  The url of the page
+         * @param text The text received
+         */
+        @Override
+        public void textReceived(GopherUrl url, String text) {
+            SwingUtilities.invokeLater(() -> {
+                if (this == request) {
+                    pageView.appendStreamText(url, text);
+                }
+            });
+        }
+
+        /**
+         * Shows an image while it is received
+         *
+         * @param url    The url of the image
+         * @param source The source receiving the image
+         */
+        @Override
+        public void imageStreamStarted(GopherUrl url, ProgressiveImageSource source) {
+            SwingUtilities.invokeLater(() -> {
+                if (this == request) {
+                    pageView.beginImageStream(url, source);
+                } else {
+                    source.cancel();
+                }
+            });
+        }
+
+        /**
+         * Handles page load events from the listener
+         *
+         * @param result The gopher page that was received
+         */
+        @Override
+        public void pageLoaded(GopherPage result) {
+            /* show the page after the lines received before it */
+            SwingUtilities.invokeLater(() -> BrowserTab.this.pageLoaded(this, result));
+        }
+
+        /**
+         * Reports failed page load
+         */
+        @Override
+        public void pageLoadFailed(GopherError error, GopherUrl url) {
+            SwingUtilities.invokeLater(() -> {
+                if (this == request) {
+                    /* output some base information to the console */
+                    log.error("Failed to load gopher page: {}", error.toString());
+
+                    request = null;
+                    tabListener.tabLoadFailed(BrowserTab.this, error, url);
+                    tabListener.tabStateChanged(BrowserTab.this);
+                }
+            });
+        }
+
+        /**
+         * Report progress on the page loading
+         */
+        @Override
+        public void progress(GopherUrl url, long byteCount) {
+            SwingUtilities.invokeLater(() -> {
+                if (this == request) {
+                    /* report the download size in the title bar */
+                    windowTitle = url.getUrlString()
+                            + " (" + SystemUtility.getFileSizeString(byteCount) + ")"
+                            + " - " + MainWindow.APPLICATION_TITLE;
+                    tabListener.tabProgress(BrowserTab.this);
+                }
+            });
+        }
+
+        /**
+         * Handles item mismatch events when the content detection
+         * during the page loading process detects a different file
+         * type than the one requested.
+         */
+        @Override
+        public void pageLoadItemMismatch(GopherItemType requested, GopherItemType detected, GopherUrl url) {
+            SwingUtilities.invokeLater(() -> {
+                if (this == request) {
+                    request = null;
+                    tabListener.tabStateChanged(BrowserTab.this);
+                    tabListener.tabItemMismatch(BrowserTab.this, detected, url);
+                }
+            });
+        }
+    }
+}
@@ -18,8 +18,8 @@
 
 package org.gophie.ui;
 
-import org.gophie.config.ConfigFile;
 import org.gophie.config.ConfigurationManager;
+import org.gophie.config.ResourceRegistry;
 import org.gophie.config.SystemUtility;
 import org.gophie.net.DownloadItem;
 import org.gophie.net.DownloadItem.DownloadStatus;
@@ -34,24 +34,28 @@ public class DownloadItemRenderer extends JPanel implements ListCellRenderer<Dow
 
     private final JLabel titleLabel = new JLabel();
     private final JLabel textLabel = new JLabel();
+    /* font the bold title font was derived from */
+    private Font titleBaseFont = null;
+
+    public DownloadItemRenderer() {
+        setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+        setBorder(new EmptyBorder(5, 10, 5, 10));
+        textLabel.setBorder(new EmptyBorder(4, 0, 0, 0));
+        add(titleLabel);
+        add(textLabel);
+    }
 
     @Override
     public Component getListCellRendererComponent(JList<? extends DownloadItem> list,
                                                   DownloadItem value, int index,
                                                   boolean isSelected, boolean cellHasFocus) {
-        /* get the config file for the color schemes */
-        ConfigFile configFile = ConfigurationManager.getConfigFile();
-
         /* render the cell for this download item */
         setOpaque(false);
-        setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
-        setBorder(new EmptyBorder(5, 10, 5, 10));
 
         /* highlight if this element is selected */
         if (isSelected) {
             setOpaque(true);
-            setBackground(Color.decode(configFile.getSetting
-                    ("DOWNLOAD_SELECTED_COLOR", "Appearance", "#cf9a0c")));
+            setBackground(ResourceRegistry.getColor("DOWNLOAD_SELECTED_COLOR", "Appearance", "#cf9a0c"));
         }
 
         /* get the gopher item of this download */
@@ -60,9 +64,12 @@ public class DownloadItemRenderer extends JPanel implements ListCellRenderer<Dow
         /* show the file name in the title */
         titleLabel.setText(item.getFileName());
         Font titleFont = ConfigurationManager.getConsoleFont(15f);
-        titleLabel.setFont(titleFont.deriveFont(titleFont.getStyle() | Font.BOLD));
-        titleLabel.setForeground(Color.decode(configFile.getSetting
-                ("DOWNLOAD_TITLE_COLOR", "Appearance", "#ffffff")));
+        if (titleFont != titleBaseFont) {
+            /* fonts are cached, only derive again when the font changed */
+            titleBaseFont = titleFont;
+            titleLabel.setFont(titleFont.deriveFont(titleFont.getStyle() | Font.BOLD));
+        }
+        titleLabel.setForeground(ResourceRegistry.getColor("DOWNLOAD_TITLE_COLOR", "Appearance", "#ffffff"));
 
         /* create the information text based on the status */
         String statusText = "Download not started";
@@ -89,14 +96,8 @@ public class DownloadItemRenderer extends JPanel implements ListCellRenderer<Dow
 
         /* set the text to the status text label */
         textLabel.setText(statusText);
-        textLabel.setBorder(new EmptyBorder(4, 0, 0, 0));
-        textLabel.setForeground(Color.decode(configFile.getSetting
-                ("DOWNLOAD_TEXT_COLOR", "Appearance", "#e0e0e0")));
-        Font textFont = ConfigurationManager.getConsoleFont(13f);
-        textLabel.setFont(textFont);
-
-        add(titleLabel);
-        add(textLabel);
+        textLabel.setForeground(ResourceRegistry.getColor("DOWNLOAD_TEXT_COLOR", "Appearance", "#e0e0e0"));
+        textLabel.setFont(ConfigurationManager.getConsoleFont(13f));
 
         return this;
     }
@@ -2,6 +2,7 @@ package org.gophie.ui;
 
 import org.gophie.config.ConfigFile;
 import org.gophie.config.ConfigurationManager;
+import org.gophie.config.ResourceRegistry;
 import org.gophie.net.DownloadItem;
 import org.gophie.net.DownloadItem.DownloadStatus;
 import org.gophie.net.DownloadList;
@@ -60,8 +61,7 @@ public class DownloadWindow implements ActionButtonEventListener {
         fileListView.setCellRenderer(new DownloadItemRenderer());
         fileListView.setFixedCellWidth(fileListView.getWidth());
         fileListView.setOpaque(true);
-        fileListView.setBackground(Color.decode(configFile.getSetting
-                ("FILELIST_BACKGROUND", "Appearance", FILELIST_BACKGROUND)));
+        fileListView.setBackground(ResourceRegistry.getColor("FILELIST_BACKGROUND", "Appearance", FILELIST_BACKGROUND));
 
         JScrollPane listScrollPane = new JScrollPane(fileListView);
         listScrollPane.setOpaque(false);
@@ -85,8 +85,7 @@ public class DownloadWindow implements ActionButtonEventListener {
 
         actionBar.setLayout(new BorderLayout());
         actionBar.setBorder(new EmptyBorder(8, 16, 10, 16));
-        actionBar.setBackground(Color.decode(configFile.getSetting
-                ("ACTIONBAR_BACKGROUND", "Appearance", ACTIONBAR_BACKGROUND)));
+        actionBar.setBackground(ResourceRegistry.getColor("ACTIONBAR_BACKGROUND", "Appearance", ACTIONBAR_BACKGROUND));
         actionBar.add(clearButton, BorderLayout.EAST);
         actionBar.add(actionButton, BorderLayout.WEST);
         frame.add(actionBar, BorderLayout.SOUTH);
@@ -0,0 +1,62 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.ui;
+
+import org.gophie.search.LineSource;
+
+/**
+ * Shows only some of the lines of another source, used to
+ * filter a page down to the lines that match a search
+ */
+public class FilteredLineView extends VirtualLineView {
+    /* constants */
+    private static final long serialVersionUID = 1L;
+
+    private final LineSource source;
+    private final int[] lineList;
+    private final int maxLineLength;
+
+    /**
+     * Constructs the view for the provided lines
+     *
+     * @param lineSource The source with all lines
+     * @param lines      The lines of the source to show
+     * @param longest    The length of the longest of the lines
+     */
+    public FilteredLineView(LineSource lineSource, int[] lines, int longest) {
+        source = lineSource;
+        lineList = lines;
+        maxLineLength = longest;
+    }
+
+    @Override
+    public int getLineCount() {
+        return lineList.length;
+    }
+
+    @Override
+    public String getLineText(int line) {
+        return source.getLineText(lineList[line]);
+    }
+
+    @Override
+    protected int getMaxLineLength() {
+        return maxLineLength;
+    }
+}
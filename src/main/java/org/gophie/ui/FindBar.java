@@ -0,0 +1,221 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.ui;
+
+import org.gophie.config.ConfigurationManager;
+import org.gophie.config.ResourceRegistry;
+import org.gophie.ui.event.FindBarListener;
+import org.gophie.ui.event.FindStatusListener;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+
+/**
+ * Bar to find text in the current page or filter the
+ * page down to the lines containing it. Every change
+ * of the text is reported right away, so results can
+ * narrow down while the user is typing.
+ */
+public class FindBar extends JPanel implements FindStatusListener {
+    /* constants */
+    private static final long serialVersionUID = 1L;
+
+    private final JTextField findText;
+    private final JLabel statusText;
+    private final JCheckBox filterBox;
+
+    /* listeners for find events */
+    private final ArrayList<FindBarListener> listenerList = new ArrayList<>();
+
+    /**
+     * Constructs the find bar, hidden until opened
+     */
+    public FindBar() {
+        /* use the same colors as the search input */
+        Color background = ResourceRegistry.getColor("SEARCH_BACKGROUND", "Appearance", SearchInput.SEARCH_BACKGROUND);
+        Color titleColor = ResourceRegistry.getColor("SEARCH_TITLECOLOR", "Appearance", SearchInput.SEARCH_TITLECOLOR);
+        Color textColor = ResourceRegistry.getColor("SEARCH_TEXTCOLOR", "Appearance", SearchInput.SEARCH_TEXTCOLOR);
+
+        setLayout(new BoxLayout(this, BoxLayout.X_AXIS));
+        setBorder(new EmptyBorder(6, 12, 12, 14));
+        setBackground(background);
+
+        JLabel findIcon = new JLabel("");
+        findIcon.setFont(ConfigurationManager.getIconFont(16f));
+        findIcon.setBorder(new EmptyBorder(0, 0, 0, 8));
+        findIcon.setForeground(titleColor);
+        add(findIcon);
+
+        JLabel findTitle = new JLabel("Find");
+        findTitle.setFont(ConfigurationManager.getDefaultFont(14f));
+        findTitle.setForeground(titleColor);
+        findTitle.setBorder(new EmptyBorder(2, 0, 0, 12));
+        add(findTitle);
+
+        findText = new JTextField();
+        findText.setBorder(new EmptyBorder(2, 0, 0, 0));
+        findText.setBackground(background);
+        findText.setForeground(textColor);
+        findText.setCaretColor(textColor);
+        findText.setFont(ConfigurationManager.getDefaultFont(14f));
+        add(findText);
+
+        statusText = new JLabel();
+        statusText.setFont(ConfigurationManager.getDefaultFont(12f));
+        statusText.setForeground(titleColor);
+        statusText.setBorder(new EmptyBorder(2, 12, 0, 12));
+        add(statusText);
+
+        filterBox = new JCheckBox("Filter");
+        filterBox.setFont(ConfigurationManager.getDefaultFont(12f));
+        filterBox.setForeground(titleColor);
+        filterBox.setBackground(background);
+        filterBox.setFocusable(false);
+        filterBox.addActionListener(e -> fireTextChanged());
+        add(filterBox);
+
+        /* report every change of the text right away */
+        findText.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                fireTextChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                fireTextChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                /* attribute changes do not change the text */
+            }
+        });
+
+        findText.addKeyListener(new KeyAdapter() {
+            public void keyPressed(KeyEvent e) {
+                /* move between the occurrences with enter */
+                if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+                    for (FindBarListener listener : listenerList) {
+                        listener.findNextRequested(e.isShiftDown());
+                    }
+                }
+
+                if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
+                    close();
+                }
+            }
+        });
+
+        setVisible(false);
+    }
+
+    /**
+     * Adds a listener for find events
+     *
+     * @param listener The listener to add
+     */
+    public void addListener(FindBarListener listener) {
+        listenerList.add(listener);
+    }
+
+    /**
+     * Shows the bar and focuses the text, a
+     * previous text is selected to be replaced
+     */
+    public void open() {
+        setVisible(true);
+        findText.selectAll();
+        findText.requestFocusInWindow();
+        getParent().revalidate();
+    }
+
+    /**
+     * Hides the bar and reports it to the listeners
+     */
+    public void close() {
+        if (isVisible()) {
+            setVisible(false);
+            statusText.setText("");
+            for (FindBarListener listener : listenerList) {
+                listener.findClosed();
+            }
+        }
+    }
+
+    /**
+     * Returns the text to find
+     *
+     * @return The text entered
+     */
+    public String getText() {
+        return findText.getText();
+    }
+
+    /**
+     * Returns whether only matching lines should be shown
+     *
+     * @return true to filter the page, otherwise false
+     */
+    public boolean isFilterEnabled() {
+        return filterBox.isSelected();
+    }
+
+    /**
+     * Shows the position of the current occurrence
+     *
+     * @param current The number of the current occurrence, 0 for none
+     * @param total   The number of occurrences, -1 while searching
+     */
+    @Override
+    public void findStatusChanged(int current, int total) {
+        if (total < 0) {
+            statusText.setText("Searching...");
+        } else if (total == 0) {
+            statusText.setText(getText().isBlank() ? "" : "No matches");
+        } else {
+            statusText.setText(current + " of " + total);
+        }
+    }
+
+    /**
+     * Clears the status when other content is shown
+     */
+    @Override
+    public void findReset() {
+        statusText.setText("");
+    }
+
+    /**
+     * Reports the current text to the listeners
+     */
+    private void fireTextChanged() {
+        String text = getText();
+        boolean filter = isFilterEnabled();
+        for (FindBarListener listener : listenerList) {
+            listener.findTextChanged(text, filter);
+        }
+    }
+}
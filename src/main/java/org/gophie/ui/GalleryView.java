@@ -0,0 +1,398 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.ui;
+
+import org.gophie.net.GopherItem;
+import org.gophie.net.ThumbnailLoader;
+import org.gophie.net.event.ThumbnailListener;
+import org.gophie.ui.event.MenuLinkListener;
+import org.gophie.ui.util.GuiUtil;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shows the images linked from a menu as a grid of thumbnails.
+ * Thumbnails are only loaded once their cell scrolls into view
+ * and only a limited number of them is kept in memory.
+ */
+public class GalleryView extends JComponent implements Scrollable, ThumbnailListener {
+    /* constants */
+    private static final long serialVersionUID = 1L;
+    /* number of thumbnails kept in memory */
+    private static final int MAX_THUMBNAILS = 128;
+    /* space between and around the cells */
+    private static final int CELL_PADDING = 8;
+
+    /* images of the menu and their position in the grid */
+    private final List<GopherItem> itemList;
+    private final Map<GopherItem, Integer> indexMap = new IdentityHashMap<>();
+    private final int thumbnailSize;
+    private final ThumbnailLoader loader;
+
+    /* thumbnails in memory, only used on the event dispatch thread */
+    private final Map<GopherItem, BufferedImage> thumbnailMap = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<GopherItem, BufferedImage> eldest) {
+            return size() > MAX_THUMBNAILS;
+        }
+    };
+    private final Set<GopherItem> requestedSet = new HashSet<>();
+    private final Set<GopherItem> failedSet = new HashSet<>();
+
+    /* cells still worth loading, read by the loader threads */
+    private volatile int firstWantedIndex = 0;
+    private volatile int lastWantedIndex = -1;
+
+    /* cell under the mouse */
+    private int hoveredIndex = -1;
+    private final Color linkColor;
+
+    /* listeners for link events */
+    private final ArrayList<MenuLinkListener> linkListenerList = new ArrayList<>();
+
+    /**
+     * Constructs the gallery for the images of a menu
+     *
+     * @param items       The image items of the menu
+     * @param size        The width and height of the thumbnails
+     * @param threadCount The number of images fetched at once
+     */
+    public GalleryView(List<GopherItem> items, int size, int threadCount) {
+        itemList = items;
+        thumbnailSize = size;
+        for (int index = 0; index < items.size(); index++) {
+            indexMap.put(items.get(index), index);
+        }
+
+        loader = new ThumbnailLoader(threadCount, size, this);
+        linkColor = GuiUtil.getLinkColor();
+
+        setOpaque(true);
+        setFocusable(true);
+        setBackground(UIManager.getColor("EditorPane.background"));
+        setForeground(UIManager.getColor("EditorPane.foreground"));
+
+        MouseAdapter linkHandler = new MouseAdapter() {
+            public void mouseMoved(MouseEvent evt) {
+                setHoveredIndex(getIndexAt(evt.getPoint()));
+            }
+
+            public void mouseExited(MouseEvent evt) {
+                setHoveredIndex(-1);
+            }
+
+            public void mouseClicked(MouseEvent evt) {
+                int index = getIndexAt(evt.getPoint());
+                if (SwingUtilities.isLeftMouseButton(evt) && index >= 0) {
+                    GopherItem item = itemList.get(index);
+                    for (MenuLinkListener listener : linkListenerList) {
+                        listener.linkActivated(item);
+                    }
+                }
+            }
+        };
+        addMouseListener(linkHandler);
+        addMouseMotionListener(linkHandler);
+    }
+
+    /**
+     * Adds a listener for the images of this gallery
+     *
+     * @param listener The listener to add
+     */
+    public void addLinkListener(MenuLinkListener listener) {
+        linkListenerList.add(listener);
+    }
+
+    /**
+     * Stops loading thumbnails when the gallery is no longer shown
+     */
+    public void dispose() {
+        loader.shutdown();
+        thumbnailMap.clear();
+    }
+
+    @Override
+    public boolean thumbnailWanted(GopherItem item) {
+        int index = indexMap.get(item);
+        boolean result = index >= firstWantedIndex && index <= lastWantedIndex;
+        if (!result) {
+            /* request it again once it scrolls back into view */
+            SwingUtilities.invokeLater(() -> {
+                requestedSet.remove(item);
+                repaintCell(index);
+            });
+        }
+
+        return result;
+    }
+
+    @Override
+    public void thumbnailLoaded(GopherItem item, BufferedImage thumbnail) {
+        SwingUtilities.invokeLater(() -> {
+            requestedSet.remove(item);
+            thumbnailMap.put(item, thumbnail);
+            repaintCell(indexMap.get(item));
+        });
+    }
+
+    @Override
+    public void thumbnailFailed(GopherItem item) {
+        SwingUtilities.invokeLater(() -> {
+            requestedSet.remove(item);
+            failedSet.add(item);
+            repaintCell(indexMap.get(item));
+        });
+    }
+
+    @Override
+    protected void paintComponent(Graphics graphics) {
+        Graphics2D g = (Graphics2D) graphics.create();
+        try {
+            Rectangle clip = g.getClipBounds();
+            g.setColor(getBackground());
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setFont(getFont());
+
+            updateWantedRange();
+
+            /* only the rows inside the clip are painted */
+            int columns = getColumnCount();
+            int firstRow = Math.max(0, (clip.y - CELL_PADDING) / getCellHeight());
+            int lastRow = (clip.y + clip.height - CELL_PADDING) / getCellHeight();
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = 0; column < columns; column++) {
+                    int index = row * columns + column;
+                    if (index < itemList.size()) {
+                        paintCell(g, index);
+                    }
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Paints the thumbnail and title of an image, requesting
+     * the thumbnail when it is not loaded yet
+     *
+     * @param g     The graphics to paint with
+     * @param index The index of the image
+     */
+    private void paintCell(Graphics2D g, int index) {
+        GopherItem item = itemList.get(index);
+        Rectangle bounds = getCellBounds(index);
+        int x = bounds.x + CELL_PADDING;
+        int y = bounds.y + CELL_PADDING;
+
+        BufferedImage thumbnail = thumbnailMap.get(item);
+        if (thumbnail != null) {
+            /* center the thumbnail inside its square */
+            g.drawImage(thumbnail, x + (thumbnailSize - thumbnail.getWidth()) / 2,
+                    y + (thumbnailSize - thumbnail.getHeight()) / 2, null);
+        } else {
+            g.setColor(UIManager.getColor("Label.disabledForeground"));
+            g.drawRect(x, y, thumbnailSize - 1, thumbnailSize - 1);
+
+            String message = failedSet.contains(item) ? "Not available" : "Loading...";
+            FontMetrics metrics = g.getFontMetrics();
+            g.drawString(message, x + (thumbnailSize - metrics.stringWidth(message)) / 2,
+                    y + (thumbnailSize + metrics.getAscent()) / 2);
+
+            if (!failedSet.contains(item) && requestedSet.add(item)) {
+                loader.load(item);
+            }
+        }
+
+        /* the title is shown below the thumbnail */
+        FontMetrics metrics = g.getFontMetrics();
+        String title = getFittingTitle(item.getUserDisplayString(), metrics);
+        int baseline = y + thumbnailSize + CELL_PADDING + metrics.getAscent();
+        g.setColor(linkColor);
+        g.drawString(title, x, baseline);
+
+        if (index == hoveredIndex) {
+            g.drawLine(x, baseline + 1, x + metrics.stringWidth(title), baseline + 1);
+            g.drawRect(x - 2, y - 2, thumbnailSize + 3, thumbnailSize + 3);
+        }
+    }
+
+    /**
+     * Shortens a title to fit the width of a cell
+     *
+     * @param title   The title of the image
+     * @param metrics The metrics of the font
+     * @return The title with an ellipsis when shortened
+     */
+    private String getFittingTitle(String title, FontMetrics metrics) {
+        String result = title.trim();
+        if (metrics.stringWidth(result) <= thumbnailSize) {
+            return result;
+        }
+
+        while (!result.isEmpty() && metrics.stringWidth(result + "...") > thumbnailSize) {
+            result = result.substring(0, result.length() - 1);
+        }
+
+        return result + "...";
+    }
+
+    /**
+     * Remembers the visible cells and one screen
+     * above and below as worth loading
+     */
+    private void updateWantedRange() {
+        Rectangle visible = getVisibleRect();
+        int columns = getColumnCount();
+        int screenRows = visible.height / getCellHeight() + 1;
+        int firstRow = (visible.y - CELL_PADDING) / getCellHeight() - screenRows;
+        int lastRow = (visible.y + visible.height - CELL_PADDING) / getCellHeight() + screenRows;
+
+        firstWantedIndex = Math.max(0, firstRow * columns);
+        lastWantedIndex = (lastRow + 1) * columns - 1;
+    }
+
+    /**
+     * Returns the image at the provided position
+     *
+     * @param point The position in the view
+     * @return The index of the image or -1 when none is there
+     */
+    private int getIndexAt(Point point) {
+        int column = (point.x - CELL_PADDING) / getCellWidth();
+        int row = (point.y - CELL_PADDING) / getCellHeight();
+        if (point.x < CELL_PADDING || point.y < CELL_PADDING || column >= getColumnCount()) {
+            return -1;
+        }
+
+        int index = row * getColumnCount() + column;
+        if (index >= itemList.size() || !getCellBounds(index).contains(point)) {
+            return -1;
+        }
+
+        return index;
+    }
+
+    /**
+     * Sets the image under the mouse
+     *
+     * @param index The index of the image or -1
+     */
+    private void setHoveredIndex(int index) {
+        if (index != hoveredIndex) {
+            repaintCell(hoveredIndex);
+            hoveredIndex = index;
+            repaintCell(hoveredIndex);
+
+            setCursor(new Cursor(index >= 0 ? Cursor.HAND_CURSOR : Cursor.DEFAULT_CURSOR));
+            GopherItem item = index >= 0 ? itemList.get(index) : null;
+            for (MenuLinkListener listener : linkListenerList) {
+                listener.linkHovered(item);
+            }
+        }
+    }
+
+    /**
+     * Repaints a single cell of the grid
+     *
+     * @param index The index of the image or -1
+     */
+    private void repaintCell(int index) {
+        if (index >= 0) {
+            repaint(getCellBounds(index));
+        }
+    }
+
+    /**
+     * Returns the area of a cell including its padding
+     *
+     * @param index The index of the image
+     * @return The bounds of the cell
+     */
+    private Rectangle getCellBounds(int index) {
+        int columns = getColumnCount();
+        return new Rectangle(CELL_PADDING + (index % columns) * getCellWidth(),
+                CELL_PADDING + (index / columns) * getCellHeight(), getCellWidth(), getCellHeight());
+    }
+
+    private int getCellWidth() {
+        return thumbnailSize + CELL_PADDING * 2;
+    }
+
+    private int getCellHeight() {
+        return thumbnailSize + getFontMetrics(getFont()).getHeight() + CELL_PADDING * 3;
+    }
+
+    /**
+     * Returns the number of cells that fit next to each other
+     *
+     * @return The number of columns of the grid
+     */
+    private int getColumnCount() {
+        int width = getParent() instanceof JViewport ? getParent().getWidth() : getWidth();
+        return Math.max(1, (width - CELL_PADDING * 2) / getCellWidth());
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        int columns = getColumnCount();
+        int rows = (itemList.size() + columns - 1) / columns;
+        return new Dimension(columns * getCellWidth() + CELL_PADDING * 2,
+                rows * getCellHeight() + CELL_PADDING * 2);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? getCellHeight() / 4 : 16;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return getParent() instanceof JViewport
+                && getParent().getHeight() > getPreferredSize().height;
+    }
+}
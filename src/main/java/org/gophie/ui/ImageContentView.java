@@ -0,0 +1,194 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.ui;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Shows a decoded image, or a message while the
+ * image is decoded or when decoding failed
+ */
+public class ImageContentView extends JComponent implements Scrollable {
+    /* constants */
+    private static final long serialVersionUID = 1L;
+
+    /* space around the image like the editor pane has */
+    private final Insets padding = new Insets(10, 4, 8, 16);
+
+    private Image image = null;
+    private String message;
+    /* images wider than this are painted scaled down */
+    private int maxImageWidth = Integer.MAX_VALUE;
+
+    /**
+     * Constructs the view showing a message
+     *
+     * @param text The message to show until the image is set
+     */
+    public ImageContentView(String text) {
+        message = text;
+        setOpaque(true);
+        setBackground(UIManager.getColor("EditorPane.background"));
+        setForeground(UIManager.getColor("Label.disabledForeground"));
+    }
+
+    /**
+     * Sets the image to show instead of the message
+     *
+     * @param value The decoded image
+     */
+    public void setImage(Image value) {
+        image = value;
+        message = null;
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Sets the width images are scaled down to when wider,
+     * partially decoded images may still be wider than that
+     *
+     * @param value The maximum width of the image in pixels
+     */
+    public void setMaxImageWidth(int value) {
+        maxImageWidth = Math.max(1, value);
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Returns the width images are scaled down to
+     *
+     * @return The maximum width of the image in pixels
+     */
+    public int getMaxImageWidth() {
+        return maxImageWidth;
+    }
+
+    /**
+     * Sets a message to show instead of the image
+     *
+     * @param text The message to show
+     */
+    public void setMessage(String text) {
+        image = null;
+        message = text;
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Returns the width available to the image
+     *
+     * @param viewportWidth The width of the viewport
+     * @return The width available in pixels
+     */
+    public int getAvailableWidth(int viewportWidth) {
+        return Math.max(1, viewportWidth - padding.left - padding.right);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (image == null) {
+            return new Dimension(padding.left + padding.right, padding.top + padding.bottom);
+        }
+
+        Dimension size = getImageSize();
+        return new Dimension(padding.left + size.width + padding.right, padding.top + size.height + padding.bottom);
+    }
+
+    /**
+     * Returns the size the image is painted with
+     *
+     * @return The size of the image on screen
+     */
+    private Dimension getImageSize() {
+        /* images of the toolkit report their size once loaded */
+        int width = Math.max(0, image.getWidth(this));
+        int height = Math.max(0, image.getHeight(this));
+        if (width > maxImageWidth) {
+            height = (int) ((long) height * maxImageWidth / width);
+            width = maxImageWidth;
+        }
+
+        return new Dimension(width, height);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+
+        if (image != null) {
+            Dimension size = getImageSize();
+            if (g instanceof Graphics2D) {
+                ((Graphics2D) g).setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                        RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            }
+            g.drawImage(image, padding.left, padding.top, size.width, size.height, this);
+        } else if (message != null) {
+            g.setColor(getForeground());
+            g.setFont(getFont());
+            FontMetrics metrics = g.getFontMetrics();
+            int lineY = padding.top + metrics.getAscent();
+            for (String line : message.split("\n")) {
+                g.drawString(line, padding.left, lineY);
+                lineY += metrics.getHeight();
+            }
+        }
+    }
+
+    @Override
+    public boolean imageUpdate(Image img, int infoflags, int x, int y, int w, int h) {
+        /* the size becomes known while a toolkit image loads */
+        if ((infoflags & (WIDTH | HEIGHT)) != 0) {
+            revalidate();
+        }
+
+        return super.imageUpdate(img, infoflags, x, y, w, h);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return 16;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return getParent() instanceof JViewport
+                && getParent().getWidth() > getPreferredSize().width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return getParent() instanceof JViewport
+                && getParent().getHeight() > getPreferredSize().height;
+    }
+}
@@ -20,12 +20,16 @@ package org.gophie.ui;
 
 import lombok.extern.slf4j.Slf4j;
 import org.gophie.config.ConfigFile;
+import org.gophie.config.ConfigSnapshot;
 import org.gophie.config.ConfigurationManager;
-import org.gophie.config.SystemUtility;
+import org.gophie.monitor.StartupProfiler;
 import org.gophie.net.*;
 import org.gophie.net.GopherItem.GopherItemType;
-import org.gophie.net.event.GopherClientEventListener;
 import org.gophie.net.event.GopherError;
+import org.gophie.search.IndexHit;
+import org.gophie.search.PageIndex;
+import org.gophie.ui.event.BrowserTabListener;
+import org.gophie.ui.event.FindBarListener;
 import org.gophie.ui.event.MessageViewListener;
 import org.gophie.ui.event.NavigationInputListener;
 import org.gophie.ui.event.PageMenuEventListener;
@@ -34,11 +38,19 @@ import org.gophie.ui.util.GuiUtil;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
 
 @Slf4j
-public class MainWindow implements NavigationInputListener, GopherClientEventListener, PageMenuEventListener {
+public class MainWindow implements NavigationInputListener, PageMenuEventListener,
+        BrowserTabListener, FindBarListener {
     /* define the constants for the UI */
     public static final String APPLICATION_TITLE = "Gophie";
     public static final String NAVIGATIONBAR_BACKGROUND = "#248AC2";
@@ -47,25 +59,59 @@ public class MainWindow implements NavigationInputListener, GopherClientEventLis
     public static final String VIEW_BACKGROUND = "#1b1b1b";
     public static final String VIEW_TEXTCOLOR = "#e8e8e8";
     public static final String DEFAULT_GOPHERHOME = "gopher.floodgap.com";
+    /* address shown for the results of searching visited pages */
+    private static final String INDEX_RESULTS_URL = "localhost/visited-pages";
+    private static final int MAX_INDEX_RESULTS = 200;
+    /* background tabs hibernate after this many minutes */
+    private static final int DEFAULT_TAB_HIBERNATE_MINUTES = 10;
+    private static final int HIBERNATE_CHECK_INTERVAL = 30000;
+    /* the open tabs are saved this often for the next session */
+    private static final int SESSION_SAVE_INTERVAL = 60000;
 
     /* local network objects */
     private final GopherClient gopherClient;
     private final DownloadList downloadList;
     /* local ui elements */
     private final JFrame frame;
-    private final PageView pageView;
+    private final JTabbedPane tabbedPane;
     private final NavigationBar navigationBar;
     private final MessageView messageView;
-    private final SearchInput searchInput;
-    private final DownloadWindow downloadWindow;
-    /* storage with history for browsing */
-    private ArrayList<GopherPage> history = new ArrayList<>();
-    private int historyPosition = -1;
+    private final JPanel headerBar;
+    /* rarely used parts are built when first needed */
+    private SearchInput searchInput = null;
+    private final FindBar findBar;
+    private DownloadWindow downloadWindow = null;
+    private NetworkInspector networkInspector = null;
+    private PerformanceDashboard performanceDashboard = null;
+    /* tabs in the order they are shown */
+    private final ArrayList<BrowserTab> tabList = new ArrayList<>();
+    private BrowserTab selectedTab = null;
+    private final long tabHibernateTime;
+
+    /**
+     * Starts fetching the page shown at startup while the window
+     * is still being built, unless the last session is restored
+     *
+     * @return The request of the start page or null when none was started
+     */
+    public static PrefetchedRequest prefetchStartPage() {
+        ConfigSnapshot config = ConfigurationManager.getSnapshot();
+        if (config.getBooleanSetting("RESTORE_SESSION", "Navigation", true)
+                && SessionStore.exists()) {
+            return null;
+        }
+
+        String gopherHome = config.getGopherHome();
+        return new PrefetchedRequest(new GopherClient(), gopherHome, GopherItemType.GOPHERMENU);
+    }
 
     /**
      * Constructs this main window
+     *
+     * @param startFetch The request of the start page started
+     *                   before, or null to fetch the gopher home
      */
-    public MainWindow() {
+    public MainWindow(PrefetchedRequest startFetch) {
         /* get the config file */
         ConfigFile configFile = ConfigurationManager.getConfigFile();
 
@@ -75,20 +121,32 @@ public class MainWindow implements NavigationInputListener, GopherClientEventLis
         /* create the download list */
         downloadList = new DownloadList();
 
-        /* create the download window */
-        downloadWindow = new DownloadWindow(downloadList);
-
         /* create the main window */
         frame = new JFrame(APPLICATION_TITLE);
         frame.setMinimumSize(new Dimension(800, 600));
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         //frame.setIconImage(ConfigurationManager.getImage("icon.png"));
         GuiUtil.initGui(frame);
+        StartupProfiler.mark("look and feel set up");
 
         /* MENU BAR */
         JMenuBar menuBar = new JMenuBar();
         frame.setJMenuBar(menuBar);
 
+        int shortcutMask = Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx();
+        JMenu fileMenu = new JMenu("File");
+        menuBar.add(fileMenu);
+
+        JMenuItem newTabMenuItem = new JMenuItem("New tab");
+        newTabMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_T, shortcutMask));
+        newTabMenuItem.addActionListener(e -> homeGopherRequested(openTab()));
+        fileMenu.add(newTabMenuItem);
+
+        JMenuItem closeTabMenuItem = new JMenuItem("Close tab");
+        closeTabMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_W, shortcutMask));
+        closeTabMenuItem.addActionListener(e -> closeTab(tabList.indexOf(selectedTab)));
+        fileMenu.add(closeTabMenuItem);
+
         JMenu optionsMenu = new JMenu("Options");
         menuBar.add(optionsMenu);
 
@@ -104,10 +162,29 @@ public class MainWindow implements NavigationInputListener, GopherClientEventLis
         decreaseFontMenuItem.addActionListener(e -> decreaseFontSize());
         optionsMenu.add(decreaseFontMenuItem);
 
+        JMenuItem searchVisitedMenuItem = new JMenuItem("Search visited pages");
+        searchVisitedMenuItem.addActionListener(e -> searchVisitedPages());
+        optionsMenu.add(searchVisitedMenuItem);
+
+        JMenuItem networkInspectorMenuItem = new JMenuItem("Network inspector");
+        networkInspectorMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_I,
+                shortcutMask | InputEvent.SHIFT_DOWN_MASK));
+        networkInspectorMenuItem.addActionListener(e -> toggleNetworkInspector());
+        optionsMenu.add(networkInspectorMenuItem);
 
-        /* create the page view component object */
-        pageView = new PageView(this);
-        pageView.addListener(this);
+        JMenuItem performanceMenuItem = new JMenuItem("Performance");
+        performanceMenuItem.addActionListener(e -> togglePerformanceDashboard());
+        optionsMenu.add(performanceMenuItem);
+
+
+        /* create the tabs, each has its own page view */
+        tabbedPane = new JTabbedPane();
+        tabbedPane.setTabLayoutPolicy(JTabbedPane.SCROLL_TAB_LAYOUT);
+        tabbedPane.putClientProperty("JTabbedPane.tabClosable", true);
+        tabbedPane.putClientProperty("JTabbedPane.tabCloseCallback", (IntConsumer) this::closeTab);
+        tabbedPane.addChangeListener(e -> tabSelected());
+        tabHibernateTime = configFile.getIntSetting("TAB_HIBERNATE_MINUTES", "Memory",
+                DEFAULT_TAB_HIBERNATE_MINUTES) * 60000L;
 
         /* create the navigation bar */
         // TODO refactor to let theme handle color
@@ -120,7 +197,7 @@ public class MainWindow implements NavigationInputListener, GopherClientEventLis
         
         /* set the gopher home as defined in the config
             or use the default one if none is defined */
-        String gopherHome = configFile.getSetting("GOPHERHOME", "Navigation", DEFAULT_GOPHERHOME);
+        String gopherHome = ConfigurationManager.getSnapshot().getGopherHome();
         navigationBar.setAddressText(gopherHome);
 
         /* attach listener to navigation bar */
@@ -128,23 +205,102 @@ public class MainWindow implements NavigationInputListener, GopherClientEventLis
 
         /* create the header bar, message view
             and search input component */
-        JPanel headerBar = new JPanel();
+        headerBar = new JPanel();
         headerBar.setLayout(new BoxLayout(headerBar, BoxLayout.Y_AXIS));
         messageView = new MessageView();
         headerBar.add(messageView);
-        searchInput = new SearchInput();
-        headerBar.add(searchInput);
+        findBar = new FindBar();
+        findBar.addListener(this);
+        headerBar.add(findBar);
+
+        /* open find in page with the platform's shortcut key */
+        JRootPane rootPane = frame.getRootPane();
+        rootPane.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+                .put(KeyStroke.getKeyStroke(KeyEvent.VK_F, shortcutMask), "find-in-page");
+        rootPane.getActionMap().put("find-in-page", new AbstractAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                findBar.open();
+            }
+        });
 
         /* set the content pane */
         Container contentPane = frame.getContentPane();
         contentPane.add(headerBar, BorderLayout.NORTH);
-        contentPane.add(pageView, BorderLayout.CENTER);
+        contentPane.add(tabbedPane, BorderLayout.CENTER);
         contentPane.add(navigationBar, BorderLayout.SOUTH);
 
+        StartupProfiler.mark("window built");
         frame.setVisible(true);
+        StartupProfiler.mark("window shown");
+
+        /* hibernate tabs that were not looked at for a while */
+        if (tabHibernateTime > 0) {
+            new Timer(HIBERNATE_CHECK_INTERVAL, e -> hibernateIdleTabs()).start();
+        }
+
+        /* open the tabs of the last session or the default gopher home */
+        boolean restoreSession = ConfigurationManager.getSnapshot().getBooleanSetting("RESTORE_SESSION", "Navigation", true);
+        if (!restoreSession || !restoreSession()) {
+            if (startFetch != null) {
+                openTab().adopt(startFetch);
+            } else {
+                openTab().fetch(gopherHome, GopherItemType.GOPHERMENU);
+            }
+        }
 
-        /* fetch the default gopher home */
-        fetchGopherContent(gopherHome, GopherItemType.GOPHERMENU);
+        if (restoreSession) {
+            /* keep the session when the application is closed or crashes */
+            new Timer(SESSION_SAVE_INTERVAL, e -> SessionStore.save(tabList, tabList.indexOf(selectedTab))).start();
+            frame.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosing(WindowEvent e) {
+                    SessionStore.saveOnExit(tabList, tabList.indexOf(selectedTab));
+                }
+            });
+        }
+    }
+
+    /**
+     * Opens the tabs of the last session and shows the tab that
+     * was shown last, its page comes from the cache when possible
+     *
+     * @return true when tabs were restored, otherwise false
+     */
+    private boolean restoreSession() {
+        int selectedIndex = SessionStore.restore(this::openTab);
+        if (selectedIndex < 0) {
+            return false;
+        }
+
+        for (BrowserTab tab : tabList) {
+            tabStateChanged(tab);
+        }
+
+        /* the last tab opened is selected already and not woken by selecting it */
+        tabbedPane.setSelectedIndex(selectedIndex);
+        selectedTab.wake();
+        updateNavigation();
+
+        return true;
+    }
+
+    /**
+     * Returns the search input, which is added
+     * to the header bar when first used
+     *
+     * @return The search input
+     */
+    private SearchInput getSearchInput() {
+        if (searchInput == null) {
+            searchInput = new SearchInput();
+            headerBar.add(searchInput, headerBar.getComponentZOrder(findBar));
+            headerBar.revalidate();
+        }
+
+        return searchInput;
     }
 
     private void increaseFontSize() {
@@ -155,6 +311,43 @@ public class MainWindow implements NavigationInputListener, GopherClientEventLis
         GuiUtil.decreaseGlobalFontSize();
     }
 
+    /**
+     * Asks for words to search in all menus and
+     * text pages that were visited before
+     */
+    private void searchVisitedPages() {
+        getSearchInput().performSearch("Search visited pages", text ->
+                PageIndex.search(text, MAX_INDEX_RESULTS, (query, hits) ->
+                        SwingUtilities.invokeLater(() -> showIndexResults(query, hits))));
+    }
+
+    /**
+     * Shows the pages found in the index as a gopher menu
+     *
+     * @param query The query that was searched for
+     * @param hits  The pages found, best matches first
+     */
+    private void showIndexResults(String query, List<IndexHit> hits) {
+        StringBuilder menu = new StringBuilder();
+        menu.append("iVisited pages matching: ").append(query.replace('\t', ' ')).append("\t\t\t0\r\n");
+        menu.append("i").append(hits.size()).append(" pages found\t\t\t0\r\n");
+        menu.append("i\t\t\t0\r\n");
+
+        for (IndexHit hit : hits) {
+            GopherUrl url = new GopherUrl(hit.getUrl());
+            menu.append(hit.getTypeCode()).append(hit.getTitle().replace('\t', ' '))
+                    .append('\t').append(url.getSelector())
+                    .append('\t').append(url.getHost())
+                    .append('\t').append(url.getPort()).append("\r\n");
+            menu.append("i  ").append(hit.getUrl()).append("\t\t\t0\r\n");
+        }
+
+        /* the results are not a page on any server, they stay out of the history */
+        byte[] content = menu.toString().getBytes(GopherPage.getConfiguredCharset());
+        selectedTab.getPageView().showGopherPage(
+                new GopherPage(content, GopherItemType.GOPHERMENU, new GopherUrl(INDEX_RESULTS_URL)));
+    }
+
     private void changeTheme() {
         String themeName = (String) JOptionPane.showInputDialog(
                 null,
@@ -169,6 +362,65 @@ public class MainWindow implements NavigationInputListener, GopherClientEventLis
         }
     }
 
+    /**
+     * Opens addresses handed to the application, each in a new
+     * tab, and brings the window to the front
+     *
+     * @param addresses The addresses to open
+     */
+    public void openAddresses(List<String> addresses) {
+        for (String address : addresses) {
+            GopherItem item = new GopherItem();
+            String requestAddress = address;
+
+            /* use the type of the selector prefix like the address bar does */
+            if (BrowserTab.isPrefixEnabled()) {
+                GopherUrl gopherUrl = new GopherUrl(address);
+                if (gopherUrl.hasTypePrefix()) {
+                    item = new GopherItem(gopherUrl.getTypePrefix(), gopherUrl);
+                    requestAddress = gopherUrl.getUrlString();
+                }
+            }
+
+            if (isShownInPage(requestAddress, item)) {
+                openTab();
+            }
+            addressRequested(requestAddress, item);
+        }
+
+        if ((frame.getExtendedState() & Frame.ICONIFIED) != 0) {
+            frame.setExtendedState(frame.getExtendedState() & ~Frame.ICONIFIED);
+        }
+        frame.toFront();
+        frame.requestFocus();
+    }
+
+    /**
+     * Returns whether an address is shown in a page view,
+     * binaries are downloaded and telnet sessions, web
+     * and mail addresses are handed to other applications
+     *
+     * @param address The address requested
+     * @param item    The item of the address
+     * @return true when shown in a tab, otherwise false
+     */
+    private static boolean isShownInPage(String address, GopherItem item) {
+        if (item.isBinaryFile()) {
+            return false;
+        }
+
+        switch (item.getItemType()) {
+            case CCSCO_NAMESERVER:
+            case TELNET:
+            case TELNET3270:
+                return false;
+            default:
+                return !address.startsWith("https://")
+                        && !address.startsWith("http://")
+                        && !address.startsWith("mailto:");
+        }
+    }
+
     /**
      * Shows this main window
      */
@@ -179,83 +431,88 @@ public class MainWindow implements NavigationInputListener, GopherClientEventLis
     }
 
     /**
-     * Updates the history with a new page
+     * Adds a new empty tab and shows it
      *
-     * @param page The page that was received
-     */
-    private void updateHistory(GopherPage page) {
-        Boolean addToHistory = false;
-
-        /* check if current position is at last page */
-        if (historyPosition == history.size() - 1) {
-            /* add this page to the history */
-            if (!history.isEmpty()) {
-                /* make sure this was not just a reload and the last
-                    page in the history is not already ours */
-                if (!history.get(history.size() - 1).getUrl().getUrlString()
-                        .equals(page.getUrl().getUrlString())) {
-                    /* just drop it in */
-                    addToHistory = true;
-                }
-            } else {
-                /* empty history, just drop in the page */
-                addToHistory = true;
-            }
-        } else {
-            /* user navigation inside history, check if the current
-                page is at the position in history or if it is a 
-                new page the user went to */
-            if (!history.get(historyPosition).getUrl()
-                    .getUrlString().equals(page.getUrl().getUrlString())) {
-                /* it is a new page outside the history, keep the history
-                    up until the current page and add this page as a new
-                    branch to the history, eliminating the 
-                    previous branch forward */
-                ArrayList<GopherPage> updatedHistory = new ArrayList<>();
-                for (int h = 0; h <= historyPosition; h++) {
-                    updatedHistory.add(history.get(h));
-                }
+     * @return The new tab
+     */
+    private BrowserTab openTab() {
+        BrowserTab tab = new BrowserTab(this, gopherClient, this);
+        tabList.add(tab);
+        tabbedPane.addTab(tab.getTitle(), tab.getPageView());
+        tabbedPane.setSelectedIndex(tabList.size() - 1);
 
-                /* update the history */
-                history = updatedHistory;
+        return tab;
+    }
 
-                /* allow adding to history */
-                addToHistory = true;
-            }
+    /**
+     * Closes a tab, the last tab always stays open
+     *
+     * @param index The index of the tab
+     */
+    private void closeTab(int index) {
+        if (index < 0 || tabList.size() <= 1) {
+            return;
         }
 
-        /* reset navigation allowance */
-        navigationBar.setNavigateBack(false);
-        navigationBar.setNavigateForward(false);
+        BrowserTab tab = tabList.get(index);
+        if (tab == selectedTab) {
+            findBar.close();
+        }
 
-        /* add to history, if allowed */
-        if (addToHistory) {
-            /* add to the stack of pages */
-            history.add(page);
+        tabList.remove(index);
+        tabbedPane.removeTabAt(index);
+        tab.close();
+    }
 
-            /* update position to the top */
-            historyPosition = history.size() - 1;
+    /**
+     * Shows the navigation of the tab the user selected
+     * and wakes it up when it was hibernating
+     */
+    private void tabSelected() {
+        int index = tabbedPane.getSelectedIndex();
+        BrowserTab tab = index >= 0 && index < tabList.size() ? tabList.get(index) : null;
+        if (tab == null || tab == selectedTab) {
+            return;
+        }
 
-            /* disable forward */
-            navigationBar.setNavigateForward(false);
-            if (history.size() > 1) {
-                /* allow back if more than just this page exist */
-                navigationBar.setNavigateBack(true);
-            }
-        } else {
-            /* if position is 0, there is nowhere to go back to */
-            if (historyPosition > 0) {
-                /* allow navigation back in history */
-                navigationBar.setNavigateBack(true);
-            }
-            if (historyPosition < (history.size() - 1)) {
-                /* if position is at the end, there is nowhere
-                    to move forward to */
-                navigationBar.setNavigateForward(true);
+        /* the find bar belongs to the tab that was shown */
+        if (selectedTab != null) {
+            findBar.close();
+            selectedTab.getPageView().setFindStatusListener(null);
+            selectedTab.markActive();
+        }
+
+        selectedTab = tab;
+        tab.markActive();
+        tab.getPageView().setFindStatusListener(findBar);
+        tab.wake();
+        updateNavigation();
+    }
+
+    /**
+     * Hibernates the tabs in the background that
+     * were not shown for the configured time
+     */
+    private void hibernateIdleTabs() {
+        long now = System.currentTimeMillis();
+        for (BrowserTab tab : tabList) {
+            if (tab != selectedTab && !tab.isHibernated() && now - tab.getLastActive() > tabHibernateTime) {
+                tab.hibernate();
             }
         }
     }
 
+    /**
+     * Shows the address and state of the selected tab
+     */
+    private void updateNavigation() {
+        navigationBar.setAddressText(selectedTab.getAddressText());
+        navigationBar.setIsLoading(selectedTab.isLoading());
+        navigationBar.setNavigateBack(selectedTab.canGoBack());
+        navigationBar.setNavigateForward(selectedTab.canGoForward());
+        frame.setTitle(selectedTab.getWindowTitle());
+    }
+
     /**
      * Prompts user to choose on how to handle the
      * file and whether it should be saved only or
@@ -334,12 +591,15 @@ public class MainWindow implements NavigationInputListener, GopherClientEventLis
             switch (item.getItemType()) {
                 case FULLTEXT_SEARCH:
                     /* show the search interface */
-                    searchInput.performSearch(item.getUserDisplayString(), new SearchInputListener() {
+                    BrowserTab searchTab = selectedTab;
+                    getSearchInput().performSearch(item.getUserDisplayString(), new SearchInputListener() {
                         @Override
                         public void searchRequested(String text) {
-                            /* execute search through gopher */
+                            /* execute search through gopher in the tab it was started in */
                             String searchQueryText = addressText + "\t" + text;
-                            fetchGopherContent(searchQueryText, GopherItemType.GOPHERMENU);
+                            if (tabList.contains(searchTab)) {
+                                searchTab.fetch(searchQueryText, GopherItemType.GOPHERMENU);
+                            }
                         }
                     });
                     break;
@@ -490,41 +750,13 @@ public class MainWindow implements NavigationInputListener, GopherClientEventLis
     }
 
     /**
-     * Fetches gopher menu or text content
+     * Fetches gopher menu or text content in the selected tab
      *
      * @param addressText The address to fetch content from
      * @param contentType The actual content type requested
      */
     private void fetchGopherContent(String addressText, GopherItemType contentType) {
-        /* this is default gopher content */
-        /* activate the load indicator in the address bar */
-        navigationBar.setIsLoading(true);
-
-        /* update the navigation bar with the new address */
-        String address = addressText;
-
-        /* check if selector prefixes are enabled */
-        ConfigFile configFile = ConfigurationManager.getConfigFile();
-        String prefixEnabled = configFile.getSetting("SELECTOR_PREFIX_ENABLED", "Navigation", "yes");
-        if (prefixEnabled.equals("yes")) {
-            /* create the gopher url object for the address */
-            GopherUrl prefixUrl = new GopherUrl(addressText);
-            prefixUrl.setTypePrefix(GopherItem.getTypeCode(contentType));
-
-            /* set the address to the url with the prefix */
-            address = prefixUrl.getUrlString(true);
-        }
-
-        /* update the navigation bar with the new address */
-        navigationBar.setAddressText(address);
-
-        try {
-            /* try to execute the thread */
-            gopherClient.fetchAsync(addressText, contentType, this);
-        } catch (Exception ex) {
-            /* might throw an ex when thread is interrupted */
-            log.error("Exception while fetching async: {}", ex.getMessage());
-        }
+        selectedTab.fetch(addressText, contentType);
     }
 
     /**
@@ -532,30 +764,12 @@ public class MainWindow implements NavigationInputListener, GopherClientEventLis
      */
     @Override
     public void backwardRequested() {
-        /* set the new history position */
-        if (historyPosition > 0) {
-            historyPosition--;
-
-            /* get the new page from history */
-            pageLoaded(history.get(historyPosition));
-
-            /* update the history */
-            updateHistory(history.get(historyPosition));
-        }
+        selectedTab.back();
     }
 
     @Override
     public void forwardRequested() {
-        /* set the new history position */
-        if (historyPosition < (history.size() - 1)) {
-            historyPosition++;
-
-            /* get the new page from history */
-            pageLoaded(history.get(historyPosition));
-
-            /* update the history */
-            updateHistory(history.get(historyPosition));
-        }
+        selectedTab.forward();
     }
 
     /**
@@ -563,11 +777,7 @@ public class MainWindow implements NavigationInputListener, GopherClientEventLis
      */
     @Override
     public void refreshRequested() {
-        /* get the current gopher page to reload it */
-        GopherPage currentPage = history.get(historyPosition);
-
-        /* reload practically means just requesting this page again */
-        fetchGopherContent(currentPage.getUrl().getUrlString(), currentPage.getContentType());
+        selectedTab.refresh();
     }
 
     /**
@@ -575,69 +785,48 @@ public class MainWindow implements NavigationInputListener, GopherClientEventLis
      */
     @Override
     public void stopRequested() {
-        /* cancel any current operation */
-        gopherClient.cancelFetch();
-
-        /* notify the local handler about cancellation by the user */
-        pageLoadFailed(GopherError.USER_CANCELLED, null);
+        selectedTab.stop();
     }
 
     /**
-     * Handles page load events from the listener
+     * Updates the title and navigation of a tab
      *
-     * @param result The gopher page that was received
+     * @param tab The tab that changed
      */
     @Override
-    public void pageLoaded(GopherPage result) {
-        /* set the window title to the url of this page */
-        frame.setTitle(result.getUrl().getUrlString()
-                + " (" + SystemUtility.getFileSizeString(result.getByteArray().length) + ")"
-                + " - " + APPLICATION_TITLE);
-
-        /* update the address text with the loaded page */
-        String address = result.getUrl().getUrlString();
-
-        /* check if selector prefixes are enabled */
-        ConfigFile configFile = ConfigurationManager.getConfigFile();
-        String prefixEnabled = configFile.getSetting("SELECTOR_PREFIX_ENABLED", "Navigation", "yes");
-        if (prefixEnabled.equals("yes")) {
-            /* create the gopher url object for the address */
-            GopherUrl prefixUrl = result.getUrl();
-            prefixUrl.setTypePrefix(GopherItem.getTypeCode(result.getContentType()));
-
-            /* set the address to the url with the prefix */
-            address = prefixUrl.getUrlString(true);
+    public void tabStateChanged(BrowserTab tab) {
+        int index = tabList.indexOf(tab);
+        if (index >= 0) {
+            tabbedPane.setTitleAt(index, tab.getTitle());
+            tabbedPane.setToolTipTextAt(index, tab.getAddressText());
         }
-
-        /* set the navigation bar to the new address */
-        navigationBar.setAddressText(address);
-
-
-        /* detect the content type and determine how the handle it */
-        if (result.getContentType() == GopherItemType.GOPHERMENU) {
-            /* this is a gopher menu hence it is rendered like
-                one including highlighting of links and 
-                the menu icons for the various item types */
-            pageView.showGopherPage(result);
-        } else {
-            /* this is plain content, so render it
-                appropriately and let the view decide
-                on how to handle the content */
-            pageView.showGopherContent(result);
+        if (tab == selectedTab) {
+            updateNavigation();
         }
+    }
 
-        /* update the history */
-        updateHistory(result);
-
-        /* reset the loading indicators */
-        navigationBar.setIsLoading(false);
+    /**
+     * Shows the size received so far in the title bar
+     *
+     * @param tab The tab loading a page
+     */
+    @Override
+    public void tabProgress(BrowserTab tab) {
+        if (tab == selectedTab) {
+            frame.setTitle(tab.getWindowTitle());
+        }
     }
 
     /**
      * Reports failed page load
      */
     @Override
-    public void pageLoadFailed(GopherError error, GopherUrl url) {
+    public void tabLoadFailed(BrowserTab tab, GopherError error, GopherUrl url) {
+        /* tabs in the background fail silently */
+        if (tab != selectedTab) {
+            return;
+        }
+
         /* show message for connection timeout */
         if (error == GopherError.CONNECT_FAILED) {
             if (url != null) {
@@ -663,23 +852,6 @@ public class MainWindow implements NavigationInputListener, GopherClientEventLis
         if (error == GopherError.EXCEPTION) {
             messageView.showInfo("Ouchn, an unknown error occured.");
         }
-
-        /* output some base information to the console */
-        log.error("Failed to load gopher page: {}", error.toString());
-
-        /* reset the navigation bar status */
-        navigationBar.setIsLoading(false);
-    }
-
-    /**
-     * Report progress on the page loading
-     */
-    @Override
-    public void progress(GopherUrl url, long byteCount) {
-        /* report the download size in the title bar */
-        frame.setTitle(url.getUrlString()
-                + " (" + SystemUtility.getFileSizeString(byteCount) + ")"
-                + " - " + APPLICATION_TITLE);
     }
 
     /**
@@ -687,6 +859,10 @@ public class MainWindow implements NavigationInputListener, GopherClientEventLis
      */
     @Override
     public void showDownloadRequested() {
+        if (downloadWindow == null) {
+            downloadWindow = new DownloadWindow(downloadList);
+        }
+
         if (downloadWindow.isVisible()) {
             downloadWindow.hide();
         } else {
@@ -694,6 +870,36 @@ public class MainWindow implements NavigationInputListener, GopherClientEventLis
         }
     }
 
+    /**
+     * Toggles the window listing the latest requests
+     */
+    private void toggleNetworkInspector() {
+        if (networkInspector == null) {
+            networkInspector = new NetworkInspector();
+        }
+
+        if (networkInspector.isVisible()) {
+            networkInspector.hide();
+        } else {
+            networkInspector.show(frame);
+        }
+    }
+
+    /**
+     * Toggles the window charting the performance
+     */
+    private void togglePerformanceDashboard() {
+        if (performanceDashboard == null) {
+            performanceDashboard = new PerformanceDashboard();
+        }
+
+        if (performanceDashboard.isVisible()) {
+            performanceDashboard.hide();
+        } else {
+            performanceDashboard.show(frame);
+        }
+    }
+
     /**
      * Updates the gopher home with the provided url
      */
@@ -703,6 +909,7 @@ public class MainWindow implements NavigationInputListener, GopherClientEventLis
         ConfigFile configFile = ConfigurationManager.getConfigFile();
         configFile.setSetting("GOPHERHOME", url, "Navigation");
         configFile.save();
+        ConfigurationManager.reload();
     }
 
     /**
@@ -736,7 +943,66 @@ public class MainWindow implements NavigationInputListener, GopherClientEventLis
     @Override
     public void selectAllTextRequested() {
         /* hand that one back to the page view */
-        pageView.selectAllText();
+        selectedTab.getPageView().selectAllText();
+    }
+
+    /**
+     * Finds the text in the page while it is typed
+     *
+     * @param text   The text to find
+     * @param filter true to only show the matching lines
+     */
+    @Override
+    public void findTextChanged(String text, boolean filter) {
+        selectedTab.getPageView().find(text, filter);
+    }
+
+    /**
+     * Moves to the next or previous occurrence
+     *
+     * @param backwards true to move to the previous one
+     */
+    @Override
+    public void findNextRequested(boolean backwards) {
+        selectedTab.getPageView().findNext(backwards);
+    }
+
+    /**
+     * Shows the page as it was before finding
+     */
+    @Override
+    public void findClosed() {
+        selectedTab.getPageView().closeFind();
+    }
+
+    /**
+     * Shows a menu as gallery of its images or as list again
+     *
+     * @param page    The page with the menu
+     * @param enabled true to show the gallery, false for the list
+     */
+    @Override
+    public void galleryRequested(GopherPage page, boolean enabled) {
+        /* switch the menu between thumbnails and the list */
+        if (enabled) {
+            selectedTab.getPageView().showGallery(page);
+        } else {
+            selectedTab.getPageView().showGopherPage(page);
+        }
+    }
+
+    /**
+     * Opens the target of a link in a new tab,
+     * files are downloaded as from the current tab
+     *
+     * @param item The item of the link
+     */
+    @Override
+    public void linkTabRequested(GopherItem item) {
+        if (!item.isBinaryFile()) {
+            openTab();
+        }
+        addressRequested(item.getUrlString(), item);
     }
 
     /**
@@ -744,10 +1010,17 @@ public class MainWindow implements NavigationInputListener, GopherClientEventLis
      */
     @Override
     public void homeGopherRequested() {
-        ConfigFile configFile = ConfigurationManager.getConfigFile();
-        String homeGopherUrl = configFile.getSetting("GOPHERHOME", "Navigation", DEFAULT_GOPHERHOME);
-        fetchGopherContent(homeGopherUrl, GopherItemType.GOPHERMENU);
-        navigationBar.setAddressText(homeGopherUrl);
+        homeGopherRequested(selectedTab);
+    }
+
+    /**
+     * Sends a tab to the gopher home
+     *
+     * @param tab The tab to show the gopher home in
+     */
+    private void homeGopherRequested(BrowserTab tab) {
+        String homeGopherUrl = ConfigurationManager.getSnapshot().getGopherHome();
+        tab.fetch(homeGopherUrl, GopherItemType.GOPHERMENU);
     }
 
     /**
@@ -756,11 +1029,8 @@ public class MainWindow implements NavigationInputListener, GopherClientEventLis
      * type than the one requested.
      */
     @Override
-    public void pageLoadItemMismatch(GopherItemType requested, GopherItemType detected, GopherUrl url) {
-        /* reset the navigation bar status */
-        navigationBar.setIsLoading(false);
-
+    public void tabItemMismatch(BrowserTab tab, GopherItemType detected, GopherUrl url) {
         /* binary files are handled by the download manager */
         confirmDownload(url.getUrlString(), (new GopherItem(detected, url)));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,264 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.ui;
+
+import org.gophie.net.GopherItem;
+import org.gophie.ui.event.MenuLinkListener;
+import org.gophie.ui.util.GuiUtil;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shows a gopher menu of any size by painting only the
+ * items inside the visible area. Links are hit-tested
+ * against the painted text and can be navigated with
+ * the keyboard.
+ */
+public class MenuContentView extends VirtualLineView {
+    /* constants */
+    private static final long serialVersionUID = 1L;
+
+    /* items of the menu and their display text */
+    private final List<GopherItem> itemList;
+    private final String[] displayText;
+    private final int maxLineLength;
+
+    /* link under the mouse and link focused by the keyboard */
+    private int hoveredLine = -1;
+    private int focusedLine = -1;
+    private final Color linkColor;
+
+    /* listeners for link events */
+    private final ArrayList<MenuLinkListener> linkListenerList = new ArrayList<>();
+
+    /**
+     * Constructs the view for the items of a menu
+     *
+     * @param items The items of the gopher menu
+     */
+    public MenuContentView(List<GopherItem> items) {
+        itemList = items;
+        displayText = new String[items.size()];
+
+        /* the longest title sizes the scroll area */
+        int longest = 0;
+        for (GopherItem item : items) {
+            longest = Math.max(longest, item.getUserDisplayString().length());
+        }
+        maxLineLength = longest;
+
+        linkColor = GuiUtil.getLinkColor();
+
+        MouseAdapter linkHandler = new MouseAdapter() {
+            public void mouseMoved(MouseEvent evt) {
+                setHoveredLine(getLinkAt(evt.getPoint()));
+            }
+
+            public void mouseExited(MouseEvent evt) {
+                setHoveredLine(-1);
+            }
+
+            public void mouseClicked(MouseEvent evt) {
+                int line = getLinkAt(evt.getPoint());
+                if (SwingUtilities.isLeftMouseButton(evt) && line >= 0 && !hasSelection()) {
+                    focusedLine = line;
+                    fireLinkActivated(line);
+                }
+            }
+        };
+        addMouseListener(linkHandler);
+        addMouseMotionListener(linkHandler);
+
+        /* move between the links with the keyboard */
+        bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, 0), "next-link", () -> focusLink(1));
+        bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_UP, 0), "previous-link", () -> focusLink(-1));
+        bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "open-link", () -> {
+            if (focusedLine >= 0) {
+                fireLinkActivated(focusedLine);
+            }
+        });
+    }
+
+    /**
+     * Adds a listener for the links of this menu
+     *
+     * @param listener The listener to add
+     */
+    public void addLinkListener(MenuLinkListener listener) {
+        linkListenerList.add(listener);
+    }
+
+    /**
+     * Returns the item shown in a line
+     *
+     * @param line The index of the line
+     * @return The gopher item of the line
+     */
+    public GopherItem getItem(int line) {
+        return itemList.get(line);
+    }
+
+    @Override
+    public int getLineCount() {
+        return itemList.size();
+    }
+
+    @Override
+    public String getLineText(int line) {
+        /* titles are only prepared once they become visible */
+        String result = displayText[line];
+        if (result == null) {
+            result = expandTabs(itemList.get(line).getUserDisplayString());
+            displayText[line] = result;
+        }
+
+        return result;
+    }
+
+    @Override
+    protected int getMaxLineLength() {
+        return maxLineLength;
+    }
+
+    @Override
+    protected void paintLine(Graphics2D g, int line, String text, int x, int baseline) {
+        if (!isLink(line)) {
+            super.paintLine(g, line, text, x, baseline);
+            return;
+        }
+
+        g.setColor(linkColor);
+        g.drawString(text, x, baseline);
+
+        /* underline the link under the mouse or keyboard focus */
+        if (line == hoveredLine || line == focusedLine) {
+            int width = g.getFontMetrics().stringWidth(text);
+            g.drawLine(x, baseline + 1, x + width, baseline + 1);
+        }
+    }
+
+    /**
+     * Returns whether the item of a line is a link
+     *
+     * @param line The index of the line
+     * @return true when the item is a link, otherwise false
+     */
+    private boolean isLink(int line) {
+        return !itemList.get(line).getItemTypeCode().equals("i");
+    }
+
+    /**
+     * Returns the link at the provided position
+     *
+     * @param point The position in the view
+     * @return The line of the link or -1 when no link is there
+     */
+    private int getLinkAt(Point point) {
+        if (itemList.isEmpty() || point.y < getTopPadding()) {
+            return -1;
+        }
+
+        int line = (point.y - getTopPadding()) / getRowHeight();
+        if (line >= itemList.size() || !isLink(line)) {
+            return -1;
+        }
+
+        /* only the text of the link is clickable */
+        int textWidth = getFontMetrics(getFont()).stringWidth(getLineText(line));
+        if (point.x < getLeftPadding() || point.x > getLeftPadding() + textWidth) {
+            return -1;
+        }
+
+        return line;
+    }
+
+    /**
+     * Sets the link under the mouse
+     *
+     * @param line The line of the link or -1
+     */
+    private void setHoveredLine(int line) {
+        if (line != hoveredLine) {
+            repaintLine(hoveredLine);
+            hoveredLine = line;
+            repaintLine(hoveredLine);
+
+            setCursor(new Cursor(line >= 0 ? Cursor.HAND_CURSOR : Cursor.TEXT_CURSOR));
+            GopherItem item = line >= 0 ? itemList.get(line) : null;
+            for (MenuLinkListener listener : linkListenerList) {
+                listener.linkHovered(item);
+            }
+        }
+    }
+
+    /**
+     * Moves the keyboard focus to the next or previous link
+     *
+     * @param direction 1 for the next link, -1 for the previous one
+     */
+    private void focusLink(int direction) {
+        int start = focusedLine;
+        if (start < 0) {
+            /* start from the top of the visible area */
+            start = getLineAt(getVisibleRect().y) - direction;
+        }
+
+        for (int line = start + direction; line >= 0 && line < itemList.size(); line += direction) {
+            if (isLink(line)) {
+                repaintLine(focusedLine);
+                focusedLine = line;
+                repaintLine(focusedLine);
+                scrollToLine(line);
+                return;
+            }
+        }
+
+        /* no more links, just scroll to the end */
+        scrollByRows(direction);
+    }
+
+    /**
+     * Reports the activation of a link to the listeners
+     *
+     * @param line The line of the link
+     */
+    private void fireLinkActivated(int line) {
+        GopherItem item = itemList.get(line);
+        for (MenuLinkListener listener : linkListenerList) {
+            listener.linkActivated(item);
+        }
+    }
+
+    /**
+     * Repaints a single line of the view
+     *
+     * @param line The index of the line or -1
+     */
+    private void repaintLine(int line) {
+        if (line >= 0) {
+            repaint(getLineBounds(line));
+        }
+    }
+}
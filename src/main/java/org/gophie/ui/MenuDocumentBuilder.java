@@ -0,0 +1,164 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.ui;
+
+import lombok.extern.slf4j.Slf4j;
+import org.gophie.net.GopherItem;
+import org.gophie.ui.util.GuiUtil;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultStyledDocument;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyleContext;
+import javax.swing.text.StyledDocument;
+import java.awt.*;
+import java.util.List;
+
+/**
+ * Builds the styled documents for the view and the row header
+ * of a gopher menu straight from its items. Documents are not
+ * attached to any component while built, so building is safe
+ * on any thread.
+ */
+@Slf4j
+public class MenuDocumentBuilder {
+    /* attribute that holds the gopher item of a link */
+    public static final String ITEM_ATTRIBUTE = "gophie.item";
+
+    private final List<GopherItem> itemList;
+    private final SimpleAttributeSet textStyle = new SimpleAttributeSet();
+    private final SimpleAttributeSet lineNumberStyle = new SimpleAttributeSet();
+    private final SimpleAttributeSet iconStyle = new SimpleAttributeSet();
+    private final Color linkColor;
+
+    /**
+     * Constructs the builder for the items of a menu
+     *
+     * @param items           The items of the gopher menu
+     * @param textFont        The font for titles and line numbers
+     * @param iconFont        The font for the type icons
+     * @param textColor       The color of plain text
+     * @param lineNumberColor The color of the line numbers
+     */
+    public MenuDocumentBuilder(List<GopherItem> items, Font textFont, Font iconFont,
+                               Color textColor, Color lineNumberColor) {
+        itemList = items;
+        linkColor = GuiUtil.getLinkColor();
+
+        StyleConstants.setFontFamily(textStyle, textFont.getFamily());
+        StyleConstants.setFontSize(textStyle, textFont.getSize());
+        StyleConstants.setForeground(textStyle, textColor);
+
+        lineNumberStyle.addAttributes(textStyle);
+        StyleConstants.setForeground(lineNumberStyle, lineNumberColor);
+
+        StyleConstants.setFontFamily(iconStyle, iconFont.getFamily());
+        StyleConstants.setFontSize(iconStyle, iconFont.getSize());
+        StyleConstants.setForeground(iconStyle, textColor);
+    }
+
+    /**
+     * Builds the document with the titles of the items,
+     * links carry their item in the item attribute
+     *
+     * @return The document for the view
+     */
+    public StyledDocument buildViewDocument() {
+        StyledDocument document = createDocument();
+        appendViewItems(document, itemList);
+
+        return document;
+    }
+
+    /**
+     * Builds the document with the line numbers and type icons
+     *
+     * @return The document for the row header
+     */
+    public StyledDocument buildHeaderDocument() {
+        StyledDocument document = createDocument();
+        appendHeaderItems(document, itemList, 1, String.valueOf(itemList.size()).length());
+
+        return document;
+    }
+
+    /**
+     * Appends the titles of items to a view document
+     *
+     * @param document The document to append to
+     * @param items    The items to append
+     */
+    public void appendViewItems(StyledDocument document, List<GopherItem> items) {
+        try {
+            for (GopherItem item : items) {
+                SimpleAttributeSet style = textStyle;
+                if (!item.getItemTypeCode().equals("i")) {
+                    /* links carry their item, no lookup by url needed */
+                    style = new SimpleAttributeSet(textStyle);
+                    StyleConstants.setForeground(style, linkColor);
+                    style.addAttribute(ITEM_ATTRIBUTE, item);
+                }
+
+                document.insertString(document.getLength(), item.getUserDisplayString(), style);
+                document.insertString(document.getLength(), "\n", textStyle);
+            }
+        } catch (BadLocationException ex) {
+            /* only ever appended to the end */
+            log.error("Failed to build menu document: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Appends the line numbers and icons of items to a header document
+     *
+     * @param document        The document to append to
+     * @param items           The items to append
+     * @param firstLineNumber The line number of the first item
+     * @param digitCount      The number of digits to align line numbers to
+     */
+    public void appendHeaderItems(StyledDocument document, List<GopherItem> items,
+                                  int firstLineNumber, int digitCount) {
+        try {
+            int lineNumber = firstLineNumber;
+            for (GopherItem item : items) {
+                String number = String.format("%" + digitCount + "d ", lineNumber);
+                document.insertString(document.getLength(), number, lineNumberStyle);
+                document.insertString(document.getLength(),
+                        PageView.getItemTypeIcon(item.getItemTypeCode()), iconStyle);
+                document.insertString(document.getLength(), "\n", textStyle);
+                lineNumber++;
+            }
+        } catch (BadLocationException ex) {
+            log.error("Failed to build menu header document: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Creates an empty document that uses the text style
+     * for its paragraphs so that empty lines keep their height
+     *
+     * @return The new document
+     */
+    public StyledDocument createDocument() {
+        DefaultStyledDocument document = new DefaultStyledDocument();
+        document.getStyle(StyleContext.DEFAULT_STYLE).addAttributes(textStyle);
+        return document;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.Map;
+
+/**
+ * Row header for the menu content view that paints the
+ * line numbers and type icons of the visible items only
+ */
+public class MenuGutterView extends JComponent {
+    /* constants */
+    private static final long serialVersionUID = 1L;
+    private static final int PADDING_LEFT = 12;
+    private static final int PADDING_RIGHT = 2;
+    private static final int ICON_GAP = 5;
+
+    private final MenuContentView contentView;
+    private final PageView pageView;
+    private final Font iconFont;
+
+    /**
+     * Constructs the gutter for a menu view
+     *
+     * @param view  The menu view the gutter belongs to
+     * @param owner The page view that provides the type icons
+     * @param font  The font for the type icons fitted to the text
+     */
+    public MenuGutterView(MenuContentView view, PageView owner, Font font) {
+        contentView = view;
+        pageView = owner;
+        iconFont = font;
+        setOpaque(true);
+        setBackground(UIManager.getColor("EditorPane.background"));
+        setForeground(UIManager.getColor("Label.disabledForeground"));
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        FontMetrics metrics = getFontMetrics(contentView.getFont());
+        String widestNumber = String.valueOf(contentView.getLineCount()).replaceAll(".", "0");
+        int iconWidth = getFontMetrics(iconFont).getHeight();
+
+        int width = PADDING_LEFT + metrics.stringWidth(widestNumber) + ICON_GAP + iconWidth + PADDING_RIGHT;
+        return new Dimension(width, contentView.getPreferredSize().height);
+    }
+
+    @Override
+    protected void paintComponent(Graphics graphics) {
+        Graphics2D g = (Graphics2D) graphics.create();
+        try {
+            Object hints = Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
+            if (hints instanceof Map) {
+                g.addRenderingHints((Map<?, ?>) hints);
+            }
+
+            Rectangle clip = g.getClipBounds();
+            if (clip == null) {
+                clip = new Rectangle(0, 0, getWidth(), getHeight());
+            }
+            g.setColor(getBackground());
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+            FontMetrics numberMetrics = getFontMetrics(contentView.getFont());
+            FontMetrics iconMetrics = getFontMetrics(iconFont);
+            int rowHeight = contentView.getRowHeight();
+            int top = contentView.getTopPadding();
+            int iconX = getWidth() - PADDING_RIGHT - iconMetrics.getHeight();
+
+            /* paint the rows in the same lines as the content view */
+            int firstLine = Math.max(0, (clip.y - top) / rowHeight);
+            int lastLine = Math.min(contentView.getLineCount() - 1, (clip.y + clip.height - top) / rowHeight);
+            for (int line = firstLine; line <= lastLine; line++) {
+                int rowTop = top + line * rowHeight;
+
+                String number = String.valueOf(line + 1);
+                g.setFont(contentView.getFont());
+                g.setColor(getForeground());
+                g.drawString(number, iconX - ICON_GAP - numberMetrics.stringWidth(number),
+                        rowTop + numberMetrics.getAscent());
+
+                String icon = pageView.getGopherItemTypeIcon(contentView.getItem(line).getItemTypeCode());
+                g.setFont(iconFont);
+                g.setColor(contentView.getForeground());
+                g.drawString(icon, iconX, rowTop + (rowHeight - iconMetrics.getHeight()) / 2 + iconMetrics.getAscent());
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+}
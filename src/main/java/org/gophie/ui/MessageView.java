@@ -20,6 +20,7 @@ package org.gophie.ui;
 
 import org.gophie.config.ConfigFile;
 import org.gophie.config.ConfigurationManager;
+import org.gophie.config.ResourceRegistry;
 import org.gophie.ui.event.MessageViewListener;
 
 import javax.swing.*;
@@ -45,39 +46,32 @@ public class MessageView extends JPanel {
      * show-methods should be called
      */
     public MessageView() {
-        /* get the config file */
-        ConfigFile configFile = ConfigurationManager.getConfigFile();
-
         /* get the icon font for this navigation bar */
         iconFont = ConfigurationManager.getIconFont(19f);
 
         /* set box layout for this message view */
         setLayout(new BorderLayout());
         setBorder(new EmptyBorder(10, 10, 10, 16));
-        setBackground(Color.decode(configFile.getSetting
-                ("MESSAGEVIEW_BACKGROUND_COLOR", "Appearance",
-                        MESSAGEVIEW_BACKGROUND_COLOR)));
+        setBackground(ResourceRegistry.getColor("MESSAGEVIEW_BACKGROUND_COLOR", "Appearance",
+                MESSAGEVIEW_BACKGROUND_COLOR));
 
         /* create the label instance */
         messageIcon = new JLabel();
         messageIcon.setFont(iconFont);
         messageIcon.setBorder(new EmptyBorder(0, 5, 0, 10));
-        messageIcon.setForeground(Color.decode(configFile.getSetting
-                ("MESSAGEVIEW_FOREGROUND_COLOR", "Appearance",
-                        MESSAGEVIEW_FOREGROUND_COLOR)));
+        messageIcon.setForeground(ResourceRegistry.getColor("MESSAGEVIEW_FOREGROUND_COLOR", "Appearance",
+                MESSAGEVIEW_FOREGROUND_COLOR));
 
         messageText = new JLabel();
         messageText.setFont(ConfigurationManager.getDefaultFont(11f));
-        messageText.setForeground(Color.decode(configFile.getSetting
-                ("MESSAGEVIEW_FOREGROUND_COLOR", "Appearance",
-                        MESSAGEVIEW_FOREGROUND_COLOR)));
+        messageText.setForeground(ResourceRegistry.getColor("MESSAGEVIEW_FOREGROUND_COLOR", "Appearance",
+                MESSAGEVIEW_FOREGROUND_COLOR));
 
         buttonPanel = new JPanel();
         buttonPanel.setBorder(new EmptyBorder(0, 30, 0, 0));
         buttonPanel.setLayout(new BoxLayout(buttonPanel, BoxLayout.X_AXIS));
-        buttonPanel.setBackground(Color.decode(configFile.getSetting
-                ("MESSAGEVIEW_BACKGROUND_COLOR", "Appearance",
-                        MESSAGEVIEW_BACKGROUND_COLOR)));
+        buttonPanel.setBackground(ResourceRegistry.getColor("MESSAGEVIEW_BACKGROUND_COLOR", "Appearance",
+                MESSAGEVIEW_BACKGROUND_COLOR));
 
         add(messageIcon, BorderLayout.WEST);
         add(messageText, BorderLayout.CENTER);
@@ -104,7 +98,7 @@ public class MessageView extends JPanel {
         customButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
         customButton.setFont(ConfigurationManager.getDefaultFont(11f));
         customButton.setBorder(new EmptyBorder(0, 5, 0, 5));
-        customButton.setForeground(Color.decode(buttonColor));
+        customButton.setForeground(ResourceRegistry.decodeColor(buttonColor));
         return customButton;
     }
 
@@ -36,6 +36,8 @@ import java.util.ArrayList;
 public class NavigationBar extends JPanel {
     /* constants */
     private static final long serialVersionUID = 1L;
+    /* number of visited addresses suggested while typing */
+    private static final int DEFAULT_ADDRESS_SUGGESTIONS = 8;
 
     /* static variables */
     static String textColorHex;
@@ -49,6 +51,7 @@ public class NavigationBar extends JPanel {
     private final JLabel refreshButton;
     private final JLabel homeButton;
     private final JTextField addressInput;
+    private AddressCompletion addressCompletion;
     private final JLabel downloadButton;
     private final JLabel statusIcon;
     private Boolean isLoadingStatus = false;
@@ -279,7 +282,11 @@ public class NavigationBar extends JPanel {
         @addressText    text to insert into address input
     */
     public void setAddressText(String addressText) {
-        addressInput.setText(addressText);
+        if (addressCompletion != null) {
+            addressCompletion.setText(addressText);
+        } else {
+            addressInput.setText(addressText);
+        }
     }
 
     /*
@@ -295,6 +302,13 @@ public class NavigationBar extends JPanel {
         inputField.setOpaque(false);
         add(inputField);
 
+        /* suggest visited addresses unless turned off */
+        int suggestions = ConfigurationManager.getSnapshot()
+                .getIntSetting("ADDRESS_SUGGESTIONS", "Navigation", DEFAULT_ADDRESS_SUGGESTIONS);
+        if (suggestions > 0) {
+            addressCompletion = new AddressCompletion(inputField, suggestions);
+        }
+
         inputField.addActionListener(new ActionListener() {
             public void actionPerformed(ActionEvent e) {
                 String requestedAddress = inputField.getText().trim();
@@ -305,9 +319,7 @@ public class NavigationBar extends JPanel {
                         GopherItem item = new GopherItem();
 
                         /* check if selector prefixes are enabled */
-                        ConfigFile configFile = ConfigurationManager.getConfigFile();
-                        String prefixEnabled = configFile.getSetting("SELECTOR_PREFIX_ENABLED", "Navigation", "yes");
-                        if (prefixEnabled.equals("yes")) {
+                        if (ConfigurationManager.getSnapshot().isSelectorPrefixEnabled()) {
                             /* create the gopher url object for the address */
                             GopherUrl gopherUrl = new GopherUrl(address);
                             if (gopherUrl.hasTypePrefix()) {
@@ -0,0 +1,363 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.ui;
+
+import org.gophie.config.ConfigFile;
+import org.gophie.config.ConfigurationManager;
+import org.gophie.config.ResourceRegistry;
+import org.gophie.config.SystemUtility;
+import org.gophie.net.RequestLog;
+import org.gophie.net.RequestTrace;
+import org.gophie.ui.event.ActionButtonEventListener;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableCellRenderer;
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lists the latest requests with a waterfall of their
+ * phases from resolving the host to rendering the page,
+ * to tell at a glance where a slow page spent its time
+ */
+public class NetworkInspector implements ActionButtonEventListener {
+    private static final String ACTIONBAR_BACKGROUND = "#248AC2";
+    private static final String ACTIONBAR_TEXTCOLOR = "#ffffff";
+    private static final String ACTIONBAR_INACTIVE_TEXTCOLOR = "#76bce3";
+    /* milliseconds between refreshes while the window is shown */
+    private static final int REFRESH_INTERVAL = 500;
+
+    /* names and colors of the phases in the waterfall */
+    private static final String[] PHASE_NAMES = {"resolve", "connect", "wait", "transfer", "parse", "render"};
+    private static final Color[] PHASE_COLORS = {
+            new Color(0x2bb3a3), new Color(0xe8912d), new Color(0x5fb946),
+            new Color(0x3d8fd6), new Color(0x9a6ad6), new Color(0xd65a8f)
+    };
+
+    private final JDialog frame;
+    private final JTable table;
+    private final TraceTableModel tableModel = new TraceTableModel();
+    private final JLabel summaryLabel = new JLabel();
+    private final Timer refreshTimer;
+    private long shownModification = -1;
+
+    public NetworkInspector() {
+        ConfigFile configFile = ConfigurationManager.getConfigFile();
+
+        frame = new JDialog();
+        frame.setTitle("Network Inspector");
+        frame.setMinimumSize(new Dimension(900, 300));
+        frame.setLayout(new BorderLayout());
+        frame.setIconImage(ConfigurationManager.getImage("icon.png"));
+
+        /* legend of the phases above the requests */
+        JPanel legendPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 12, 6));
+        for (int p = 0; p < PHASE_NAMES.length; p++) {
+            JLabel phaseLabel = new JLabel(PHASE_NAMES[p]);
+            phaseLabel.setIcon(new PhaseIcon(PHASE_COLORS[p]));
+            legendPanel.add(phaseLabel);
+        }
+        frame.add(legendPanel, BorderLayout.NORTH);
+
+        table = new JTable(tableModel);
+        table.setFillsViewportHeight(true);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.setDefaultRenderer(RequestTrace.class, new WaterfallRenderer());
+        int[] columnWidths = {320, 110, 90, 70, 90, 70, 70, 260};
+        for (int c = 0; c < columnWidths.length; c++) {
+            table.getColumnModel().getColumn(c).setPreferredWidth(columnWidths[c]);
+        }
+        frame.add(new JScrollPane(table), BorderLayout.CENTER);
+
+        ActionButton clearButton = new ActionButton("", "Clear List",
+                configFile.getSetting("ACTIONBAR_TEXTCOLOR", "Appearance", ACTIONBAR_TEXTCOLOR),
+                configFile.getSetting("ACTIONBAR_INACTIVE_TEXTCOLOR", "Appearance", ACTIONBAR_INACTIVE_TEXTCOLOR)
+        );
+        clearButton.addEventListener(this);
+
+        summaryLabel.setForeground(ResourceRegistry.getColor("ACTIONBAR_TEXTCOLOR", "Appearance", ACTIONBAR_TEXTCOLOR));
+
+        JPanel actionBar = new JPanel(new BorderLayout());
+        actionBar.setBorder(new EmptyBorder(8, 16, 10, 16));
+        actionBar.setBackground(ResourceRegistry.getColor("ACTIONBAR_BACKGROUND", "Appearance", ACTIONBAR_BACKGROUND));
+        actionBar.add(summaryLabel, BorderLayout.WEST);
+        actionBar.add(clearButton, BorderLayout.EAST);
+        frame.add(actionBar, BorderLayout.SOUTH);
+
+        /* only refresh while the window is shown */
+        refreshTimer = new Timer(REFRESH_INTERVAL, e -> refresh());
+        frame.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentHidden(ComponentEvent e) {
+                refreshTimer.stop();
+            }
+        });
+    }
+
+    public boolean isVisible() {
+        return frame.isVisible();
+    }
+
+    public void hide() {
+        frame.setVisible(false);
+    }
+
+    public void show(JFrame parent) {
+        shownModification = -1;
+        refresh();
+        frame.setSize(new Dimension(1100, 500));
+        frame.setLocationRelativeTo(parent);
+        frame.setVisible(true);
+        refreshTimer.start();
+    }
+
+    /**
+     * Shows the latest traces when they changed or
+     * when requests are still loading
+     */
+    private void refresh() {
+        long modification = RequestLog.getModificationCount();
+        if (modification == shownModification && !tableModel.hasLoading()) {
+            return;
+        }
+        shownModification = modification;
+
+        int selectedRow = table.getSelectedRow();
+        tableModel.setTraces(RequestLog.getTraces());
+        if (selectedRow >= 0 && selectedRow < table.getRowCount()) {
+            table.setRowSelectionInterval(selectedRow, selectedRow);
+        }
+
+        long totalBytes = 0;
+        for (RequestTrace trace : tableModel.traceList) {
+            totalBytes += trace.getByteCount();
+        }
+        summaryLabel.setText(tableModel.traceList.size() + " requests, "
+                + SystemUtility.getFileSizeString(totalBytes));
+    }
+
+    @Override
+    public void buttonPressed(int buttonId) {
+        RequestLog.clear();
+        refresh();
+    }
+
+    /**
+     * Returns the state of a request as shown in the list
+     *
+     * @param trace The trace of the request
+     * @return The state of the request
+     */
+    private static String getStatus(RequestTrace trace) {
+        if (!trace.isFinished()) {
+            return "Loading";
+        }
+        if (trace.isCancelled()) {
+            return "Cancelled";
+        }
+        if (trace.getError() != null) {
+            return trace.getError().name();
+        }
+
+        /* requests for media or binaries are handed to the downloads */
+        return trace.getReceivedMillis() < 0 ? "Handed over" : "Done";
+    }
+
+    /* the traces shown in the table, oldest first */
+    private static class TraceTableModel extends AbstractTableModel {
+        private static final String[] COLUMN_NAMES = {
+                "Address", "Initiator", "Status", "Signature", "Source", "Size", "Time", "Waterfall"
+        };
+
+        private List<RequestTrace> traceList = new ArrayList<>();
+        private double scaleMillis = 1;
+
+        void setTraces(List<RequestTrace> traces) {
+            traceList = traces;
+            scaleMillis = 1;
+            for (RequestTrace trace : traces) {
+                scaleMillis = Math.max(scaleMillis, trace.getTotalMillis());
+            }
+            fireTableDataChanged();
+        }
+
+        boolean hasLoading() {
+            for (RequestTrace trace : traceList) {
+                if (!trace.isFinished()) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        public int getRowCount() {
+            return traceList.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMN_NAMES.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMN_NAMES[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 7 ? RequestTrace.class : String.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            RequestTrace trace = traceList.get(row);
+            switch (column) {
+                case 0:
+                    return trace.getUrl();
+                case 1:
+                    return trace.getInitiator();
+                case 2:
+                    return getStatus(trace);
+                case 3:
+                    return trace.getSignatureType() == null ? "" : trace.getSignatureType().name();
+                case 4:
+                    return trace.getSource().name();
+                case 5:
+                    return SystemUtility.getFileSizeString(trace.getByteCount());
+                case 6:
+                    return String.format("%.0f ms", trace.getTotalMillis());
+                default:
+                    return trace;
+            }
+        }
+    }
+
+    /* paints the phases of a request on the time scale of all requests */
+    private class WaterfallRenderer extends JComponent implements TableCellRenderer {
+        private RequestTrace trace;
+
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                       boolean hasFocus, int row, int column) {
+            trace = (RequestTrace) value;
+            setBackground(isSelected ? table.getSelectionBackground() : table.getBackground());
+            setToolTipText(getPhaseText());
+
+            return this;
+        }
+
+        /**
+         * Returns the start and end of each phase in milliseconds,
+         * -1 for phases not reached. A phase still running ends now.
+         *
+         * @return The start and end by phase
+         */
+        private double[][] getPhases() {
+            double[] bounds = {
+                    0, trace.getResolvedMillis(), trace.getConnectedMillis(),
+                    trace.getFirstByteMillis(), trace.getReceivedMillis(), trace.getParsedMillis()
+            };
+            double[][] result = new double[PHASE_NAMES.length][];
+
+            double start = 0;
+            for (int p = 0; p < bounds.length - 1; p++) {
+                double end = bounds[p + 1];
+                if (end < 0 && !trace.isFinished()) {
+                    /* the phase is running, later phases are not reached */
+                    result[p] = new double[]{start, trace.getTotalMillis()};
+                    break;
+                }
+                if (end >= 0) {
+                    result[p] = new double[]{start, end};
+                    start = end;
+                }
+            }
+            if (trace.getRenderEndMillis() >= 0) {
+                result[PHASE_NAMES.length - 1] = new double[]{trace.getRenderStartMillis(), trace.getRenderEndMillis()};
+            }
+
+            return result;
+        }
+
+        private String getPhaseText() {
+            StringBuilder result = new StringBuilder();
+            double[][] phases = getPhases();
+            for (int p = 0; p < phases.length; p++) {
+                if (phases[p] != null) {
+                    result.append(result.length() > 0 ? ", " : "")
+                            .append(String.format("%s %.1f ms", PHASE_NAMES[p], phases[p][1] - phases[p][0]));
+                }
+            }
+
+            return result.length() > 0 ? result.toString() : null;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+
+            double scale = (getWidth() - 4) / tableModel.scaleMillis;
+            int barHeight = Math.max(4, getHeight() / 2);
+            int barTop = (getHeight() - barHeight) / 2;
+            double[][] phases = getPhases();
+            for (int p = 0; p < phases.length; p++) {
+                if (phases[p] != null) {
+                    int x = 2 + (int) (phases[p][0] * scale);
+                    int width = Math.max(1, (int) ((phases[p][1] - phases[p][0]) * scale));
+                    g.setColor(PHASE_COLORS[p]);
+                    g.fillRect(x, barTop, width, barHeight);
+                }
+            }
+        }
+    }
+
+    /* square in the color of a phase for the legend */
+    private static class PhaseIcon implements Icon {
+        private final Color color;
+
+        PhaseIcon(Color phaseColor) {
+            color = phaseColor;
+        }
+
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            g.setColor(color);
+            g.fillRect(x, y, getIconWidth(), getIconHeight());
+        }
+
+        @Override
+        public int getIconWidth() {
+            return 10;
+        }
+
+        @Override
+        public int getIconHeight() {
+            return 10;
+        }
+    }
+}
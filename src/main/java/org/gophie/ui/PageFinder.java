@@ -0,0 +1,407 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.ui;
+
+import lombok.extern.slf4j.Slf4j;
+import org.gophie.net.GopherItem;
+import org.gophie.search.LineSource;
+import org.gophie.search.PageSearch;
+import org.gophie.search.SearchIndex;
+import org.gophie.search.SearchResult;
+import org.gophie.ui.event.FindStatusListener;
+import org.gophie.ui.util.GuiUtil;
+
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter.DefaultHighlightPainter;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.Highlighter;
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds text in the content shown by the page view. The
+ * content is searched in the background and the result
+ * is shown as highlights or as a view with only the
+ * matching lines, moving between occurrences only ever
+ * scrolls and repaints.
+ */
+@Slf4j
+class PageFinder {
+    /* occurrences highlighted at most in the editor pane */
+    private static final int MAX_EDITOR_HIGHLIGHTS = 5000;
+
+    private final PageView pageView;
+    private final DefaultHighlightPainter matchPainter;
+    private final DefaultHighlightPainter currentMatchPainter;
+    private FindStatusListener statusListener;
+
+    /* search of the content shown and the query last entered */
+    private PageSearch search = null;
+    private int searchGeneration = 0;
+    private String query = "";
+    private boolean filter = false;
+
+    /* result shown and the occurrence moved to */
+    private SearchResult result = null;
+    private int currentMatch = -1;
+    private VirtualLineView highlightedView = null;
+    private final List<Object> editorHighlights = new ArrayList<>();
+    private Object currentEditorHighlight = null;
+
+    /**
+     * Constructs the finder for a page view
+     *
+     * @param view The page view to find text in
+     */
+    PageFinder(PageView view) {
+        pageView = view;
+        matchPainter = new DefaultHighlightPainter(GuiUtil.getSearchMatchColor());
+        currentMatchPainter = new DefaultHighlightPainter(GuiUtil.getCurrentSearchMatchColor());
+    }
+
+    void setStatusListener(FindStatusListener listener) {
+        statusListener = listener;
+    }
+
+    /**
+     * Searches the content shown for the text, cancelling
+     * the search for the text entered before
+     *
+     * @param text          The text to find
+     * @param filterEnabled true to only show the matching lines
+     */
+    void find(String text, boolean filterEnabled) {
+        query = text;
+        filter = filterEnabled;
+
+        if (text.isBlank()) {
+            clearResult();
+            pageView.restoreUnfilteredView();
+            reportStatus(0, 0);
+            return;
+        }
+
+        if (search == null) {
+            LineSource source = createLineSource();
+            if (source == null) {
+                reportStatus(0, 0);
+                return;
+            }
+
+            int generation = ++searchGeneration;
+            search = new PageSearch(source, searchResult ->
+                    SwingUtilities.invokeLater(() -> showResult(generation, searchResult)));
+        }
+
+        reportStatus(0, -1);
+        search.search(text);
+    }
+
+    /**
+     * Moves to the next or previous occurrence
+     *
+     * @param backwards true to move to the previous one
+     */
+    void next(boolean backwards) {
+        if (result == null || !result.getQuery().equals(SearchIndex.fold(query))) {
+            /* nothing found yet, search again */
+            find(query, filter);
+            return;
+        }
+
+        int count = result.getMatchCount();
+        if (count > 0) {
+            moveTo((currentMatch + (backwards ? count - 1 : 1)) % count);
+        }
+    }
+
+    /**
+     * Stops searching and shows the content as it was
+     */
+    void close() {
+        reset();
+    }
+
+    /**
+     * Drops the search when other content is shown
+     */
+    void reset() {
+        if (search != null) {
+            search.dispose();
+            search = null;
+        }
+        searchGeneration++;
+        clearResult();
+        pageView.restoreUnfilteredView();
+        if (statusListener != null) {
+            statusListener.findReset();
+        }
+    }
+
+    /**
+     * Returns the lines of the content shown
+     *
+     * @return The lines or null when the content has no text
+     */
+    private LineSource createLineSource() {
+        JComponent view = pageView.getUnfilteredView();
+        if (view instanceof VirtualLineView) {
+            return (VirtualLineView) view;
+        }
+        if (view != null) {
+            return null;
+        }
+
+        /* the text of the editor pane is small, take it right away */
+        Document document = pageView.getEditorPane().getDocument();
+        String[] lines;
+        try {
+            lines = document.getText(0, document.getLength()).split("\n", -1);
+        } catch (BadLocationException ex) {
+            log.error("Unable to read the page text: {}", ex.getMessage());
+            return null;
+        }
+
+        return new LineSource() {
+            @Override
+            public int getLineCount() {
+                return lines.length;
+            }
+
+            @Override
+            public String getLineText(int line) {
+                return lines[line];
+            }
+        };
+    }
+
+    /**
+     * Shows the result of a search unless a newer one started
+     *
+     * @param generation   The generation of the search
+     * @param searchResult The result of the search
+     */
+    private void showResult(int generation, SearchResult searchResult) {
+        if (generation != searchGeneration || search == null
+                || !searchResult.getQuery().equals(SearchIndex.fold(query))) {
+            return;
+        }
+
+        clearResult();
+        result = searchResult;
+
+        if (filter) {
+            showFiltered();
+        } else {
+            pageView.restoreUnfilteredView();
+            showHighlights();
+        }
+
+        moveTo(findFirstVisibleMatch());
+    }
+
+    /**
+     * Shows only the lines that contain the text
+     */
+    private void showFiltered() {
+        int[] lines = result.getMatchingLines();
+        JComponent source = pageView.getUnfilteredView();
+        /* the items of the menu the editor pane actually shows */
+        List<GopherItem> shownItems = source == null ? pageView.getShownMenuItems() : null;
+
+        VirtualLineView view;
+        if (source instanceof MenuContentView || shownItems != null) {
+            /* menus keep their links, every line is an item */
+            List<GopherItem> items = new ArrayList<>(lines.length);
+            for (int line : lines) {
+                if (source instanceof MenuContentView) {
+                    items.add(((MenuContentView) source).getItem(line));
+                } else if (line < shownItems.size()) {
+                    items.add(shownItems.get(line));
+                }
+            }
+            view = pageView.createMenuView(items);
+        } else {
+            view = new FilteredLineView(search.getSource(), lines, result.getMaxLineLength());
+        }
+
+        pageView.showFilterView(view);
+        view.setHighlights(result.getMatchRows(), result.getMatchStarts(), result.getMatchEnds());
+        highlightedView = view;
+    }
+
+    /**
+     * Highlights the occurrences in the content shown
+     */
+    private void showHighlights() {
+        JComponent view = pageView.getUnfilteredView();
+        if (view instanceof VirtualLineView) {
+            highlightedView = (VirtualLineView) view;
+            highlightedView.setHighlights(result.getMatchLines(), result.getMatchStarts(), result.getMatchEnds());
+            return;
+        }
+
+        /* highlights do not change the layout of the editor pane */
+        JEditorPane editorPane = pageView.getEditorPane();
+        Highlighter highlighter = editorPane.getHighlighter();
+        int count = Math.min(result.getMatchCount(), MAX_EDITOR_HIGHLIGHTS);
+        for (int match = 0; match < count; match++) {
+            int offset = getEditorOffset(match);
+            if (offset < 0) {
+                break;
+            }
+
+            try {
+                editorHighlights.add(highlighter.addHighlight(offset, offset
+                        + result.getMatchEnds()[match] - result.getMatchStarts()[match], matchPainter));
+            } catch (BadLocationException ex) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Moves to an occurrence and scrolls it into view
+     *
+     * @param match The index of the occurrence or -1
+     */
+    private void moveTo(int match) {
+        currentMatch = match;
+        if (result == null || match < 0) {
+            reportStatus(0, result != null ? result.getTotalMatchCount() : 0);
+            return;
+        }
+
+        if (highlightedView != null) {
+            highlightedView.setCurrentHighlight(match);
+        } else {
+            JEditorPane editorPane = pageView.getEditorPane();
+            Highlighter highlighter = editorPane.getHighlighter();
+            if (currentEditorHighlight != null) {
+                highlighter.removeHighlight(currentEditorHighlight);
+                currentEditorHighlight = null;
+            }
+
+            int offset = getEditorOffset(match);
+            if (offset >= 0) {
+                int end = offset + result.getMatchEnds()[match] - result.getMatchStarts()[match];
+                try {
+                    currentEditorHighlight = highlighter.addHighlight(offset, end, currentMatchPainter);
+                    Rectangle2D bounds = editorPane.modelToView2D(offset);
+                    if (bounds != null) {
+                        editorPane.scrollRectToVisible(bounds.getBounds());
+                    }
+                } catch (BadLocationException ex) {
+                    log.error("Unable to show the occurrence: {}", ex.getMessage());
+                }
+            }
+        }
+
+        reportStatus(match + 1, result.getTotalMatchCount());
+    }
+
+    /**
+     * Returns the first occurrence at or below the top of
+     * the visible area, so typing does not jump around
+     *
+     * @return The index of the occurrence or -1 when none was found
+     */
+    private int findFirstVisibleMatch() {
+        int count = result.getMatchCount();
+        if (count == 0) {
+            return -1;
+        }
+        if (filter) {
+            return 0;
+        }
+
+        int firstLine;
+        if (highlightedView != null) {
+            firstLine = highlightedView.getLineAt(highlightedView.getVisibleRect().y);
+        } else {
+            JEditorPane editorPane = pageView.getEditorPane();
+            int offset = editorPane.viewToModel2D(new Point(0, editorPane.getVisibleRect().y));
+            firstLine = Math.max(0, editorPane.getDocument().getDefaultRootElement().getElementIndex(offset));
+        }
+
+        int[] lines = result.getMatchLines();
+        for (int match = 0; match < count; match++) {
+            if (lines[match] >= firstLine) {
+                return match;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Returns the offset of an occurrence in the editor pane
+     *
+     * @param match The index of the occurrence
+     * @return The offset in the document or -1 when it is not there
+     */
+    private int getEditorOffset(int match) {
+        Element root = pageView.getEditorPane().getDocument().getDefaultRootElement();
+        int line = result.getMatchLines()[match];
+        if (line >= root.getElementCount()) {
+            return -1;
+        }
+
+        return root.getElement(line).getStartOffset() + result.getMatchStarts()[match];
+    }
+
+    /**
+     * Removes the highlights of the result shown
+     */
+    private void clearResult() {
+        if (highlightedView != null) {
+            highlightedView.setHighlights(new int[0], new int[0], new int[0]);
+            highlightedView = null;
+        }
+
+        Highlighter highlighter = pageView.getEditorPane().getHighlighter();
+        for (Object highlight : editorHighlights) {
+            highlighter.removeHighlight(highlight);
+        }
+        editorHighlights.clear();
+        if (currentEditorHighlight != null) {
+            highlighter.removeHighlight(currentEditorHighlight);
+            currentEditorHighlight = null;
+        }
+
+        result = null;
+        currentMatch = -1;
+    }
+
+    /**
+     * Reports the position to the status listener
+     *
+     * @param current The number of the current occurrence
+     * @param total   The number of occurrences, -1 while searching
+     */
+    private void reportStatus(int current, int total) {
+        if (statusListener != null) {
+            statusListener.findStatusChanged(current, total);
+        }
+    }
+}
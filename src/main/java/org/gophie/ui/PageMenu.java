@@ -19,7 +19,6 @@
 package org.gophie.ui;
 
 import lombok.extern.slf4j.Slf4j;
-import org.gophie.config.ConfigFile;
 import org.gophie.config.ConfigurationManager;
 import org.gophie.net.GopherItem;
 import org.gophie.net.GopherItem.GopherItemType;
@@ -35,7 +34,6 @@ import java.awt.datatransfer.StringSelection;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.Serial;
 import java.util.ArrayList;
@@ -48,6 +46,7 @@ public class PageMenu extends PopupMenu {
     /* the menu items */
     private final MenuItem saveItem;
     private final MenuItem saveTargetItem;
+    private final MenuItem openTargetTabItem;
     private final MenuItem copyTargetUrl;
     private final MenuItem copyTargetText;
     private final MenuItem copyImageUrl;
@@ -55,12 +54,14 @@ public class PageMenu extends PopupMenu {
     private final MenuItem copySelectedItem;
     private final MenuItem selectAllItem;
     private final MenuItem setHomeGopherItem;
+    private final MenuItem galleryItem;
     private final PopupMenu copyMenu;
 
     /* private variables */
     private String selectedText = "";
     private GopherItem targetLink;
     private GopherPage currentPage;
+    private boolean galleryShown = false;
 
     /* list with event listeners to report to */
     private final ArrayList<PageMenuEventListener> eventListenerList = new ArrayList<PageMenuEventListener>();
@@ -75,8 +76,7 @@ public class PageMenu extends PopupMenu {
          * Check if gopher item prefixes are enabled for urls
          * and add the prefixes to the url copy methods when enabled
          */
-        ConfigFile configFile = ConfigurationManager.getConfigFile();
-        String prefixEnabled = configFile.getSetting("SELECTOR_PREFIX_ENABLED", "Navigation", "yes");
+        boolean prefixEnabled = ConfigurationManager.getSnapshot().isSelectorPrefixEnabled();
 
         /* request listeners to save the current page as file */
         saveItem = new MenuItem("Save Page As...");
@@ -104,6 +104,19 @@ public class PageMenu extends PopupMenu {
             }
         });
 
+        /* request listeners to open the link in a new tab */
+        openTargetTabItem = new MenuItem("Open Link In New Tab");
+        openTargetTabItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (targetLink != null) {
+                    for (PageMenuEventListener listener : eventListenerList) {
+                        listener.linkTabRequested(targetLink);
+                    }
+                }
+            }
+        });
+
         /* copies the url of the link target to the clipboard */
         copyTargetUrl = new MenuItem("Copy Link URL");
         copyTargetUrl.addActionListener(new ActionListener() {
@@ -113,7 +126,7 @@ public class PageMenu extends PopupMenu {
                     /* use the plain url without prefix by default */
                     String targetLinkUrl = targetLink.getUrlString();
 
-                    if (prefixEnabled.equals("yes")) {
+                    if (prefixEnabled) {
                         /* create the gopher url object for the address */
                         GopherUrl prefixUrl = new GopherUrl(targetLink.getUrlString());
                         prefixUrl.setTypePrefix(targetLink.getItemTypeCode());
@@ -137,7 +150,7 @@ public class PageMenu extends PopupMenu {
                     /* use the plain url without prefix by default */
                     String currentPageUrl = currentPage.getUrl().getUrlString();
 
-                    if (prefixEnabled.equals("yes")) {
+                    if (prefixEnabled) {
                         /* create the gopher url object for the address */
                         GopherUrl prefixUrl = new GopherUrl(currentPage.getUrl().getUrlString());
                         prefixUrl.setTypePrefix(GopherItem.getTypeCode(currentPage.getContentType()));
@@ -209,6 +222,19 @@ public class PageMenu extends PopupMenu {
             }
         });
 
+        /* requests listeners to switch between gallery and list */
+        galleryItem = new MenuItem("Show As Gallery");
+        galleryItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (currentPage != null) {
+                    for (PageMenuEventListener listener : eventListenerList) {
+                        listener.galleryRequested(currentPage, !galleryShown);
+                    }
+                }
+            }
+        });
+
         /* create the copy menu with its sub-items */
         copyMenu = new PopupMenu("Copy");
 
@@ -315,6 +341,12 @@ public class PageMenu extends PopupMenu {
                 if (currentPage.getContentType() == GopherItemType.GOPHERMENU) {
                     addSeparator();
                     add(setHomeGopherItem);
+
+                    /* menus linking to images can be shown as gallery */
+                    if (galleryShown || !currentPage.getImageItems().isEmpty()) {
+                        galleryItem.setLabel(galleryShown ? "Show As List" : "Show As Gallery");
+                        add(galleryItem);
+                    }
                 }
             } else {
                 add(copyImageObject);
@@ -322,6 +354,7 @@ public class PageMenu extends PopupMenu {
             }
         } else {
             /* we do have a link target */
+            add(openTargetTabItem);
             add(saveTargetItem);
             addSeparator();
             add(copyTargetUrl);
@@ -347,7 +380,7 @@ public class PageMenu extends PopupMenu {
                     || currentPage.getContentType() == GopherItemType.GIF_FILE) {
                 /* seems to be a valid image file, copy it to clipboard */
                 try {
-                    InputStream imageInputStream = new ByteArrayInputStream(currentPage.getByteArray());
+                    InputStream imageInputStream = currentPage.openStream();
                     BufferedImage bufferedImage = ImageIO.read(imageInputStream);
                     ImageTransferable transferImage = new ImageTransferable(bufferedImage);
                     Clipboard clipBoard = Toolkit.getDefaultToolkit().getSystemClipboard();
@@ -376,6 +409,11 @@ public class PageMenu extends PopupMenu {
 
         /* set the current page locally */
         currentPage = value;
+        galleryShown = false;
+    }
+
+    public void setGalleryShown(boolean value) {
+        galleryShown = value;
     }
 
     public void setLinkTarget(GopherItem value) {
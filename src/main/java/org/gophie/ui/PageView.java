@@ -19,50 +19,137 @@
 package org.gophie.ui;
 
 import lombok.extern.slf4j.Slf4j;
-import org.gophie.config.ConfigFile;
+import org.gophie.config.ConfigSnapshot;
 import org.gophie.config.ConfigurationManager;
+import org.gophie.config.event.ConfigChangeListener;
+import org.gophie.io.DecodedImageCache;
+import org.gophie.io.ImageDecoder;
+import org.gophie.io.PageBody;
+import org.gophie.io.ProgressiveImageSource;
 import org.gophie.net.GopherItem;
 import org.gophie.net.GopherItem.GopherItemType;
 import org.gophie.net.GopherPage;
+import org.gophie.net.GopherUrl;
+import org.gophie.net.RequestLog;
+import org.gophie.monitor.MemoryPressureMonitor;
+import org.gophie.monitor.MetricsRegistry;
+import org.gophie.monitor.MemoryPressureMonitor.MemoryTier;
+import org.gophie.monitor.event.MemoryPressureListener;
+import org.gophie.monitor.jfr.DocumentBuildEvent;
+import org.gophie.monitor.jfr.ImageDecodeEvent;
+import org.gophie.ui.event.FindStatusListener;
+import org.gophie.ui.event.MenuLinkListener;
 import org.gophie.ui.event.NavigationInputListener;
 import org.gophie.ui.util.GuiUtil;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.event.HyperlinkEvent;
-import javax.swing.event.HyperlinkListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultCaret;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.Position;
+import javax.swing.text.StyledDocument;
+import javax.swing.text.StyledEditorKit;
 import javax.swing.text.html.HTMLEditorKit;
 import javax.swing.text.html.StyleSheet;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * The PageView component renders GopherPage objects
  */
 @Slf4j
-public class PageView extends JScrollPane {
+public class PageView extends JScrollPane implements MemoryPressureListener, ConfigChangeListener {
     /* constants */
     private static final long serialVersionUID = 1L;
+    private static final int DEFAULT_RENDERED_VIEW_CACHE_SIZE = 8;
+    private static final int DEFAULT_VIRTUAL_TEXT_THRESHOLD = 1048576;
+    private static final int DEFAULT_VIRTUAL_MENU_THRESHOLD = 2000;
+    private static final int DEFAULT_IMAGE_WIDTH = 800;
+    private static final int DEFAULT_GALLERY_THUMBNAIL_SIZE = 160;
+    private static final int DEFAULT_GALLERY_FETCH_THREADS = 4;
+    /* milliseconds to wait for content to grow to a restored scroll position */
+    private static final long SCROLL_RESTORE_TIMEOUT = 3000;
+
+    /* icons of the feather font for the gopher item types */
+    private static final Map<String, String> ITEM_TYPE_ICONS = Map.ofEntries(
+            Map.entry("0", ""),
+            Map.entry("1", ""),
+            Map.entry("2", ""),
+            Map.entry("3", ""),
+            Map.entry("4", ""),
+            Map.entry("5", ""),
+            Map.entry("6", ""),
+            Map.entry("7", ""),
+            Map.entry("8", ""),
+            Map.entry("9", ""),
+            Map.entry("+", ""),
+            Map.entry("g", ""),
+            Map.entry("I", ""),
+            Map.entry("T", ""),
+            Map.entry("h", ""),
+            Map.entry("i", ""),
+            Map.entry("s", ""),
+            Map.entry("?", "")
+    );
 
     /* local variables and objects */
     private final PageMenu pageMenu;
     private final JEditorPane viewPane;
     private final JEditorPane headerPane;
     private final HTMLEditorKit editorKit;
+    private final StyledEditorKit menuEditorKit;
     private StyleSheet styleSheet;
     private Font textFont;
+    private Font iconFont;
 
     /* listeners for local events */
     private final ArrayList<NavigationInputListener> inputListenerList;
 
     /* current page displayed */
     private GopherPage currentPage = null;
+    /* menu last shown in the editor pane, only while its kit is installed */
+    private RenderedPage shownMenu = null;
+    private GopherItem hoveredLink = null;
+
+    /* counts requests to show content, outdated menu builds are dropped */
+    private int renderGeneration = 0;
+
+    /* page shown while it is still received, the builder is null for text */
+    private GopherUrl streamUrl = null;
+    private MenuDocumentBuilder streamBuilder = null;
+    private int streamedLength = 0;
+    private boolean streamTruncated = false;
+    private ImageStream imageStream = null;
+
+    /* view for large content or images shown instead of the editor pane */
+    private JComponent contentView = null;
+    private final int virtualTextThreshold;
+    private final int virtualMenuThreshold;
+    private final int galleryThumbnailSize;
+    private final int galleryFetchThreads;
+    private final MouseAdapter contentMouseHandler;
+
+    /* find in page and the view its filter replaced, which
+        is null when the editor pane was shown before */
+    private final PageFinder pageFinder;
+    private boolean filterActive = false;
+    private JComponent filterSourceView = null;
+    private Component filterSourceGutter = null;
+
+    /* documents of recently rendered menus for back and forward */
+    private final Map<GopherPage, RenderedPage> renderedPageCache;
+
+    /* position to scroll to once the content is large enough */
+    private Point pendingScrollPosition = null;
+    private long pendingScrollDeadline = 0;
+    private boolean scrollRestoreQueued = false;
 
     /**
      * Constructs the PageView component object
@@ -72,8 +159,32 @@ public class PageView extends JScrollPane {
         /* instanciate input listener list */
         inputListenerList = new ArrayList<>();
 
-        /* create the editor kit instance */
+        /* create the cache for rendered menus, evicting the least recently shown */
+        int renderedCacheSize = ConfigurationManager.getSnapshot().getIntSetting(
+                "RENDERED_VIEW_CACHE_SIZE", "Memory", DEFAULT_RENDERED_VIEW_CACHE_SIZE);
+        renderedPageCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<GopherPage, RenderedPage> eldest) {
+                return size() > renderedCacheSize;
+            }
+        };
+        MemoryPressureMonitor.addListener(this);
+        ConfigurationManager.addChangeListener(this);
+        pageFinder = new PageFinder(this);
+
+        /* text from this size on is shown by the virtual text view */
+        virtualTextThreshold = ConfigurationManager.getSnapshot().getIntSetting(
+                "VIRTUAL_TEXT_THRESHOLD", "Rendering", DEFAULT_VIRTUAL_TEXT_THRESHOLD);
+        virtualMenuThreshold = ConfigurationManager.getSnapshot().getIntSetting(
+                "VIRTUAL_MENU_THRESHOLD", "Rendering", DEFAULT_VIRTUAL_MENU_THRESHOLD);
+        galleryThumbnailSize = ConfigurationManager.getSnapshot().getIntSetting(
+                "GALLERY_THUMBNAIL_SIZE", "Rendering", DEFAULT_GALLERY_THUMBNAIL_SIZE);
+        galleryFetchThreads = ConfigurationManager.getSnapshot().getIntSetting(
+                "GALLERY_FETCH_THREADS", "Network", DEFAULT_GALLERY_FETCH_THREADS);
+
+        /* create the editor kit instances */
         editorKit = new HTMLEditorKit();
+        menuEditorKit = new StyledEditorKit();
 
         /* create the editor pane */
         viewPane = new JEditorPane() {
@@ -81,11 +192,12 @@ public class PageView extends JScrollPane {
 
             /**
              * Override the scroll tracks so that the content
-             * will adjust to the window size horizontally
+             * fills the window but lines are never wrapped
              */
             @Override
             public boolean getScrollableTracksViewportWidth() {
-                return true;
+                return getParent() instanceof JViewport
+                        && getParent().getWidth() > getUI().getPreferredSize(this).width;
             }
         };
 
@@ -97,6 +209,13 @@ public class PageView extends JScrollPane {
         viewPane.setDragEnabled(false);
         getViewport().add(viewPane);
 
+        /* content is laid out after it is shown, restoring
+            the scroll position waits until it has its size */
+        getViewport().addChangeListener(evt -> queueScrollRestore());
+
+        /* content appended while received must not move the view */
+        ((DefaultCaret) viewPane.getCaret()).setUpdatePolicy(DefaultCaret.NEVER_UPDATE);
+
         /* adjust the scrollbars */
         setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
         setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
@@ -115,13 +234,13 @@ public class PageView extends JScrollPane {
         /* create the page menu and attach the popup trigger */
         pageMenu = new PageMenu();
         pageMenu.addPageMenuEventListener(parent);
-        viewPane.add(pageMenu);
-        viewPane.addMouseListener(new MouseAdapter() {
+        add(pageMenu);
+        contentMouseHandler = new MouseAdapter() {
             public void mouseReleased(MouseEvent evt) {
                 switch (evt.getButton()) {
                     case 3: // right mouse context menu
-                        pageMenu.setSelectedText(viewPane.getSelectedText());
-                        pageMenu.show(viewPane, (int) evt.getPoint().getX(), (int) evt.getPoint().getY());
+                        pageMenu.setSelectedText(getSelectedText());
+                        pageMenu.show(evt.getComponent(), (int) evt.getPoint().getX(), (int) evt.getPoint().getY());
                         break;
                     case 4: // "back" button on 5+ button mouse
                         inputListenerList.forEach(NavigationInputListener::backwardRequested);
@@ -133,58 +252,53 @@ public class PageView extends JScrollPane {
                         break;
                 }
             }
-        });
-
-        /* report any links hits as address request to the listeners */
-        viewPane.addHyperlinkListener(new HyperlinkListener() {
-            public void hyperlinkUpdate(HyperlinkEvent e) {
-                /* get the url of that link */
-                String urlValue = e.getDescription();
-
-                /* determine the content type of the link target */
-                GopherItem itemObject = null;
-                if (currentPage != null) {
-                    /* determine the content type of the gopher item
-                        by the definition of it in the gopher menu */
-                    for (GopherItem contentItem : currentPage.getItemList()) {
-                        if (contentItem.getUrlString().equals(urlValue)) {
-                            itemObject = contentItem;
-                        }
-                    }
-                }
+        };
+        viewPane.addMouseListener(contentMouseHandler);
 
-                /* pass the active link item to the popup menu */
-                if (e.getEventType() == HyperlinkEvent.EventType.ENTERED) {
-                    pageMenu.setLinkTarget(itemObject);
-                }
+        /* links of menus carry their item in the document */
+        MouseAdapter linkHandler = new MouseAdapter() {
+            public void mouseMoved(MouseEvent evt) {
+                setHoveredLink(getLinkItemAt(evt.getPoint()));
+            }
 
-                /* reset the link target for the popup menu */
-                if (e.getEventType() == HyperlinkEvent.EventType.EXITED) {
-                    pageMenu.setLinkTarget(null);
-                }
+            public void mouseExited(MouseEvent evt) {
+                setHoveredLink(null);
+            }
 
-                /* handle link activation (aka left-click) */
-                if (e.getEventType() == HyperlinkEvent.EventType.ACTIVATED) {
-                    /* execute the handler */
+            public void mouseClicked(MouseEvent evt) {
+                GopherItem item = getLinkItemAt(evt.getPoint());
+                if (SwingUtilities.isLeftMouseButton(evt) && item != null
+                        && viewPane.getSelectionStart() == viewPane.getSelectionEnd()) {
+                    String urlValue = item.getUrlString();
                     for (NavigationInputListener inputListener : inputListenerList) {
-                        inputListener.addressRequested(urlValue, itemObject);
+                        inputListener.addressRequested(urlValue, item);
                     }
                 }
             }
-        });
+        };
+        viewPane.addMouseListener(linkHandler);
+        viewPane.addMouseMotionListener(linkHandler);
 
+        /* apply the font settings to the view and header pane */
+        viewPane.putClientProperty(JEditorPane.HONOR_DISPLAY_PROPERTIES, Boolean.TRUE);
+        headerPane.putClientProperty(JEditorPane.HONOR_DISPLAY_PROPERTIES, Boolean.TRUE);
+        headerPane.setHighlighter(null);
+        applyFonts();
+    }
+
+    /**
+     * Reads the configured fonts and applies them to the panes
+     */
+    private void applyFonts() {
         /* try to open the font for icon display */
         textFont = ConfigurationManager
                 .getConsoleFont(ConfigurationManager.getConsoleFontSize(GuiUtil.getGlobalFontSize()));
 
-        /* apply the font settings to the view pane */
-        viewPane.putClientProperty(JEditorPane.HONOR_DISPLAY_PROPERTIES, Boolean.TRUE);
-        viewPane.setFont(textFont);
+        /* scale the icons so that header rows are as high as the text rows */
+        iconFont = getFittingIconFont();
 
-        /* apply the font settings to the header pane */
-        headerPane.putClientProperty(JEditorPane.HONOR_DISPLAY_PROPERTIES, Boolean.TRUE);
+        viewPane.setFont(textFont);
         headerPane.setFont(textFont);
-        headerPane.setHighlighter(null);
     }
 
     /**
@@ -203,8 +317,32 @@ public class PageView extends JScrollPane {
      * @param content GopherPage with respective content
      */
     public void showGopherContent(GopherPage content) {
-        /* reset the header to just show nothing */
-        headerPane.setText("");
+        currentPage = content;
+        pageFinder.reset();
+        renderGeneration++;
+        pendingScrollPosition = null;
+
+        if (content.getContentType() != GopherItemType.IMAGE_FILE
+                && content.getContentType() != GopherItemType.GIF_FILE) {
+            cancelImageStream();
+        }
+
+        /* large text is shown without building a document */
+        if (isVirtualText(content)) {
+            endStream();
+            showContentView(new TextContentView(content.getBody(), content.getCharset()), null);
+            pageMenu.setCurrentPage(content);
+            return;
+        }
+
+        /* keep the text shown while it was received */
+        if (isStreamOf(content.getUrl()) && streamBuilder == null && !streamTruncated) {
+            endStream();
+            adoptStreamedText(content);
+            pageMenu.setCurrentPage(content);
+            return;
+        }
+        endStream();
 
         /* set current page to the page menu */
         pageMenu.setCurrentPage(content);
@@ -212,72 +350,136 @@ public class PageView extends JScrollPane {
         /* check the type of content supplied */
         if (content.getContentType() == GopherItemType.IMAGE_FILE
                 || content.getContentType() == GopherItemType.GIF_FILE) {
-            /* try to display as an image */
-            try {
-                /* try to identify the file extension */
-                String imageFileExt = ".jpg";
-                if (content.getContentType() == GopherItemType.GIF_FILE) {
-                    imageFileExt = ".gif";
-                }
+            showImage(content);
+            return;
+        }
 
-                /* try to determine the filetype from the url */
-                String imageUrl = content.getUrl().getUrlString();
-                String imageUrlChopped = imageUrl.substring(imageUrl.length() - 4);
-                if (imageUrlChopped.equals(".")) {
-                    imageFileExt = imageUrl.substring(imageUrl.length() - 3);
-                }
-                if (imageUrl.substring(imageUrl.length() - 5).equals(".")) {
-                    imageFileExt = imageUrlChopped;
-                }
+        showEditorView();
+        detachMenuDocuments();
 
-                /* write the image content to file */
-                File tempImageFile = File.createTempFile("gopherimagefile", imageFileExt);
-                FileOutputStream outputStream = new FileOutputStream(tempImageFile);
-                outputStream.write(content.getByteArray());
-                outputStream.close();
-
-                /* determine image size and rescale */
-                String imageHtmlCode = "<img src=\"" + tempImageFile.toURI()
-                        .toURL().toExternalForm() + "\" />";
-
-                try {
-                    BufferedImage bufferedImage = ImageIO.read(tempImageFile);
-                    int width = bufferedImage.getWidth();
-                    int height = bufferedImage.getHeight();
-                    if (width > 800) {
-                        double calcHeight = (((double) height) / (((double) width) / 800));
-                        imageHtmlCode = "<img src=\"" + tempImageFile.toURI().toURL().toExternalForm() + "\" "
-                                + "width=800 height=" + (int) calcHeight + " />";
-                    }
-                } catch (Exception ex) {
-                    /* failed to determine image size */
-                    log.error("Failed to determine image size: {}", ex.getMessage());
-                }
+        /* reset the header to just show nothing */
+        headerPane.setText("");
+
+        /* display content as plain text */
+        long renderStart = System.nanoTime();
+        viewPane.setContentType("text/plain");
+        viewPane.setText(content.getSourceCode().replace("\n.\r\n", ""));
+        RequestLog.recordRender(content.getUrl(), renderStart, System.nanoTime());
+    }
+
+    /**
+     * Shows an image and decodes it in the background
+     * to fit the width of the view, a message is shown
+     * until the image is decoded
+     *
+     * @param content The page with the image
+     */
+    private void showImage(GopherPage content) {
+        /* keep the image decoded while it was received */
+        ImageStream stream = imageStream;
+        imageStream = null;
+        if (stream != null && stream.url == content.getUrl()
+                && !stream.failed && contentView == stream.view) {
+            stream.adopt(content.getBody());
+            return;
+        }
+        if (stream != null) {
+            stream.source.cancel();
+        }
 
-                /* display content as an image */
-                viewPane.setContentType("text/html");
-                viewPane.setText(imageHtmlCode);
+        ImageContentView imageView = createImageView();
+        showContentView(imageView, null);
+        decodeImage(imageView, content.getUrl(), content.getBody(), imageView.getMaxImageWidth());
+    }
+
+    /**
+     * Starts showing an image while it is received
+     *
+     * @param url    The url of the image
+     * @param source The source receiving the image
+     */
+    public void beginImageStream(GopherUrl url, ProgressiveImageSource source) {
+        /* the page is set once it was received completely */
+        currentPage = null;
+        pageFinder.reset();
+        renderGeneration++;
+        pendingScrollPosition = null;
+        endStream();
+        if (imageStream != null) {
+            imageStream.source.cancel();
+        }
+
+        ImageContentView imageView = createImageView();
+        showContentView(imageView, null);
+        ImageStream stream = new ImageStream(url, source, imageView);
+        imageStream = stream;
+
+        Thread decodeThread = new Thread(() -> {
+            try {
+                ImageDecodeEvent decodeEvent = new ImageDecodeEvent();
+                decodeEvent.begin();
+                Image image = ImageDecoder.decodeProgressive(source, imageView.getMaxImageWidth(),
+                        partialImage -> SwingUtilities.invokeLater(() -> {
+                            if (contentView == imageView && stream.image == null) {
+                                imageView.setImage(partialImage);
+                            }
+                        }));
+                decodeEvent.commit(url, GopherItemType.IMAGE_FILE, source.getReceivedCount());
+                SwingUtilities.invokeLater(() -> stream.decoded(image));
             } catch (Exception ex) {
-                /* display exception cause as text inside the view */
-                viewPane.setContentType("text/plain");
-                viewPane.setText("Failed to display the image:\n" + ex.getMessage());
+                if (!source.isCancelled()) {
+                    log.error("Failed to decode image while loading: {}", ex.getMessage());
+                }
+                SwingUtilities.invokeLater(stream::failed);
             }
-        } else {
-            /* display content as plain text */
-            viewPane.setContentType("text/plain");
-            viewPane.setText(content.getSourceCode().replace("\n.\r\n", ""));
-        }
+        }, "image-stream-decode");
+        decodeThread.setDaemon(true);
+        decodeThread.start();
+    }
+
+    /**
+     * Creates the view for an image fitting the view width
+     *
+     * @return The view for the image
+     */
+    private ImageContentView createImageView() {
+        ImageContentView imageView = new ImageContentView("Loading image...");
+        imageView.setFont(textFont);
+        imageView.setMaxImageWidth(imageView.getAvailableWidth(getViewport().getWidth() > 0
+                ? getViewport().getWidth() : DEFAULT_IMAGE_WIDTH));
+
+        return imageView;
     }
 
     /**
-     * Formats the item's title for display in the view
+     * Decodes an image in the background and shows it
+     * when the view is still shown once decoded
      *
-     * @param text the text with unencoded elements
-     * @return the text with html-encoded entities
+     * @param imageView The view to show the image in
+     * @param url       The address of the image
+     * @param body      The body with the image
+     * @param maxWidth  The width available to the image
      */
-    private String formatItemTitle(String text) {
-        return text.replace("&", "&amp;").replace(" ", "&nbsp;")
-                .replace("<", "&lt;").replace(">", "&gt;");
+    private void decodeImage(ImageContentView imageView, GopherUrl url, PageBody body, int maxWidth) {
+        Thread decodeThread = new Thread(() -> {
+            try {
+                ImageDecodeEvent decodeEvent = new ImageDecodeEvent();
+                decodeEvent.begin();
+                Image image = ImageDecoder.decode(body, maxWidth);
+                decodeEvent.commit(url, GopherItemType.IMAGE_FILE, body.getSize());
+                SwingUtilities.invokeLater(() -> {
+                    if (contentView == imageView) {
+                        imageView.setImage(image);
+                    }
+                });
+            } catch (Exception ex) {
+                log.error("Failed to decode image: {}", ex.getMessage());
+                SwingUtilities.invokeLater(() ->
+                        imageView.setMessage("Failed to display the image:\n" + ex.getMessage()));
+            }
+        }, "image-decode");
+        decodeThread.setDaemon(true);
+        decodeThread.start();
     }
 
     /**
@@ -288,148 +490,818 @@ public class PageView extends JScrollPane {
     public void showGopherPage(GopherPage page) {
         /* set the current local gopher page */
         currentPage = page;
+        pageFinder.reset();
+        renderGeneration++;
+        pendingScrollPosition = null;
+        cancelImageStream();
 
         /* set current page to the page menu */
         pageMenu.setCurrentPage(page);
 
-        /* create the headers */
-        StringBuilder renderedHeader = new StringBuilder("<table cellspacing=\"0\" cellpadding=\"2\">");
-        StringBuilder renderedContent = new StringBuilder("<table cellspacing=\"0\" cellpadding=\"2\">");
-
-        int lineNumber = 1;
-        for (GopherItem item : page.getItemList()) {
-            /* set the content for the row header */
-            renderedHeader
-                    .append("<tr><td class=\"lineNumber\">")
-                    .append(lineNumber)
-                    .append("</td>")
-                    .append("<td><div class=\"itemIcon\">")
-                    .append(getGopherItemTypeIcon(item.getItemTypeCode()))
-                    .append("</div></td></tr>");
-
-            /* set the content for the text view */
-            String itemTitle = formatItemTitle(item.getUserDisplayString());
-
-            if (itemTitle.isEmpty()) {
-                itemTitle = "&nbsp;";
+        /* keep the menu shown while it was received */
+        boolean streamComplete = isStreamOf(page.getUrl()) && streamBuilder != null
+                && !streamTruncated && streamedLength == page.getItemList().size();
+        endStream();
+        if (streamComplete) {
+            adoptStreamedMenu(page);
+            return;
+        }
+
+        /* huge menus only paint the items that are visible */
+        if (page.getItemList().size() >= virtualMenuThreshold) {
+            showMenuView(page);
+            return;
+        }
+
+        /* reuse the documents when this page was rendered before */
+        RenderedPage renderedPage = renderedPageCache.get(page);
+        MetricsRegistry.recordCacheAccess("renderedViews", renderedPage != null);
+        if (renderedPage != null) {
+            showMenuDocuments(renderedPage);
+            return;
+        }
+
+        /* build the documents in the background and only
+            swap them in when no other content was requested */
+        int generation = renderGeneration;
+        MenuDocumentBuilder builder = new MenuDocumentBuilder(page.getItemList(), textFont, iconFont,
+                viewPane.getForeground(), UIManager.getColor("Label.disabledForeground"));
+        Thread renderThread = new Thread(() -> {
+            long renderStart = System.nanoTime();
+            DocumentBuildEvent buildEvent = new DocumentBuildEvent();
+            buildEvent.begin();
+            RenderedPage result = new RenderedPage(builder.buildViewDocument(), builder.buildHeaderDocument(),
+                    page.getItemList());
+            buildEvent.commit(page.getUrl(), page.getContentType(), page.getByteCount());
+            SwingUtilities.invokeLater(() -> {
+                if (generation == renderGeneration) {
+                    /* keep the documents for when the user comes back */
+                    renderedPageCache.put(page, result);
+                    showMenuDocuments(result);
+                    RequestLog.recordRender(page.getUrl(), renderStart, System.nanoTime());
+                }
+            });
+        }, "menu-render");
+        renderThread.setDaemon(true);
+        renderThread.start();
+    }
+
+    /**
+     * Starts showing a menu or text page while it is received
+     *
+     * @param url         The url of the page received
+     * @param contentType The type of the page
+     */
+    public void beginStream(GopherUrl url, GopherItemType contentType) {
+        /* the page is set once it was received completely */
+        currentPage = null;
+        pageFinder.reset();
+        renderGeneration++;
+        pendingScrollPosition = null;
+        cancelImageStream();
+        streamUrl = url;
+        streamedLength = 0;
+        streamTruncated = false;
+        showEditorView();
+
+        if (contentType == GopherItemType.GOPHERMENU) {
+            streamBuilder = new MenuDocumentBuilder(List.of(), textFont, iconFont,
+                    viewPane.getForeground(), UIManager.getColor("Label.disabledForeground"));
+            showMenuDocuments(new RenderedPage(streamBuilder.createDocument(), streamBuilder.createDocument(),
+                    new ArrayList<>()));
+        } else {
+            streamBuilder = null;
+            detachMenuDocuments();
+            headerPane.setText("");
+            viewPane.setContentType("text/plain");
+            viewPane.setText("");
+        }
+    }
+
+    /**
+     * Appends menu items received to the page shown
+     *
+     * @param url   The url of the page the items belong to
+     * @param items The items received
+     */
+    public void appendStreamItems(GopherUrl url, List<GopherItem> items) {
+        if (!isStreamOf(url) || streamBuilder == null || streamTruncated) {
+            return;
+        }
+
+        /* huge menus are left to the virtual view once complete */
+        if (streamedLength + items.size() >= virtualMenuThreshold) {
+            streamTruncated = true;
+            return;
+        }
+
+        streamBuilder.appendViewItems((StyledDocument) viewPane.getDocument(), items);
+        streamBuilder.appendHeaderItems((StyledDocument) headerPane.getDocument(), items, streamedLength + 1, 1);
+        shownMenu.itemList.addAll(items);
+        streamedLength += items.size();
+    }
+
+    /**
+     * Appends text received to the page shown
+     *
+     * @param url  The url of the page the text belongs to
+     * @param text The text received
+     */
+    public void appendStreamText(GopherUrl url, String text) {
+        if (!isStreamOf(url) || streamBuilder != null || streamTruncated) {
+            return;
+        }
+
+        /* huge text is left to the virtual view once complete */
+        if (streamedLength + text.length() >= virtualTextThreshold) {
+            streamTruncated = true;
+            return;
+        }
+
+        try {
+            Document document = viewPane.getDocument();
+            document.insertString(document.getLength(), text, null);
+            streamedLength += text.length();
+        } catch (BadLocationException ex) {
+            log.error("Failed to append received text: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Stops decoding the image currently received
+     */
+    private void cancelImageStream() {
+        if (imageStream != null) {
+            imageStream.source.cancel();
+            imageStream = null;
+        }
+    }
+
+    /**
+     * Returns whether a page is the one currently received
+     *
+     * @param url The url of the page
+     * @return true when the page is received, otherwise false
+     */
+    private boolean isStreamOf(GopherUrl url) {
+        return streamUrl != null && streamUrl == url;
+    }
+
+    /**
+     * Stops showing the page received
+     */
+    private void endStream() {
+        streamUrl = null;
+        streamBuilder = null;
+    }
+
+    /**
+     * Keeps the documents of the menu shown while received, only
+     * the header is built again to align the line numbers
+     *
+     * @param page The complete page
+     */
+    private void adoptStreamedMenu(GopherPage page) {
+        MenuDocumentBuilder builder = new MenuDocumentBuilder(page.getItemList(), textFont, iconFont,
+                viewPane.getForeground(), UIManager.getColor("Label.disabledForeground"));
+        RenderedPage renderedPage = new RenderedPage(viewPane.getDocument(), builder.buildHeaderDocument(),
+                page.getItemList());
+
+        shownMenu = renderedPage;
+        headerPane.setDocument(renderedPage.headerDocument);
+        renderedPageCache.put(page, renderedPage);
+    }
+
+    /**
+     * Keeps the text shown while received and only replaces
+     * the part that differs from the text of the complete page
+     *
+     * @param content The complete page
+     */
+    private void adoptStreamedText(GopherPage content) {
+        /* the same text a plain text editor kit reads */
+        String text = content.getSourceCode().replace("\n.\r\n", "")
+                .replace("\r\n", "\n").replace('\r', '\n');
+
+        try {
+            Document document = viewPane.getDocument();
+            String streamedText = document.getText(0, document.getLength());
+
+            int common = 0;
+            int commonLimit = Math.min(text.length(), streamedText.length());
+            while (common < commonLimit && text.charAt(common) == streamedText.charAt(common)) {
+                common++;
             }
-            String itemCode = "<span class=\"text\">" + itemTitle + "</span>";
 
-            /* build links for anything other than infromation items */
-            if (!item.getItemTypeCode().equals("i")) {
-                /* create the link for this item */
-                itemCode = "<a href=\"" + item.getUrlString() + "\">" + itemTitle + "</a>";
+            if (common < streamedText.length()) {
+                document.remove(common, streamedText.length() - common);
             }
+            if (common < text.length()) {
+                document.insertString(common, text.substring(common), null);
+            }
+        } catch (BadLocationException ex) {
+            log.error("Failed to complete received text: {}", ex.getMessage());
+            viewPane.setText(text);
+        }
+    }
 
-            /* create the item table row */
-            renderedContent
-                    .append("<tr><td class=\"item\">")
-                    .append(itemCode)
-                    .append("</td></tr>");
+    /**
+     * Shows the documents of a rendered menu in the view and header
+     *
+     * @param renderedPage The documents of the menu
+     */
+    private void showMenuDocuments(RenderedPage renderedPage) {
+        showEditorView();
 
-            lineNumber++;
+        if (viewPane.getEditorKit() != menuEditorKit) {
+            viewPane.setEditorKit(menuEditorKit);
+        }
+        if (headerPane.getEditorKit() != menuEditorKit) {
+            headerPane.setEditorKit(menuEditorKit);
         }
 
-        /* set content type and add content to view */
-        viewPane.setContentType("text/html");
-        viewPane.setText(renderedContent + "</table>");
+        shownMenu = renderedPage;
+        viewPane.setDocument(renderedPage.viewDocument);
+        headerPane.setDocument(renderedPage.headerDocument);
+        viewPane.setCaretPosition(0);
+    }
 
-        /* set content type and add content to header */
-        headerPane.setContentType("text/html");
-        headerPane.setText(renderedHeader + "</table>");
+    /**
+     * Restores the default editor kits when the documents of a
+     * menu are shown, so that new content does not change the
+     * cached documents of that menu
+     */
+    private void detachMenuDocuments() {
+        if (viewPane.getEditorKit() == menuEditorKit) {
+            viewPane.setEditorKit(editorKit);
+        }
+        if (headerPane.getEditorKit() == menuEditorKit) {
+            headerPane.setEditorKit(editorKit);
+        }
+    }
 
-        /* scroll the view pane to the top */
-        viewPane.setCaretPosition(0);
+    /**
+     * Returns the item of the link at a position of the view
+     *
+     * @param point The position in the view
+     * @return The item of the link or null when there is none
+     */
+    private GopherItem getLinkItemAt(Point point) {
+        if (viewPane.getEditorKit() != menuEditorKit) {
+            return null;
+        }
+
+        Position.Bias[] bias = new Position.Bias[1];
+        int position = viewPane.getUI().viewToModel2D(viewPane, point, bias);
+        if (position > 0 && bias[0] == Position.Bias.Backward) {
+            /* the right half of the last character of a line */
+            position--;
+        }
+        if (position < 0) {
+            return null;
+        }
+
+        Element element = ((StyledDocument) viewPane.getDocument()).getCharacterElement(position);
+        Object item = element.getAttributes().getAttribute(MenuDocumentBuilder.ITEM_ATTRIBUTE);
+        return item instanceof GopherItem ? (GopherItem) item : null;
     }
 
     /**
-     * Configures the style of the view
+     * Sets the link under the mouse and reports it to the page menu
+     *
+     * @param item The item of the link or null
      */
-    private void configureStyle() {
-        /* get the configured icon font size */
-        String iconFontSize = ConfigurationManager.getConfigFile().getSetting("PAGE_ICON_FONT_SIZE", "Appearance", "10");
+    private void setHoveredLink(GopherItem item) {
+        if (item != hoveredLink) {
+            hoveredLink = item;
+            viewPane.setCursor(new Cursor(item != null ? Cursor.HAND_CURSOR : Cursor.TEXT_CURSOR));
+            pageMenu.setLinkTarget(item);
+        }
+    }
 
-        /* build up the stylesheet for the rendering */
-        styleSheet = editorKit.getStyleSheet();
-        styleSheet.addRule("body { white-space:nowrap; margin:0; padding:0; vertical-align: top;}");
-        styleSheet.addRule(".text { cursor:text; }");
-        styleSheet.addRule(".itemIcon { font-family:Feather; font-size:" + iconFontSize + "px; margin-left:5px; }");
-        styleSheet.addRule("a { text-decoration: none; }");
+    /**
+     * Returns the icon font at the configured size, reduced
+     * until its lines are no higher than those of the text
+     *
+     * @return The font for the type icons
+     */
+    private Font getFittingIconFont() {
+        int size = ConfigurationManager.getSnapshot()
+                .getIntSetting("PAGE_ICON_FONT_SIZE", "Appearance", 10);
+        int textHeight = getFontMetrics(textFont).getHeight();
+
+        Font result = ConfigurationManager.getIconFont(size);
+        while (size > 6 && getFontMetrics(result).getHeight() > textHeight) {
+            size--;
+            result = result.deriveFont((float) size);
+        }
+
+        return result;
     }
 
     /**
-     * Selects all the items in the view
+     * Returns whether content is plain text large enough
+     * to be shown by the virtual text view
+     *
+     * @param content The page with the content
+     * @return true when shown by the virtual view, otherwise false
      */
-    public void selectAllText() {
-        /* just pass it onto the view */
-        viewPane.selectAll();
-        viewPane.requestFocus();
+    private boolean isVirtualText(GopherPage content) {
+        return content.getContentType() != GopherItemType.IMAGE_FILE
+                && content.getContentType() != GopherItemType.GIF_FILE
+                && content.getBody() != null
+                && content.getByteCount() >= virtualTextThreshold
+                && TextContentView.isSupportedCharset(content.getCharset());
     }
 
     /**
-     * Returns the header icon for the gopher item type
+     * Shows the items of a menu in the virtual menu view
      *
-     * @param code Code for the gopher item type
-     * @return String with the icon for the item
+     * @param page The page with the menu
      */
-    public String getGopherItemTypeIcon(String code) {
-        String result = "";
+    private void showMenuView(GopherPage page) {
+        MenuContentView menuView = createMenuView(page.getItemList());
+        showContentView(menuView, new MenuGutterView(menuView, this, iconFont));
+    }
 
-        if (code.equals("0")) {
-            result = "";
+    /**
+     * Creates the virtual menu view for menu items
+     *
+     * @param items The items of the menu
+     * @return The view with its links connected
+     */
+    MenuContentView createMenuView(List<GopherItem> items) {
+        MenuContentView menuView = new MenuContentView(items);
+        menuView.addLinkListener(new MenuLinkListener() {
+            @Override
+            public void linkHovered(GopherItem item) {
+                pageMenu.setLinkTarget(item);
+            }
+
+            @Override
+            public void linkActivated(GopherItem item) {
+                for (NavigationInputListener inputListener : inputListenerList) {
+                    inputListener.addressRequested(item.getUrlString(), item);
+                }
+            }
+        });
+
+        return menuView;
+    }
+
+    /**
+     * Shows the images linked from a menu as thumbnails
+     *
+     * @param page The page with the menu
+     */
+    public void showGallery(GopherPage page) {
+        currentPage = page;
+        pageFinder.reset();
+        renderGeneration++;
+        pendingScrollPosition = null;
+        cancelImageStream();
+        endStream();
+
+        pageMenu.setCurrentPage(page);
+        pageMenu.setGalleryShown(true);
+
+        GalleryView galleryView = new GalleryView(page.getImageItems(), galleryThumbnailSize, galleryFetchThreads);
+        galleryView.addLinkListener(new MenuLinkListener() {
+            @Override
+            public void linkHovered(GopherItem item) {
+                pageMenu.setLinkTarget(item);
+            }
+
+            @Override
+            public void linkActivated(GopherItem item) {
+                for (NavigationInputListener inputListener : inputListenerList) {
+                    inputListener.addressRequested(item.getUrlString(), item);
+                }
+            }
+        });
+
+        showContentView(galleryView, null);
+    }
+
+    /**
+     * Finds text in the page shown, cancelling the
+     * search for the text entered before
+     *
+     * @param text   The text to find
+     * @param filter true to only show the matching lines
+     */
+    public void find(String text, boolean filter) {
+        pageFinder.find(text, filter);
+    }
+
+    /**
+     * Moves to the next or previous occurrence found
+     *
+     * @param backwards true to move to the previous one
+     */
+    public void findNext(boolean backwards) {
+        pageFinder.next(backwards);
+    }
+
+    /**
+     * Stops finding and shows the page as it was
+     */
+    public void closeFind() {
+        pageFinder.close();
+    }
+
+    /**
+     * Sets the listener for the position of find in page
+     *
+     * @param listener The listener to report to
+     */
+    public void setFindStatusListener(FindStatusListener listener) {
+        pageFinder.setStatusListener(listener);
+    }
+
+    /**
+     * Returns the view shown before find in page
+     * filtered it, null for the editor pane
+     *
+     * @return The view the page is shown with
+     */
+    JComponent getUnfilteredView() {
+        return filterActive ? filterSourceView : contentView;
+    }
+
+    JEditorPane getEditorPane() {
+        return viewPane;
+    }
+
+    /**
+     * Returns the items of the menu the editor pane
+     * shows, one for each line of its document
+     *
+     * @return The items or null when the editor pane shows text
+     */
+    List<GopherItem> getShownMenuItems() {
+        if (viewPane.getEditorKit() != menuEditorKit || shownMenu == null) {
+            return null;
         }
-        if (code.equals("1")) {
-            result = "";
+
+        return shownMenu.itemList;
+    }
+
+    /**
+     * Shows the lines matching find in page instead
+     * of the view the page is shown with
+     *
+     * @param view The view with the matching lines
+     */
+    void showFilterView(JComponent view) {
+        if (!filterActive) {
+            /* keep the original view alive to go back to it */
+            filterActive = true;
+            filterSourceView = contentView;
+            filterSourceGutter = getRowHeader() != null ? getRowHeader().getView() : null;
+            contentView = null;
         }
-        if (code.equals("2")) {
-            result = "";
+
+        setContentView(view, null);
+    }
+
+    /**
+     * Shows the view the page was shown with
+     * again when find in page filtered it
+     */
+    void restoreUnfilteredView() {
+        if (!filterActive) {
+            return;
         }
-        if (code.equals("3")) {
-            result = "";
+
+        filterActive = false;
+        JComponent view = filterSourceView;
+        Component gutter = filterSourceGutter;
+        filterSourceView = null;
+        filterSourceGutter = null;
+
+        if (view != null) {
+            setContentView(view, (JComponent) gutter);
+        } else {
+            showEditorView();
         }
-        if (code.equals("4")) {
-            result = "";
+    }
+
+    /**
+     * Shows a content view in place of the editor pane
+     *
+     * @param view   The view to show
+     * @param gutter The row header for the view or null
+     */
+    private void showContentView(JComponent view, JComponent gutter) {
+        setContentView(view, gutter);
+        contentView.requestFocusInWindow();
+    }
+
+    /**
+     * Places a content view in the viewport without
+     * taking the focus from where the user is typing
+     *
+     * @param view   The view to show
+     * @param gutter The row header for the view or null
+     */
+    private void setContentView(JComponent view, JComponent gutter) {
+        disposeContentView();
+
+        contentView = view;
+        contentView.setFont(textFont);
+        contentView.addMouseListener(contentMouseHandler);
+        setRowHeaderView(gutter);
+        getViewport().setView(contentView);
+        getViewport().setViewPosition(new Point(0, 0));
+    }
+
+    /**
+     * Shows the editor pane again when a
+     * content view was shown before
+     */
+    private void showEditorView() {
+        if (contentView != null) {
+            disposeContentView();
+            getViewport().setView(viewPane);
+            setRowHeaderView(headerPane);
         }
-        if (code.equals("5")) {
-            result = "";
+    }
+
+    /**
+     * Stops the current content view
+     */
+    private void disposeContentView() {
+        if (contentView instanceof TextContentView) {
+            ((TextContentView) contentView).dispose();
         }
-        if (code.equals("6")) {
-            result = "";
+        if (contentView instanceof GalleryView) {
+            ((GalleryView) contentView).dispose();
         }
-        if (code.equals("7")) {
-            result = "";
+        contentView = null;
+    }
+
+    /**
+     * Returns the text selected in the active view
+     *
+     * @return The selected text or null
+     */
+    private String getSelectedText() {
+        if (contentView instanceof VirtualLineView) {
+            return ((VirtualLineView) contentView).getSelectedText();
         }
-        if (code.equals("8")) {
-            result = "";
+        if (contentView != null) {
+            return null;
         }
-        if (code.equals("9")) {
-            result = "";
+
+        return viewPane.getSelectedText();
+    }
+
+    /**
+     * Drops the page shown and everything rendered for it,
+     * the view is empty until a page is shown again
+     */
+    public void clear() {
+        currentPage = null;
+        pageFinder.reset();
+        renderGeneration++;
+        pendingScrollPosition = null;
+        cancelImageStream();
+        endStream();
+        showEditorView();
+        detachMenuDocuments();
+
+        viewPane.setContentType("text/plain");
+        viewPane.setText("");
+        headerPane.setText("");
+        renderedPageCache.clear();
+    }
+
+    /**
+     * Returns the position the content is scrolled to
+     *
+     * @return The position of the top left corner shown
+     */
+    public Point getScrollPosition() {
+        if (pendingScrollPosition != null) {
+            return new Point(pendingScrollPosition);
         }
-        if (code.equals("+")) {
-            result = "";
+
+        return getViewport().getViewPosition();
+    }
+
+    /**
+     * Scrolls the content shown to a position once
+     * it is laid out and large enough to show it
+     *
+     * @param position The position of the top left corner
+     */
+    public void restoreScrollPosition(Point position) {
+        if (position.x == 0 && position.y == 0) {
+            return;
         }
-        if (code.equals("g")) {
-            result = "";
+
+        pendingScrollPosition = new Point(position);
+        pendingScrollDeadline = System.currentTimeMillis() + SCROLL_RESTORE_TIMEOUT;
+        queueScrollRestore();
+    }
+
+    /**
+     * Restores the scroll position after the content
+     * changed, once all pending layout is done
+     */
+    private void queueScrollRestore() {
+        if (pendingScrollPosition != null && !scrollRestoreQueued) {
+            scrollRestoreQueued = true;
+            SwingUtilities.invokeLater(this::applyScrollPosition);
         }
-        if (code.equals("I")) {
-            result = "";
+    }
+
+    /**
+     * Scrolls as close to the pending position as the content
+     * allows and keeps waiting while the content might still grow
+     */
+    private void applyScrollPosition() {
+        scrollRestoreQueued = false;
+        Point position = pendingScrollPosition;
+        if (position == null) {
+            return;
         }
-        if (code.equals("T")) {
-            result = "";
+
+        JViewport viewport = getViewport();
+        Dimension viewSize = viewport.getViewSize();
+        Dimension extentSize = viewport.getExtentSize();
+        int maxX = Math.max(0, viewSize.width - extentSize.width);
+        int maxY = Math.max(0, viewSize.height - extentSize.height);
+
+        Point target = new Point(Math.min(position.x, maxX), Math.min(position.y, maxY));
+        if (target.equals(position) || System.currentTimeMillis() > pendingScrollDeadline) {
+            pendingScrollPosition = null;
         }
-        if (code.equals("h")) {
-            result = "";
+        viewport.setViewPosition(target);
+    }
+
+    /**
+     * Renders the page shown again, keeping the position
+     * it is scrolled to, e.g. after its text was decoded anew
+     */
+    public void refreshPage() {
+        GopherPage page = currentPage;
+        if (page == null || page.isReleased()) {
+            return;
         }
-        if (code.equals("i")) {
-            result = "";
+
+        Point position = getScrollPosition();
+        renderedPageCache.remove(page);
+        if (page.getContentType() == GopherItemType.GOPHERMENU) {
+            showGopherPage(page);
+        } else {
+            showGopherContent(page);
         }
-        if (code.equals("s")) {
-            result = "";
+        restoreScrollPosition(position);
+    }
+
+    /**
+     * Clears the view when it is no longer used
+     */
+    public void dispose() {
+        clear();
+        MemoryPressureMonitor.removeListener(this);
+        ConfigurationManager.removeChangeListener(this);
+    }
+
+    /**
+     * Applies changed fonts to the page shown and
+     * drops the menus rendered with the previous ones
+     *
+     * @param previous The settings before the change
+     * @param current  The settings now in effect
+     */
+    @Override
+    public void configChanged(ConfigSnapshot previous, ConfigSnapshot current) {
+        if (!current.isSectionEqual(previous, "Appearance")) {
+            SwingUtilities.invokeLater(() -> {
+                applyFonts();
+                renderedPageCache.clear();
+                refreshPage();
+            });
         }
-        if (code.equals("?")) {
-            result = "";
+    }
+
+    /**
+     * Drops the cached documents of rendered menus
+     * when the heap is running low
+     *
+     * @param tier The tier of memory to release
+     */
+    @Override
+    public void memoryPressureReported(MemoryTier tier) {
+        if (tier == MemoryTier.RENDERED_VIEWS) {
+            SwingUtilities.invokeLater(() -> {
+                int pageCount = renderedPageCache.size();
+                renderedPageCache.clear();
+                log.warn("Released {} cached rendered pages", pageCount);
+            });
         }
+    }
 
-        return result;
+    /**
+     * Configures the style of the view
+     */
+    private void configureStyle() {
+        /* build up the stylesheet for the rendering */
+        styleSheet = editorKit.getStyleSheet();
+        styleSheet.addRule("body { white-space:nowrap; margin:0; padding:0; vertical-align: top;}");
+        styleSheet.addRule("a { text-decoration: none; }");
+    }
+
+    /**
+     * Selects all the items in the view
+     */
+    public void selectAllText() {
+        /* just pass it onto the active view */
+        if (contentView instanceof VirtualLineView) {
+            ((VirtualLineView) contentView).selectAll();
+            contentView.requestFocus();
+        } else if (contentView == null) {
+            viewPane.selectAll();
+            viewPane.requestFocus();
+        }
+    }
+
+    /**
+     * Returns the header icon for the gopher item type
+     *
+     * @param code Code for the gopher item type
+     * @return String with the icon for the item
+     */
+    public String getGopherItemTypeIcon(String code) {
+        return getItemTypeIcon(code);
+    }
+
+    /**
+     * Returns the icon for the gopher item type
+     *
+     * @param code Code for the gopher item type
+     * @return String with the icon for the item
+     */
+    public static String getItemTypeIcon(String code) {
+        return ITEM_TYPE_ICONS.getOrDefault(code, "");
+    }
+
+    /* an image decoded while it is received */
+    private class ImageStream {
+        private final GopherUrl url;
+        private final ProgressiveImageSource source;
+        private final ImageContentView view;
+        private Image image = null;
+        private PageBody body = null;
+        private boolean failed = false;
+
+        ImageStream(GopherUrl imageUrl, ProgressiveImageSource imageSource, ImageContentView imageView) {
+            url = imageUrl;
+            source = imageSource;
+            view = imageView;
+        }
+
+        /* the page arrived, its body owns the decoded image */
+        void adopt(PageBody pageBody) {
+            body = pageBody;
+            if (image != null) {
+                DecodedImageCache.put(body, view.getMaxImageWidth(), image);
+            }
+        }
+
+        /* decoding finished with the complete image */
+        void decoded(Image decodedImage) {
+            image = decodedImage;
+            if (contentView == view) {
+                view.setImage(image);
+            }
+            if (body != null) {
+                DecodedImageCache.put(body, view.getMaxImageWidth(), image);
+            }
+        }
+
+        /* decoding failed, decode the page again once it arrived */
+        void failed() {
+            failed = true;
+            if (body != null && contentView == view) {
+                decodeImage(view, url, body, view.getMaxImageWidth());
+            }
+        }
+    }
+
+    /* the documents of a rendered gopher menu with its items */
+    private static class RenderedPage {
+        private final Document viewDocument;
+        private final Document headerDocument;
+        private final List<GopherItem> itemList;
+
+        RenderedPage(Document view, Document header, List<GopherItem> items) {
+            viewDocument = view;
+            headerDocument = header;
+            itemList = items;
+        }
     }
-}
\ No newline at end of file
+}
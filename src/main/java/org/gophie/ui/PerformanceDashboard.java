@@ -0,0 +1,283 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.ui;
+
+import lombok.extern.slf4j.Slf4j;
+import org.gophie.config.ConfigFile;
+import org.gophie.config.ConfigurationManager;
+import org.gophie.config.ResourceRegistry;
+import org.gophie.monitor.EdtWatchdog;
+import org.gophie.monitor.MemoryPressureMonitor;
+import org.gophie.monitor.MemoryPressureMonitor.MemoryTier;
+import org.gophie.monitor.PerformanceSampler;
+import org.gophie.monitor.PerformanceSampler.Metric;
+import org.gophie.monitor.jfr.RecordingManager;
+import org.gophie.ui.event.ActionButtonEventListener;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Shows sparklines of the heap, garbage collection, threads,
+ * event dispatch latency, connections, throughput and caches
+ * sampled once a second while the window is shown, with actions
+ * to write a flight recording of that time and to drop the caches
+ */
+@Slf4j
+public class PerformanceDashboard implements ActionButtonEventListener {
+    private static final String ACTIONBAR_BACKGROUND = "#248AC2";
+    private static final String ACTIONBAR_TEXTCOLOR = "#ffffff";
+    private static final String ACTIONBAR_INACTIVE_TEXTCOLOR = "#76bce3";
+    private static final Color SPARKLINE_COLOR = new Color(0x248ac2);
+
+    private final JDialog frame;
+    private final List<SparklineChart> chartList = new ArrayList<>();
+    private final JLabel statusLabel = new JLabel();
+    private final Timer refreshTimer;
+    /* result of the latest action shown next to the stalls */
+    private String actionStatus = null;
+
+    public PerformanceDashboard() {
+        ConfigFile configFile = ConfigurationManager.getConfigFile();
+
+        frame = new JDialog();
+        frame.setTitle("Performance");
+        frame.setMinimumSize(new Dimension(560, 400));
+        frame.setLayout(new BorderLayout());
+        frame.setIconImage(ConfigurationManager.getImage("icon.png"));
+
+        JPanel chartPanel = new JPanel(new GridLayout(0, 2, 16, 12));
+        chartPanel.setBorder(new EmptyBorder(12, 16, 12, 16));
+        for (Metric metric : Metric.values()) {
+            SparklineChart chart = new SparklineChart(metric);
+            chartList.add(chart);
+            chartPanel.add(chart);
+        }
+        frame.add(chartPanel, BorderLayout.CENTER);
+
+        ActionButton dumpButton = new ActionButton("", "Dump Recording",
+                configFile.getSetting("ACTIONBAR_TEXTCOLOR", "Appearance", ACTIONBAR_TEXTCOLOR),
+                configFile.getSetting("ACTIONBAR_INACTIVE_TEXTCOLOR", "Appearance", ACTIONBAR_INACTIVE_TEXTCOLOR)
+        );
+        dumpButton.setButtonId(0);
+        dumpButton.addEventListener(this);
+
+        ActionButton dropButton = new ActionButton("", "Drop Caches",
+                configFile.getSetting("ACTIONBAR_TEXTCOLOR", "Appearance", ACTIONBAR_TEXTCOLOR),
+                configFile.getSetting("ACTIONBAR_INACTIVE_TEXTCOLOR", "Appearance", ACTIONBAR_INACTIVE_TEXTCOLOR)
+        );
+        dropButton.setButtonId(1);
+        dropButton.addEventListener(this);
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 16, 0));
+        buttonPanel.setOpaque(false);
+        buttonPanel.add(dumpButton);
+        buttonPanel.add(dropButton);
+
+        statusLabel.setForeground(ResourceRegistry.getColor("ACTIONBAR_TEXTCOLOR", "Appearance", ACTIONBAR_TEXTCOLOR));
+
+        JPanel actionBar = new JPanel(new BorderLayout());
+        actionBar.setBorder(new EmptyBorder(8, 16, 10, 16));
+        actionBar.setBackground(ResourceRegistry.getColor("ACTIONBAR_BACKGROUND", "Appearance", ACTIONBAR_BACKGROUND));
+        actionBar.add(statusLabel, BorderLayout.WEST);
+        actionBar.add(buttonPanel, BorderLayout.EAST);
+        frame.add(actionBar, BorderLayout.SOUTH);
+
+        /* only sample and repaint while the window is shown */
+        refreshTimer = new Timer(PerformanceSampler.SAMPLE_INTERVAL, e -> refresh());
+        frame.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentHidden(ComponentEvent e) {
+                refreshTimer.stop();
+                PerformanceSampler.stop();
+                RecordingManager.stop();
+                actionStatus = null;
+            }
+        });
+    }
+
+    public boolean isVisible() {
+        return frame.isVisible();
+    }
+
+    public void hide() {
+        frame.setVisible(false);
+    }
+
+    public void show(JFrame parent) {
+        PerformanceSampler.start();
+        /* record in the background while the window is shown,
+            starting the flight recorder takes a moment */
+        Thread recordingThread = new Thread(() -> {
+            if (RecordingManager.start() && !frame.isVisible()) {
+                /* closed again before the recorder was up */
+                RecordingManager.stop();
+            }
+        }, "recording-start");
+        recordingThread.setDaemon(true);
+        recordingThread.start();
+        refresh();
+        frame.setSize(new Dimension(720, 520));
+        frame.setLocationRelativeTo(parent);
+        frame.setVisible(true);
+        refreshTimer.start();
+    }
+
+    /**
+     * Repaints the charts with the latest samples
+     */
+    private void refresh() {
+        for (SparklineChart chart : chartList) {
+            chart.refresh();
+        }
+
+        String statusText = EdtWatchdog.getStallCount() + " interface stalls, "
+                + EdtWatchdog.getStallMillis() + " ms stalled";
+        if (actionStatus != null) {
+            statusText += " \u2014 " + actionStatus;
+        }
+        statusLabel.setText(statusText);
+    }
+
+    @Override
+    public void buttonPressed(int buttonId) {
+        if (buttonId == 0) {
+            actionStatus = "Writing flight recording...";
+            runInBackground("recording-dump", () -> {
+                try {
+                    Path target = RecordingManager.dump();
+                    return "Recording written to " + target;
+                } catch (IOException ex) {
+                    log.error("Failed to write the flight recording: {}", ex.getMessage());
+                    return "Failed to write the recording: " + ex.getMessage();
+                }
+            });
+        } else {
+            actionStatus = "Dropping caches...";
+            runInBackground("cache-release", () -> {
+                /* the same release a full heap would trigger */
+                MemoryPressureMonitor.releaseMemory(MemoryTier.PAGE_BODIES);
+                return "Caches dropped";
+            });
+        }
+        refresh();
+    }
+
+    /**
+     * Runs an action off the event dispatch thread
+     * and shows its result once it is done
+     *
+     * @param name   The name of the thread
+     * @param action The action returning the text to show
+     */
+    private void runInBackground(String name, Supplier<String> action) {
+        Thread actionThread = new Thread(() -> {
+            String result = action.get();
+            SwingUtilities.invokeLater(() -> {
+                actionStatus = result;
+                refresh();
+            });
+        }, name);
+        actionThread.setDaemon(true);
+        actionThread.start();
+    }
+
+    /* label, latest value and sparkline of one metric */
+    private static class SparklineChart extends JComponent {
+        private final Metric metric;
+        private final double[] sampleList = new double[PerformanceSampler.SAMPLE_COUNT];
+        private final JLabel titleLabel = new JLabel();
+        private final JLabel valueLabel = new JLabel();
+        private int sampleCount = 0;
+        private double maxValue = 0;
+
+        SparklineChart(Metric chartMetric) {
+            metric = chartMetric;
+            setLayout(new BorderLayout());
+            titleLabel.setText(metric.getLabel());
+            JPanel headerPanel = new JPanel(new BorderLayout());
+            headerPanel.setOpaque(false);
+            headerPanel.add(titleLabel, BorderLayout.WEST);
+            headerPanel.add(valueLabel, BorderLayout.EAST);
+            add(headerPanel, BorderLayout.NORTH);
+            setPreferredSize(new Dimension(320, 70));
+        }
+
+        void refresh() {
+            sampleCount = PerformanceSampler.copySamples(metric, sampleList);
+            maxValue = 0;
+            for (int s = 0; s < sampleCount; s++) {
+                maxValue = Math.max(maxValue, sampleList[s]);
+            }
+
+            double latest = sampleCount > 0 ? sampleList[sampleCount - 1] : 0;
+            valueLabel.setText(formatValue(latest) + " (max " + formatValue(maxValue) + ")");
+            repaint();
+        }
+
+        private String formatValue(double value) {
+            String result = value >= 100 || value == Math.rint(value)
+                    ? String.format("%.0f", value) : String.format("%.1f", value);
+
+            return metric.getUnit().isEmpty() ? result : result + " " + metric.getUnit();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            int top = titleLabel.getHeight() + 4;
+            int height = getHeight() - top - 2;
+            int width = getWidth();
+            if (height <= 0 || width <= 0) {
+                return;
+            }
+
+            g.setColor(UIManager.getColor("Separator.foreground"));
+            g.drawLine(0, top + height, width, top + height);
+            if (sampleCount < 2) {
+                return;
+            }
+
+            /* the newest sample at the right edge, a flat line at the bottom */
+            double step = (double) width / (PerformanceSampler.SAMPLE_COUNT - 1);
+            double scale = maxValue > 0 ? height / maxValue : 0;
+            int[] xPoints = new int[sampleCount];
+            int[] yPoints = new int[sampleCount];
+            int offset = PerformanceSampler.SAMPLE_COUNT - sampleCount;
+            for (int s = 0; s < sampleCount; s++) {
+                xPoints[s] = (int) Math.round((offset + s) * step);
+                yPoints[s] = top + height - (int) Math.round(sampleList[s] * scale);
+            }
+
+            Graphics2D g2 = (Graphics2D) g.create();
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setColor(SPARKLINE_COLOR);
+            g2.setStroke(new BasicStroke(1.5f));
+            g2.drawPolyline(xPoints, yPoints, sampleCount);
+            g2.dispose();
+        }
+    }
+}
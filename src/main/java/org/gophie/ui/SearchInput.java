@@ -18,8 +18,8 @@
 
 package org.gophie.ui;
 
-import org.gophie.config.ConfigFile;
 import org.gophie.config.ConfigurationManager;
+import org.gophie.config.ResourceRegistry;
 import org.gophie.ui.event.SearchInputListener;
 
 import javax.swing.*;
@@ -37,51 +37,36 @@ public class SearchInput extends JPanel {
     JLabel searchIcon;
     JLabel searchTitle;
     JTextField searchText;
+    /* listener of the search currently shown */
+    private SearchInputListener searchListener;
 
     public SearchInput() {
-        /* get the config file */
-        ConfigFile configFile = ConfigurationManager.getConfigFile();
-
         setLayout(new BoxLayout(this, BoxLayout.X_AXIS));
         setBorder(new EmptyBorder(6, 12, 12, 14));
-        setBackground(Color.decode(configFile.getSetting
-                ("SEARCH_BACKGROUND", "Appearance", SEARCH_BACKGROUND)));
+        setBackground(ResourceRegistry.getColor("SEARCH_BACKGROUND", "Appearance", SEARCH_BACKGROUND));
 
         searchIcon = new JLabel("");
         searchIcon.setFont(ConfigurationManager.getIconFont(16f));
         searchIcon.setBorder(new EmptyBorder(0, 0, 0, 8));
-        searchIcon.setForeground(Color.decode(configFile.getSetting
-                ("SEARCH_TITLECOLOR", "Appearance", SEARCH_TITLECOLOR)));
+        searchIcon.setForeground(ResourceRegistry.getColor("SEARCH_TITLECOLOR", "Appearance", SEARCH_TITLECOLOR));
 
         add(searchIcon);
 
         searchTitle = new JLabel("Search");
-        searchTitle.setForeground(Color.decode(configFile.getSetting
-                ("SEARCH_TITLECOLOR", "Appearance", SEARCH_TITLECOLOR)));
+        searchTitle.setForeground(ResourceRegistry.getColor("SEARCH_TITLECOLOR", "Appearance", SEARCH_TITLECOLOR));
 
         searchTitle.setBorder(new EmptyBorder(2, 0, 0, 12));
         add(searchTitle);
 
         searchText = new JTextField();
         searchText.setBorder(new EmptyBorder(2, 0, 0, 0));
-        searchText.setBackground(Color.decode(configFile.getSetting
-                ("SEARCH_BACKGROUND", "Appearance", SEARCH_BACKGROUND)));
+        searchText.setBackground(ResourceRegistry.getColor("SEARCH_BACKGROUND", "Appearance", SEARCH_BACKGROUND));
 
-        searchText.setForeground(Color.decode(configFile.getSetting
-                ("SEARCH_TEXTCOLOR", "Appearance", SEARCH_TEXTCOLOR)));
+        searchText.setForeground(ResourceRegistry.getColor("SEARCH_TEXTCOLOR", "Appearance", SEARCH_TEXTCOLOR));
 
-        searchText.setCaretColor(Color.decode(configFile.getSetting
-                ("SEARCH_TEXTCOLOR", "Appearance", SEARCH_TEXTCOLOR)));
+        searchText.setCaretColor(ResourceRegistry.getColor("SEARCH_TEXTCOLOR", "Appearance", SEARCH_TEXTCOLOR));
 
         searchText.setFont(ConfigurationManager.getDefaultFont(14f));
-        add(searchText);
-
-        setVisible(false);
-    }
-
-    public void performSearch(String title, SearchInputListener listener) {
-        searchTitle.setText(title);
-        searchTitle.setFont(ConfigurationManager.getDefaultFont(14f));
         searchText.addKeyListener(new KeyAdapter() {
             public void keyReleased(KeyEvent e) {
                 /* execute search when the ENTER key is pressed */
@@ -89,8 +74,8 @@ public class SearchInput extends JPanel {
                     JTextField textField = (JTextField) e.getSource();
 
                     /* only execute search when text is not empty */
-                    if (textField.getText().length() > 0) {
-                        listener.searchRequested(textField.getText());
+                    if (textField.getText().length() > 0 && searchListener != null) {
+                        searchListener.searchRequested(textField.getText());
                     }
 
                     setVisible(false);
@@ -102,6 +87,16 @@ public class SearchInput extends JPanel {
                 }
             }
         });
+        add(searchText);
+
+        setVisible(false);
+    }
+
+    public void performSearch(String title, SearchInputListener listener) {
+        searchTitle.setText(title);
+        searchTitle.setFont(ConfigurationManager.getDefaultFont(14f));
+        /* the key listener is added once, only the target changes */
+        searchListener = listener;
         setVisible(true);
         searchText.grabFocus();
     }
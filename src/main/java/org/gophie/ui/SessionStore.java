@@ -0,0 +1,246 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.ui;
+
+import lombok.extern.slf4j.Slf4j;
+import org.gophie.config.ConfigurationManager;
+import org.gophie.net.GopherItem;
+import org.gophie.net.GopherPage;
+import org.gophie.net.GopherUrl;
+import org.gophie.net.PageCache;
+
+import java.awt.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the open tabs with their history and scroll position
+ * in a small binary file. The pages shown are kept on disk by
+ * the page cache, so the next session shows the selected page
+ * right away and only fetches other pages when they are shown.
+ */
+@Slf4j
+class SessionStore {
+    private static final String SESSION_FILENAME = "session.dat";
+    private static final int MAGIC = 0x47505301;
+    private static final int VERSION = 1;
+    /* milliseconds to wait for the session to be written on exit */
+    private static final long EXIT_WRITE_TIMEOUT = 2000;
+
+    private static final ExecutorService storeExecutor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "session-store");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /* content of the file written last, unchanged sessions are not written again */
+    private static byte[] lastSaved = null;
+
+    /**
+     * Writes the tabs in the background, must
+     * be called on the event dispatch thread
+     *
+     * @param tabs          The open tabs in the order they are shown
+     * @param selectedIndex The index of the tab shown
+     */
+    static void save(List<BrowserTab> tabs, int selectedIndex) {
+        write(tabs, selectedIndex);
+    }
+
+    /**
+     * Writes the tabs and waits for them to be written
+     * when the application exits
+     *
+     * @param tabs          The open tabs in the order they are shown
+     * @param selectedIndex The index of the tab shown
+     */
+    static void saveOnExit(List<BrowserTab> tabs, int selectedIndex) {
+        try {
+            for (Future<?> task : write(tabs, selectedIndex)) {
+                task.get(EXIT_WRITE_TIMEOUT, TimeUnit.MILLISECONDS);
+            }
+        } catch (Exception ex) {
+            log.error("Failed to save the session on exit: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Returns whether a session was saved before
+     *
+     * @return true when there is a session to restore, otherwise false
+     */
+    static boolean exists() {
+        return Files.exists(getFile());
+    }
+
+    /**
+     * Opens the tabs of the last session without showing
+     * any of them, their pages are loaded when shown
+     *
+     * @param tabFactory Opens a new empty tab
+     * @return The index of the tab shown last or -1 when none was restored
+     */
+    static int restore(Supplier<BrowserTab> tabFactory) {
+        Path file = getFile();
+        if (!Files.exists(file)) {
+            return -1;
+        }
+
+        /* read everything first, a damaged file opens no tabs at all */
+        List<TabState> stateList = new ArrayList<>();
+        int selectedIndex;
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("Unknown session format");
+            }
+
+            int tabCount = input.readInt();
+            selectedIndex = input.readInt();
+            for (int t = 0; t < tabCount; t++) {
+                TabState state = new TabState();
+                state.historyPosition = input.readInt();
+                int pageCount = input.readInt();
+                for (int p = 0; p < pageCount; p++) {
+                    String url = input.readUTF();
+                    String typeCode = input.readUTF();
+                    state.pages.add(GopherPage.createDescriptor(url,
+                            new GopherItem(typeCode, new GopherUrl(url)).getItemType()));
+                }
+                state.scrollPosition = new Point(input.readInt(), input.readInt());
+                stateList.add(state);
+            }
+        } catch (IOException ex) {
+            log.error("Failed to read the last session: {}", ex.getMessage());
+            return -1;
+        }
+
+        /* tabs that never showed a page are left out */
+        int restoredCount = 0;
+        int result = -1;
+        for (int t = 0; t < stateList.size(); t++) {
+            TabState state = stateList.get(t);
+            if (state.historyPosition >= 0 && state.historyPosition < state.pages.size()) {
+                tabFactory.get().restore(state.pages, state.historyPosition, state.scrollPosition);
+                if (t == selectedIndex || result < 0) {
+                    result = restoredCount;
+                }
+                restoredCount++;
+            }
+        }
+
+        log.info("Restored {} tabs of the last session", restoredCount);
+        return result;
+    }
+
+    /**
+     * Collects the tabs and queues writing them
+     * together with the pages they show
+     *
+     * @param tabs          The open tabs in the order they are shown
+     * @param selectedIndex The index of the tab shown
+     * @return The tasks writing the session and the pages
+     */
+    private static List<Future<?>> write(List<BrowserTab> tabs, int selectedIndex) {
+        List<Future<?>> result = new ArrayList<>();
+        List<String> pageUrls = new ArrayList<>();
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(buffer)) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(tabs.size());
+            output.writeInt(selectedIndex);
+
+            for (BrowserTab tab : tabs) {
+                List<GopherPage> history = tab.getHistory();
+                Point scrollPosition = tab.getScrollPosition();
+
+                output.writeInt(tab.getHistoryPosition());
+                output.writeInt(history.size());
+                for (GopherPage page : history) {
+                    output.writeUTF(page.getUrl().getUrlString());
+                    output.writeUTF(GopherItem.getTypeCode(page.getContentType()));
+                }
+                output.writeInt(scrollPosition.x);
+                output.writeInt(scrollPosition.y);
+
+                if (tab.getHistoryPosition() >= 0) {
+                    pageUrls.add(history.get(tab.getHistoryPosition()).getUrl().getUrlString());
+                }
+            }
+        } catch (IOException ex) {
+            log.error("Failed to collect the session: {}", ex.getMessage());
+            return result;
+        }
+
+        /* the pages shown are needed to start without the network */
+        result.add(PageCache.persist(pageUrls));
+
+        byte[] content = buffer.toByteArray();
+        if (!Arrays.equals(content, lastSaved)) {
+            lastSaved = content;
+            result.add(storeExecutor.submit(() -> writeFile(content)));
+        }
+
+        return result;
+    }
+
+    /**
+     * Replaces the session file with new content
+     *
+     * @param content The content of the session file
+     */
+    private static void writeFile(byte[] content) {
+        /* write to a temp file first, the session is never read half written */
+        Path file = getFile();
+        Path tempFile = file.resolveSibling(SESSION_FILENAME + ".tmp");
+        try {
+            Files.write(tempFile, content);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            log.error("Failed to write the session: {}", ex.getMessage());
+        }
+    }
+
+    private static Path getFile() {
+        return Paths.get(ConfigurationManager.getConfigPath(), SESSION_FILENAME);
+    }
+
+    /* history of a tab read from the session file */
+    private static class TabState {
+        private final List<GopherPage> pages = new ArrayList<>();
+        private int historyPosition;
+        private Point scrollPosition;
+    }
+}
@@ -0,0 +1,232 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.ui;
+
+import org.gophie.io.PageBody;
+
+import javax.swing.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Shows plain text of any size directly from the body of
+ * a page. The offsets of the lines are indexed once in the
+ * background and only lines that become visible are decoded.
+ */
+public class TextContentView extends VirtualLineView {
+    /* constants */
+    private static final long serialVersionUID = 1L;
+    /* lines without a break are split after this many bytes */
+    private static final int MAX_LINE_BYTES = 4096;
+    /* interval for publishing indexed lines to the view */
+    private static final long PUBLISH_INTERVAL = 100;
+
+    /* content of the page and the charset to decode it with */
+    private final ByteBuffer content;
+    private final Charset charset;
+
+    /* start offset of every line followed by the end
+        of the last line, written by the indexing thread */
+    private volatile int[] lineOffsets = new int[1024];
+    private volatile int lineCount = 0;
+    private volatile int maxLineLength = 0;
+    private volatile boolean indexComplete = false;
+    private volatile boolean disposed = false;
+
+    /**
+     * Constructs the view and starts indexing the lines
+     *
+     * @param body        The body of the page with the text
+     * @param textCharset The charset to decode the text with
+     */
+    public TextContentView(PageBody body, Charset textCharset) {
+        content = body.getBuffer();
+        charset = textCharset;
+
+        Thread indexThread = new Thread(this::indexLines, "text-index");
+        indexThread.setDaemon(true);
+        indexThread.setPriority(Thread.NORM_PRIORITY - 1);
+        indexThread.start();
+    }
+
+    /**
+     * Returns whether text in the charset can be split
+     * into lines by looking for single line feed bytes
+     *
+     * @param charset The charset of the text
+     * @return true when the charset is supported, otherwise false
+     */
+    public static boolean isSupportedCharset(Charset charset) {
+        return "\n".getBytes(charset).length == 1
+                && "\n".getBytes(charset)[0] == '\n';
+    }
+
+    /**
+     * Stops indexing when the view is no longer shown
+     */
+    public void dispose() {
+        disposed = true;
+    }
+
+    /**
+     * Returns whether all lines of the text are indexed
+     *
+     * @return true when indexing is complete, otherwise false
+     */
+    public boolean isIndexComplete() {
+        return indexComplete;
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return indexComplete;
+    }
+
+    @Override
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    @Override
+    public String getLineText(int line) {
+        /* read the count first, the array always holds at least as many */
+        if (line < 0 || line >= lineCount) {
+            return "";
+        }
+
+        int[] offsets = lineOffsets;
+        int start = offsets[line];
+        int end = offsets[line + 1];
+
+        /* strip the line break from the end of the line */
+        if (end > start && content.get(end - 1) == '\n') {
+            end--;
+        }
+        if (end > start && content.get(end - 1) == '\r') {
+            end--;
+        }
+
+        return expandTabs(charset.decode(content.slice(start, end - start)).toString());
+    }
+
+    @Override
+    protected int getMaxLineLength() {
+        return maxLineLength;
+    }
+
+    @Override
+    protected boolean isLineBreakAfter(int line) {
+        /* long lines split while indexing are copied as one */
+        int end = lineOffsets[line + 1];
+        return end > 0 && content.get(end - 1) == '\n';
+    }
+
+    /**
+     * Indexes the offsets of all lines, publishing
+     * the lines found so far to the view regularly
+     */
+    private void indexLines() {
+        int size = content.limit();
+        int[] offsets = lineOffsets;
+        int count = 0;
+        int lineStart = 0;
+        int tabCount = 0;
+        int longestLine = 0;
+        long lastPublish = System.currentTimeMillis();
+
+        for (int position = 0; position < size && !disposed; position++) {
+            byte value = content.get(position);
+            int nextStart = -1;
+
+            if (value == '\n') {
+                nextStart = position + 1;
+            } else if (position - lineStart >= MAX_LINE_BYTES && (value & 0xC0) != 0x80) {
+                /* split overlong lines, but never inside a character */
+                nextStart = position;
+            } else if (value == '\t') {
+                tabCount++;
+            }
+
+            if (nextStart >= 0) {
+                /* leave room for the end offset of the last line */
+                if (count + 2 > offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                    lineOffsets = offsets;
+                }
+
+                offsets[count] = lineStart;
+                offsets[count + 1] = nextStart;
+                longestLine = Math.max(longestLine, nextStart - lineStart + tabCount * 7);
+                lineStart = nextStart;
+                tabCount = 0;
+                count++;
+
+                /* the first screen should show up right away */
+                long now = System.currentTimeMillis();
+                if (now - lastPublish > PUBLISH_INTERVAL || count == 100) {
+                    publish(count, longestLine);
+                    lastPublish = now;
+                }
+
+                if (value != '\n') {
+                    /* the byte that was split at starts the next line */
+                    position--;
+                }
+            }
+        }
+
+        if (disposed) {
+            return;
+        }
+
+        /* the last line has no line break */
+        if (lineStart < size) {
+            if (count + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length + 2);
+                lineOffsets = offsets;
+            }
+            offsets[count] = lineStart;
+            offsets[count + 1] = size;
+            longestLine = Math.max(longestLine, size - lineStart + tabCount * 7);
+            count++;
+        }
+
+        /* hide the terminator line of the gopher response */
+        lineCount = count;
+        if (count > 0 && getLineText(count - 1).trim().equals(".")) {
+            count--;
+        }
+
+        indexComplete = true;
+        publish(count, longestLine);
+    }
+
+    /**
+     * Makes the indexed lines visible to the view
+     *
+     * @param count       The number of lines indexed
+     * @param longestLine The length of the longest line
+     */
+    private void publish(int count, int longestLine) {
+        maxLineLength = longestLine;
+        lineCount = count;
+        SwingUtilities.invokeLater(this::contentChanged);
+    }
+}
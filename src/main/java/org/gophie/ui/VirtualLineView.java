@@ -0,0 +1,631 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.ui;
+
+import org.gophie.search.LineSource;
+import org.gophie.ui.util.GuiUtil;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.datatransfer.StringSelection;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Base for views that show content line by line and only
+ * ever lay out and paint the lines inside the visible area.
+ * The cost of painting depends on the size of the viewport,
+ * not on the number of lines. Supports selection with the
+ * mouse, copying, scrolling with the keyboard and
+ * highlighting the occurrences found by a search.
+ */
+public abstract class VirtualLineView extends JComponent implements Scrollable, LineSource {
+    /* constants */
+    private static final long serialVersionUID = 1L;
+    private static final int TAB_SIZE = 8;
+
+    /* space around the content like the editor pane has */
+    private final Insets padding = new Insets(10, 4, 8, 16);
+
+    /* font metrics of the current font */
+    private int rowHeight = 16;
+    private int ascent = 12;
+    private int charWidth = 8;
+
+    /* selection as anchor and caret position in line and column */
+    private int anchorLine = -1;
+    private int anchorColumn = 0;
+    private int caretLine = -1;
+    private int caretColumn = 0;
+
+    /* occurrences of a search as line, start column and end column */
+    private int[] highlightLines = new int[0];
+    private int[] highlightStarts = new int[0];
+    private int[] highlightEnds = new int[0];
+    private int currentHighlight = -1;
+
+    /**
+     * Constructs the view and installs the mouse and keyboard handling
+     */
+    public VirtualLineView() {
+        setOpaque(true);
+        setFocusable(true);
+        setAutoscrolls(true);
+        setCursor(new Cursor(Cursor.TEXT_CURSOR));
+        setBackground(UIManager.getColor("EditorPane.background"));
+        setForeground(UIManager.getColor("EditorPane.foreground"));
+
+        MouseAdapter selectionHandler = new MouseAdapter() {
+            public void mousePressed(MouseEvent evt) {
+                requestFocusInWindow();
+                if (SwingUtilities.isLeftMouseButton(evt) && getLineCount() > 0) {
+                    int line = getLineAt(evt.getY());
+                    int column = getColumnAt(line, evt.getX());
+                    if (!evt.isShiftDown() || anchorLine < 0) {
+                        anchorLine = line;
+                        anchorColumn = column;
+                    }
+                    caretLine = line;
+                    caretColumn = column;
+                    repaint();
+                }
+            }
+
+            public void mouseDragged(MouseEvent evt) {
+                if (SwingUtilities.isLeftMouseButton(evt) && anchorLine >= 0) {
+                    caretLine = getLineAt(evt.getY());
+                    caretColumn = getColumnAt(caretLine, evt.getX());
+                    scrollRectToVisible(new Rectangle(evt.getX(), evt.getY(), 1, 1));
+                    repaint();
+                }
+            }
+        };
+        addMouseListener(selectionHandler);
+        addMouseMotionListener(selectionHandler);
+
+        /* copy and select all with the platform's shortcut key */
+        int shortcutMask = Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx();
+        bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_C, shortcutMask), "copy", this::copySelection);
+        bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_A, shortcutMask), "select-all", this::selectAll);
+
+        /* scrolling through the content */
+        bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_UP, 0), "line-up", () -> scrollByRows(-1));
+        bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, 0), "line-down", () -> scrollByRows(1));
+        bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_PAGE_UP, 0), "page-up", () -> scrollByRows(-getVisibleRowCount()));
+        bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_PAGE_DOWN, 0), "page-down", () -> scrollByRows(getVisibleRowCount()));
+        bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_HOME, 0), "first-line", () -> scrollToLine(0));
+        bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_END, 0), "last-line", () -> scrollToLine(getLineCount() - 1));
+    }
+
+    /**
+     * Returns the number of lines of the content
+     *
+     * @return The number of lines
+     */
+    @Override
+    public abstract int getLineCount();
+
+    /**
+     * Returns the text of a line as it is displayed
+     *
+     * @param line The index of the line
+     * @return The text of the line without line break
+     */
+    @Override
+    public abstract String getLineText(int line);
+
+    /**
+     * Returns the length of the longest line in characters,
+     * an estimate is fine as it only sizes the scroll area
+     *
+     * @return The number of characters of the longest line
+     */
+    protected abstract int getMaxLineLength();
+
+    /**
+     * Returns whether a line break follows the line
+     * when the text is copied to the clipboard
+     *
+     * @param line The index of the line
+     * @return true when a line break follows, otherwise false
+     */
+    protected boolean isLineBreakAfter(int line) {
+        return true;
+    }
+
+    @Override
+    public void setFont(Font font) {
+        super.setFont(font);
+
+        if (font != null) {
+            FontMetrics metrics = getFontMetrics(font);
+            rowHeight = Math.max(1, metrics.getHeight());
+            ascent = metrics.getAscent();
+            charWidth = Math.max(1, metrics.charWidth('0'));
+        }
+
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Returns the height of a single line
+     *
+     * @return The line height in pixels
+     */
+    public int getRowHeight() {
+        return rowHeight;
+    }
+
+    /**
+     * Returns the space above the first line
+     *
+     * @return The top padding in pixels
+     */
+    public int getTopPadding() {
+        return padding.top;
+    }
+
+    /**
+     * Returns the space left of the text
+     *
+     * @return The left padding in pixels
+     */
+    public int getLeftPadding() {
+        return padding.left;
+    }
+
+    /**
+     * Returns the line at the provided vertical position
+     *
+     * @param y The vertical position in the view
+     * @return The index of the line at the position
+     */
+    public int getLineAt(int y) {
+        int line = (y - padding.top) / rowHeight;
+        return Math.max(0, Math.min(getLineCount() - 1, line));
+    }
+
+    /**
+     * Returns the bounds of a line in the view
+     *
+     * @param line The index of the line
+     * @return The rectangle the line occupies
+     */
+    public Rectangle getLineBounds(int line) {
+        return new Rectangle(0, padding.top + line * rowHeight, getWidth(), rowHeight);
+    }
+
+    /**
+     * Scrolls the view so that the line is visible
+     *
+     * @param line The index of the line
+     */
+    public void scrollToLine(int line) {
+        if (line >= 0 && line < getLineCount()) {
+            Rectangle bounds = getLineBounds(line);
+            Rectangle visible = getVisibleRect();
+            bounds.x = visible.x;
+            bounds.width = visible.width;
+            scrollRectToVisible(bounds);
+        }
+    }
+
+    /**
+     * Selects the entire content of the view
+     */
+    public void selectAll() {
+        int lineCount = getLineCount();
+        if (lineCount > 0) {
+            anchorLine = 0;
+            anchorColumn = 0;
+            caretLine = lineCount - 1;
+            caretColumn = getLineText(caretLine).length();
+            repaint();
+        }
+    }
+
+    /**
+     * Removes the current selection
+     */
+    public void clearSelection() {
+        anchorLine = -1;
+        caretLine = -1;
+        repaint();
+    }
+
+    /**
+     * Returns the selected text, only lines within the
+     * selection are decoded so it works for any size
+     *
+     * @return The selected text or null without selection
+     */
+    public String getSelectedText() {
+        if (!hasSelection()) {
+            return null;
+        }
+
+        int[] range = getSelectionRange();
+        StringBuilder result = new StringBuilder();
+        for (int line = range[0]; line <= range[2]; line++) {
+            String text = getLineText(line);
+            int start = (line == range[0]) ? Math.min(range[1], text.length()) : 0;
+            int end = (line == range[2]) ? Math.min(range[3], text.length()) : text.length();
+            result.append(text, start, Math.max(start, end));
+            if (line < range[2] && isLineBreakAfter(line)) {
+                result.append('\n');
+            }
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * Returns whether any text is selected
+     *
+     * @return true when text is selected, otherwise false
+     */
+    public boolean hasSelection() {
+        return anchorLine >= 0 && caretLine >= 0
+                && (anchorLine != caretLine || anchorColumn != caretColumn);
+    }
+
+    /**
+     * Highlights the occurrences found by a search
+     *
+     * @param lines  The line of every occurrence in ascending order
+     * @param starts The start column of every occurrence
+     * @param ends   The end column of every occurrence
+     */
+    public void setHighlights(int[] lines, int[] starts, int[] ends) {
+        highlightLines = lines;
+        highlightStarts = starts;
+        highlightEnds = ends;
+        currentHighlight = -1;
+        repaint();
+    }
+
+    /**
+     * Marks one of the highlighted occurrences as the current
+     * one and scrolls it into view, no layout is involved
+     *
+     * @param index The index of the occurrence or -1 for none
+     */
+    public void setCurrentHighlight(int index) {
+        if (currentHighlight >= 0 && currentHighlight < highlightLines.length) {
+            repaint(getLineBounds(highlightLines[currentHighlight]));
+        }
+
+        currentHighlight = index;
+        if (index >= 0 && index < highlightLines.length) {
+            int line = highlightLines[index];
+            String text = getLineText(line);
+            FontMetrics metrics = getFontMetrics(getFont());
+            Rectangle bounds = getLineBounds(line);
+            bounds.x = padding.left + metrics.stringWidth(text.substring(0, Math.min(highlightStarts[index], text.length())));
+            bounds.width = Math.max(charWidth, metrics.stringWidth(text.substring(
+                    Math.min(highlightStarts[index], text.length()), Math.min(highlightEnds[index], text.length()))));
+            scrollRectToVisible(bounds);
+            repaint(getLineBounds(line));
+        }
+    }
+
+    /**
+     * Notifies the view that lines were added or changed,
+     * the scroll area is resized and the view repainted
+     */
+    public void contentChanged() {
+        revalidate();
+        repaint();
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        int width = padding.left + getMaxLineLength() * charWidth + padding.right;
+        long height = padding.top + (long) getLineCount() * rowHeight + padding.bottom;
+        return new Dimension(width, (int) Math.min(Integer.MAX_VALUE, height));
+    }
+
+    @Override
+    protected void paintComponent(Graphics graphics) {
+        Graphics2D g = (Graphics2D) graphics.create();
+        try {
+            /* use the same text rendering as the rest of the desktop */
+            Object hints = Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
+            if (hints instanceof Map) {
+                g.addRenderingHints((Map<?, ?>) hints);
+            }
+
+            Rectangle clip = g.getClipBounds();
+            if (clip == null) {
+                clip = new Rectangle(0, 0, getWidth(), getHeight());
+            }
+            g.setColor(getBackground());
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+            g.setFont(getFont());
+
+            /* only lines inside the clip are ever touched */
+            int lineCount = getLineCount();
+            int firstLine = Math.max(0, (clip.y - padding.top) / rowHeight);
+            int lastLine = Math.min(lineCount - 1, (clip.y + clip.height - padding.top) / rowHeight);
+            int[] range = hasSelection() ? getSelectionRange() : null;
+
+            for (int line = firstLine; line <= lastLine; line++) {
+                String text = getLineText(line);
+                int top = padding.top + line * rowHeight;
+
+                paintLineBackground(g, line, text, padding.left, top);
+                paintHighlights(g, line, text, top);
+                if (range != null && line >= range[0] && line <= range[2]) {
+                    paintSelection(g, line, text, top, range);
+                }
+                paintLine(g, line, text, padding.left, top + ascent);
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Paints the background of a line, called before
+     * the selection and the text of the line are painted
+     *
+     * @param g    The graphics to paint with
+     * @param line The index of the line
+     * @param text The text of the line
+     * @param x    The horizontal start of the text
+     * @param top  The top of the line
+     */
+    protected void paintLineBackground(Graphics2D g, int line, String text, int x, int top) {
+        /* plain lines have no background of their own */
+    }
+
+    /**
+     * Paints the text of a line
+     *
+     * @param g        The graphics to paint with
+     * @param line     The index of the line
+     * @param text     The text of the line
+     * @param x        The horizontal start of the text
+     * @param baseline The baseline of the text
+     */
+    protected void paintLine(Graphics2D g, int line, String text, int x, int baseline) {
+        g.setColor(getForeground());
+        g.drawString(text, x, baseline);
+    }
+
+    /**
+     * Paints a highlight behind a range of columns of a line
+     *
+     * @param g           The graphics to paint with
+     * @param text        The text of the line
+     * @param top         The top of the line
+     * @param startColumn The first column of the range
+     * @param endColumn   The column after the range
+     * @param color       The color of the highlight
+     */
+    protected void paintColumnRange(Graphics2D g, String text, int top,
+                                    int startColumn, int endColumn, Color color) {
+        FontMetrics metrics = g.getFontMetrics();
+        int start = Math.min(startColumn, text.length());
+        int end = Math.min(endColumn, text.length());
+        int startX = padding.left + metrics.stringWidth(text.substring(0, start));
+        int endX = padding.left + metrics.stringWidth(text.substring(0, end));
+        if (endColumn > text.length()) {
+            /* the selection continues with the line break */
+            endX += charWidth;
+        }
+
+        g.setColor(color);
+        g.fillRect(startX, top, Math.max(0, endX - startX), rowHeight);
+    }
+
+    /**
+     * Expands tab characters to spaces so that
+     * columns match what is painted
+     *
+     * @param text The text with tabs
+     * @return The text with tabs expanded
+     */
+    public static String expandTabs(String text) {
+        if (text.indexOf('\t') < 0) {
+            return text;
+        }
+
+        StringBuilder result = new StringBuilder(text.length() + TAB_SIZE);
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            if (character == '\t') {
+                int spaceCount = TAB_SIZE - (result.length() % TAB_SIZE);
+                for (int s = 0; s < spaceCount; s++) {
+                    result.append(' ');
+                }
+            } else {
+                result.append(character);
+            }
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * Binds a key stroke to an action of this view
+     *
+     * @param keyStroke The key stroke to bind
+     * @param name      The name of the action
+     * @param action    The action to execute
+     */
+    protected void bindKey(KeyStroke keyStroke, String name, Runnable action) {
+        getInputMap(WHEN_FOCUSED).put(keyStroke, name);
+        getActionMap().put(name, new AbstractAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Returns the number of lines that fit into the visible area
+     *
+     * @return The number of visible lines
+     */
+    protected int getVisibleRowCount() {
+        return Math.max(1, getVisibleRect().height / rowHeight - 1);
+    }
+
+    /**
+     * Scrolls the view by a number of lines
+     *
+     * @param rowCount Lines to scroll, negative scrolls up
+     */
+    protected void scrollByRows(int rowCount) {
+        Rectangle visible = getVisibleRect();
+        visible.y = Math.max(0, visible.y + rowCount * rowHeight);
+        scrollRectToVisible(visible);
+    }
+
+    /**
+     * Copies the selected text to the clipboard
+     */
+    private void copySelection() {
+        String text = getSelectedText();
+        if (text != null) {
+            Toolkit.getDefaultToolkit().getSystemClipboard()
+                    .setContents(new StringSelection(text), null);
+        }
+    }
+
+    /**
+     * Paints the selection highlight of a line
+     *
+     * @param g     The graphics to paint with
+     * @param line  The index of the line
+     * @param text  The text of the line
+     * @param top   The top of the line
+     * @param range The selection range
+     */
+    private void paintSelection(Graphics2D g, int line, String text, int top, int[] range) {
+        int start = (line == range[0]) ? range[1] : 0;
+        int end = (line == range[2]) ? range[3] : text.length() + 1;
+        paintColumnRange(g, text, top, start, end, UIManager.getColor("EditorPane.selectionBackground"));
+    }
+
+    /**
+     * Paints the occurrences of a search within a line
+     *
+     * @param g    The graphics to paint with
+     * @param line The index of the line
+     * @param text The text of the line
+     * @param top  The top of the line
+     */
+    private void paintHighlights(Graphics2D g, int line, String text, int top) {
+        int index = Arrays.binarySearch(highlightLines, line);
+        if (index < 0) {
+            return;
+        }
+
+        /* move back to the first occurrence in the line */
+        while (index > 0 && highlightLines[index - 1] == line) {
+            index--;
+        }
+
+        for (; index < highlightLines.length && highlightLines[index] == line; index++) {
+            Color color = (index == currentHighlight)
+                    ? GuiUtil.getCurrentSearchMatchColor() : GuiUtil.getSearchMatchColor();
+            paintColumnRange(g, text, top, highlightStarts[index], highlightEnds[index], color);
+        }
+    }
+
+    /**
+     * Returns the column at the horizontal position of a line
+     *
+     * @param line The index of the line
+     * @param x    The horizontal position in the view
+     * @return The column closest to the position
+     */
+    private int getColumnAt(int line, int x) {
+        String text = getLineText(line);
+        FontMetrics metrics = getFontMetrics(getFont());
+
+        int position = padding.left;
+        for (int column = 0; column < text.length(); column++) {
+            int width = metrics.charWidth(text.charAt(column));
+            if (x < position + width / 2) {
+                return column;
+            }
+            position += width;
+        }
+
+        return text.length();
+    }
+
+    /**
+     * Returns the selection ordered from start to end
+     *
+     * @return Array with start line, start column, end line and end column
+     */
+    private int[] getSelectionRange() {
+        boolean anchorFirst = anchorLine < caretLine
+                || (anchorLine == caretLine && anchorColumn <= caretColumn);
+        if (anchorFirst) {
+            return new int[]{anchorLine, anchorColumn, caretLine, caretColumn};
+        }
+
+        return new int[]{caretLine, caretColumn, anchorLine, anchorColumn};
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? rowHeight : charWidth;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        if (orientation == SwingConstants.VERTICAL) {
+            return Math.max(rowHeight, visibleRect.height - rowHeight);
+        }
+
+        return Math.max(charWidth, visibleRect.width - charWidth);
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        /* fill the viewport when the content is narrower */
+        return getParent() instanceof JViewport
+                && getParent().getWidth() > getPreferredSize().width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return getParent() instanceof JViewport
+                && getParent().getHeight() > getPreferredSize().height;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.ui.event;
+
+import org.gophie.net.GopherItem.GopherItemType;
+import org.gophie.net.GopherUrl;
+import org.gophie.net.event.GopherError;
+import org.gophie.ui.BrowserTab;
+
+/*
+    Listener for the events of a browser tab,
+    always called on the event dispatch thread
+*/
+public interface BrowserTabListener {
+    /* address, loading state or history changed */
+    void tabStateChanged(BrowserTab tab);
+
+    /* more of the page was received */
+    void tabProgress(BrowserTab tab);
+
+    void tabLoadFailed(BrowserTab tab, GopherError error, GopherUrl url);
+
+    void tabItemMismatch(BrowserTab tab, GopherItemType detected, GopherUrl url);
+}
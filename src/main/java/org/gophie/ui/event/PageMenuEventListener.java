@@ -29,4 +29,8 @@ public interface PageMenuEventListener {
     void pageSaveRequested(GopherPage page);
 
     void selectAllTextRequested();
+
+    void galleryRequested(GopherPage page, boolean enabled);
+
+    void linkTabRequested(GopherItem item);
 }
\ No newline at end of file
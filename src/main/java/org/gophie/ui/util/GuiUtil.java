@@ -1,34 +1,34 @@
 package org.gophie.ui.util;
 
 import com.formdev.flatlaf.FlatLaf;
-import com.formdev.flatlaf.IntelliJTheme;
 import com.formdev.flatlaf.extras.FlatAnimatedLafChange;
 import com.formdev.flatlaf.extras.FlatSVGUtils;
-import com.formdev.flatlaf.intellijthemes.*;
-import com.formdev.flatlaf.intellijthemes.materialthemeuilite.FlatMaterialDarkerContrastIJTheme;
-import com.formdev.flatlaf.intellijthemes.materialthemeuilite.FlatMaterialOceanicIJTheme;
-import com.formdev.flatlaf.intellijthemes.materialthemeuilite.FlatNightOwlContrastIJTheme;
 import lombok.extern.slf4j.Slf4j;
+import org.gophie.config.ResourceRegistry;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.prefs.Preferences;
 
 @Slf4j
 public final class GuiUtil {
 
     public static final String APPLICATION_NAME = "Gophie";
     public static final String DEFAULT_THEME = "Material Darker Contrast";
-    private static final String NAMESPACE = "org.gophie.Gophie";
     private static final int DEFAULT_FONT_SIZE = 18;
+    private static final Color SEARCH_MATCH_COLOR = new Color(0xcf, 0x9a, 0x0c, 0x60);
+    private static final Color CURRENT_SEARCH_MATCH_COLOR = new Color(0xcf, 0x9a, 0x0c, 0xd0);
+    private static final String THEME_PACKAGE = "com.formdev.flatlaf.intellijthemes.";
+    private static final String MATERIAL_THEME_PACKAGE = THEME_PACKAGE + "materialthemeuilite.";
 
-    private static final Preferences prefs;
-    private static final Map<String, Class<? extends IntelliJTheme.ThemeLaf>> themeMap;
+    /* theme classes by name, only the theme in use is loaded */
+    private static final Map<String, String> themeMap;
     private static final String[] themeNames;
     private static final Image trayIconImage;
 
@@ -40,19 +40,17 @@ public final class GuiUtil {
     private static final String PROPERTY_WINDOW_Y = "windowY";
 
     static {
-        prefs = Preferences.userRoot().node(NAMESPACE);
-
         themeMap = new HashMap<>();
-        themeMap.put("Nord", FlatNordIJTheme.class);
-        themeMap.put("Material Dark", FlatMaterialDesignDarkIJTheme.class);
-        themeMap.put("Arc Dark Orange", FlatArcDarkOrangeIJTheme.class);
-        themeMap.put("Spacegray", FlatSpacegrayIJTheme.class);
-        themeMap.put("Night Owl", FlatNightOwlContrastIJTheme.class);
-        themeMap.put("Material Oceanic", FlatMaterialOceanicIJTheme.class);
-        themeMap.put("XCode Dark", FlatXcodeDarkIJTheme.class);
-        themeMap.put("Monokai Pro", FlatMonokaiProIJTheme.class);
-        themeMap.put("High Contrast", FlatHighContrastIJTheme.class);
-        themeMap.put("Material Darker Contrast", FlatMaterialDarkerContrastIJTheme.class);
+        themeMap.put("Nord", THEME_PACKAGE + "FlatNordIJTheme");
+        themeMap.put("Material Dark", THEME_PACKAGE + "FlatMaterialDesignDarkIJTheme");
+        themeMap.put("Arc Dark Orange", THEME_PACKAGE + "FlatArcDarkOrangeIJTheme");
+        themeMap.put("Spacegray", THEME_PACKAGE + "FlatSpacegrayIJTheme");
+        themeMap.put("Night Owl", MATERIAL_THEME_PACKAGE + "FlatNightOwlContrastIJTheme");
+        themeMap.put("Material Oceanic", MATERIAL_THEME_PACKAGE + "FlatMaterialOceanicIJTheme");
+        themeMap.put("XCode Dark", THEME_PACKAGE + "FlatXcodeDarkIJTheme");
+        themeMap.put("Monokai Pro", THEME_PACKAGE + "FlatMonokaiProIJTheme");
+        themeMap.put("High Contrast", THEME_PACKAGE + "FlatHighContrastIJTheme");
+        themeMap.put("Material Darker Contrast", MATERIAL_THEME_PACKAGE + "FlatMaterialDarkerContrastIJTheme");
 
         themeNames = themeMap.keySet().toArray(new String[0]);
         Arrays.sort(themeNames);
@@ -85,6 +83,14 @@ public final class GuiUtil {
             }
         });
 
+        /* write the state changed last before the application exits */
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                UiStateStore.flush();
+            }
+        });
+
         if (getSavedWindowX() < 0) {
             frame.setLocationRelativeTo(null);
         } else {
@@ -136,15 +142,16 @@ public final class GuiUtil {
 
     private static Font getSavedFont() {
         Font font = UIManager.getFont("defaultFont");
-        return font.deriveFont((float) prefs.getInt(PROPERTY_FONT_SIZE, DEFAULT_FONT_SIZE));
+        return font.deriveFont((float) UiStateStore.getInt(PROPERTY_FONT_SIZE, DEFAULT_FONT_SIZE));
     }
 
 
     private static void setGlobalFontSizeOffset(int offSet) {
         Font newFont = getDefaultFontWithSizeOffset(offSet);
         UIManager.put("defaultFont", newFont);
+        ResourceRegistry.invalidate();
         FlatLaf.updateUI();
-        prefs.putInt(PROPERTY_FONT_SIZE, newFont.getSize());
+        UiStateStore.putInt(PROPERTY_FONT_SIZE, newFont.getSize());
     }
 
     private static Font getDefaultFontWithSizeOffset(int offSet) {
@@ -154,12 +161,26 @@ public final class GuiUtil {
 
     /* THEME UTILITIES */
 
+    /** Loads the classes of the saved theme in the background before the window needs them. */
+    public static void preloadTheme() {
+        String className = themeMap.getOrDefault(getCurrentTheme(), themeMap.get(DEFAULT_THEME));
+        Thread themeThread = new Thread(() -> {
+            try {
+                Class.forName(className);
+            } catch (ClassNotFoundException e) {
+                log.error("theme class not found: {}", className);
+            }
+        }, "theme-loader");
+        themeThread.setDaemon(true);
+        themeThread.start();
+    }
+
     public static String[] getThemeNames() {
         return themeNames;
     }
 
     public static String getCurrentTheme() {
-        return prefs.get(PROPERTY_THEME_NAME, DEFAULT_THEME);
+        return UiStateStore.get(PROPERTY_THEME_NAME, DEFAULT_THEME);
     }
 
     public static void updateTheme(String themeName) {
@@ -169,14 +190,31 @@ public final class GuiUtil {
         }
         FlatAnimatedLafChange.showSnapshot();
         swapTheme(themeName);
+        ResourceRegistry.invalidate();
         FlatLaf.updateUI();
         FlatAnimatedLafChange.hideSnapshotWithAnimation();
-        prefs.put(PROPERTY_THEME_NAME, themeName);
+        UiStateStore.put(PROPERTY_THEME_NAME, themeName);
+    }
+
+    /* color of links in pages, taken from the current theme */
+    public static Color getLinkColor() {
+        Color linkColor = UIManager.getColor("Component.linkColor");
+        return linkColor != null ? linkColor : new Color(0x22c75c);
+    }
+
+    /* color behind occurrences found by find in page */
+    public static Color getSearchMatchColor() {
+        return SEARCH_MATCH_COLOR;
+    }
+
+    /* color behind the occurrence find in page moved to */
+    public static Color getCurrentSearchMatchColor() {
+        return CURRENT_SEARCH_MATCH_COLOR;
     }
 
     private static void swapTheme(String themeName) {
         try {
-            themeMap.get(themeName).getDeclaredMethod("setup").invoke(null);
+            Class.forName(themeMap.get(themeName)).getDeclaredMethod("setup").invoke(null);
         } catch (Exception e) {
             log.error("well that didn't work: {}", e.getMessage());
         }
@@ -185,39 +223,39 @@ public final class GuiUtil {
     /* MAIN WINDOW SIZE UTILITIES */
 
     public static float getGlobalFontSize() {
-        return prefs.getFloat(PROPERTY_FONT_SIZE, 18f);
+        return UiStateStore.getFloat(PROPERTY_FONT_SIZE, 18f);
     }
 
     public static int getSavedWindowWidth() {
-        return prefs.getInt(PROPERTY_WINDOW_WIDTH, 800);
+        return UiStateStore.getInt(PROPERTY_WINDOW_WIDTH, 800);
     }
 
     public static void saveWindowWidth(int width) {
-        prefs.putInt(PROPERTY_WINDOW_WIDTH, width);
+        UiStateStore.putInt(PROPERTY_WINDOW_WIDTH, width);
     }
 
     public static int getSavedWindowHeight() {
-        return prefs.getInt(PROPERTY_WINDOW_HEIGHT, 600);
+        return UiStateStore.getInt(PROPERTY_WINDOW_HEIGHT, 600);
     }
 
     public static void saveWindowHeight(int height) {
-        prefs.putInt(PROPERTY_WINDOW_HEIGHT, height);
+        UiStateStore.putInt(PROPERTY_WINDOW_HEIGHT, height);
     }
 
     public static int getSavedWindowX() {
-        return prefs.getInt(PROPERTY_WINDOW_X, -1);
+        return UiStateStore.getInt(PROPERTY_WINDOW_X, -1);
     }
 
     public static void saveWindowX(int x) {
-        prefs.putInt(PROPERTY_WINDOW_X, x);
+        UiStateStore.putInt(PROPERTY_WINDOW_X, x);
     }
 
     public static int getSavedWindowY() {
-        return prefs.getInt(PROPERTY_WINDOW_Y, -1);
+        return UiStateStore.getInt(PROPERTY_WINDOW_Y, -1);
     }
 
     public static void saveWindowY(int y) {
-        prefs.putInt(PROPERTY_WINDOW_Y, y);
+        UiStateStore.putInt(PROPERTY_WINDOW_Y, y);
     }
 
 }
@@ -0,0 +1,141 @@
+/*
+    This file is part of Gophie.
+
+    Gophie is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Gophie is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Gophie. If not, see <https://www.gnu.org/licenses/>.
+
+*/
+
+package org.gophie.ui.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+/**
+ * Keeps the state of the user interface such as window geometry,
+ * font size and theme in the user preferences. Changes are held
+ * in memory and written in one batch once no change was made for
+ * a moment, so dragging the window does not write on every event.
+ */
+@Slf4j
+public final class UiStateStore {
+    private static final String NAMESPACE = "org.gophie.Gophie";
+    /* milliseconds without changes before they are written */
+    private static final long QUIET_PERIOD = 1000;
+
+    private static final Preferences prefs = Preferences.userRoot().node(NAMESPACE);
+    private static final ScheduledExecutorService writeExecutor = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "ui-state-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /* values changed since the last write by key */
+    private static final Map<String, String> pendingMap = new LinkedHashMap<>();
+    private static ScheduledFuture<?> pendingWrite = null;
+
+    private UiStateStore() {}
+
+    /**
+     * Returns a value, including changes not written yet
+     *
+     * @param key          The key of the value
+     * @param defaultValue The value returned when none is stored
+     * @return The stored value or the default value
+     */
+    public static String get(String key, String defaultValue) {
+        synchronized (pendingMap) {
+            String pending = pendingMap.get(key);
+            if (pending != null) {
+                return pending;
+            }
+        }
+
+        return prefs.get(key, defaultValue);
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(get(key, Integer.toString(defaultValue)));
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    public static float getFloat(String key, float defaultValue) {
+        try {
+            return Float.parseFloat(get(key, Float.toString(defaultValue)));
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Changes a value, it is written once
+     * no more changes were made for a moment
+     *
+     * @param key   The key of the value
+     * @param value The new value
+     */
+    public static void put(String key, String value) {
+        synchronized (pendingMap) {
+            pendingMap.put(key, value);
+            if (pendingWrite != null) {
+                pendingWrite.cancel(false);
+            }
+            pendingWrite = writeExecutor.schedule(UiStateStore::flush, QUIET_PERIOD, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public static void putInt(String key, int value) {
+        put(key, Integer.toString(value));
+    }
+
+    public static void putFloat(String key, float value) {
+        put(key, Float.toString(value));
+    }
+
+    /**
+     * Writes all pending changes to the preferences right
+     * away, called when the quiet period ended and on exit
+     */
+    public static void flush() {
+        Map<String, String> changes;
+        synchronized (pendingMap) {
+            if (pendingMap.isEmpty()) {
+                return;
+            }
+            changes = new LinkedHashMap<>(pendingMap);
+            pendingMap.clear();
+            if (pendingWrite != null) {
+                pendingWrite.cancel(false);
+                pendingWrite = null;
+            }
+        }
+
+        changes.forEach(prefs::put);
+        try {
+            prefs.flush();
+        } catch (BackingStoreException ex) {
+            log.error("Failed to write the interface state: {}", ex.getMessage());
+        }
+    }
+}